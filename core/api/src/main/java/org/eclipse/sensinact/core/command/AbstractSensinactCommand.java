@@ -42,6 +42,50 @@ public abstract class AbstractSensinactCommand<T> {
     protected abstract Promise<T> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
             PromiseFactory promiseFactory);
 
+    /**
+     * Returns the name of the only provider touched by this command, if known.
+     *
+     * When the gateway runs in partitioned mode, commands declaring a target
+     * provider are executed by the partition owning that provider, strictly
+     * ordered with the other commands for the same provider and in parallel with
+     * commands for other providers. Such commands must only read or update the
+     * given provider: they must not change the model definitions, create or
+     * delete providers, nor link providers together. Commands targeting a
+     * provider which doesn't exist yet are executed with exclusive access.
+     *
+     * Commands returning <code>null</code> (the default) are executed with
+     * exclusive access to the whole twin.
+     *
+     * @return the target provider name, or <code>null</code> if the command may
+     *         touch more than one provider
+     */
+    public String getTargetProvider() {
+        return null;
+    }
+
+    /**
+     * Indicates if this command only pushes updates replaced by those of the
+     * given command, submitted later. An overloaded gateway configured to drop
+     * the oldest updates can then drop this command to make room for the given
+     * one.
+     *
+     * @param command a command submitted after this one
+     * @return true if the given command supersedes this one, false by default
+     */
+    public boolean isSupersededBy(AbstractSensinactCommand<?> command) {
+        return false;
+    }
+
+    /**
+     * Indicates the priority class of this command. When both are waiting, the
+     * gateway thread runs interactive commands more often than bulk ones.
+     *
+     * @return the priority class of the command, interactive by default
+     */
+    public CommandPriority getPriority() {
+        return CommandPriority.INTERACTIVE;
+    }
+
     protected static <R> Promise<R> safeCall(AbstractSensinactCommand<R> command, SensinactDigitalTwin twin,
             SensinactModelManager modelMgr, PromiseFactory pf) {
         try {
@@ -0,0 +1,33 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command;
+
+/**
+ * Priority classes of the commands executed by the gateway thread. Each class
+ * has its own queue, so that bursts of low priority commands do not delay the
+ * others.
+ */
+public enum CommandPriority {
+
+    /**
+     * Default class, for reads and actions whose caller is waiting for the
+     * result
+     */
+    INTERACTIVE,
+
+    /**
+     * Class of the bulk commands, such as the data updates pushed by the
+     * southbound providers
+     */
+    BULK,
+}
@@ -0,0 +1,27 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command;
+
+/**
+ * Indicates that a command was not executed because the gateway has no
+ * capacity left to queue it. Unlike other failures, the command may succeed if
+ * submitted again later: callers should slow down rather than give up.
+ */
+public class GatewayOverloadedException extends IllegalStateException {
+
+    private static final long serialVersionUID = -2938021658253416447L;
+
+    public GatewayOverloadedException(String message) {
+        super(message);
+    }
+}
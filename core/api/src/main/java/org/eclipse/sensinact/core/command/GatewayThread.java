@@ -12,6 +12,7 @@
 **********************************************************************/
 package org.eclipse.sensinact.core.command;
 
+import org.eclipse.sensinact.core.twin.SensinactTwinView;
 import org.osgi.util.promise.Promise;
 import org.osgi.util.promise.PromiseFactory;
 
@@ -19,8 +20,50 @@ public interface GatewayThread {
 
     public PromiseFactory getPromiseFactory();
 
+    /**
+     * Queues the command for execution. If the gateway queue is full then the
+     * configured overflow policy applies: the returned promise may fail with a
+     * {@link GatewayOverloadedException}, a queued command superseded by this one
+     * may be discarded, or the caller may block until there is capacity. This
+     * method doesn't throw when the command can't be queued.
+     *
+     * @param <T>     the command result type
+     * @param command the command to execute
+     * @return the promise of the command result
+     */
     public <T> Promise<T> execute(AbstractSensinactCommand<T> command);
 
+    /**
+     * Queues the command for execution only if the gateway can accept it
+     * immediately. This method never blocks.
+     *
+     * @param <T>     the command result type
+     * @param command the command to execute
+     * @return the promise of the command result, failed with a
+     *         {@link GatewayOverloadedException} if the gateway queue is full
+     */
+    public <T> Promise<T> tryExecute(AbstractSensinactCommand<T> command);
+
+    /**
+     * Queues the command for execution as soon as the gateway has capacity for
+     * it. This method never blocks nor rejects the command: the returned promise
+     * resolves once the command has been executed.
+     *
+     * @param <T>     the command result type
+     * @param command the command to execute
+     * @return the promise of the command result
+     */
+    public <T> Promise<T> executeWhenCapacity(AbstractSensinactCommand<T> command);
+
+    /**
+     * Returns a read only view of the twin as of the last executed commands. The
+     * view can be used from any thread and never waits for the gateway, use a
+     * command to read the current state of the twin instead.
+     *
+     * @return the committed view of the twin
+     */
+    public SensinactTwinView getCommittedView();
+
     public static GatewayThread getGatewayThread() {
         Thread currentThread = Thread.currentThread();
         if (currentThread instanceof GatewayThread) {
@@ -54,6 +54,47 @@ public class IndependentCommands<T> extends AbstractSensinactCommand<List<T>> {
         return promiseFactory.all(commands.stream().map(this::safeCall).collect(Collectors.toList()));
     }
 
+    /**
+     * The command only has a target provider if all of its commands share the
+     * same one.
+     */
+    @Override
+    public String getTargetProvider() {
+        String target = null;
+        for (AbstractSensinactCommand<? extends T> command : commands) {
+            String provider = command.getTargetProvider();
+            if (provider == null || (target != null && !target.equals(provider))) {
+                return null;
+            }
+            target = provider;
+        }
+        return target;
+    }
+
+    /**
+     * The command is only superseded if all of its commands are.
+     */
+    @Override
+    public boolean isSupersededBy(AbstractSensinactCommand<?> command) {
+        if (commands.isEmpty()) {
+            return false;
+        } else if (command instanceof IndependentCommands<?> other) {
+            return commands.stream().allMatch(c -> other.commands.stream().anyMatch(c::isSupersededBy));
+        } else {
+            return commands.stream().allMatch(c -> c.isSupersededBy(command));
+        }
+    }
+
+    /**
+     * The command is interactive if any of its commands is.
+     */
+    @Override
+    public CommandPriority getPriority() {
+        return commands.stream().anyMatch(c -> c.getPriority() == CommandPriority.INTERACTIVE)
+                ? CommandPriority.INTERACTIVE
+                : CommandPriority.BULK;
+    }
+
     @SuppressWarnings("unchecked")
     private Promise<T> safeCall(AbstractSensinactCommand<? extends T> command) {
         return (Promise<T>) safeCall(command, twin, modelMgr, pf);
@@ -42,6 +42,11 @@ public abstract class ResourceCommand<T> extends AbstractTwinCommand<T> {
         this.resource = resource;
     }
 
+    @Override
+    public String getTargetProvider() {
+        return provider;
+    }
+
     @Override
     protected final Promise<T> call(SensinactDigitalTwin twin, PromiseFactory pf) {
         SensinactResource r = model == null ? twin.getResource(provider, service, resource)
@@ -0,0 +1,31 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.metrics;
+
+/**
+ * A reusable handle on a timer metric, which starts a new {@link IMetricTimer}
+ * for each measurement.
+ *
+ * Handles are resolved once, using {@link IMetricsManager#getTimer(String)},
+ * and can be kept by the caller: they stay valid when metrics are enabled,
+ * disabled or cleared.
+ */
+public interface IMetricTimerHandle extends INamedMetric {
+
+    /**
+     * Starts a new measurement.
+     *
+     * @return a started timer, to be closed when the measured task is done
+     */
+    IMetricTimer start();
+}
@@ -14,6 +14,12 @@ package org.eclipse.sensinact.core.metrics;
 
 /**
  * Manages metrics.
+ *
+ * The counters, histograms, meters and timer handles returned by this service
+ * are bound to their metric name and can be kept by the caller: they stay valid
+ * when metrics are enabled, disabled or cleared, and cost a single check when
+ * metrics are disabled. Hot code paths should resolve them once rather than on
+ * each call.
  */
 public interface IMetricsManager {
 
@@ -76,6 +82,15 @@ public interface IMetricsManager {
      */
     IMetricTimer withTimers(String... names);
 
+    /**
+     * Returns a reusable handle on a timer, to start a new measurement without
+     * looking up the timer each time.
+     *
+     * @param name Name of metric
+     * @return A timer handle
+     */
+    IMetricTimerHandle getTimer(String name);
+
     /**
      * Returns a simple counter. Counters only keep their current value.
      *
@@ -27,6 +27,9 @@ public interface DataUpdate {
      * <p><strong>N.B.</strong> A failed promise does not indicate
      * that no updates were successfully processed, only that
      * at least one update failed to be applied.</p>
+     * <p>If the gateway is overloaded then the promise fails with a
+     * {@link org.eclipse.sensinact.core.command.GatewayOverloadedException}
+     * and no update was applied.</p>
      */
     Promise<?> pushUpdate(Object o);
 
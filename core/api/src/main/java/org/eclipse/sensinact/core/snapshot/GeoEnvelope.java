@@ -0,0 +1,164 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.snapshot;
+
+import java.util.List;
+
+import org.eclipse.sensinact.gateway.geojson.Coordinates;
+import org.eclipse.sensinact.gateway.geojson.Feature;
+import org.eclipse.sensinact.gateway.geojson.FeatureCollection;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+import org.eclipse.sensinact.gateway.geojson.GeometryCollection;
+import org.eclipse.sensinact.gateway.geojson.LineString;
+import org.eclipse.sensinact.gateway.geojson.MultiLineString;
+import org.eclipse.sensinact.gateway.geojson.MultiPoint;
+import org.eclipse.sensinact.gateway.geojson.MultiPolygon;
+import org.eclipse.sensinact.gateway.geojson.Point;
+import org.eclipse.sensinact.gateway.geojson.Polygon;
+
+/**
+ * A longitude/latitude bounding box, used to find the providers which may be
+ * accepted by a location filter without testing all of them.
+ *
+ * Coordinates are compared as plain numbers, like the location filters do: an
+ * envelope doesn't wrap around the antimeridian.
+ */
+public record GeoEnvelope(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+
+    public GeoEnvelope {
+        if (!(minLongitude <= maxLongitude) || !(minLatitude <= maxLatitude)) {
+            throw new IllegalArgumentException("Invalid envelope bounds: [" + minLongitude + ", " + minLatitude + ", "
+                    + maxLongitude + ", " + maxLatitude + "]");
+        }
+    }
+
+    /**
+     * Checks if this envelope and the given one share at least a point
+     *
+     * @param other Other envelope
+     * @return True if both envelopes intersect
+     */
+    public boolean intersects(final GeoEnvelope other) {
+        return minLongitude <= other.maxLongitude && other.minLongitude <= maxLongitude
+                && minLatitude <= other.maxLatitude && other.minLatitude <= maxLatitude;
+    }
+
+    /**
+     * Returns the envelope of this envelope and the given one
+     *
+     * @param other Other envelope
+     * @return The envelope containing both envelopes
+     */
+    public GeoEnvelope union(final GeoEnvelope other) {
+        return new GeoEnvelope(Math.min(minLongitude, other.minLongitude), Math.min(minLatitude, other.minLatitude),
+                Math.max(maxLongitude, other.maxLongitude), Math.max(maxLatitude, other.maxLatitude));
+    }
+
+    /**
+     * Computes the envelope of all the coordinates of a GeoJSON object
+     *
+     * @param object GeoJSON object
+     * @return The envelope of the object, null if it has no coordinates
+     */
+    public static GeoEnvelope of(final GeoJsonObject object) {
+        final Bounds bounds = new Bounds();
+        bounds.add(object);
+        return bounds.toEnvelope();
+    }
+
+    /**
+     * Accumulates the bounds of the coordinates
+     */
+    private static final class Bounds {
+        double minLongitude = Double.POSITIVE_INFINITY;
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+
+        void add(final GeoJsonObject object) {
+            if (object == null) {
+                return;
+            }
+
+            switch (object.type()) {
+            case Point:
+                add(((Point) object).coordinates());
+                break;
+            case MultiPoint:
+                addAll(((MultiPoint) object).coordinates());
+                break;
+            case LineString:
+                addAll(((LineString) object).coordinates());
+                break;
+            case MultiLineString:
+                addNested(((MultiLineString) object).coordinates());
+                break;
+            case Polygon:
+                addNested(((Polygon) object).coordinates());
+                break;
+            case MultiPolygon:
+                final List<List<List<Coordinates>>> polygons = ((MultiPolygon) object).coordinates();
+                if (polygons != null) {
+                    polygons.forEach(this::addNested);
+                }
+                break;
+            case GeometryCollection:
+                final GeometryCollection collection = (GeometryCollection) object;
+                if (collection.geometries() != null) {
+                    collection.geometries().forEach(this::add);
+                }
+                break;
+            case Feature:
+                add(((Feature) object).geometry());
+                break;
+            case FeatureCollection:
+                final FeatureCollection features = (FeatureCollection) object;
+                if (features.features() != null) {
+                    features.features().forEach(this::add);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        private void addNested(final List<List<Coordinates>> lists) {
+            if (lists != null) {
+                lists.forEach(this::addAll);
+            }
+        }
+
+        private void addAll(final List<Coordinates> coordinates) {
+            if (coordinates != null) {
+                coordinates.forEach(this::add);
+            }
+        }
+
+        private void add(final Coordinates coordinates) {
+            if (coordinates == null || coordinates.isEmpty()) {
+                return;
+            }
+            minLongitude = Math.min(minLongitude, coordinates.longitude());
+            minLatitude = Math.min(minLatitude, coordinates.latitude());
+            maxLongitude = Math.max(maxLongitude, coordinates.longitude());
+            maxLatitude = Math.max(maxLatitude, coordinates.latitude());
+        }
+
+        GeoEnvelope toEnvelope() {
+            if (minLongitude > maxLongitude || minLatitude > maxLatitude) {
+                return null;
+            }
+            return new GeoEnvelope(minLongitude, minLatitude, maxLongitude, maxLatitude);
+        }
+    }
+}
@@ -32,6 +32,24 @@ public interface ICriterion {
      */
     BiPredicate<ProviderSnapshot, GeoJsonObject> getLocationFilter();
 
+    /**
+     * Envelope that the location of a provider must intersect to be accepted by
+     * the location filter. This allows the snapshot to only test the location
+     * filter on the providers found in the location index.
+     * <p>
+     * Providers without location are never tested when an envelope is given.
+     * <p>
+     * The resource selector criteria are currently the only ones giving an
+     * envelope. The LDAP and SensorThings filters have no location filter, their
+     * geospatial predicates (<code>geo.intersects</code>, <code>st_within</code>,
+     * ...) are tested on the resource values of every provider.
+     *
+     * @return The envelope, or null if the location filter can accept any provider
+     */
+    default GeoEnvelope getLocationEnvelope() {
+        return null;
+    }
+
     /**
      * Early provider predicate executed during the snapshot. Only the model and
      * name of the provider are available when the predicate is called.
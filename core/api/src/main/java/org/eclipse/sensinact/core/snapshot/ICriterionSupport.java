@@ -300,6 +300,14 @@ class AndCriterion extends CombinationCriterion {
         return andDouble(ICriterion::getLocationFilter);
     }
 
+    @Override
+    public GeoEnvelope getLocationEnvelope() {
+        // A location must intersect both envelopes, but not necessarily their
+        // intersection: keep one of them
+        GeoEnvelope thisEnvelope = a.getLocationEnvelope();
+        return thisEnvelope != null ? thisEnvelope : b.getLocationEnvelope();
+    }
+
     @Override
     public List<String> dataTopics() {
         // TODO deduplicate further using wildcard matching and model/provider overlap
@@ -351,6 +359,17 @@ class OrCriterion extends CombinationCriterion {
         return orDouble(ICriterion::getLocationFilter);
     }
 
+    @Override
+    public GeoEnvelope getLocationEnvelope() {
+        GeoEnvelope thisEnvelope = a.getLocationEnvelope();
+        if(thisEnvelope == null) {
+            return null;
+        } else {
+            GeoEnvelope thatEnvelope = b.getLocationEnvelope();
+            return thatEnvelope == null ? null : thisEnvelope.union(thatEnvelope);
+        }
+    }
+
     @Override
     public List<String> dataTopics() {
         // TODO deduplicate further using wildcard matching
@@ -13,16 +13,9 @@
 package org.eclipse.sensinact.core.twin;
 
 import java.time.Instant;
-import java.util.EnumSet;
 import java.util.List;
-import java.util.function.BiPredicate;
-import java.util.function.Predicate;
 
 import org.eclipse.sensinact.core.command.CommandScoped;
-import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
-import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
-import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
-import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 
 /**
  * The {@link SensinactDigitalTwin} provides access to the in-memory digital
@@ -31,7 +24,7 @@ import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
  * SUBSCRIBE and UNSUBSCRIBE operations occur using notifications in the
  * TypedEventBus
  */
-public interface SensinactDigitalTwin extends CommandScoped {
+public interface SensinactDigitalTwin extends CommandScoped, SensinactTwinView {
 
     /**
      * List all the providers in the runtime
@@ -183,101 +176,13 @@ public interface SensinactDigitalTwin extends CommandScoped {
      */
     SensinactResource getResource(String providerName, String service, String resource);
 
-    /**
-     * Returns a (filtered) snapshot of the model. All null filters are ignored, all
-     * associated items are accepted. Equivalent to calling
-     * {@link #filteredSnapshot(BiPredicate, Predicate, Predicate, Predicate, EnumSet)}
-     * with an empty set of options.
-     *
-     * @param geoFilter      Provider location filter
-     * @param providerFilter Provider filter (without services)
-     * @param svcFilter      Service filter (without resources)
-     * @param rcFilter       Resource filter (without values)
-     * @return The filtered snapshot
-     */
-    List<ProviderSnapshot> filteredSnapshot(BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter,
-            Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
-            Predicate<ResourceSnapshot> rcFilter);
-
-    /**
-     * Returns a (filtered) snapshot of the model. All null filters are ignored, all
-     * associated items are accepted.
-     *
-     * @param geoFilter      Provider location filter
-     * @param providerFilter Provider filter (without services)
-     * @param svcFilter      Service filter (without resources)
-     * @param rcFilter       Resource filter (without values)
-     * @param options        The options for generating the snapshots
-     * @return The filtered snapshot
-     */
-    List<ProviderSnapshot> filteredSnapshot(BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter,
-            Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
-            Predicate<ResourceSnapshot> rcFilter, EnumSet<SnapshotOption> options);
-
-    /**
-     * Returns the snapshot of the provider with the given name.
-     * Equivalent to calling {@link #snapshotProvider(String, EnumSet)}.
-     *
-     * @param providerName Name of the provider
-     * @return The snapshot of the provider, null if not found
-     */
-    ProviderSnapshot snapshotProvider(String providerName);
-
-    /**
-     * Returns the snapshot of the provider with the given name.
-     * Equivalent to calling {@link #snapshotProvider(String, EnumSet)}.
-     *
-     * @param providerName Name of the provider
-     * @param serviceFilter a filter to restrict the returned services
-     * @param resourceFilter a filter to restrict the returned resources
-     * @return The snapshot of the provider, null if not found
-     */
-    ProviderSnapshot snapshotProvider(String providerName, Predicate<ServiceSnapshot> serviceFilter,
-            Predicate<ResourceSnapshot> resourceFilter);
-
-    /**
-     * Returns the snapshot of the provider with the given name.
-     *
-     * @param providerName Name of the provider
-     * @param serviceFilter a filter to restrict the returned services
-     * @param resourceFilter a filter to restrict the returned resources
-     * @param options The options for generating the snapshots
-     * @return The snapshot of the provider, null if not found
-     */
-    ProviderSnapshot snapshotProvider(String providerName, Predicate<ServiceSnapshot> serviceFilter,
-            Predicate<ResourceSnapshot> resourceFilter, EnumSet<SnapshotOption> options);
-
-    /**
-     * Returns the snapshot of a service of a provider
-     *
-     * @param providerName Name of the provider
-     * @param serviceName  Name of the service
-     * @return The snapshot of the service, null if not found
-     */
-    ServiceSnapshot snapshotService(String providerName, String serviceName);
-
-    /**
-     * Returns the snapshot of a service of a provider
-     *
-     * @param providerName Name of the provider
-     * @param serviceName  Name of the service
-     * @param resourceFilter a filter to restrict the returned resources
-     * @return The snapshot of the service, null if not found
-     */
-    ServiceSnapshot snapshotService(String providerName, String serviceName,
-            Predicate<ResourceSnapshot> resourceFilter);
-
-    /**
-     * Returns the snapshot of a resource of a service of a provider
-     *
-     * @param providerName Name of the provider
-     * @param serviceName  Name of the service
-     * @param resourceName Name of the resource
-     * @return The snapshot of the resource, null if not found
-     */
-    ResourceSnapshot snapshotResource(String providerName, String serviceName, String resourceName);
-
     public enum SnapshotOption {
-        INCLUDE_LINKED_PROVIDER_IDS, INCLUDE_LINKED_PROVIDERS_FULL;
+        INCLUDE_LINKED_PROVIDER_IDS, INCLUDE_LINKED_PROVIDERS_FULL,
+        /**
+         * Allows the snapshot to be taken from the last committed state of the
+         * twin (see {@link SensinactTwinView}) rather than waiting for the gateway
+         * thread. Ignored when the snapshot is taken by a command.
+         */
+        COMMITTED;
     }
 }
@@ -0,0 +1,166 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.twin;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+
+/**
+ * The {@link SensinactTwinView} gives read only access to snapshots of the
+ * digital twin.
+ *
+ * The {@link SensinactDigitalTwin} given to commands is a view of the current
+ * state of the twin. The view returned by
+ * {@link org.eclipse.sensinact.core.command.GatewayThread#getCommittedView()}
+ * can be used from any thread without waiting for the gateway: it reflects the
+ * state of each provider as of the last command which updated it, and is
+ * published before the notifications of that command are sent.
+ */
+public interface SensinactTwinView {
+
+    /**
+     * Returns a (filtered) snapshot of the model. All null filters are ignored, all
+     * associated items are accepted. Equivalent to calling
+     * {@link #filteredSnapshot(BiPredicate, Predicate, Predicate, Predicate, EnumSet)}
+     * with an empty set of options.
+     *
+     * @param geoFilter      Provider location filter
+     * @param providerFilter Provider filter (without services)
+     * @param svcFilter      Service filter (without resources)
+     * @param rcFilter       Resource filter (without values)
+     * @return The filtered snapshot
+     */
+    List<ProviderSnapshot> filteredSnapshot(BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter,
+            Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
+            Predicate<ResourceSnapshot> rcFilter);
+
+    /**
+     * Returns a (filtered) snapshot of the model. All null filters are ignored, all
+     * associated items are accepted.
+     *
+     * @param geoFilter      Provider location filter
+     * @param providerFilter Provider filter (without services)
+     * @param svcFilter      Service filter (without resources)
+     * @param rcFilter       Resource filter (without values)
+     * @param options        The options for generating the snapshots
+     * @return The filtered snapshot
+     */
+    List<ProviderSnapshot> filteredSnapshot(BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter,
+            Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
+            Predicate<ResourceSnapshot> rcFilter, EnumSet<SnapshotOption> options);
+
+    /**
+     * Returns a (filtered) snapshot of the model. All null filters are ignored, all
+     * associated items are accepted.
+     *
+     * If an envelope is given, only the providers whose location intersects it are
+     * considered, which allows implementations to use a spatial index instead of
+     * testing the location filter on all providers.
+     *
+     * @param envelope       Envelope the provider location must intersect (can be
+     *                       null)
+     * @param geoFilter      Provider location filter
+     * @param providerFilter Provider filter (without services)
+     * @param svcFilter      Service filter (without resources)
+     * @param rcFilter       Resource filter (without values)
+     * @param options        The options for generating the snapshots
+     * @return The filtered snapshot
+     */
+    default List<ProviderSnapshot> filteredSnapshot(GeoEnvelope envelope,
+            BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter, Predicate<ProviderSnapshot> providerFilter,
+            Predicate<ServiceSnapshot> svcFilter, Predicate<ResourceSnapshot> rcFilter,
+            EnumSet<SnapshotOption> options) {
+        if (envelope == null) {
+            return filteredSnapshot(geoFilter, providerFilter, svcFilter, rcFilter, options);
+        }
+
+        final BiPredicate<ProviderSnapshot, GeoJsonObject> envelopeFilter = (p, l) -> {
+            final GeoEnvelope location = GeoEnvelope.of(l);
+            return location != null && location.intersects(envelope);
+        };
+        return filteredSnapshot(geoFilter == null ? envelopeFilter : envelopeFilter.and(geoFilter), providerFilter,
+                svcFilter, rcFilter, options);
+    }
+
+    /**
+     * Returns the snapshot of the provider with the given name.
+     * Equivalent to calling {@link #snapshotProvider(String, EnumSet)}.
+     *
+     * @param providerName Name of the provider
+     * @return The snapshot of the provider, null if not found
+     */
+    ProviderSnapshot snapshotProvider(String providerName);
+
+    /**
+     * Returns the snapshot of the provider with the given name.
+     * Equivalent to calling {@link #snapshotProvider(String, EnumSet)}.
+     *
+     * @param providerName Name of the provider
+     * @param serviceFilter a filter to restrict the returned services
+     * @param resourceFilter a filter to restrict the returned resources
+     * @return The snapshot of the provider, null if not found
+     */
+    ProviderSnapshot snapshotProvider(String providerName, Predicate<ServiceSnapshot> serviceFilter,
+            Predicate<ResourceSnapshot> resourceFilter);
+
+    /**
+     * Returns the snapshot of the provider with the given name.
+     *
+     * @param providerName Name of the provider
+     * @param serviceFilter a filter to restrict the returned services
+     * @param resourceFilter a filter to restrict the returned resources
+     * @param options The options for generating the snapshots
+     * @return The snapshot of the provider, null if not found
+     */
+    ProviderSnapshot snapshotProvider(String providerName, Predicate<ServiceSnapshot> serviceFilter,
+            Predicate<ResourceSnapshot> resourceFilter, EnumSet<SnapshotOption> options);
+
+    /**
+     * Returns the snapshot of a service of a provider
+     *
+     * @param providerName Name of the provider
+     * @param serviceName  Name of the service
+     * @return The snapshot of the service, null if not found
+     */
+    ServiceSnapshot snapshotService(String providerName, String serviceName);
+
+    /**
+     * Returns the snapshot of a service of a provider
+     *
+     * @param providerName Name of the provider
+     * @param serviceName  Name of the service
+     * @param resourceFilter a filter to restrict the returned resources
+     * @return The snapshot of the service, null if not found
+     */
+    ServiceSnapshot snapshotService(String providerName, String serviceName,
+            Predicate<ResourceSnapshot> resourceFilter);
+
+    /**
+     * Returns the snapshot of a resource of a service of a provider
+     *
+     * @param providerName Name of the provider
+     * @param serviceName  Name of the service
+     * @param resourceName Name of the resource
+     * @return The snapshot of the resource, null if not found
+     */
+    ResourceSnapshot snapshotResource(String providerName, String serviceName, String resourceName);
+}
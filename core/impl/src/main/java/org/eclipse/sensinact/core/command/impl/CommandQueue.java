@@ -0,0 +1,400 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command.impl;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A queue of commands waiting for the gateway, made of bounded FIFO lanes with
+ * explicit admission control.
+ *
+ * Items can either be offered (rejected if their lane is full), put (blocking
+ * until there is capacity), parked (queued as soon as there is capacity,
+ * without blocking) or forcibly added (ignoring the capacity, used for the
+ * commands submitted by the gateway itself).
+ *
+ * Items are taken from the lanes following a weighted round robin: when several
+ * lanes have waiting items, up to <code>weight</code> items are taken from a
+ * lane before moving to the next one.
+ *
+ * Items can have an ordering key: items with the same key are always taken in
+ * the order they were queued. An item is queued in the lane of the oldest
+ * pending item with the same key, if any, rather than in its own lane.
+ *
+ * @param <E> the queued item type
+ */
+class CommandQueue<E> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Lane<E>[] lanes;
+
+    /**
+     * Computes the ordering key of an item, null if the item has none
+     */
+    private final Function<? super E, ?> keyFunction;
+
+    /**
+     * The lane of the pending items of each ordering key
+     */
+    private final Map<Object, Pin> pins = new HashMap<>();
+
+    /**
+     * Total number of queued items, excluding parked ones
+     */
+    private int count;
+
+    /**
+     * The lane currently served, and the number of items taken from it in a row
+     */
+    private int current, served;
+
+    /**
+     * @param capacity the capacity of each lane
+     * @param weights  the weight of each lane
+     */
+    CommandQueue(int capacity, int... weights) {
+        this(e -> null, capacity, weights);
+    }
+
+    /**
+     * @param keyFunction computes the ordering key of an item, null if it has none
+     * @param capacity    the capacity of each lane
+     * @param weights     the weight of each lane
+     */
+    @SuppressWarnings("unchecked")
+    CommandQueue(Function<? super E, ?> keyFunction, int capacity, int... weights) {
+        this.keyFunction = keyFunction;
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid queue capacity: " + capacity);
+        }
+        lanes = new Lane[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 1) {
+                throw new IllegalArgumentException("Invalid lane weight: " + weights[i]);
+            }
+            lanes[i] = new Lane<>(capacity, weights[i], lock.newCondition());
+        }
+    }
+
+    /**
+     * @param lane the lane of the item
+     * @param e    the item to add
+     * @return true if the item was added, false if the lane is full
+     */
+    boolean offer(int lane, E e) {
+        lock.lock();
+        try {
+            lane = laneOf(lane, e);
+            if (lanes[lane].isFull()) {
+                return false;
+            }
+            doAdd(lane, e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item, even if its lane is full. The item doesn't wait for the
+     * parked items, unless it has to be ordered after them.
+     *
+     * @param lane the lane of the item
+     * @param e    the item to add
+     */
+    void add(int lane, E e) {
+        lock.lock();
+        try {
+            lane = laneOf(lane, e);
+            Lane<E> l = lanes[lane];
+            Object key = keyFunction.apply(e);
+            if (key != null && pins.containsKey(key) && !l.parked.isEmpty()) {
+                // An item with the same key may be parked
+                doPark(lane, e);
+            } else {
+                doAdd(lane, e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item, waiting for capacity in its lane if necessary
+     *
+     * @param lane the lane of the item
+     * @param e    the item to add
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void put(int lane, E e) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            int target = laneOf(lane, e);
+            while (lanes[target].isFull()) {
+                lanes[target].notFull.await();
+                target = laneOf(lane, e);
+            }
+            doAdd(target, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item if its lane has capacity, or parks it until there is
+     * capacity. Parked items are queued in order, before any new item.
+     *
+     * @param lane the lane of the item
+     * @param e    the item to add
+     * @return true if the item was added, false if it was parked
+     */
+    boolean offerOrPark(int lane, E e) {
+        lock.lock();
+        try {
+            lane = laneOf(lane, e);
+            if (lanes[lane].isFull()) {
+                doPark(lane, e);
+                return false;
+            }
+            doAdd(lane, e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item if its lane has capacity, otherwise drops the oldest item
+     * queued in the lane matching the predicate, i.e. superseded by the new item,
+     * to make room for it.
+     *
+     * @param lane      the lane of the item
+     * @param e         the item to add
+     * @param droppable the items which can be dropped for this one
+     * @return null if the item was added without dropping another one, the
+     *         dropped item if one was dropped, or the given item if it was
+     *         rejected as nothing could be dropped
+     */
+    E offerOrDrop(int lane, E e, Predicate<? super E> droppable) {
+        lock.lock();
+        try {
+            lane = laneOf(lane, e);
+            Lane<E> l = lanes[lane];
+            if (!l.isFull()) {
+                doAdd(lane, e);
+                return null;
+            }
+            for (Iterator<E> it = l.items.iterator(); it.hasNext();) {
+                E queued = it.next();
+                if (droppable.test(queued)) {
+                    it.remove();
+                    count--;
+                    unpin(queued);
+                    doAdd(lane, e);
+                    return queued;
+                }
+            }
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the next item, waiting for one if necessary
+     * @throws InterruptedException if interrupted while waiting
+     */
+    E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return doRemove();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the next item, or null if the queue is empty
+     */
+    E poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : doRemove();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of queued items, excluding parked ones
+     */
+    int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param lane the lane
+     * @return the number of items queued in the lane, excluding parked ones
+     */
+    int size(int lane) {
+        lock.lock();
+        try {
+            return lanes[lane].items.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of parked items
+     */
+    int parked() {
+        lock.lock();
+        try {
+            int parked = 0;
+            for (Lane<E> l : lanes) {
+                parked += l.parked.size();
+            }
+            return parked;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param lane the lane requested for the item
+     * @param e    the item
+     * @return the lane of the pending items with the same key as the item, if
+     *         any, otherwise the requested lane
+     */
+    private int laneOf(int lane, E e) {
+        Object key = keyFunction.apply(e);
+        Pin pin = key == null ? null : pins.get(key);
+        return pin == null ? lane : pin.lane;
+    }
+
+    private void pin(int lane, E e) {
+        Object key = keyFunction.apply(e);
+        if (key != null) {
+            pins.computeIfAbsent(key, k -> new Pin(lane)).pending++;
+        }
+    }
+
+    private void unpin(E e) {
+        Object key = keyFunction.apply(e);
+        if (key != null) {
+            Pin pin = pins.get(key);
+            if (pin != null && --pin.pending == 0) {
+                pins.remove(key);
+            }
+        }
+    }
+
+    private void doPark(int lane, E e) {
+        lanes[lane].parked.add(e);
+        pin(lane, e);
+    }
+
+    private void doAdd(int lane, E e) {
+        lanes[lane].items.add(e);
+        pin(lane, e);
+        count++;
+        notEmpty.signal();
+    }
+
+    private E doRemove() {
+        Lane<E> l = lanes[current];
+        if (l.items.isEmpty() || served >= l.weight) {
+            // Move on to the next lane with waiting items
+            do {
+                current = (current + 1) % lanes.length;
+                l = lanes[current];
+            } while (l.items.isEmpty());
+            served = 0;
+        }
+        served++;
+
+        E e = l.items.poll();
+        count--;
+        unpin(e);
+        if (!l.parked.isEmpty()) {
+            l.items.add(l.parked.poll());
+            count++;
+        }
+        if (!l.isFull()) {
+            l.notFull.signal();
+        }
+        return e;
+    }
+
+    /**
+     * The lane of the pending items with a given key
+     */
+    private static class Pin {
+
+        final int lane;
+
+        /**
+         * Number of queued or parked items with the key
+         */
+        int pending;
+
+        Pin(int lane) {
+            this.lane = lane;
+        }
+    }
+
+    private static class Lane<E> {
+
+        final ArrayDeque<E> items = new ArrayDeque<>();
+
+        /**
+         * Items waiting for capacity to be queued
+         */
+        final ArrayDeque<E> parked = new ArrayDeque<>();
+
+        final int capacity;
+
+        final int weight;
+
+        final Condition notFull;
+
+        Lane(int capacity, int weight, Condition notFull) {
+            this.capacity = capacity;
+            this.weight = weight;
+            this.notFull = notFull;
+        }
+
+        boolean isFull() {
+            return items.size() >= capacity || !parked.isEmpty();
+        }
+    }
+}
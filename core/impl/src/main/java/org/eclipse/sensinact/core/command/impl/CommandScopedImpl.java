@@ -43,4 +43,17 @@ public abstract class CommandScopedImpl implements CommandScoped {
             throw new IllegalStateException("This scoped object is being accessed from outside the creating thread");
         }
     }
+
+    /**
+     * Checks that the current command has exclusive access to the twin, i.e. that
+     * it isn't run by a partition. Operations changing more than one provider or
+     * the shared parts of the twin must use this check.
+     */
+    protected void checkExclusive() {
+        checkValid();
+        if (GatewayThreadImpl.isPartitionThread()) {
+            throw new IllegalStateException(
+                    "This operation requires exclusive access to the twin and can't be run by a partition");
+        }
+    }
 }
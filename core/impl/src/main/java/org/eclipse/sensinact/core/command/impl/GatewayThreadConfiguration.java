@@ -0,0 +1,95 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command.impl;
+
+/**
+ * Gateway thread configuration
+ */
+public @interface GatewayThreadConfiguration {
+
+    /**
+     * Number of partitions of the twin (1 by default, i.e. a single gateway
+     * thread). When greater than 1, providers are sharded by name between that
+     * many worker threads and commands targeting a single provider are executed
+     * by the worker owning it.
+     */
+    int partitions() default 1;
+
+    /**
+     * Maximum number of queued commands run as a single batch (1 by default, i.e.
+     * no batching). The commands of a batch share their notification accumulator,
+     * so that repeated updates of a resource are collapsed into a single
+     * notification. Notifications are sent once all the commands of the batch
+     * are resolved.
+     */
+    int batch_size() default 1;
+
+    /**
+     * Maximum time in milliseconds spent adding queued commands to a batch
+     */
+    long batch_duration_ms() default 10;
+
+    /**
+     * Maximum number of commands of each priority class waiting for the gateway
+     * (per partition when partitioned). Commands submitted by the gateway itself
+     * are always accepted.
+     */
+    int queue_capacity() default 4096;
+
+    /**
+     * Number of interactive commands run for each bulk command when both are
+     * waiting for the gateway
+     */
+    int interactive_weight() default 4;
+
+    /**
+     * What to do when a command is executed while the queue is full
+     */
+    OverflowPolicy overflow_policy() default OverflowPolicy.REJECT;
+
+    /**
+     * Directory of the journal persisting the twin, restored when the gateway
+     * starts. The twin is not persisted if empty (the default).
+     */
+    String persistence_directory() default "";
+
+    /**
+     * Interval in milliseconds between two writes of the persistence journal.
+     * Changes more recent than that may be lost on a crash.
+     */
+    long persistence_flush_interval_ms() default 1000;
+
+    /**
+     * Interval in seconds between two compactions of the persistence journal
+     * into a checkpoint
+     */
+    long persistence_checkpoint_interval_s() default 300;
+
+    enum OverflowPolicy {
+        /**
+         * Fail the command with a
+         * {@link org.eclipse.sensinact.core.command.GatewayOverloadedException}
+         */
+        REJECT,
+        /**
+         * Drop the oldest queued command superseded by the new one, i.e. an
+         * update of the same resources, to make room for it, or reject the new
+         * one if no queued command is superseded
+         */
+        DROP_OLDEST,
+        /**
+         * Block the caller until there is capacity
+         */
+        BLOCK
+    }
+}
@@ -14,56 +14,110 @@ package org.eclipse.sensinact.core.command.impl;
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.eclipse.sensinact.core.command.GatewayThread.getGatewayThread;
 import static org.osgi.service.component.annotations.ReferenceCardinality.MULTIPLE;
 import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
+import org.eclipse.sensinact.core.command.CommandPriority;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.command.impl.GatewayThreadConfiguration.OverflowPolicy;
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricMeter;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.model.impl.SensinactModelManagerImpl;
 import org.eclipse.sensinact.core.model.nexus.ModelNexus;
 import org.eclipse.sensinact.core.notification.impl.ImmediateNotificationAccumulator;
 import org.eclipse.sensinact.core.notification.impl.NotificationAccumulator;
 import org.eclipse.sensinact.core.notification.impl.NotificationAccumulatorImpl;
+import org.eclipse.sensinact.core.persistence.impl.TwinPersistence;
+import org.eclipse.sensinact.core.twin.SensinactTwinView;
 import org.eclipse.sensinact.core.twin.impl.SensinactDigitalTwinImpl;
+import org.eclipse.sensinact.core.twin.impl.SensinactTwinViewImpl;
 import org.eclipse.sensinact.core.whiteboard.WhiteboardHandler;
 import org.eclipse.sensinact.core.whiteboard.impl.SensinactWhiteboard;
 import org.eclipse.sensinact.model.core.provider.ProviderPackage;
 import org.osgi.service.component.AnyService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.typedevent.TypedEventBus;
+import org.osgi.util.converter.Converters;
 import org.osgi.util.promise.Deferred;
 import org.osgi.util.promise.Promise;
 import org.osgi.util.promise.PromiseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 //TODO decide if this is the right level to be a component
-@Component(immediate = true)
+@Component(immediate = true, configurationPid = GatewayThreadImpl.PID, configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class GatewayThreadImpl extends Thread implements GatewayThread {
 
+    /**
+     * Configuration PID
+     */
+    static final String PID = "sensinact.gateway.thread";
+
+    private static final Logger LOG = LoggerFactory.getLogger(GatewayThreadImpl.class);
+
+    /**
+     * Names of the histograms of the time spent in the queue by the commands of
+     * each priority class, in microseconds
+     */
+    private static final String[] WAIT_METRICS = Arrays.stream(CommandPriority.values())
+            .map(p -> "sensinact.tasks.wait." + p.name().toLowerCase(Locale.ROOT)).toArray(String[]::new);
+
     private final TypedEventBus typedEventBus;
 
     private final SensinactWhiteboard whiteboard;
 
     private final ModelNexus nexusImpl;
 
-    // TODO decide if we should just use an infinite queue
-    private final BlockingQueue<WorkItem<?>> work = new ArrayBlockingQueue<>(4096);
+    /**
+     * Snapshots of the twin as of the last executed commands
+     */
+    private final SensinactTwinViewImpl committedView = new SensinactTwinViewImpl();
+
+    /**
+     * The persistence of the twin, null if disabled
+     */
+    private final TwinPersistence persistence;
+
+    /**
+     * Released once the component is activated, i.e. once the packages of the
+     * models available at startup are bound. The twin is restored afterwards.
+     */
+    private final CountDownLatch activated = new CountDownLatch(1);
+
+    private final CommandQueue<WorkItem<?>> work;
 
     private final AtomicBoolean run = new AtomicBoolean(true);
 
@@ -73,30 +127,138 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
             newSingleThreadExecutor(r -> new Thread(r, "Eclipse sensiNact Gateway Worker")),
             newSingleThreadScheduledExecutor(r -> new Thread(r, "Eclipse sensiNact Scheduler")));
 
-    private final AtomicReference<NotificationAccumulator> currentAccumulator = new AtomicReference<>();
+    // The accumulator is per thread as partitions run commands concurrently
+    private final ThreadLocal<NotificationAccumulator> currentAccumulator = new ThreadLocal<>();
+
+    /**
+     * The partitions of the twin, empty when running with a single gateway thread
+     */
+    private final Partition[] partitions;
+
+    /**
+     * Partitions hold the read lock while running a command, the gateway thread
+     * holds the write lock to get exclusive access to the whole twin
+     */
+    private final ReadWriteLock partitionLock = new ReentrantReadWriteLock();
+
+    /**
+     * Number of pending commands executed with exclusive access to the twin while
+     * targeting a single provider, by provider name
+     */
+    private final Map<String, Integer> pendingExclusive = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum number of queued commands run as a single batch
+     */
+    private final int batchSize;
+
+    /**
+     * Maximum time spent adding commands to a batch
+     */
+    private final long batchDurationNanos;
+
+    /**
+     * Maximum number of commands waiting in each lane of the queues
+     */
+    private final int queueCapacity;
+
+    /**
+     * Weight of each lane of the queues, indexed by command priority
+     */
+    private final int[] laneWeights;
+
+    /**
+     * What to do when a command is executed while its queue is full
+     */
+    private final OverflowPolicy overflowPolicy;
 
     private IMetricsManager metrics;
 
+    // Metrics resolved once for the command execution path
+    private final IMetricCounter pendingCounter;
+    private final IMetricsHistogram pendingHistogram;
+    private final IMetricsHistogram batchSizeHistogram;
+    private final IMetricCounter droppedCounter;
+    private final IMetricCounter rejectedCounter;
+    private final IMetricsHistogram[] waitHistograms;
+    private final IMetricTimerHandle taskTimer;
+
+    public GatewayThreadImpl(IMetricsManager metrics, TypedEventBus typedEventBus, ResourceSet resourceSet,
+            ProviderPackage providerPackage) {
+        this(metrics, typedEventBus, resourceSet, providerPackage,
+                Converters.standardConverter().convert(Map.of()).to(GatewayThreadConfiguration.class));
+        activate();
+    }
+
     @Activate
     public GatewayThreadImpl(@Reference IMetricsManager metrics, @Reference TypedEventBus typedEventBus,
-            @Reference ResourceSet resourceSet, @Reference ProviderPackage providerPackage) {
+            @Reference ResourceSet resourceSet, @Reference ProviderPackage providerPackage,
+            GatewayThreadConfiguration config) {
         this.metrics = metrics;
+        pendingCounter = metrics.getCounter("sensinact.tasks.pending");
+        pendingHistogram = metrics.getHistogram("sensinact.tasks.pending.hist");
+        batchSizeHistogram = metrics.getHistogram("sensinact.tasks.batch.size");
+        droppedCounter = metrics.getCounter("sensinact.tasks.dropped");
+        rejectedCounter = metrics.getCounter("sensinact.tasks.rejected");
+        waitHistograms = Arrays.stream(WAIT_METRICS).map(metrics::getHistogram).toArray(IMetricsHistogram[]::new);
+        taskTimer = metrics.getTimer("sensinact.task.time");
         this.typedEventBus = typedEventBus;
         this.whiteboard = new SensinactWhiteboard(this, metrics);
         nexusImpl = new ModelNexus(resourceSet, providerPackage, this::getCurrentAccumulator, whiteboard);
+        batchSize = config.batch_size();
+        batchDurationNanos = MILLISECONDS.toNanos(config.batch_duration_ms());
+        queueCapacity = config.queue_capacity();
+        overflowPolicy = config.overflow_policy() == null ? OverflowPolicy.REJECT : config.overflow_policy();
+        laneWeights = new int[CommandPriority.values().length];
+        Arrays.fill(laneWeights, 1);
+        laneWeights[CommandPriority.INTERACTIVE.ordinal()] = Math.max(1, config.interactive_weight());
+        work = new CommandQueue<>(WorkItem::getTarget, queueCapacity, laneWeights);
+
+        String persistenceDirectory = config.persistence_directory();
+        persistence = persistenceDirectory == null || persistenceDirectory.isBlank() ? null
+                : new TwinPersistence(Path.of(persistenceDirectory), committedView,
+                        config.persistence_flush_interval_ms(), config.persistence_checkpoint_interval_s());
+
+        int nbPartitions = config.partitions() > 1 ? config.partitions() : 0;
+        partitions = new Partition[nbPartitions];
+        // Publish the providers created while setting up the nexus
+        publishCommittedView();
+        for (int i = 0; i < nbPartitions; i++) {
+            partitions[i] = new Partition(i);
+        }
+        // The partitions are started by the gateway thread, once the twin is
+        // restored
         start();
     }
 
+    /**
+     * Called once the references are bound. When persistence is enabled, the
+     * twin is restored and the commands are run only after this call.
+     */
+    @Activate
+    void activate() {
+        activated.countDown();
+    }
+
     @Deactivate
     void deactivate() {
         run.set(false);
         interrupt();
+        for (Partition partition : partitions) {
+            partition.interrupt();
+        }
         try {
             join(500);
+            for (Partition partition : partitions) {
+                partition.join(500);
+            }
         } catch (InterruptedException e) {
             // Just keep going and reset our interrupt status
             Thread.currentThread().interrupt();
         }
+        if (persistence != null) {
+            persistence.close();
+        }
         nexusImpl.shutDown();
 
         ExecutorService executor = (ExecutorService) promiseFactory.executor();
@@ -123,10 +285,12 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
     @Reference(cardinality = MULTIPLE, policy = DYNAMIC)
     void addEPackage(EPackage ePackage) {
         nexusImpl.addEPackage(ePackage);
+        publishCommittedView();
     }
 
     void removeEPackage(EPackage ePackage) {
         nexusImpl.removeEPackage(ePackage);
+        publishCommittedView();
     }
 
     @Reference(service = WhiteboardHandler.class, cardinality = MULTIPLE, policy = DYNAMIC)
@@ -157,7 +321,28 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
 
     private NotificationAccumulator getCurrentAccumulator() {
         NotificationAccumulator accumulator = currentAccumulator.get();
-        return accumulator == null ? new ImmediateNotificationAccumulator(typedEventBus) : accumulator;
+        return accumulator == null ? track(new ImmediateNotificationAccumulator(typedEventBus)) : accumulator;
+    }
+
+    /**
+     * Wraps an accumulator to record the changes made by the current thread for
+     * the committed view and the persistence. Must be called by the thread which
+     * uses the accumulator.
+     */
+    private NotificationAccumulator track(NotificationAccumulator accumulator) {
+        accumulator = committedView.track(accumulator);
+        return persistence == null ? accumulator : persistence.track(accumulator);
+    }
+
+    /**
+     * Publishes the providers changed by the current thread in the committed view,
+     * then persists their changes
+     */
+    private void publishCommittedView() {
+        committedView.publish(nexusImpl, promiseFactory);
+        if (persistence != null) {
+            persistence.commit();
+        }
     }
 
     @Override
@@ -165,49 +350,438 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
         return promiseFactory;
     }
 
+    @Override
+    public SensinactTwinView getCommittedView() {
+        return committedView;
+    }
+
+    /**
+     * Creates the accumulator of a command or batch, tracked once for all of its
+     * commands
+     */
     private NotificationAccumulator createAccumulator() {
-        return new NotificationAccumulatorImpl(typedEventBus);
+        return track(new NotificationAccumulatorImpl(typedEventBus));
     }
 
     @Override
     public <T> Promise<T> execute(AbstractSensinactCommand<T> command) {
+        return enqueue(command, getPartition(command), overflowPolicy).d.getPromise();
+    }
+
+    @Override
+    public <T> Promise<T> tryExecute(AbstractSensinactCommand<T> command) {
+        return enqueue(command, getPartition(command), OverflowPolicy.REJECT).d.getPromise();
+    }
+
+    @Override
+    public <T> Promise<T> executeWhenCapacity(AbstractSensinactCommand<T> command) {
+        return enqueue(command, getPartition(command), null).d.getPromise();
+    }
+
+    /**
+     * Checks if the current thread is a partition of the twin. Partitions must not
+     * change the model definitions: commands needing to do so must be executed
+     * again with exclusive access to the twin.
+     *
+     * @return true if the current thread is a partition worker
+     */
+    public static boolean isPartitionThread() {
+        return Thread.currentThread() instanceof Partition;
+    }
+
+    /**
+     * Commands targeting a provider which doesn't exist yet are executed with
+     * exclusive access to the twin, as creating a provider changes the shared
+     * parts of the twin. The next commands for that provider are executed the
+     * same way until the pending ones are done, to keep them ordered.
+     *
+     * @param command the command to execute
+     * @return the partition owning the target provider of the command, or null if
+     *         the command must be executed with exclusive access to the twin
+     */
+    private Partition getPartition(AbstractSensinactCommand<?> command) {
+        if (partitions.length == 0) {
+            return null;
+        }
+        String provider = command.getTargetProvider();
+        if (provider == null || isExclusive(provider)) {
+            return null;
+        }
+        return partitions[Math.floorMod(provider.hashCode(), partitions.length)];
+    }
+
+    /**
+     * Checks if the commands for the given provider must be executed with
+     * exclusive access to the twin, and if so counts one more pending exclusive
+     * command for it
+     *
+     * @param provider the target provider
+     * @return true if the command must be executed with exclusive access
+     */
+    private boolean isExclusive(String provider) {
+        boolean[] exclusive = new boolean[1];
+        pendingExclusive.compute(provider, (k, v) -> {
+            if (v == null && nexusImpl.getProvider(k) != null) {
+                return null;
+            }
+            exclusive[0] = true;
+            return v == null ? 1 : v + 1;
+        });
+        return exclusive[0];
+    }
+
+    /**
+     * Notes that an exclusive command for the given provider is done
+     *
+     * @param provider the target provider
+     */
+    private void releaseExclusive(String provider) {
+        pendingExclusive.computeIfPresent(provider, (k, v) -> v == 1 ? null : v - 1);
+    }
+
+    /**
+     * Queues a command
+     *
+     * @param command   the command to execute
+     * @param partition the partition which must execute the command, or null
+     * @param policy    the overflow policy to apply if the queue is full, null to
+     *                  park the command until there is capacity
+     * @return the queued work item, already failed if it was rejected
+     */
+    private <T> WorkItem<T> enqueue(AbstractSensinactCommand<T> command, Partition partition,
+            OverflowPolicy policy) {
         Deferred<T> d = getPromiseFactory().deferred();
-        work.add(new WorkItem<>(d, command, nexusImpl));
-        metrics.getCounter("sensinact.tasks.pending").inc();
-        metrics.getHistogram("sensinact.tasks.pending.hist").update(work.size());
-        return d.getPromise();
+        WorkItem<T> item = new WorkItem<>(d, command, nexusImpl, partition == null && partitions.length > 0);
+        CommandQueue<WorkItem<?>> queue = partition == null ? work : partition.work;
+        if (admit(queue, item, policy)) {
+            pendingCounter.inc();
+            pendingHistogram.update(queue.size());
+        }
+        return item;
+    }
+
+    private boolean admit(CommandQueue<WorkItem<?>> queue, WorkItem<?> item, OverflowPolicy policy) {
+        final int lane = item.lane;
+        if (Thread.currentThread() == this || isPartitionThread()) {
+            // Never refuse the commands of the gateway itself, it would either
+            // deadlock or lose the continuation of a running command
+            queue.add(lane, item);
+            return true;
+        } else if (policy == null) {
+            queue.offerOrPark(lane, item);
+            return true;
+        }
+
+        switch (policy) {
+        case BLOCK:
+            try {
+                queue.put(lane, item);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                item.reject(new GatewayOverloadedException("Interrupted while waiting for gateway capacity"));
+                return false;
+            }
+        case DROP_OLDEST:
+            WorkItem<?> dropped = queue.offerOrDrop(lane, item, w -> w.command.isSupersededBy(item.command));
+            if (dropped == null) {
+                return true;
+            } else if (dropped != item) {
+                pendingCounter.dec();
+                droppedCounter.inc();
+                dropped.reject(new GatewayOverloadedException("The command was dropped by the overloaded gateway"));
+                return true;
+            }
+            // Nothing could be dropped
+            break;
+        default:
+            if (queue.offer(lane, item)) {
+                return true;
+            }
+            break;
+        }
+        rejectedCounter.inc();
+        item.reject(new GatewayOverloadedException("The gateway queue is full"));
+        return false;
     }
 
     @Override
     public void run() {
+        if (persistence != null) {
+            // The restored providers need the packages of their models
+            while (activated.getCount() > 0) {
+                try {
+                    activated.await();
+                } catch (InterruptedException e) {
+                    if (!run.get()) {
+                        return;
+                    }
+                }
+            }
+            restore();
+        }
+        for (Partition partition : partitions) {
+            partition.start();
+        }
+
+        Lock lock = partitions.length == 0 ? null : partitionLock.writeLock();
         while (run.get()) {
             try {
-                WorkItem<?> item = work.take();
-                metrics.getCounter("sensinact.tasks.pending").dec();
-                metrics.getHistogram("sensinact.tasks.pending.hist").update(work.size());
-                try (IMetricTimer timer = metrics.withTimer("sensinact.task.time")) {
-                    item.doWork();
-                }
+                runCommands(work, lock, null);
             } catch (InterruptedException e) {
                 continue;
             }
         }
     }
 
+    /**
+     * Restores the persisted twin, before running any command. The restored
+     * changes are published in the committed view without notifications.
+     */
+    private void restore() {
+        currentAccumulator.set(createAccumulator());
+        try {
+            persistence.restore(nexusImpl, promiseFactory);
+        } catch (IOException e) {
+            LOG.error("Unable to restore the twin", e);
+        } finally {
+            currentAccumulator.remove();
+            committedView.publish(nexusImpl, promiseFactory);
+            // Already persisted
+            persistence.discard();
+        }
+        persistence.start();
+    }
+
+    /**
+     * Takes the next command from the queue and runs it. When batching is enabled
+     * the commands already waiting in the queue are run immediately afterwards,
+     * within the configured limits, sharing the same notification accumulator.
+     * The notifications of the batch are sent once all of its commands are
+     * resolved.
+     *
+     * @param queue     the queue to take commands from
+     * @param lock      the lock to hold while running commands, or null
+     * @param partition the partition running the commands, or null for the
+     *                  gateway thread
+     * @return the number of commands run
+     * @throws InterruptedException if interrupted while waiting for a command
+     */
+    private int runCommands(CommandQueue<WorkItem<?>> queue, Lock lock, Partition partition)
+            throws InterruptedException {
+        WorkItem<?> item = queue.take();
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            if (batchSize <= 1) {
+                runCommand(queue, item, createAccumulator(), null);
+                item.complete();
+                return 1;
+            }
+
+            final NotificationAccumulator accumulator = createAccumulator();
+            // One extra count for the batch itself, released once it is complete
+            final AtomicInteger unresolved = new AtomicInteger(1);
+            final long deadline = System.nanoTime() + batchDurationNanos;
+            final List<WorkItem<?>> batch = new ArrayList<>();
+            int count = 0;
+            try {
+                do {
+                    unresolved.incrementAndGet();
+                    runCommand(queue, item, accumulator, () -> {
+                        if (unresolved.decrementAndGet() == 0) {
+                            accumulator.completeAndSend();
+                        }
+                    });
+                    batch.add(item);
+                    count++;
+                    // A partition must wait for any exclusive command it submitted
+                } while (count < batchSize && (partition == null || partition.barrier == null)
+                        && System.nanoTime() < deadline && (item = queue.poll()) != null);
+            } finally {
+                batchSizeHistogram.update(count);
+                publishCommittedView();
+                // Callers must see their changes in the committed view
+                batch.forEach(WorkItem::complete);
+                if (unresolved.decrementAndGet() == 0) {
+                    accumulator.completeAndSend();
+                }
+            }
+            return count;
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void runCommand(CommandQueue<WorkItem<?>> queue, WorkItem<?> item, NotificationAccumulator accumulator,
+            Runnable onResolve) {
+        pendingCounter.dec();
+        pendingHistogram.update(queue.size());
+        waitHistograms[item.lane].update(NANOSECONDS.toMicros(System.nanoTime() - item.queuedAt));
+        try (IMetricTimer timer = taskTimer.start()) {
+            item.doWork(accumulator, onResolve);
+        }
+    }
+
+    /**
+     * A partition of the twin, executing the commands targeting the providers it
+     * owns. Partitions run concurrently with each other but never with the
+     * gateway thread.
+     */
+    private class Partition extends Thread implements GatewayThread {
+
+        private final CommandQueue<WorkItem<?>> work = new CommandQueue<>(WorkItem::getTarget, queueCapacity,
+                laneWeights);
+
+        private final IMetricMeter throughput;
+
+        /**
+         * A command requiring exclusive access, submitted by this partition, which
+         * must be executed before the next command of this partition. Only
+         * accessed by the partition thread.
+         */
+        private WorkItem<?> barrier;
+
+        Partition(int index) {
+            super("Eclipse sensiNact Gateway Partition " + index);
+            throughput = metrics.getMeter("sensinact.tasks.partition." + index);
+        }
+
+        @Override
+        public PromiseFactory getPromiseFactory() {
+            return promiseFactory;
+        }
+
+        @Override
+        public SensinactTwinView getCommittedView() {
+            return committedView;
+        }
+
+        @Override
+        public <T> Promise<T> execute(AbstractSensinactCommand<T> command) {
+            Partition partition = getPartition(command);
+            WorkItem<T> item = enqueue(command, partition, overflowPolicy);
+            if (partition == null && Thread.currentThread() == this) {
+                // Keep commands of this partition ordered after this one
+                barrier = item;
+            }
+            return item.d.getPromise();
+        }
+
+        /**
+         * Commands submitted by the partition are always accepted
+         */
+        @Override
+        public <T> Promise<T> tryExecute(AbstractSensinactCommand<T> command) {
+            return execute(command);
+        }
+
+        /**
+         * Commands submitted by the partition are always accepted
+         */
+        @Override
+        public <T> Promise<T> executeWhenCapacity(AbstractSensinactCommand<T> command) {
+            return execute(command);
+        }
+
+        @Override
+        public void run() {
+            Lock lock = partitionLock.readLock();
+            while (run.get()) {
+                try {
+                    WorkItem<?> pending = barrier;
+                    if (pending != null) {
+                        barrier = null;
+                        pending.awaitExecution();
+                    }
+                    throughput.mark(runCommands(work, lock, this));
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+        }
+    }
+
     private class WorkItem<T> {
         private final Deferred<T> d;
         private final AbstractSensinactCommand<T> command;
         private final ModelNexus nexusImpl;
-
-        public WorkItem(Deferred<T> d, AbstractSensinactCommand<T> command, ModelNexus nexusImpl) {
+        private final CountDownLatch executed = new CountDownLatch(1);
+
+        /**
+         * The result of the command, once run
+         */
+        private Promise<T> result;
+        private final int lane;
+        private final long queuedAt = System.nanoTime();
+
+        /**
+         * The target provider of the command, commands for the same provider are
+         * kept ordered across the lanes of a queue
+         */
+        private final String target;
+
+        /**
+         * The target provider of a command executed with exclusive access, null if
+         * the command isn't counted as pending for its provider
+         */
+        private final String exclusiveTarget;
+
+        public WorkItem(Deferred<T> d, AbstractSensinactCommand<T> command, ModelNexus nexusImpl,
+                boolean exclusive) {
             this.d = d;
             this.command = command;
             this.nexusImpl = nexusImpl;
+            this.target = command.getTargetProvider();
+            this.exclusiveTarget = exclusive ? target : null;
+            CommandPriority priority = command.getPriority();
+            this.lane = (priority == null ? CommandPriority.INTERACTIVE : priority).ordinal();
+        }
+
+        String getTarget() {
+            return target;
+        }
+
+        /**
+         * Waits for the command to have been called, not for its promise to be
+         * resolved
+         */
+        void awaitExecution() throws InterruptedException {
+            executed.await();
+        }
+
+        /**
+         * Fails the command without running it
+         *
+         * @param e the failure cause
+         */
+        void reject(Exception e) {
+            d.fail(e);
+            done();
+        }
+
+        private void done() {
+            if (exclusiveTarget != null) {
+                releaseExclusive(exclusiveTarget);
+            }
+            executed.countDown();
         }
 
-        void doWork() {
+        /**
+         * Runs the command. Its promise must then be resolved with
+         * {@link #complete()}, once its changes are published in the committed
+         * view.
+         *
+         * @param accumulator the accumulator for the notifications of the command
+         * @param onResolve   the callback to notify when the command is resolved if
+         *                    the accumulator is shared by a batch, null if the
+         *                    accumulator must be sent when the command is resolved
+         */
+        void doWork(NotificationAccumulator accumulator, Runnable onResolve) {
             try {
-                final NotificationAccumulator accumulator = createAccumulator();
                 currentAccumulator.set(accumulator);
 
                 SensinactDigitalTwinImpl twinImpl = new SensinactDigitalTwinImpl(nexusImpl,
@@ -215,17 +789,32 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
                 SensinactModelManagerImpl mgrImpl = new SensinactModelManagerImpl(nexusImpl);
                 Promise<T> promise;
                 try {
-                    promise = command.call(twinImpl, mgrImpl).onResolve(accumulator::completeAndSend);
+                    promise = command.call(twinImpl, mgrImpl);
                 } finally {
                     twinImpl.invalidate();
                     mgrImpl.invalidate();
+                    if (onResolve == null) {
+                        // Batches are published once complete
+                        publishCommittedView();
+                    }
                 }
-                d.resolveWith(promise);
+                result = promise.onResolve(onResolve == null ? accumulator::completeAndSend : onResolve);
             } catch (Exception e) {
-                d.fail(e);
+                result = promiseFactory.failed(e);
+                if (onResolve != null) {
+                    onResolve.run();
+                }
             } finally {
-                currentAccumulator.set(null);
+                currentAccumulator.remove();
+                done();
             }
         }
+
+        /**
+         * Resolves the promise of the command with its result
+         */
+        void complete() {
+            d.resolveWith(result);
+        }
     }
 }
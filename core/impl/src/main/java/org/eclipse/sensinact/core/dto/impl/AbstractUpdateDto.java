@@ -13,6 +13,7 @@
 package org.eclipse.sensinact.core.dto.impl;
 
 import java.time.Instant;
+import java.util.Objects;
 
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EReference;
@@ -87,4 +88,17 @@ public abstract class AbstractUpdateDto {
      * The action to take when the new value is a duplicate of the old value
      */
     public DuplicateAction actionOnDuplicate;
+
+    /**
+     * Checks if the given update, made later, replaces this one
+     *
+     * @param other a later update
+     * @return true if both updates target the same resource and the given one
+     *         isn't older than this one
+     */
+    public boolean isSupersededBy(AbstractUpdateDto other) {
+        return Objects.equals(provider, other.provider) && Objects.equals(service, other.service)
+                && Objects.equals(resource, other.resource)
+                && (timestamp == null || other.timestamp == null || !other.timestamp.isBefore(timestamp));
+    }
 }
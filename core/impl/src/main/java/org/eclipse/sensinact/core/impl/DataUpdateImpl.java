@@ -21,6 +21,7 @@ import java.util.WeakHashMap;
 import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.core.command.GatewayThread;
 import org.eclipse.sensinact.core.command.IndependentCommands;
 import org.eclipse.sensinact.core.dto.impl.AbstractUpdateDto;
@@ -67,8 +68,14 @@ public class DataUpdateImpl implements DataUpdate {
     public Promise<?> pushUpdate(Object o) {
         List<AbstractSensinactCommand<?>> commands = toStreamOfCommands(o).collect(toList());
         IndependentCommands<?> multiCommand = new IndependentCommands<>(commands);
-        return thread.execute(multiCommand).recoverWith(p -> thread.getPromiseFactory()
-                .failed(new FailedUpdatesException(toStreamOfDataUpdateFailures(p.getFailure()))));
+        return thread.execute(multiCommand).recoverWith(p -> {
+            Throwable failure = p.getFailure();
+            if (failure instanceof GatewayOverloadedException) {
+                // Nothing was updated, let the caller know it should retry later
+                return thread.getPromiseFactory().failed(failure);
+            }
+            return thread.getPromiseFactory().failed(new FailedUpdatesException(toStreamOfDataUpdateFailures(failure)));
+        });
     }
 
     private Stream<DataUpdateException> toStreamOfDataUpdateFailures(Throwable t) {
@@ -20,6 +20,7 @@ import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.annotation.dto.DuplicateAction;
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
+import org.eclipse.sensinact.core.command.CommandPriority;
 import org.eclipse.sensinact.core.dto.impl.MetadataUpdateDto;
 import org.eclipse.sensinact.core.model.SensinactModelManager;
 import org.eclipse.sensinact.core.push.DataUpdateException;
@@ -41,6 +42,26 @@ public class SetMetadataCommand extends AbstractSensinactCommand<Void> {
         this.metadataUpdateDto = metadataUpdateDto;
     }
 
+    @Override
+    public String getTargetProvider() {
+        return metadataUpdateDto.provider;
+    }
+
+    /**
+     * Metadata updates are superseded by later updates of the same metadata of
+     * the same resource
+     */
+    @Override
+    public boolean isSupersededBy(AbstractSensinactCommand<?> command) {
+        return command instanceof SetMetadataCommand other && metadataUpdateDto.isSupersededBy(other.metadataUpdateDto)
+                && other.metadataUpdateDto.metadata.keySet().containsAll(metadataUpdateDto.metadata.keySet());
+    }
+
+    @Override
+    public CommandPriority getPriority() {
+        return CommandPriority.BULK;
+    }
+
     @Override
     protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
             PromiseFactory promiseFactory) {
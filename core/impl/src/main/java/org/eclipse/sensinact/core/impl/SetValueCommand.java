@@ -22,7 +22,10 @@ import org.eclipse.sensinact.core.annotation.dto.AnnotationConstants;
 import org.eclipse.sensinact.core.annotation.dto.DuplicateAction;
 import org.eclipse.sensinact.core.annotation.dto.NullAction;
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
+import org.eclipse.sensinact.core.command.CommandPriority;
+import org.eclipse.sensinact.core.command.GatewayThread;
 import org.eclipse.sensinact.core.command.GetLevel;
+import org.eclipse.sensinact.core.command.impl.GatewayThreadImpl;
 import org.eclipse.sensinact.core.dto.impl.DataUpdateDto;
 import org.eclipse.sensinact.core.emf.model.EMFModel;
 import org.eclipse.sensinact.core.emf.model.EMFService;
@@ -47,8 +50,39 @@ public class SetValueCommand extends AbstractSensinactCommand<Void> {
 
     private final DataUpdateDto dataUpdateDto;
 
+    /**
+     * True if this command must run with exclusive access to the twin, as it may
+     * have to change the model
+     */
+    private final boolean exclusive;
+
     public SetValueCommand(DataUpdateDto dataUpdateDto) {
+        this(dataUpdateDto, false);
+    }
+
+    private SetValueCommand(DataUpdateDto dataUpdateDto, boolean exclusive) {
         this.dataUpdateDto = dataUpdateDto;
+        this.exclusive = exclusive;
+    }
+
+    @Override
+    public String getTargetProvider() {
+        return exclusive ? null : dataUpdateDto.provider;
+    }
+
+    /**
+     * Value updates are superseded by later updates of the same resource, unless
+     * they were escalated to create the resource
+     */
+    @Override
+    public boolean isSupersededBy(AbstractSensinactCommand<?> command) {
+        return !exclusive && command instanceof SetValueCommand other && !other.exclusive
+                && dataUpdateDto.isSupersededBy(other.dataUpdateDto);
+    }
+
+    @Override
+    public CommandPriority getPriority() {
+        return CommandPriority.BULK;
     }
 
     @Override
@@ -56,6 +90,10 @@ public class SetValueCommand extends AbstractSensinactCommand<Void> {
             PromiseFactory promiseFactory) {
         return doCall((SensinactEMFDigitalTwin) twin, (SensinactEMFModelManager) modelMgr, promiseFactory)
                 .recoverWith(p -> {
+                    if (p.getFailure() instanceof DataUpdateException) {
+                        // Already reported by the exclusive command
+                        return promiseFactory.failed(p.getFailure());
+                    }
                     return promiseFactory.failed(new DataUpdateException(dataUpdateDto.modelPackageUri,
                             dataUpdateDto.model, dataUpdateDto.provider, dataUpdateDto.service, dataUpdateDto.resource,
                             dataUpdateDto.originalDto, p.getFailure()));
@@ -90,7 +128,10 @@ public class SetValueCommand extends AbstractSensinactCommand<Void> {
 
         SensinactResource resource = twin.getResource(packageUri, mod, provider, svc, res);
 
-        if (resource == null) {
+        if (resource == null && GatewayThreadImpl.isPartitionThread()) {
+            // The model may have to change, which can't be done from a partition
+            return GatewayThread.getGatewayThread().execute(new SetValueCommand(dataUpdateDto, true));
+        } else if (resource == null) {
             EMFModel model = null;
             if (modelEClass != null) {
                 model = modelMgr.getModel(modelEClass);
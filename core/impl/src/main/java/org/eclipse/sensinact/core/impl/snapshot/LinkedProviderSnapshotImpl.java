@@ -66,6 +66,37 @@ public class LinkedProviderSnapshotImpl extends AbstractSnapshot implements Link
         }
     }
 
+    /**
+     * @param provider        Snapshot of the linked provider
+     * @param snapshotInstant Instant of snapshot
+     * @param includeAdmin    Include the admin details of the provider
+     */
+    public LinkedProviderSnapshotImpl(final ProviderSnapshotImpl provider, final Instant snapshotInstant,
+            boolean includeAdmin) {
+        super(provider.getName(), snapshotInstant);
+        this.modelPackageUri = provider.getModelPackageUri();
+        this.modelName = provider.getModelName();
+        this.icon = null;
+        if (includeAdmin) {
+            this.friendlyName = getAdminValue(provider, "friendlyName", String.class);
+            this.description = getAdminValue(provider, "description", String.class);
+            this.location = getAdminValue(provider, "location", GeoJsonObject.class);
+        } else {
+            this.friendlyName = null;
+            this.description = null;
+            this.location = null;
+        }
+    }
+
+    private static <T> T getAdminValue(ProviderSnapshotImpl provider, String resource, Class<T> type) {
+        ResourceSnapshotImpl rc = provider.getResource("admin", resource);
+        if (rc == null || rc.getValue() == null) {
+            return null;
+        }
+        Object value = rc.getValue().getValue();
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
     @Override
     public String toString() {
         return String.format("LinkedProviderSnapshot(%s/%s/%s, %s)", modelPackageUri, modelName, getName(),
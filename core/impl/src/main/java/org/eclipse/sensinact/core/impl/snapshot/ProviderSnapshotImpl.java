@@ -80,6 +80,20 @@ public class ProviderSnapshotImpl extends AbstractSnapshot implements ProviderSn
         }
     }
 
+    /**
+     * Creates a copy of the given snapshot, without its services
+     *
+     * @param source Snapshot to copy
+     * @param linked Linked providers of the copy
+     */
+    public ProviderSnapshotImpl(final ProviderSnapshotImpl source, final List<LinkedProviderSnapshot> linked) {
+        super(source.getName(), source.getSnapshotTime());
+        this.modelPackageUri = source.modelPackageUri;
+        this.modelName = source.modelName;
+        this.modelProvider = source.modelProvider;
+        this.linked = linked;
+    }
+
     @Override
     public String toString() {
         return String.format("ProviderSnapshot(%s/%s/%s, %s)", modelPackageUri, modelName, getName(),
@@ -86,6 +86,22 @@ public class ResourceSnapshotImpl extends AbstractSnapshot implements ResourceSn
         this.metadata = rcMeta;
     }
 
+    /**
+     * Creates a copy of the given snapshot, without its value
+     *
+     * @param parent Parent service of the copy
+     * @param source Snapshot to copy
+     */
+    public ResourceSnapshotImpl(final ServiceSnapshotImpl parent, final ResourceSnapshotImpl source) {
+        super(source.getName(), source.getSnapshotTime());
+        this.service = parent;
+        this.rcFeature = source.rcFeature;
+        this.type = source.type;
+        this.resourceType = source.resourceType;
+        this.valueType = source.valueType;
+        this.metadata = new HashMap<>(source.metadata);
+    }
+
     @Override
     public String toString() {
         final ProviderSnapshot provider = service.getProvider();
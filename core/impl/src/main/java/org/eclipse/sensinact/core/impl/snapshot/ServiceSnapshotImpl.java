@@ -55,6 +55,19 @@ public class ServiceSnapshotImpl extends AbstractSnapshot implements ServiceSnap
         this.modelService = modelService.getValue();
     }
 
+    /**
+     * Creates a copy of the given snapshot, without its resources
+     *
+     * @param parent Parent provider of the copy
+     * @param source Snapshot to copy
+     */
+    public ServiceSnapshotImpl(final ProviderSnapshotImpl parent, final ServiceSnapshotImpl source) {
+        super(source.getName(), source.getSnapshotTime());
+        this.provider = parent;
+        this.modelEClass = source.modelEClass;
+        this.modelService = source.modelService;
+    }
+
     @Override
     public String toString() {
         final ProviderSnapshot provider = getProvider();
@@ -0,0 +1,99 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.metrics.impl;
+
+import org.eclipse.sensinact.core.metrics.INamedMetric;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Base of the metric proxies handed out by the {@link MetricsManager}.
+ *
+ * The underlying Metrics object is resolved once and kept until the state of
+ * the manager changes (enabled, disabled, cleared...), which is detected by a
+ * change of the manager generation. When the metric is disabled, the proxy is
+ * bound to nothing and does nothing.
+ *
+ * @param <M> Metrics object type
+ */
+abstract class BoundMetric<M extends Metric> implements INamedMetric {
+
+    /**
+     * Metric name
+     */
+    private final String name;
+
+    /**
+     * Metrics manager
+     */
+    private final MetricsManager manager;
+
+    /**
+     * Current binding
+     */
+    private volatile Binding<M> binding = new Binding<>(-1, null);
+
+    /**
+     * @param name    Metric name
+     * @param manager Metrics manager
+     */
+    BoundMetric(final String name, final MetricsManager manager) {
+        this.name = name;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the bound Metrics object, resolving it again if the state of the
+     * manager changed since the last call
+     *
+     * @return The Metrics object, or null if the metric is disabled
+     */
+    protected final M metric() {
+        Binding<M> current = binding;
+        // Read the generation before the state, so that a concurrent change
+        // always triggers a new resolution on the next call
+        final int generation = manager.generation();
+        if (current.generation != generation) {
+            final MetricRegistry registry = manager.registry();
+            current = new Binding<>(generation,
+                    registry != null && manager.isEnabled(name) ? resolve(registry, name) : null);
+            binding = current;
+        }
+        return current.metric;
+    }
+
+    /**
+     * Looks up the Metrics object in the registry
+     *
+     * @param registry Metrics registry
+     * @param name     Metric name
+     * @return The Metrics object
+     */
+    protected abstract M resolve(MetricRegistry registry, String name);
+
+    private static final class Binding<M> {
+        final int generation;
+        final M metric;
+
+        Binding(final int generation, final M metric) {
+            this.generation = generation;
+            this.metric = metric;
+        }
+    }
+}
@@ -10,11 +10,8 @@
 * Contributors:
 *   Kentyou - initial implementation
 **********************************************************************/
-
 package org.eclipse.sensinact.core.metrics.impl;
 
-import java.util.function.Function;
-
 import org.eclipse.sensinact.core.metrics.IMetricCounter;
 
 import com.codahale.metrics.MetricRegistry;
@@ -22,50 +19,34 @@ import com.codahale.metrics.MetricRegistry;
 /**
  * A proxy implementation to set a counter
  */
-public class Counter implements IMetricCounter {
-
-    /**
-     * Metric name
-     */
-    private final String name;
-
-    /**
-     * Method indicating if the metrics service is active
-     */
-    private final Function<String, Boolean> isActive;
-
-    /**
-     * Metrics registry
-     */
-    private final MetricRegistry registry;
+public class Counter extends BoundMetric<com.codahale.metrics.Counter> implements IMetricCounter {
 
     /**
-     * @param name     Counter name
-     * @param registry Metrics registry
-     * @param isActive Metrics activation test method
+     * @param name    Counter name
+     * @param manager Metrics manager
      */
-    public Counter(final String name, final MetricRegistry registry, final Function<String, Boolean> isActive) {
-        this.isActive = isActive;
-        this.name = name;
-        this.registry = registry;
+    Counter(final String name, final MetricsManager manager) {
+        super(name, manager);
     }
 
     @Override
-    public String getName() {
-        return name;
+    protected com.codahale.metrics.Counter resolve(final MetricRegistry registry, final String name) {
+        return registry.counter(name);
     }
 
     @Override
     public void inc() {
-        if (isActive.apply(name)) {
-            registry.counter(name).inc();
+        final com.codahale.metrics.Counter counter = metric();
+        if (counter != null) {
+            counter.inc();
         }
     }
 
     @Override
     public void dec() {
-        if (isActive.apply(name)) {
-            registry.counter(name).dec();
+        final com.codahale.metrics.Counter counter = metric();
+        if (counter != null) {
+            counter.dec();
         }
     }
 }
@@ -10,11 +10,8 @@
 * Contributors:
 *   Kentyou - initial implementation
 **********************************************************************/
-
 package org.eclipse.sensinact.core.metrics.impl;
 
-import java.util.function.Function;
-
 import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
 
 import com.codahale.metrics.MetricRegistry;
@@ -22,43 +19,26 @@ import com.codahale.metrics.MetricRegistry;
 /**
  * A proxy implementation to set a histogram
  */
-public class Histogram implements IMetricsHistogram {
-
-    /**
-     * Metric name
-     */
-    private final String name;
-
-    /**
-     * Method indicating if the metrics service is active
-     */
-    private final Function<String, Boolean> isActive;
-
-    /**
-     * Metrics registry
-     */
-    private final MetricRegistry registry;
+public class Histogram extends BoundMetric<com.codahale.metrics.Histogram> implements IMetricsHistogram {
 
     /**
-     * @param name     Counter name
-     * @param registry Metrics registry
-     * @param isActive Metrics activation flag
+     * @param name    Histogram name
+     * @param manager Metrics manager
      */
-    public Histogram(final String name, final MetricRegistry registry, final Function<String, Boolean> isActive) {
-        this.isActive = isActive;
-        this.name = name;
-        this.registry = registry;
+    Histogram(final String name, final MetricsManager manager) {
+        super(name, manager);
     }
 
     @Override
-    public String getName() {
-        return name;
+    protected com.codahale.metrics.Histogram resolve(final MetricRegistry registry, final String name) {
+        return registry.histogram(name);
     }
 
     @Override
     public void update(long value) {
-        if (isActive.apply(name)) {
-            registry.histogram(name).update(value);
+        final com.codahale.metrics.Histogram histogram = metric();
+        if (histogram != null) {
+            histogram.update(value);
         }
     }
 }
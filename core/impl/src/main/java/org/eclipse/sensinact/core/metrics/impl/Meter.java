@@ -10,11 +10,8 @@
 * Contributors:
 *   Kentyou - initial implementation
 **********************************************************************/
-
 package org.eclipse.sensinact.core.metrics.impl;
 
-import java.util.function.Function;
-
 import org.eclipse.sensinact.core.metrics.IMetricMeter;
 
 import com.codahale.metrics.MetricRegistry;
@@ -22,37 +19,19 @@ import com.codahale.metrics.MetricRegistry;
 /**
  * A proxy implementation to set a meter
  */
-public class Meter implements IMetricMeter {
-
-    /**
-     * Metric name
-     */
-    private final String name;
-
-    /**
-     * Method indicating if the metrics service is active
-     */
-    private final Function<String, Boolean> isActive;
-
-    /**
-     * Metrics registry
-     */
-    private final MetricRegistry registry;
+public class Meter extends BoundMetric<com.codahale.metrics.Meter> implements IMetricMeter {
 
     /**
-     * @param name     Counter name
-     * @param registry Metrics registry
-     * @param isActive Metrics activation flag
+     * @param name    Meter name
+     * @param manager Metrics manager
      */
-    public Meter(final String name, final MetricRegistry registry, final Function<String, Boolean> isActive) {
-        this.isActive = isActive;
-        this.name = name;
-        this.registry = registry;
+    Meter(final String name, final MetricsManager manager) {
+        super(name, manager);
     }
 
     @Override
-    public String getName() {
-        return name;
+    protected com.codahale.metrics.Meter resolve(final MetricRegistry registry, final String name) {
+        return registry.meter(name);
     }
 
     @Override
@@ -62,8 +41,9 @@ public class Meter implements IMetricMeter {
 
     @Override
     public void mark(long n) {
-        if (isActive.apply(name)) {
-            registry.meter(name).mark(n);
+        final com.codahale.metrics.Meter meter = metric();
+        if (meter != null) {
+            meter.mark(n);
         }
     }
 }
@@ -20,12 +20,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.sensinact.core.metrics.IMetricCounter;
 import org.eclipse.sensinact.core.metrics.IMetricMeter;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
 import org.eclipse.sensinact.core.metrics.IMetricsGauge;
 import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
 import org.eclipse.sensinact.core.metrics.IMetricsListener;
@@ -67,7 +70,7 @@ public class MetricsManager implements IMetricsManager {
     /**
      * Metrics activation flag
      */
-    private boolean isActive = true;
+    private volatile boolean isActive = true;
 
     /**
      * Provider name
@@ -82,12 +85,26 @@ public class MetricsManager implements IMetricsManager {
     /**
      * Explicitly activated metrics
      */
-    private final Set<String> activeMetrics = new HashSet<>();
+    private final Set<String> activeMetrics = ConcurrentHashMap.newKeySet();
 
     /**
      * Metrics registry
      */
-    private MetricRegistry registry;
+    private volatile MetricRegistry registry;
+
+    /**
+     * Incremented each time the state of the metrics changes, to let the proxies
+     * know they must resolve their metric again
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * Proxies handed out so far, by name
+     */
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+    private final Map<String, TimerHandle> timers = new ConcurrentHashMap<>();
 
     /**
      * Internal metrics reporter
@@ -164,6 +181,7 @@ public class MetricsManager implements IMetricsManager {
             }
             registry = null;
         }
+        generation.incrementAndGet();
     }
 
     /**
@@ -312,10 +330,24 @@ public class MetricsManager implements IMetricsManager {
      * @param name Metrics name
      * @return True if the metric is allows
      */
-    private boolean isEnabled(final String name) {
+    boolean isEnabled(final String name) {
         return isActive && registry != null && (activeMetrics.isEmpty() || activeMetrics.contains(name));
     }
 
+    /**
+     * @return The current metrics registry (can be null)
+     */
+    MetricRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * @return The current generation of the metrics state
+     */
+    int generation() {
+        return generation.get();
+    }
+
     @Override
     public void enableMetrics() {
         isActive = true;
@@ -345,6 +377,7 @@ public class MetricsManager implements IMetricsManager {
             callbackReporter = new CallbackReporter(this::reporterCallback, registry, metricsProvider);
             callbackReporter.start(updateRate, TimeUnit.SECONDS);
         }
+        generation.incrementAndGet();
     }
 
     @Override
@@ -371,12 +404,14 @@ public class MetricsManager implements IMetricsManager {
         final Set<String> toRemove = new HashSet<>(registry.getNames());
         toRemove.removeAll(registry.getGauges().keySet());
         registry.removeMatching((name, metric) -> toRemove.contains(name));
+        generation.incrementAndGet();
     }
 
     @Override
     public void enableMetrics(String... names) {
         if (names != null) {
             activeMetrics.addAll(Arrays.asList(names));
+            generation.incrementAndGet();
         }
     }
 
@@ -384,24 +419,21 @@ public class MetricsManager implements IMetricsManager {
     public void disableMetrics(String... names) {
         if (names != null) {
             activeMetrics.removeAll(Arrays.asList(names));
+            generation.incrementAndGet();
         }
     }
 
     @Override
     public IMetricTimer withTimer(String name) {
-        if (!isEnabled(name)) {
-            return new DummyTimer(name);
-        }
-
-        return new MetricsTimer(registry, name);
+        return getTimer(name).start();
     }
 
     @Override
     public IMetricTimer withTimers(String... names) {
-        final List<IMetricTimer> timers = new ArrayList<>();
+        final List<IMetricTimer> started = new ArrayList<>();
         for (String name : names) {
             if (isEnabled(name)) {
-                timers.add(new MetricsTimer(registry, name));
+                started.add(getTimer(name).start());
             }
         }
 
@@ -413,7 +445,7 @@ public class MetricsManager implements IMetricsManager {
 
             @Override
             public void close() {
-                for (IMetricTimer timer : timers) {
+                for (IMetricTimer timer : started) {
                     timer.close();
                 }
             }
@@ -422,16 +454,21 @@ public class MetricsManager implements IMetricsManager {
 
     @Override
     public IMetricCounter getCounter(String name) {
-        return new Counter(name, registry, this::isEnabled);
+        return counters.computeIfAbsent(name, n -> new Counter(n, this));
     }
 
     @Override
     public IMetricsHistogram getHistogram(String name) {
-        return new Histogram(name, registry, this::isEnabled);
+        return histograms.computeIfAbsent(name, n -> new Histogram(n, this));
     }
 
     @Override
     public IMetricMeter getMeter(String name) {
-        return new Meter(name, registry, this::isEnabled);
+        return meters.computeIfAbsent(name, n -> new Meter(n, this));
+    }
+
+    @Override
+    public IMetricTimerHandle getTimer(String name) {
+        return timers.computeIfAbsent(name, n -> new TimerHandle(n, this));
     }
 }
@@ -42,6 +42,15 @@ public class MetricsTimer implements IMetricTimer {
         context = registry.timer(name).time();
     }
 
+    /**
+     * @param name    Timer name
+     * @param context Started timer context
+     */
+    MetricsTimer(String name, Timer.Context context) {
+        this.name = name;
+        this.context = context;
+    }
+
     @Override
     public String getName() {
         return name;
@@ -0,0 +1,53 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.metrics.impl;
+
+import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * A proxy implementation to start timers
+ */
+public class TimerHandle extends BoundMetric<Timer> implements IMetricTimerHandle {
+
+    /**
+     * Timer returned while the metric is disabled
+     */
+    private final DummyTimer dummy;
+
+    /**
+     * @param name    Timer name
+     * @param manager Metrics manager
+     */
+    TimerHandle(final String name, final MetricsManager manager) {
+        super(name, manager);
+        dummy = new DummyTimer(name);
+    }
+
+    @Override
+    protected Timer resolve(final MetricRegistry registry, final String name) {
+        return registry.timer(name);
+    }
+
+    @Override
+    public IMetricTimer start() {
+        final Timer timer = metric();
+        if (timer == null) {
+            return dummy;
+        }
+        return new MetricsTimer(getName(), timer.time());
+    }
+}
@@ -39,13 +39,13 @@ public class SensinactModelManagerImpl extends CommandScopedImpl implements Sens
 
     @Override
     public EMFModelBuilder createModel(String model) {
-        checkValid();
+        checkExclusive();
         return new ModelBuilderImpl(active, nexusImpl, null, model);
     }
 
     @Override
     public EMFModelBuilder createModel(String packageUri, String model) {
-        checkValid();
+        checkExclusive();
         return new ModelBuilderImpl(active, nexusImpl, packageUri, model);
     }
 
@@ -75,7 +75,7 @@ public class SensinactModelManagerImpl extends CommandScopedImpl implements Sens
 
     @Override
     public void deleteModel(String packageUri, String model) {
-        checkValid();
+        checkExclusive();
         nexusImpl.deleteModel(packageUri, model);
     }
 
@@ -119,6 +119,7 @@ public class SensinactModelManagerImpl extends CommandScopedImpl implements Sens
      */
     @Override
     public EMFModelBuilder createModel(EClass model) {
+        checkExclusive();
         return new ModelBuilderImpl(active, nexusImpl, model);
     }
 }
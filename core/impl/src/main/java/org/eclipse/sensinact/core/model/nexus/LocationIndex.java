@@ -0,0 +1,195 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+
+/**
+ * Spatial index of the provider locations.
+ *
+ * The envelope of each location is stored in the cells of a regular
+ * longitude/latitude grid it covers. Locations covering too many cells, like
+ * regions, are kept aside and always checked. Queries covering more cells than
+ * there are in use fall back to checking all the envelopes, which is still
+ * cheaper than testing the location filter on each provider.
+ *
+ * This class is thread safe.
+ */
+public class LocationIndex {
+
+    /**
+     * Default cell size, in degrees (about 11 km at the equator)
+     */
+    public static final double DEFAULT_CELL_SIZE = 0.1;
+
+    /**
+     * Maximum number of cells an envelope can be stored in
+     */
+    private static final int MAX_CELLS_PER_ENTRY = 64;
+
+    private final double cellSize;
+
+    /**
+     * Provider name -&gt; envelope of its location
+     */
+    private final Map<String, GeoEnvelope> envelopes = new HashMap<>();
+
+    /**
+     * Cell key -&gt; names of the providers with a location in the cell
+     */
+    private final Map<Long, Set<String>> cells = new HashMap<>();
+
+    /**
+     * Names of the providers with a location covering too many cells
+     */
+    private final Set<String> large = new HashSet<>();
+
+    public LocationIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSize Size of the grid cells, in degrees
+     */
+    public LocationIndex(final double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Invalid cell size: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Sets the location of a provider
+     *
+     * @param provider Provider name
+     * @param location Provider location, null or empty to remove the provider from
+     *                 the index
+     */
+    public synchronized void update(final String provider, final GeoJsonObject location) {
+        final GeoEnvelope envelope = GeoEnvelope.of(location);
+        if (envelope != null && envelope.equals(envelopes.get(provider))) {
+            // Nothing to do
+            return;
+        }
+
+        remove(provider);
+        if (envelope == null) {
+            return;
+        }
+
+        envelopes.put(provider, envelope);
+        if (cellCount(envelope) > MAX_CELLS_PER_ENTRY) {
+            large.add(provider);
+        } else {
+            forEachCell(envelope, key -> cells.computeIfAbsent(key, k -> new HashSet<>()).add(provider));
+        }
+    }
+
+    /**
+     * Removes a provider from the index
+     *
+     * @param provider Provider name
+     */
+    public synchronized void remove(final String provider) {
+        final GeoEnvelope envelope = envelopes.remove(provider);
+        if (envelope == null) {
+            return;
+        }
+
+        if (!large.remove(provider)) {
+            forEachCell(envelope, key -> {
+                final Set<String> names = cells.get(key);
+                if (names != null) {
+                    names.remove(provider);
+                    if (names.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the providers whose location envelope intersects the given one
+     *
+     * @param envelope Searched envelope
+     * @return The names of the candidate providers
+     */
+    public synchronized Set<String> candidates(final GeoEnvelope envelope) {
+        final Set<String> result = new HashSet<>();
+        if (cellCount(envelope) > cells.size()) {
+            // Cheaper to check all envelopes
+            for (Entry<String, GeoEnvelope> entry : envelopes.entrySet()) {
+                if (entry.getValue().intersects(envelope)) {
+                    result.add(entry.getKey());
+                }
+            }
+            return result;
+        }
+
+        forEachCell(envelope, key -> {
+            final Set<String> names = cells.get(key);
+            if (names != null) {
+                for (String name : names) {
+                    if (envelopes.get(name).intersects(envelope)) {
+                        result.add(name);
+                    }
+                }
+            }
+        });
+
+        for (String name : large) {
+            if (envelopes.get(name).intersects(envelope)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed providers
+     */
+    public synchronized int size() {
+        return envelopes.size();
+    }
+
+    private long cell(final double value) {
+        return (long) Math.floor(value / cellSize);
+    }
+
+    private double cellCount(final GeoEnvelope envelope) {
+        // Computed as a double to avoid overflows with huge envelopes
+        return ((double) cell(envelope.maxLongitude()) - cell(envelope.minLongitude()) + 1)
+                * ((double) cell(envelope.maxLatitude()) - cell(envelope.minLatitude()) + 1);
+    }
+
+    private void forEachCell(final GeoEnvelope envelope, final LongConsumer action) {
+        final long minX = cell(envelope.minLongitude());
+        final long maxX = cell(envelope.maxLongitude());
+        final long minY = cell(envelope.minLatitude());
+        final long maxY = cell(envelope.maxLatitude());
+        for (long x = minX; x <= maxX; x++) {
+            for (long y = minY; y <= maxY; y++) {
+                action.accept((x << 32) ^ (y & 0xFFFFFFFFL));
+            }
+        }
+    }
+}
@@ -13,15 +13,11 @@
 **********************************************************************/
 package org.eclipse.sensinact.core.model.nexus;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Instant;
 import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +26,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -42,7 +39,6 @@ import org.eclipse.emf.common.util.BasicEMap;
 import org.eclipse.emf.common.util.ECollections;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.EMap;
-import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EClassifier;
@@ -54,7 +50,6 @@ import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.ETypedElement;
 import org.eclipse.emf.ecore.EcorePackage;
-import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.sensinact.core.command.impl.ActionHandler;
@@ -64,9 +59,11 @@ import org.eclipse.sensinact.core.model.nexus.emf.EMFUtil;
 import org.eclipse.sensinact.core.model.nexus.emf.NamingUtils;
 import org.eclipse.sensinact.core.model.nexus.emf.compare.EMFCompareUtil;
 import org.eclipse.sensinact.core.notification.impl.NotificationAccumulator;
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
 import org.eclipse.sensinact.core.twin.DefaultTimedValue;
 import org.eclipse.sensinact.core.twin.TimedValue;
 import org.eclipse.sensinact.core.whiteboard.impl.SensinactWhiteboard;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 import org.eclipse.sensinact.model.core.provider.Admin;
 import org.eclipse.sensinact.model.core.provider.DynamicProvider;
 import org.eclipse.sensinact.model.core.provider.MetadataValue;
@@ -93,20 +90,25 @@ public class ModelNexus {
 
     private static final Logger LOG = LoggerFactory.getLogger(ModelNexus.class);
 
-    private static final String BASE = "data/";
-    private static final String BASIC_EPACKAGES = BASE + "ePackages.ecore";
-    private static final String BASIC_PROVIDERS = BASE + "providers.xmi";
-
     private final ResourceSet resourceSet;
     private final ProviderPackage providerPackage;
     private final Supplier<NotificationAccumulator> notificationAccumulator;
 
-    private final Map<String, Provider> providers = new HashMap<>();
+    /**
+     * Providers are created and read concurrently when the gateway runs with
+     * multiple partitions
+     */
+    private final Map<String, Provider> providers = new ConcurrentHashMap<>();
 
     /**
      * The reverse mapping of child providers to parent providers
      */
-    private final Map<String, Set<String>> childToParents = new HashMap<>();
+    private final Map<String, Set<String>> childToParents = new ConcurrentHashMap<>();
+
+    /**
+     * Spatial index of the admin locations of the providers
+     */
+    private final LocationIndex locations = new LocationIndex();
 
 //    private final Map<String, EClass> models = new HashMap<>();
 
@@ -165,68 +167,15 @@ public class ModelNexus {
         this.providerPackage = ProviderPackage;
         this.notificationAccumulator = accumulator;
         this.whiteboard = whiteboard;
-        // TODO we need a general Working Directory for such data
-//		loadEPackages(Paths.get(BASIC_EPACKAGES));
 
         if (!resourceSet.getPackageRegistry().containsKey(EMFUtil.DEFAULT_SENSINACT_PACKAGE_URI)) {
             EMFUtil.createPackage("base", EMFUtil.DEFAULT_SENSINACT_PACKAGE_URI, "sensinactBase", this.resourceSet);
         }
 
-//		loadInstances(Paths.get(BASIC_PROVIDERS));
         setupSensinactProvider();
 
     }
 
-    private void loadEPackages(Path fileName) {
-        if (Files.isRegularFile(fileName)) {
-            Resource resource = resourceSet.createResource(URI.createFileURI(fileName.toString()));
-            try {
-                resource.load(null);
-                if (!resource.getContents().isEmpty()) {
-
-                    resource.getContents().forEach(e -> {
-                        EPackage ePackage = (EPackage) e;
-                        resource.setURI(URI.createURI(ePackage.getNsURI()));
-                        EcoreUtil.resolveAll(ePackage);
-                        resourceSet.getPackageRegistry().put(ePackage.getNsURI(), ePackage);
-                    });
-
-                    resourceSet.getResources().remove(resource);
-                }
-            } catch (IOException e) {
-                LOG.error(
-                        "THIS WILL BE A RUNTIME EXCEPTION FOR NOW: Error Loading default EPackage from persistent file: {}",
-                        fileName, e);
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
-    private void loadInstances(Path fileName) {
-        if (Files.isRegularFile(fileName)) {
-            try {
-                // TODO should we fire events here?
-                URI uri = URI.createFileURI(fileName.toString());
-                Resource resource = resourceSet.createResource(uri);
-                resource.load(null);
-                if (!resource.getContents().isEmpty()) {
-                    resource.getContents().forEach(e -> {
-                        Provider provider = (Provider) e;
-                        EClass eClass = provider.eClass();
-                        registerModel(eClass, Instant.ofEpochMilli(resource.getTimeStamp()), true);
-                        providers.put(provider.getId(), provider);
-                    });
-                }
-                resource.getContents().clear();
-                resourceSet.getResources().remove(resource);
-            } catch (IOException e) {
-                LOG.error("THIS WILL BE A RUNTIME EXCEPTION FOR NOW: Error loading provider from Path: {}", fileName,
-                        e);
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
     // TODO: This needs to become a predefined model
     private void setupSensinactProvider() {
         if (!providers.containsKey("sensinact")) {
@@ -250,31 +199,7 @@ public class ModelNexus {
     }
 
     public void shutDown() {
-
-        Resource providers = resourceSet.createResource(URI.createURI(BASIC_PROVIDERS));
-        this.providers.values().forEach(providers.getContents()::add);
-
-        try {
-            providers.save(Collections.emptyMap());
-        } catch (IOException e) {
-            LOG.error("Could not save provider instances", e);
-        }
-
-        // Always do this last, because it would mess up the Package URIs in the saved
-        // providers and complicate loading
-        Resource ePackages = resourceSet.createResource(URI.createURI(BASIC_EPACKAGES));
-        resourceSet.getPackageRegistry().entrySet().stream()
-                .filter(e -> !EPackage.Registry.INSTANCE.containsKey(e.getKey())).map(Entry::getValue)
-                .map(EPackage.class::cast).forEach(ePackages.getContents()::add);
-
-        try {
-            ePackages.save(Collections.emptyMap());
-        } catch (IOException e) {
-            LOG.error("Could not save EPackages", e);
-        }
-
         resourceSet.getResources().clear();
-
     }
 
     /**
@@ -311,11 +236,7 @@ public class ModelNexus {
         ResourceValueMetadata metadata = getOrInitializeResourceMetadata(admin, pp.getProvider_LinkedProviders());
         Instant oldTs = metadata.getTimestamp();
         if (oldTs == null || !oldTs.isAfter(metaTimestamp)) {
-            Set<String> set = childToParents.get(childProvider);
-            if (set == null) {
-                set = new HashSet<>();
-                childToParents.put(childProvider, set);
-            }
+            Set<String> set = childToParents.computeIfAbsent(childProvider, k -> ConcurrentHashMap.newKeySet());
 
             if (set.add(parentProvider)) {
                 if (!parent.isSetLinkedProviders()) {
@@ -503,6 +424,10 @@ public class ModelNexus {
                 service.eSet(resourceFeature, storedData);
             }
 
+            if (resourceFeature == ProviderPackage.Literals.ADMIN__LOCATION) {
+                locations.update(providerName, storedData instanceof GeoJsonObject g ? g : null);
+            }
+
             Map<String, Object> newMetaData = EMFCompareUtil.extractMetadataMap(storedData, metadata, resourceFeature);
 
             accumulator.resourceValueUpdate(packageUri, modelName, providerName, serviceName, resourceFeature.getName(),
@@ -633,6 +558,22 @@ public class ModelNexus {
         return Collections.unmodifiableCollection(providers.values());
     }
 
+    /**
+     * Returns the providers whose admin location may intersect the given envelope,
+     * according to the location index. Providers without location are never
+     * returned.
+     * <p>
+     * Only criteria exposing a location envelope benefit from the index: the
+     * geospatial predicates of LDAP and SensorThings filters are evaluated on the
+     * resource values and still scan every provider.
+     *
+     * @param envelope Envelope to look for
+     * @return The candidate providers
+     */
+    public List<Provider> getProviders(GeoEnvelope envelope) {
+        return locations.candidates(envelope).stream().map(providers::get).filter(Objects::nonNull).toList();
+    }
+
     /**
      * Lists know providers
      */
@@ -935,6 +876,31 @@ public class ModelNexus {
         return ePackage.equals(resourceSet.getPackageRegistry().getEPackage(ePackage.getNsURI()));
     }
 
+    /**
+     * Finds a value type in the registered packages, including the types of the
+     * bundles providing models
+     *
+     * @param className the name of the type
+     * @return the instance class of a classifier of a registered package, null
+     *         if no classifier has this type
+     */
+    public Class<?> findInstanceClass(String className) {
+        EPackage.Registry registry = resourceSet.getPackageRegistry();
+        // Copy the URIs, as getting a package may replace its descriptor
+        for (String nsUri : List.copyOf(registry.keySet())) {
+            EPackage ePackage = registry.getEPackage(nsUri);
+            if (ePackage == null) {
+                continue;
+            }
+            for (EClassifier classifier : ePackage.getEClassifiers()) {
+                if (className.equals(classifier.getInstanceClassName()) && classifier.getInstanceClass() != null) {
+                    return classifier.getInstanceClass();
+                }
+            }
+        }
+        return null;
+    }
+
     private EClass getMandatoryModel(String modelPackageUri, String modelName) {
         return getModel(modelPackageUri, modelName)
                 .orElseThrow(() -> new IllegalArgumentException("No model with name " + modelName));
@@ -1251,6 +1217,7 @@ public class ModelNexus {
             childToParents.remove(name);
         }
         Provider p = providers.remove(name);
+        locations.remove(name);
         List<Provider> linked = Optional.<List<Provider>>ofNullable(p.getLinkedProviders()).orElse(List.of());
 
         for (Provider provider : linked) {
@@ -1279,6 +1246,7 @@ public class ModelNexus {
         }
 
         EMFCompareUtil.compareAndSet(provider, original, notificationAccumulator.get());
+        locations.update(id, original.getAdmin() == null ? null : original.getAdmin().getLocation());
 
         return EcoreUtil.copy(original);
     }
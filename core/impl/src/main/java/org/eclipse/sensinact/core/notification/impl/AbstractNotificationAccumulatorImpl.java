@@ -66,7 +66,7 @@ public abstract class AbstractNotificationAccumulatorImpl implements Notificatio
      * Returns an immutable snapshot of the value if it is a {@link Collection},
      * to prevent race conditions when the underlying EMF list is later modified.
      */
-    private static Object snapshotValue(Object value) {
+    protected static Object snapshotValue(Object value) {
         if (value instanceof Collection<?> col) {
             return List.copyOf(col);
         }
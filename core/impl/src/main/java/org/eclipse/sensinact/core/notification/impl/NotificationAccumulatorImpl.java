@@ -23,22 +23,18 @@ import static org.eclipse.sensinact.core.notification.LinkedProviderNotification
 import static org.eclipse.sensinact.core.notification.LinkedProviderNotification.Action.REMOVED;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.notification.ResourceNotification;
 import org.eclipse.sensinact.core.notification.LifecycleNotification;
-import org.eclipse.sensinact.core.notification.LinkedProviderNotification;
+import org.eclipse.sensinact.core.notification.LinkedProviderNotification.Action;
 import org.eclipse.sensinact.core.notification.LifecycleNotification.Status;
 import org.eclipse.sensinact.core.notification.ResourceActionNotification;
-import org.eclipse.sensinact.core.notification.ResourceDataNotification;
-import org.eclipse.sensinact.core.notification.ResourceMetaDataNotification;
 import org.osgi.service.typedevent.TypedEventBus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +46,11 @@ import org.slf4j.LoggerFactory;
  * If multiple events occur for the same target then the events will be
  * collapsed to "debounce" the notifications
  *
+ * Pending notifications are interned by type and target in an open-addressed
+ * hash table and merged in place. Data and metadata notifications are only
+ * created when the batch is completed, and the notifications are sorted once,
+ * by type then by target, before being sent.
+ *
  * This type is not thread safe and must not be used concurrently.
  */
 public class NotificationAccumulatorImpl extends AbstractNotificationAccumulatorImpl
@@ -59,7 +60,35 @@ public class NotificationAccumulatorImpl extends AbstractNotificationAccumulator
 
     private final TypedEventBus eventBus;
 
-    private final SortedMap<NotificationKey, List<ResourceNotification>> notifications = new TreeMap<>();
+    /**
+     * Notification types, in sending order
+     */
+    private static final int LIFECYCLE = 1;
+    private static final int METADATA = 2;
+    private static final int DATA = 3;
+    private static final int ACTION = 4;
+    private static final int LINK = 5;
+
+    /**
+     * Sending order: by type, then by target
+     */
+    private static final Comparator<Slot> ORDER = Comparator.<Slot>comparingInt(s -> s.kind)
+            .thenComparing(s -> s.provider, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(s -> s.service, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(s -> s.resource, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * Open-addressed table of the pending notifications (linear probing, power of
+     * two length)
+     */
+    private Slot[] table = new Slot[32];
+
+    /**
+     * Pending notifications, in insertion order
+     */
+    private Slot[] slots = new Slot[16];
+
+    private int size;
 
     public NotificationAccumulatorImpl(TypedEventBus eventBus) {
         this.eventBus = eventBus;
@@ -176,25 +205,31 @@ public class NotificationAccumulatorImpl extends AbstractNotificationAccumulator
     private void doLifecycleMerge(Status status, String modelPackageUri, String model, String provider, String service, String resource,
             Object initialValue, Map<String, Object> initialMetadata, boolean isDelete) {
         check();
-        notifications.compute(new NotificationKey(provider, service, resource, LifecycleNotification.class), (a, b) -> {
-            LifecycleNotification ln = createLifecycleNotification(status, modelPackageUri, model, provider, service, resource,
-                    initialValue, initialMetadata);
-            if (b != null) {
-                // Check the status of the last entry
-                Status s = ((LifecycleNotification) b.get(b.size() - 1)).status();
-                if (s == status) {
-                    // Simply replace the final entry with the update
-                    return b.size() == 2 ? List.of(b.get(0), ln) : List.of(ln);
-                } else if (isDelete) {
-                    // A create/delete is nothing, A delete/create/delete is a delete
-                    return b.size() == 1 ? null : List.of(ln);
-                } else {
-                    // Must be a delete/create, as we can't have a create/delete/create
-                    return List.of(b.get(0), ln);
-                }
+        LifecycleSlot slot = (LifecycleSlot) intern(LIFECYCLE, provider, service, resource);
+        LifecycleNotification ln = createLifecycleNotification(status, modelPackageUri, model, provider, service,
+                resource, initialValue, initialMetadata);
+        if (slot.first == null) {
+            slot.first = ln;
+            return;
+        }
+
+        // Check the status of the last entry
+        Status s = (slot.second == null ? slot.first : slot.second).status();
+        if (s == status) {
+            // Simply replace the final entry with the update
+            if (slot.second == null) {
+                slot.first = ln;
+            } else {
+                slot.second = ln;
             }
-            return List.of(ln);
-        });
+        } else if (isDelete) {
+            // A create/delete is nothing, A delete/create/delete is a delete
+            slot.first = slot.second == null ? null : ln;
+            slot.second = null;
+        } else {
+            // Must be a delete/create, as we can't have a create/delete/create
+            slot.second = ln;
+        }
     }
 
     /**
@@ -223,43 +258,33 @@ public class NotificationAccumulatorImpl extends AbstractNotificationAccumulator
         final Map<String, Object> nonNullNewValues = newValues == null ? emptyMap() : newValues;
         Objects.requireNonNull(timestamp);
 
-        notifications.compute(new NotificationKey(provider, service, resource, ResourceMetaDataNotification.class),
-                (a, b) -> {
-                    Map<String, Object> oldValuesToUse;
-                    Map<String, Object> newValuesToUse;
-                    Instant timestampToUse;
-                    if (b != null) {
-                        ResourceMetaDataNotification previous = (ResourceMetaDataNotification) b.get(0);
-                        oldValuesToUse = previous.oldValues();
-                        if (previous.timestamp().isAfter(timestamp)) {
-                            throw new IllegalArgumentException("Received metadata updates out of temporal order");
-                        } else {
-                            newValuesToUse = nonNullNewValues;
-                            timestampToUse = timestamp;
-                        }
-                    } else {
-                        oldValuesToUse = nonNullOldValues;
-                        newValuesToUse = nonNullNewValues;
-                        timestampToUse = timestamp;
-                    }
-                    notifications.computeIfPresent(
-                            new NotificationKey(provider, service, resource, ResourceDataNotification.class),
-                            (k,l) -> {
-                                List<ResourceNotification> result;
-                                if(l.isEmpty()) {
-                                    result = List.of();
-                                } else {
-                                    ResourceDataNotification rdn = (ResourceDataNotification) l.get(0);
-                                    result = List.of(createResourceDataNotification(rdn.modelPackageUri(),
-                                            rdn.model(), provider, service, resource, rdn.type(), rdn.oldValue(),
-                                            rdn.newValue(), newValuesToUse, rdn.timestamp()));
-                                }
-                                return result;
-                            });
-
-                    return List.of(createResourceMetaDataNotification(modelPackageUri, model, provider, service, resource,
-                            oldValuesToUse, newValuesToUse, timestampToUse));
-                });
+        MetadataSlot slot = (MetadataSlot) intern(METADATA, provider, service, resource);
+        if (slot.timestamp == null) {
+            slot.oldValues = nonNullOldValues;
+        } else if (isOutOfOrder(slot.timestamp, timestamp)) {
+            throw new IllegalArgumentException("Received metadata updates out of temporal order");
+        }
+        slot.modelPackageUri = modelPackageUri;
+        slot.model = model;
+        slot.newValues = nonNullNewValues;
+        slot.timestamp = timestamp;
+
+        // A pending value update carries the latest metadata
+        DataSlot data = (DataSlot) find(DATA, provider, service, resource);
+        if (data != null && data.timestamp != null) {
+            data.metadata = nonNullNewValues;
+        }
+    }
+
+    /**
+     * Checks the order of two updates of the same resource
+     *
+     * @param previous  the timestamp of the previous update
+     * @param timestamp the timestamp of the new update
+     * @return true if the new update is out of temporal order
+     */
+    private boolean isOutOfOrder(Instant previous, Instant timestamp) {
+        return previous.isAfter(timestamp);
     }
 
     /**
@@ -285,21 +310,18 @@ public class NotificationAccumulatorImpl extends AbstractNotificationAccumulator
             Object oldValue, Object newValue, Map<String, Object> metadata, Instant timestamp) {
         check();
         Objects.requireNonNull(timestamp);
-        notifications.compute(new NotificationKey(provider, service, resource, ResourceDataNotification.class),
-                (a, b) -> {
-                    Object oldValueToUse;
-                    if (b != null) {
-                        ResourceDataNotification previous = (ResourceDataNotification) b.get(0);
-                        if (previous.timestamp().isAfter(timestamp)) {
-                            throw new IllegalArgumentException("Received resource value updates out of temporal order");
-                        }
-                        oldValueToUse = previous.oldValue();
-                    } else {
-                        oldValueToUse = oldValue;
-                    }
-                    return List.of(createResourceDataNotification(modelPackageUri, model, provider, service, resource, type,
-                            oldValueToUse, newValue, metadata, timestamp));
-                });
+        DataSlot slot = (DataSlot) intern(DATA, provider, service, resource);
+        if (slot.timestamp == null) {
+            slot.oldValue = snapshotValue(oldValue);
+        } else if (isOutOfOrder(slot.timestamp, timestamp)) {
+            throw new IllegalArgumentException("Received resource value updates out of temporal order");
+        }
+        slot.modelPackageUri = modelPackageUri;
+        slot.model = model;
+        slot.type = type;
+        slot.newValue = snapshotValue(newValue);
+        slot.metadata = metadata;
+        slot.timestamp = timestamp;
     }
 
     /**
@@ -321,16 +343,15 @@ public class NotificationAccumulatorImpl extends AbstractNotificationAccumulator
     public void resourceAction(String modelPackageUri, String model, String provider, String service, String resource, Instant timestamp) {
         check();
         Objects.requireNonNull(timestamp);
-        notifications.compute(new NotificationKey(provider, service, resource, ResourceActionNotification.class),
-                (a, b) -> {
-                    ResourceActionNotification ran = createResourceActionNotification(modelPackageUri, model, provider, service,
-                            resource, timestamp);
-                    if (b != null) {
-                        return Stream.concat(b.stream(), Stream.of(ran)).map(ResourceActionNotification.class::cast)
-                                .sorted((i, j) -> i.timestamp().compareTo(j.timestamp())).collect(Collectors.toList());
-                    }
-                    return List.of(ran);
-                });
+        ActionSlot slot = (ActionSlot) intern(ACTION, provider, service, resource);
+        ResourceActionNotification ran = createResourceActionNotification(modelPackageUri, model, provider, service,
+                resource, timestamp);
+        // Insert after the actions with the same or an earlier timestamp
+        int i = slot.actions.size();
+        while (i > 0 && slot.actions.get(i - 1).timestamp().isAfter(timestamp)) {
+            i--;
+        }
+        slot.actions.add(i, ran);
     }
 
     @Override
@@ -346,46 +367,284 @@ public class NotificationAccumulatorImpl extends AbstractNotificationAccumulator
     private void doLinkMerge(String modelPackageUri, String model, String parentProvider, List<String> list, String childProvider,
             Instant metaTimestamp, boolean isRemove) {
         check();
-        notifications.compute(new NotificationKey(parentProvider, null, null, LinkedProviderNotification.class), (a, b) -> {
-            LinkedProviderNotification lpn = createLinkedProviderNotification(modelPackageUri, model, parentProvider,
-                    childProvider, isRemove ? REMOVED: ADDED, list, metaTimestamp);
-            if (b != null) {
-                AtomicBoolean doAdd = new AtomicBoolean(true);
-                List<LinkedProviderNotification> notifications = b.stream()
-                    .map(rn -> {
-                        LinkedProviderNotification existing = (LinkedProviderNotification) rn;
-                        if(existing.child().equals(childProvider)) {
-                            if(existing.action() == REMOVED) {
-                                // Double delete, we only want the second, delete then add
-                                // treat as just an add. Either way we remove
-                                return null;
-                            } else if(isRemove) {
-                                // Add then remove, include neither
-                                doAdd.set(false);
-                                return null;
-                            }
-                        }
-                        return createLinkedProviderNotification(existing.modelPackageUri(), existing.model(), parentProvider,
-                                existing.child(), existing.action(), list, existing.timestamp());
-                    })
-                    .filter(Objects::nonNull)
-                    .toList();
-                Stream<ResourceNotification> additional = doAdd.get() ? Stream.of(lpn) : Stream.empty();
-                return Stream.<ResourceNotification>concat(notifications.stream(), additional).toList();
+        LinkSlot slot = (LinkSlot) intern(LINK, parentProvider, null, null);
+        boolean doAdd = true;
+        for (int i = slot.links.size() - 1; i >= 0; i--) {
+            LinkEntry existing = slot.links.get(i);
+            if (existing.child.equals(childProvider)) {
+                if (existing.action == REMOVED) {
+                    // Double delete, we only want the second, delete then add
+                    // treat as just an add. Either way we remove
+                    slot.links.remove(i);
+                } else if (isRemove) {
+                    // Add then remove, include neither
+                    slot.links.remove(i);
+                    doAdd = false;
+                }
             }
-            return List.of(lpn);
-        });
+        }
+        if (doAdd) {
+            slot.links.add(new LinkEntry(modelPackageUri, model, childProvider, isRemove ? REMOVED : ADDED,
+                    metaTimestamp));
+        }
+        // All the notifications carry the latest list of linked providers
+        slot.linkedProviders = list;
     }
 
     @Override
     protected void doComplete() {
-        notifications.values().stream().flatMap(List::stream).forEach(n -> {
-            try {
-                eventBus.deliver(n.getTopic(), n);
-            } catch (Exception e) {
-                // Exception can occur if the topic is not valid
-                logger.error("Notification not delivered on topic {}", n.getTopic(), e);
+        Slot[] pending = Arrays.copyOf(slots, size);
+        Arrays.sort(pending, ORDER);
+        for (Slot slot : pending) {
+            slot.deliver();
+        }
+    }
+
+    private void deliver(ResourceNotification n) {
+        try {
+            eventBus.deliver(n.getTopic(), n);
+        } catch (Exception e) {
+            // Exception can occur if the topic is not valid
+            logger.error("Notification not delivered on topic {}", n.getTopic(), e);
+        }
+    }
+
+    private static int hash(int kind, String provider, String service, String resource) {
+        int h = kind;
+        h = 31 * h + Objects.hashCode(provider);
+        h = 31 * h + Objects.hashCode(service);
+        h = 31 * h + Objects.hashCode(resource);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the index of the slot of the target in the table, or of the empty
+     *         entry where it should be added
+     */
+    private int indexOf(int kind, String provider, String service, String resource, int hash) {
+        int mask = table.length - 1;
+        int i = hash & mask;
+        Slot slot;
+        while ((slot = table[i]) != null && !slot.matches(kind, provider, service, resource, hash)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @return the pending notifications of the target, or null
+     */
+    private Slot find(int kind, String provider, String service, String resource) {
+        return table[indexOf(kind, provider, service, resource, hash(kind, provider, service, resource))];
+    }
+
+    /**
+     * @return the pending notifications of the target, created if necessary
+     */
+    private Slot intern(int kind, String provider, String service, String resource) {
+        int hash = hash(kind, provider, service, resource);
+        int i = indexOf(kind, provider, service, resource, hash);
+        Slot slot = table[i];
+        if (slot != null) {
+            return slot;
+        }
+
+        switch (kind) {
+        case LIFECYCLE:
+            slot = new LifecycleSlot(provider, service, resource, hash);
+            break;
+        case METADATA:
+            slot = new MetadataSlot(provider, service, resource, hash);
+            break;
+        case DATA:
+            slot = new DataSlot(provider, service, resource, hash);
+            break;
+        case ACTION:
+            slot = new ActionSlot(provider, service, resource, hash);
+            break;
+        default:
+            slot = new LinkSlot(provider, service, resource, hash);
+            break;
+        }
+
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        slots[size++] = slot;
+        // Keep the load factor under 1/2
+        if (size * 2 > table.length) {
+            rehash();
+        } else {
+            table[i] = slot;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        table = new Slot[table.length * 2];
+        int mask = table.length - 1;
+        for (int s = 0; s < size; s++) {
+            Slot slot = slots[s];
+            int i = slot.hash & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = slot;
+        }
+    }
+
+    /**
+     * The pending notifications of a given type for a target. A slot is never
+     * removed from the table, a slot without notification simply sends nothing.
+     */
+    private abstract class Slot {
+
+        final int kind;
+        final String provider;
+        final String service;
+        final String resource;
+        final int hash;
+
+        Slot(int kind, String provider, String service, String resource, int hash) {
+            this.kind = kind;
+            this.provider = provider;
+            this.service = service;
+            this.resource = resource;
+            this.hash = hash;
+        }
+
+        boolean matches(int kind, String provider, String service, String resource, int hash) {
+            return this.hash == hash && this.kind == kind && Objects.equals(this.provider, provider)
+                    && Objects.equals(this.service, service) && Objects.equals(this.resource, resource);
+        }
+
+        abstract void deliver();
+    }
+
+    private class LifecycleSlot extends Slot {
+
+        /**
+         * At most two events: a single create or delete, or a delete then a create
+         */
+        LifecycleNotification first, second;
+
+        LifecycleSlot(String provider, String service, String resource, int hash) {
+            super(LIFECYCLE, provider, service, resource, hash);
+        }
+
+        @Override
+        void deliver() {
+            if (first != null) {
+                NotificationAccumulatorImpl.this.deliver(first);
+            }
+            if (second != null) {
+                NotificationAccumulatorImpl.this.deliver(second);
             }
-        });
+        }
+    }
+
+    private class MetadataSlot extends Slot {
+
+        String modelPackageUri;
+        String model;
+        Map<String, Object> oldValues;
+        Map<String, Object> newValues;
+        /**
+         * Timestamp of the latest update, null if there is none
+         */
+        Instant timestamp;
+
+        MetadataSlot(String provider, String service, String resource, int hash) {
+            super(METADATA, provider, service, resource, hash);
+        }
+
+        @Override
+        void deliver() {
+            if (timestamp != null) {
+                NotificationAccumulatorImpl.this.deliver(createResourceMetaDataNotification(modelPackageUri, model,
+                        provider, service, resource, oldValues, newValues, timestamp));
+            }
+        }
+    }
+
+    private class DataSlot extends Slot {
+
+        String modelPackageUri;
+        String model;
+        Class<?> type;
+        Object oldValue;
+        Object newValue;
+        Map<String, Object> metadata;
+        /**
+         * Timestamp of the latest update, null if there is none
+         */
+        Instant timestamp;
+
+        DataSlot(String provider, String service, String resource, int hash) {
+            super(DATA, provider, service, resource, hash);
+        }
+
+        @Override
+        void deliver() {
+            if (timestamp != null) {
+                NotificationAccumulatorImpl.this.deliver(createResourceDataNotification(modelPackageUri, model,
+                        provider, service, resource, type, oldValue, newValue, metadata, timestamp));
+            }
+        }
+    }
+
+    private class ActionSlot extends Slot {
+
+        /**
+         * Actions in timestamp order
+         */
+        final List<ResourceActionNotification> actions = new ArrayList<>(2);
+
+        ActionSlot(String provider, String service, String resource, int hash) {
+            super(ACTION, provider, service, resource, hash);
+        }
+
+        @Override
+        void deliver() {
+            for (ResourceActionNotification ran : actions) {
+                NotificationAccumulatorImpl.this.deliver(ran);
+            }
+        }
+    }
+
+    private class LinkSlot extends Slot {
+
+        final List<LinkEntry> links = new ArrayList<>(2);
+
+        List<String> linkedProviders;
+
+        LinkSlot(String provider, String service, String resource, int hash) {
+            super(LINK, provider, service, resource, hash);
+        }
+
+        @Override
+        void deliver() {
+            for (LinkEntry link : links) {
+                NotificationAccumulatorImpl.this.deliver(createLinkedProviderNotification(link.modelPackageUri,
+                        link.model, provider, link.child, link.action, linkedProviders, link.timestamp));
+            }
+        }
+    }
+
+    private static class LinkEntry {
+
+        final String modelPackageUri;
+        final String model;
+        final String child;
+        final Action action;
+        final Instant timestamp;
+
+        LinkEntry(String modelPackageUri, String model, String child, Action action, Instant timestamp) {
+            this.modelPackageUri = modelPackageUri;
+            this.model = model;
+            this.child = child;
+            this.action = action;
+            this.timestamp = timestamp;
+        }
     }
 }
@@ -0,0 +1,385 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.persistence.impl;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append only journal of the twin changes, made of a checkpoint describing
+ * the whole twin and of the segments listing the changes made since then.
+ *
+ * Each file starts with a header and is made of frames, each holding a length,
+ * a CRC and a batch of encoded records. Reading stops at the first truncated or
+ * corrupted frame, so that a crash while writing only loses the changes of the
+ * last frame.
+ *
+ * The journal is written by a single thread: records are queued with
+ * {@link #append(List)} by any thread and written by {@link #flush()}.
+ */
+final class TwinJournal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TwinJournal.class);
+
+    private static final int MAGIC = 0x534E544A;
+
+    private static final int VERSION = 1;
+
+    private static final int MAX_FRAME_RECORDS = 4096;
+
+    private static final String CHECKPOINT = "checkpoint.bin";
+
+    private static final String CHECKPOINT_TMP = "checkpoint.tmp";
+
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    private final Path directory;
+
+    private final Queue<List<TwinRecord>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Records drained from the queue and not yet written
+     */
+    private final List<TwinRecord> unwritten = new ArrayList<>();
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private final DataOutputStream bufferOut = new DataOutputStream(buffer);
+
+    private final CRC32 crc = new CRC32();
+
+    private long segment;
+
+    private FileChannel channel;
+
+    private TwinRecordCodec.Encoder encoder;
+
+    /**
+     * True if records were written since the last checkpoint
+     */
+    private boolean dirty;
+
+    TwinJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the checkpoint and the segments written after it, then opens a new
+     * segment for the next changes
+     *
+     * @param replay the consumer of the records read, in order
+     * @throws IOException if the journal can't be read or written
+     */
+    void load(Consumer<TwinRecord> replay) throws IOException {
+        load(replay, TwinRecordCodec::loadType);
+    }
+
+    /**
+     * Reads the checkpoint and the segments written after it, then opens a new
+     * segment for the next changes
+     *
+     * @param replay the consumer of the records read, in order
+     * @param types  resolves the types of the values, null if the type is unknown
+     * @throws IOException if the journal can't be read or written
+     */
+    synchronized void load(Consumer<TwinRecord> replay, Function<String, Class<?>> types) throws IOException {
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(CHECKPOINT_TMP));
+
+        long first = 0;
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (Files.isRegularFile(checkpoint)) {
+            first = read(checkpoint, replay, types);
+        }
+
+        long last = first - 1;
+        for (Map.Entry<Long, Path> entry : listSegments().entrySet()) {
+            if (entry.getKey() < first) {
+                // Already part of the checkpoint
+                Files.delete(entry.getValue());
+            } else {
+                read(entry.getValue(), replay, types);
+                last = entry.getKey();
+            }
+        }
+        openSegment(last + 1);
+    }
+
+    /**
+     * Queues records to be written by the next flush
+     *
+     * @param records the records to write
+     */
+    void append(List<TwinRecord> records) {
+        pending.add(records);
+    }
+
+    /**
+     * Writes and syncs the queued records to the current segment
+     */
+    synchronized void flush() {
+        List<TwinRecord> records;
+        while ((records = pending.poll()) != null) {
+            unwritten.addAll(records);
+        }
+        if (unwritten.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (channel == null) {
+                openSegment(segment + 1);
+            }
+            for (int i = 0; i < unwritten.size(); i += MAX_FRAME_RECORDS) {
+                writeFrame(channel, encoder, unwritten.subList(i, Math.min(unwritten.size(), i + MAX_FRAME_RECORDS)));
+            }
+            channel.force(false);
+            unwritten.clear();
+            dirty = true;
+        } catch (IOException e) {
+            // Start a new segment, as the current one may end with a partial frame
+            LOG.error("Unable to write the twin journal, {} changes will be retried", unwritten.size(), e);
+            closeSegment();
+        }
+    }
+
+    /**
+     * Replaces the checkpoint by the given state, and deletes the segments it
+     * supersedes. The state must include all the changes written so far.
+     *
+     * @param state writes the records describing the state of the twin to the
+     *              given consumer
+     */
+    synchronized void checkpoint(Consumer<Consumer<TwinRecord>> state) {
+        flush();
+        if (!dirty) {
+            return;
+        }
+
+        try {
+            // The changes written from now on are not part of the checkpoint
+            long next = segment + 1;
+            closeSegment();
+            openSegment(next);
+
+            Path tmp = directory.resolve(CHECKPOINT_TMP);
+            try (FileChannel checkpoint = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                writeHeader(checkpoint, next);
+                TwinRecordCodec.Encoder checkpointEncoder = new TwinRecordCodec.Encoder(bufferOut);
+                List<TwinRecord> frame = new ArrayList<>();
+                IOException[] failure = new IOException[1];
+                state.accept(r -> {
+                    frame.add(r);
+                    if (frame.size() == MAX_FRAME_RECORDS && failure[0] == null) {
+                        try {
+                            writeFrame(checkpoint, checkpointEncoder, frame);
+                        } catch (IOException e) {
+                            failure[0] = e;
+                        }
+                        frame.clear();
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                if (!frame.isEmpty()) {
+                    writeFrame(checkpoint, checkpointEncoder, frame);
+                }
+                checkpoint.force(true);
+            }
+            Files.move(tmp, directory.resolve(CHECKPOINT), ATOMIC_MOVE, REPLACE_EXISTING);
+
+            for (Map.Entry<Long, Path> entry : listSegments().entrySet()) {
+                if (entry.getKey() < next) {
+                    Files.delete(entry.getValue());
+                }
+            }
+            dirty = false;
+        } catch (IOException e) {
+            LOG.error("Unable to write the twin checkpoint", e);
+        }
+    }
+
+    /**
+     * Flushes the queued records and closes the current segment
+     */
+    synchronized void close() {
+        flush();
+        closeSegment();
+    }
+
+    private void openSegment(long number) throws IOException {
+        segment = number;
+        channel = FileChannel.open(segmentPath(number), CREATE, WRITE, TRUNCATE_EXISTING);
+        writeHeader(channel, number);
+        encoder = new TwinRecordCodec.Encoder(bufferOut);
+    }
+
+    private void closeSegment() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Error closing the twin journal segment {}", segment, e);
+            }
+            channel = null;
+            encoder = null;
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), path);
+                } catch (NumberFormatException e) {
+                    LOG.warn("Ignoring unexpected file {} in the twin journal", path);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private void writeHeader(FileChannel channel, long number) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        header.putInt(MAGIC).putInt(VERSION).putLong(number).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    private void writeFrame(FileChannel channel, TwinRecordCodec.Encoder encoder, List<TwinRecord> records)
+            throws IOException {
+        buffer.reset();
+        bufferOut.writeInt(records.size());
+        for (TwinRecord record : records) {
+            encoder.write(record);
+        }
+        bufferOut.flush();
+
+        byte[] payload = buffer.toByteArray();
+        crc.reset();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(8 + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Reads the valid frames of a file
+     *
+     * @return the number stored in the file header
+     */
+    private long read(Path path, Consumer<TwinRecord> replay, Function<String, Class<?>> types)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            long number;
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Invalid twin journal file " + path);
+                }
+                number = in.readLong();
+            } catch (EOFException e) {
+                throw new IOException("Truncated twin journal file " + path, e);
+            }
+
+            TwinRecordCodec.Decoder decoder = new TwinRecordCodec.Decoder(types);
+            CRC32 check = new CRC32();
+            while (true) {
+                byte[] payload;
+                int expected;
+                try {
+                    int length = in.readInt();
+                    expected = in.readInt();
+                    if (length < 0) {
+                        LOG.warn("Ignoring the corrupted end of the twin journal file {}", path);
+                        break;
+                    }
+                    payload = readPayload(in, length);
+                } catch (EOFException e) {
+                    // End of the file, or frame partially written
+                    break;
+                }
+                check.reset();
+                check.update(payload);
+                if ((int) check.getValue() != expected) {
+                    LOG.warn("Ignoring the corrupted end of the twin journal file {}", path);
+                    break;
+                }
+
+                DataInputStream frame = new DataInputStream(new ByteArrayInputStream(payload));
+                decoder.from(frame);
+                for (int i = frame.readInt(); i > 0; i--) {
+                    replay.accept(decoder.read());
+                }
+            }
+            return number;
+        }
+    }
+
+    private static byte[] readPayload(InputStream in, int length) throws IOException {
+        // Don't trust the length of a partially written frame to allocate memory
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(Math.min(length, 1 << 16));
+        byte[] chunk = new byte[8192];
+        while (length > 0) {
+            int read = in.read(chunk, 0, Math.min(chunk.length, length));
+            if (read < 0) {
+                throw new EOFException();
+            }
+            payload.write(chunk, 0, read);
+            length -= read;
+        }
+        return payload.toByteArray();
+    }
+}
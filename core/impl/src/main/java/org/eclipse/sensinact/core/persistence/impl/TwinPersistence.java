@@ -0,0 +1,458 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.persistence.impl;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption.INCLUDE_LINKED_PROVIDER_IDS;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.sensinact.core.annotation.dto.AnnotationConstants;
+import org.eclipse.sensinact.core.dto.impl.DataUpdateDto;
+import org.eclipse.sensinact.core.impl.SetValueCommand;
+import org.eclipse.sensinact.core.model.ResourceType;
+import org.eclipse.sensinact.core.model.impl.SensinactModelManagerImpl;
+import org.eclipse.sensinact.core.model.nexus.ModelNexus;
+import org.eclipse.sensinact.core.notification.impl.NotificationAccumulator;
+import org.eclipse.sensinact.core.snapshot.LinkedProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.twin.SensinactTwinView;
+import org.eclipse.sensinact.core.twin.TimedValue;
+import org.eclipse.sensinact.core.twin.impl.SensinactDigitalTwinImpl;
+import org.eclipse.sensinact.core.twin.impl.SensinactResourceImpl;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the twin in a journal, so that it can be restored on restart.
+ *
+ * The threads updating the twin record their changes through
+ * {@link #track(NotificationAccumulator)} and hand them to the journal with
+ * {@link #commit()} once they have been published in the committed view. The
+ * journal is written in the background at a fixed interval and regularly
+ * compacted into a checkpoint made from the committed view.
+ */
+public class TwinPersistence {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TwinPersistence.class);
+
+    /**
+     * Metadata entries derived from the resource value rather than set on it
+     */
+    private static final Set<String> DERIVED_METADATA = Set.of("value", "timestamp");
+
+    private final TwinJournal journal;
+
+    private final SensinactTwinView view;
+
+    private final long flushIntervalMs;
+
+    private final long checkpointIntervalNanos;
+
+    /**
+     * Changes made by the current thread since its last commit
+     */
+    private final ThreadLocal<List<TwinRecord>> changes = ThreadLocal.withInitial(ArrayList::new);
+
+    private ScheduledExecutorService writer;
+
+    private boolean closed;
+
+    private long lastCheckpoint;
+
+    /**
+     * @param directory          the directory of the journal
+     * @param view               the committed view of the twin
+     * @param flushIntervalMs    the interval between two writes of the journal
+     * @param checkpointInterval the interval between two checkpoints, in seconds
+     */
+    public TwinPersistence(Path directory, SensinactTwinView view, long flushIntervalMs, long checkpointInterval) {
+        this.journal = new TwinJournal(directory);
+        this.view = view;
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.checkpointIntervalNanos = SECONDS.toNanos(Math.max(1, checkpointInterval));
+    }
+
+    /**
+     * Wraps the given accumulator to record the changes made by the current
+     * thread
+     *
+     * @param accumulator the accumulator of the current thread
+     * @return the journaling accumulator
+     */
+    public NotificationAccumulator track(NotificationAccumulator accumulator) {
+        return new JournalingAccumulator(accumulator, changes.get());
+    }
+
+    /**
+     * Hands the changes made by the current thread to the journal. Must be called
+     * once these changes are visible in the committed view.
+     */
+    public void commit() {
+        List<TwinRecord> records = changes.get();
+        if (!records.isEmpty()) {
+            journal.append(new ArrayList<>(records));
+            records.clear();
+        }
+    }
+
+    /**
+     * Forgets the changes made by the current thread since its last commit
+     */
+    public void discard() {
+        changes.get().clear();
+    }
+
+    /**
+     * Restores the twin from the journal. Must be called on the gateway thread,
+     * before any other command is executed and before {@link #start()}, once the
+     * packages of the models are registered in the nexus.
+     *
+     * @param nexus          the model nexus
+     * @param promiseFactory the gateway promise factory
+     * @throws IOException if the journal can't be read
+     */
+    public void restore(ModelNexus nexus, PromiseFactory promiseFactory) throws IOException {
+        SensinactDigitalTwinImpl twin = new SensinactDigitalTwinImpl(nexus, promiseFactory);
+        SensinactModelManagerImpl modelMgr = new SensinactModelManagerImpl(nexus);
+        Function<String, Class<?>> types = typeResolver(nexus);
+        int[] counts = new int[2];
+        try {
+            journal.load(r -> {
+                counts[0]++;
+                try {
+                    apply(r, nexus, twin, modelMgr, types);
+                } catch (Exception e) {
+                    counts[1]++;
+                    LOG.debug("Unable to restore {}", r, e);
+                }
+            }, types);
+        } finally {
+            twin.invalidate();
+            modelMgr.invalidate();
+        }
+        if (counts[1] > 0) {
+            LOG.warn("Restored the twin from {} changes, {} of them could not be applied", counts[0], counts[1]);
+        } else {
+            LOG.info("Restored the twin from {} changes", counts[0]);
+        }
+    }
+
+    /**
+     * Resolves the value types through the registered models, as the types of the
+     * bundles providing them aren't visible from this bundle
+     */
+    private static Function<String, Class<?>> typeResolver(ModelNexus nexus) {
+        Map<String, Optional<Class<?>>> cache = new HashMap<>();
+        return name -> cache.computeIfAbsent(name, n -> {
+            Class<?> type = nexus.findInstanceClass(n);
+            return Optional.ofNullable(type != null ? type : TwinRecordCodec.loadType(n));
+        }).orElse(null);
+    }
+
+    private void apply(TwinRecord r, ModelNexus nexus, SensinactDigitalTwinImpl twin,
+            SensinactModelManagerImpl modelMgr, Function<String, Class<?>> types) throws Exception {
+        switch (r.kind()) {
+        case VALUE: {
+            SensinactResourceImpl resource = twin.getResource(r.modelPackageUri(), r.model(), r.provider(),
+                    r.service(), r.resource());
+            if (resource != null && resource.hasExternalSetter()) {
+                // Setting the value would push it to the device
+                return;
+            }
+            DataUpdateDto dto = new DataUpdateDto();
+            dto.modelPackageUri = r.modelPackageUri();
+            dto.model = r.model();
+            dto.provider = r.provider();
+            dto.service = r.service();
+            dto.resource = r.resource();
+            dto.type = r.type() == null ? null : types.apply(r.type());
+            dto.data = r.value();
+            dto.timestamp = r.timestamp();
+            dto.upperBound = AnnotationConstants.NO_UPPER_BOUND_SET;
+            check(new SetValueCommand(dto).call(twin, modelMgr));
+            break;
+        }
+        case METADATA: {
+            SensinactResourceImpl resource = twin.getResource(r.modelPackageUri(), r.model(), r.provider(),
+                    r.service(), r.resource());
+            if (resource == null) {
+                throw new IllegalArgumentException("Unknown resource");
+            }
+            for (Entry<String, Object> entry : r.metadata().entrySet()) {
+                check(resource.setMetadataValue(entry.getKey(), entry.getValue(), r.timestamp()));
+            }
+            for (String key : r.removed()) {
+                check(resource.unsetMetadataValue(key, r.timestamp()));
+            }
+            break;
+        }
+        case DELETE:
+            if (nexus.getProvider(r.provider()) != null) {
+                nexus.deleteProvider(r.modelPackageUri(), r.model(), r.provider());
+            }
+            break;
+        case LINK:
+            nexus.linkProviders(r.provider(), r.child(), r.timestamp());
+            break;
+        case UNLINK:
+            nexus.unlinkProviders(r.provider(), r.child(), r.timestamp());
+            break;
+        }
+    }
+
+    private static void check(Promise<?> promise) throws Exception {
+        Throwable failure = promise.getFailure();
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        } else if (failure != null) {
+            throw new Exception(failure);
+        }
+    }
+
+    /**
+     * Starts writing the journal in the background
+     */
+    public synchronized void start() {
+        if (closed) {
+            return;
+        }
+        lastCheckpoint = System.nanoTime();
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sensiNact twin journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::write, flushIntervalMs, flushIntervalMs, MILLISECONDS);
+    }
+
+    private void write() {
+        try {
+            if (System.nanoTime() - lastCheckpoint >= checkpointIntervalNanos) {
+                journal.checkpoint(this::writeState);
+                lastCheckpoint = System.nanoTime();
+            } else {
+                journal.flush();
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Error writing the twin journal", e);
+        }
+    }
+
+    /**
+     * Stops writing in the background, then writes the pending changes and a
+     * final checkpoint
+     */
+    public void close() {
+        ScheduledExecutorService writer;
+        synchronized (this) {
+            closed = true;
+            writer = this.writer;
+        }
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(5, SECONDS)) {
+                    writer.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        journal.checkpoint(this::writeState);
+        journal.close();
+    }
+
+    /**
+     * Describes the committed view as a list of changes
+     */
+    private void writeState(Consumer<TwinRecord> out) {
+        for (ProviderSnapshot provider : view.filteredSnapshot(null, null, null, null,
+                EnumSet.of(INCLUDE_LINKED_PROVIDER_IDS))) {
+            String modelPackageUri = provider.getModelPackageUri();
+            String model = provider.getModelName();
+            String name = provider.getName();
+            for (ServiceSnapshot service : provider.getServices()) {
+                for (ResourceSnapshot resource : service.getResources()) {
+                    if (resource.getResourceType() == ResourceType.ACTION) {
+                        continue;
+                    }
+                    Instant timestamp = Instant.EPOCH;
+                    if (resource.isSet()) {
+                        TimedValue<?> value = resource.getValue();
+                        timestamp = value.getTimestamp();
+                        out.accept(TwinRecord.value(modelPackageUri, model, name, service.getName(),
+                                resource.getName(), resource.getType().getName(), value.getValue(), timestamp));
+                    }
+                    Map<String, Object> metadata = setMetadata(null, resource.getMetadata());
+                    if (!metadata.isEmpty()) {
+                        out.accept(TwinRecord.metadata(modelPackageUri, model, name, service.getName(),
+                                resource.getName(), metadata, Set.of(), timestamp));
+                    }
+                }
+            }
+            for (LinkedProviderSnapshot child : provider.getLinkedProviders()) {
+                // The links of the checkpoint are restored before any later change
+                out.accept(TwinRecord.link(true, modelPackageUri, model, name, child.getName(), Instant.EPOCH));
+            }
+        }
+    }
+
+    /**
+     * @return the metadata entries set or changed between the two versions
+     */
+    private static Map<String, Object> setMetadata(Map<String, Object> oldValues, Map<String, Object> newValues) {
+        Map<String, Object> set = new HashMap<>();
+        if (newValues != null) {
+            for (Entry<String, Object> entry : newValues.entrySet()) {
+                String key = entry.getKey();
+                if (!DERIVED_METADATA.contains(key) && (oldValues == null || !oldValues.containsKey(key)
+                        || !Objects.equals(oldValues.get(key), entry.getValue()))) {
+                    set.put(key, copy(entry.getValue()));
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Copies collections, as the EMF lists change with the twin
+     */
+    private static Object copy(Object value) {
+        return value instanceof Collection<?> c ? new ArrayList<>(c) : value;
+    }
+
+    /**
+     * Records the changes made through an accumulator
+     */
+    private static class JournalingAccumulator implements NotificationAccumulator {
+
+        private final NotificationAccumulator delegate;
+
+        private final List<TwinRecord> changes;
+
+        JournalingAccumulator(NotificationAccumulator delegate, List<TwinRecord> changes) {
+            this.delegate = delegate;
+            this.changes = changes;
+        }
+
+        @Override
+        public void addProvider(String modelPackageUri, String model, String name) {
+            delegate.addProvider(modelPackageUri, model, name);
+        }
+
+        @Override
+        public void removeProvider(String modelPackageUri, String model, String name) {
+            changes.add(TwinRecord.delete(modelPackageUri, model, name));
+            delegate.removeProvider(modelPackageUri, model, name);
+        }
+
+        @Override
+        public void addService(String modelPackageUri, String model, String provider, String name) {
+            delegate.addService(modelPackageUri, model, provider, name);
+        }
+
+        @Override
+        public void removeService(String modelPackageUri, String model, String provider, String name) {
+            delegate.removeService(modelPackageUri, model, provider, name);
+        }
+
+        @Override
+        public void addResource(String modelPackageUri, String model, String provider, String service, String name) {
+            delegate.addResource(modelPackageUri, model, provider, service, name);
+        }
+
+        @Override
+        public void removeResource(String modelPackageUri, String model, String provider, String service,
+                String name) {
+            delegate.removeResource(modelPackageUri, model, provider, service, name);
+        }
+
+        @Override
+        public void metadataValueUpdate(String modelPackageUri, String model, String provider, String service,
+                String resource, Map<String, Object> oldValues, Map<String, Object> newValues, Instant timestamp) {
+            Map<String, Object> set = setMetadata(oldValues, newValues);
+            Set<String> removed = new HashSet<>();
+            if (oldValues != null) {
+                for (String key : oldValues.keySet()) {
+                    if (!DERIVED_METADATA.contains(key) && (newValues == null || !newValues.containsKey(key))) {
+                        removed.add(key);
+                    }
+                }
+            }
+            if (!set.isEmpty() || !removed.isEmpty()) {
+                changes.add(TwinRecord.metadata(modelPackageUri, model, provider, service, resource, set, removed,
+                        timestamp));
+            }
+            delegate.metadataValueUpdate(modelPackageUri, model, provider, service, resource, oldValues, newValues,
+                    timestamp);
+        }
+
+        @Override
+        public void resourceValueUpdate(String modelPackageUri, String model, String provider, String service,
+                String resource, Class<?> type, Object oldValue, Object newValue, Map<String, Object> metadata,
+                Instant timestamp) {
+            changes.add(TwinRecord.value(modelPackageUri, model, provider, service, resource,
+                    type == null ? null : type.getName(), copy(newValue), timestamp));
+            delegate.resourceValueUpdate(modelPackageUri, model, provider, service, resource, type, oldValue,
+                    newValue, metadata, timestamp);
+        }
+
+        @Override
+        public void resourceAction(String modelPackageUri, String model, String provider, String service,
+                String resource, Instant timestamp) {
+            delegate.resourceAction(modelPackageUri, model, provider, service, resource, timestamp);
+        }
+
+        @Override
+        public void completeAndSend() {
+            delegate.completeAndSend();
+        }
+
+        @Override
+        public void link(String modelPackageUri, String model, String parentProvider, List<String> list,
+                String childProvider, Instant metaTimestamp) {
+            changes.add(TwinRecord.link(true, modelPackageUri, model, parentProvider, childProvider, metaTimestamp));
+            delegate.link(modelPackageUri, model, parentProvider, list, childProvider, metaTimestamp);
+        }
+
+        @Override
+        public void unlink(String modelPackageUri, String model, String parentProvider, List<String> list,
+                String childProvider, Instant metaTimestamp) {
+            changes.add(TwinRecord.link(false, modelPackageUri, model, parentProvider, childProvider, metaTimestamp));
+            delegate.unlink(modelPackageUri, model, parentProvider, list, childProvider, metaTimestamp);
+        }
+    }
+}
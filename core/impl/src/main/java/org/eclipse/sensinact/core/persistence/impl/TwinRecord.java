@@ -0,0 +1,72 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.persistence.impl;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A change of the twin, as written in the journal and in the checkpoints
+ *
+ * @param kind            the kind of change
+ * @param modelPackageUri the package URI of the provider model
+ * @param model           the provider model name
+ * @param provider        the provider name (the parent provider of a link)
+ * @param service         the service name, null for provider level changes
+ * @param resource        the resource name, null for provider level changes
+ * @param type            the name of the resource value type, for a value
+ * @param value           the resource value, or the child provider name of a
+ *                        link
+ * @param metadata        the metadata values set, for a metadata change
+ * @param removed         the metadata keys removed, for a metadata change
+ * @param timestamp       the timestamp of the change
+ */
+record TwinRecord(Kind kind, String modelPackageUri, String model, String provider, String service,
+        String resource, String type, Object value, Map<String, Object> metadata, Set<String> removed,
+        Instant timestamp) {
+
+    enum Kind {
+        VALUE, METADATA, DELETE, LINK, UNLINK;
+    }
+
+    static TwinRecord value(String modelPackageUri, String model, String provider, String service, String resource,
+            String type, Object value, Instant timestamp) {
+        return new TwinRecord(Kind.VALUE, modelPackageUri, model, provider, service, resource, type, value, null,
+                null, timestamp);
+    }
+
+    static TwinRecord metadata(String modelPackageUri, String model, String provider, String service,
+            String resource, Map<String, Object> metadata, Set<String> removed, Instant timestamp) {
+        return new TwinRecord(Kind.METADATA, modelPackageUri, model, provider, service, resource, null, null,
+                metadata, removed, timestamp);
+    }
+
+    static TwinRecord delete(String modelPackageUri, String model, String provider) {
+        return new TwinRecord(Kind.DELETE, modelPackageUri, model, provider, null, null, null, null, null, null,
+                null);
+    }
+
+    static TwinRecord link(boolean linked, String modelPackageUri, String model, String parent, String child,
+            Instant timestamp) {
+        return new TwinRecord(linked ? Kind.LINK : Kind.UNLINK, modelPackageUri, model, parent, null, null, null,
+                child, null, null, timestamp);
+    }
+
+    /**
+     * @return the child provider of a link
+     */
+    String child() {
+        return (String) value;
+    }
+}
@@ -0,0 +1,467 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.persistence.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.eclipse.sensinact.core.persistence.impl.TwinRecord.Kind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Compact binary encoding of the {@link TwinRecord}s.
+ *
+ * Numbers are written as variable length integers and names (models,
+ * providers, services, resources, types, metadata keys) are written once per
+ * file, then referenced by index. Values of common types are written natively,
+ * other values are written as JSON with their class name.
+ *
+ * An encoder and the matching decoder must see the same records in the same
+ * order: a new pair must be used for each file.
+ */
+final class TwinRecordCodec {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TwinRecordCodec.class);
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().build();
+
+    private static final Map<String, Class<?>> PRIMITIVES = Map.of("boolean", boolean.class, "byte", byte.class,
+            "short", short.class, "char", char.class, "int", int.class, "long", long.class, "float", float.class,
+            "double", double.class);
+
+    // Value tags
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int DOUBLE = 5;
+    private static final int FLOAT = 6;
+    private static final int SHORT = 7;
+    private static final int BYTE = 8;
+    private static final int CHAR = 9;
+    private static final int STRING = 10;
+    private static final int INSTANT = 11;
+    private static final int LIST = 12;
+    private static final int MAP = 13;
+    private static final int BYTES = 14;
+    private static final int BIG_DECIMAL = 15;
+    private static final int BIG_INTEGER = 16;
+    private static final int JSON = 17;
+
+    private TwinRecordCodec() {
+    }
+
+    /**
+     * Loads a value type visible from this bundle, i.e. a primitive or a type of
+     * the JDK or of the sensiNact core
+     *
+     * @param name the class name
+     * @return the class, or null if it is unknown
+     */
+    static Class<?> loadType(String name) {
+        if (name == null) {
+            return null;
+        }
+        Class<?> primitive = PRIMITIVES.get(name);
+        if (primitive != null) {
+            return primitive;
+        }
+        try {
+            return Class.forName(name, false, TwinRecordCodec.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    static final class Encoder {
+
+        private final DataOutput out;
+
+        private final Map<String, Integer> names = new HashMap<>();
+
+        Encoder(DataOutput out) {
+            this.out = out;
+        }
+
+        void write(TwinRecord record) throws IOException {
+            out.writeByte(record.kind().ordinal());
+            writeName(record.modelPackageUri());
+            writeName(record.model());
+            writeName(record.provider());
+            switch (record.kind()) {
+            case VALUE:
+                writeName(record.service());
+                writeName(record.resource());
+                writeName(record.type());
+                writeValue(record.value());
+                writeInstant(record.timestamp());
+                break;
+            case METADATA:
+                writeName(record.service());
+                writeName(record.resource());
+                writeVarInt(record.metadata().size());
+                for (Entry<String, Object> entry : record.metadata().entrySet()) {
+                    writeName(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+                writeVarInt(record.removed().size());
+                for (String key : record.removed()) {
+                    writeName(key);
+                }
+                writeInstant(record.timestamp());
+                break;
+            case LINK:
+            case UNLINK:
+                writeName(record.child());
+                writeInstant(record.timestamp());
+                break;
+            case DELETE:
+                break;
+            }
+        }
+
+        private void writeName(String name) throws IOException {
+            if (name == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = names.get(name);
+            if (index != null) {
+                writeVarInt(index);
+            } else {
+                // Index 1 introduces a new name
+                writeVarInt(1);
+                writeString(name);
+                names.put(name, names.size() + 2);
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeInstant(Instant instant) throws IOException {
+            if (instant == null) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1);
+                writeVarLong(zigZag(instant.getEpochSecond()));
+                writeVarInt(instant.getNano());
+            }
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Boolean b) {
+                out.writeByte(b ? TRUE : FALSE);
+            } else if (value instanceof Integer i) {
+                out.writeByte(INT);
+                writeVarLong(zigZag(i));
+            } else if (value instanceof Long l) {
+                out.writeByte(LONG);
+                writeVarLong(zigZag(l));
+            } else if (value instanceof Double d) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            } else if (value instanceof Float f) {
+                out.writeByte(FLOAT);
+                out.writeFloat(f);
+            } else if (value instanceof Short s) {
+                out.writeByte(SHORT);
+                out.writeShort(s);
+            } else if (value instanceof Byte b) {
+                out.writeByte(BYTE);
+                out.writeByte(b);
+            } else if (value instanceof Character c) {
+                out.writeByte(CHAR);
+                out.writeChar(c);
+            } else if (value instanceof String s) {
+                out.writeByte(STRING);
+                writeString(s);
+            } else if (value instanceof Instant i) {
+                out.writeByte(INSTANT);
+                writeInstant(i);
+            } else if (value instanceof byte[] bytes) {
+                out.writeByte(BYTES);
+                writeVarInt(bytes.length);
+                out.write(bytes);
+            } else if (value instanceof BigDecimal bd) {
+                out.writeByte(BIG_DECIMAL);
+                writeString(bd.toString());
+            } else if (value instanceof BigInteger bi) {
+                out.writeByte(BIG_INTEGER);
+                writeString(bi.toString());
+            } else if (value instanceof Collection<?> c) {
+                out.writeByte(LIST);
+                writeVarInt(c.size());
+                for (Object o : c) {
+                    writeValue(o);
+                }
+            } else if (value instanceof Map<?, ?> m && m.keySet().stream().allMatch(String.class::isInstance)) {
+                out.writeByte(MAP);
+                writeVarInt(m.size());
+                for (Entry<?, ?> entry : m.entrySet()) {
+                    writeName((String) entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else {
+                String json;
+                try {
+                    json = MAPPER.writeValueAsString(value);
+                } catch (JacksonException e) {
+                    LOG.warn("Unable to store a value of type {}", value.getClass().getName(), e);
+                    out.writeByte(NULL);
+                    return;
+                }
+                out.writeByte(JSON);
+                writeName(value.getClass().getName());
+                writeString(json);
+            }
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    static final class Decoder {
+
+        private final List<String> names = new ArrayList<>();
+
+        /**
+         * Resolves the class names of the JSON values
+         */
+        private final Function<String, Class<?>> types;
+
+        private DataInput in;
+
+        /**
+         * @param types resolves the types of the values written as JSON, returning
+         *              null for an unknown type
+         */
+        Decoder(Function<String, Class<?>> types) {
+            this.types = types;
+        }
+
+        /**
+         * Sets the input of the next reads, keeping the names read so far
+         *
+         * @param in the input
+         * @return this decoder
+         */
+        Decoder from(DataInput in) {
+            this.in = in;
+            return this;
+        }
+
+        TwinRecord read() throws IOException {
+            int ordinal = in.readUnsignedByte();
+            Kind[] kinds = Kind.values();
+            if (ordinal >= kinds.length) {
+                throw new IOException("Unknown record kind " + ordinal);
+            }
+            Kind kind = kinds[ordinal];
+            String modelPackageUri = readName();
+            String model = readName();
+            String provider = readName();
+            switch (kind) {
+            case VALUE: {
+                String service = readName();
+                String resource = readName();
+                String type = readName();
+                Object value = readValue();
+                return TwinRecord.value(modelPackageUri, model, provider, service, resource, type, value,
+                        readInstant());
+            }
+            case METADATA: {
+                String service = readName();
+                String resource = readName();
+                int size = readVarInt();
+                Map<String, Object> metadata = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    metadata.put(readName(), readValue());
+                }
+                size = readVarInt();
+                Set<String> removed = new HashSet<>();
+                for (int i = 0; i < size; i++) {
+                    removed.add(readName());
+                }
+                return TwinRecord.metadata(modelPackageUri, model, provider, service, resource, metadata, removed,
+                        readInstant());
+            }
+            case LINK:
+            case UNLINK:
+                return TwinRecord.link(kind == Kind.LINK, modelPackageUri, model, provider, readName(),
+                        readInstant());
+            default:
+                return TwinRecord.delete(modelPackageUri, model, provider);
+            }
+        }
+
+        private String readName() throws IOException {
+            int index = readVarInt();
+            if (index == 0) {
+                return null;
+            } else if (index == 1) {
+                String name = readString();
+                names.add(name);
+                return name;
+            } else if (index - 2 < names.size()) {
+                return names.get(index - 2);
+            }
+            throw new IOException("Unknown name index " + index);
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private Instant readInstant() throws IOException {
+            if (in.readUnsignedByte() == 0) {
+                return null;
+            }
+            long seconds = unZigZag(readVarLong());
+            return Instant.ofEpochSecond(seconds, readVarInt());
+        }
+
+        Object readValue() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return (int) unZigZag(readVarLong());
+            case LONG:
+                return unZigZag(readVarLong());
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case CHAR:
+                return in.readChar();
+            case STRING:
+                return readString();
+            case INSTANT:
+                return readInstant();
+            case BYTES: {
+                byte[] bytes = new byte[readVarInt()];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case BIG_DECIMAL:
+                return new BigDecimal(readString());
+            case BIG_INTEGER:
+                return new BigInteger(readString());
+            case LIST: {
+                int size = readVarInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            }
+            case MAP: {
+                int size = readVarInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readName(), readValue());
+                }
+                return map;
+            }
+            case JSON: {
+                String typeName = readName();
+                Class<?> type = typeName == null ? null : types.apply(typeName);
+                String json = readString();
+                // Keep the JSON form if the type can't be restored: the twin
+                // converts it to the resource type if possible
+                if (type != null) {
+                    try {
+                        return MAPPER.readValue(json, type);
+                    } catch (JacksonException e) {
+                        LOG.warn("Unable to restore a value of type {}", type.getName(), e);
+                    }
+                }
+                return json;
+            }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+            }
+        }
+
+        private int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length integer");
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -13,6 +13,7 @@
 package org.eclipse.sensinact.core.twin.impl;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map.Entry;
@@ -36,6 +37,7 @@ import org.eclipse.sensinact.core.impl.snapshot.ServiceSnapshotImpl;
 import org.eclipse.sensinact.core.model.ResourceType;
 import org.eclipse.sensinact.core.model.nexus.ModelNexus;
 import org.eclipse.sensinact.core.model.nexus.emf.EMFUtil;
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
@@ -125,12 +127,14 @@ public class SensinactDigitalTwinImpl extends CommandScopedImpl implements Sensi
 
     @Override
     public SensinactEMFProvider createProvider(String modelPackageUri, String model, String providerName) {
+        checkExclusive();
         return toProvider(nexusImpl.createProviderInstance(modelPackageUri, model, providerName));
     }
 
     @Override
     public SensinactEMFProvider createProvider(String modelPackageUri, String model, String providerName,
             Instant instant) {
+        checkExclusive();
         return instant == null ? createProvider(model, providerName)
                 : toProvider(nexusImpl.createProviderInstance(modelPackageUri, model, providerName, instant));
     }
@@ -337,11 +341,32 @@ public class SensinactDigitalTwinImpl extends CommandScopedImpl implements Sensi
     public List<ProviderSnapshot> filteredSnapshot(BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter,
             Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
             Predicate<ResourceSnapshot> rcFilter, EnumSet<SnapshotOption> snapshotOptions) {
+        return filteredSnapshot(nexusImpl.getProviders(), geoFilter, providerFilter, svcFilter, rcFilter,
+                snapshotOptions);
+    }
+
+    @Override
+    public List<ProviderSnapshot> filteredSnapshot(GeoEnvelope envelope,
+            BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter, Predicate<ProviderSnapshot> providerFilter,
+            Predicate<ServiceSnapshot> svcFilter, Predicate<ResourceSnapshot> rcFilter,
+            EnumSet<SnapshotOption> snapshotOptions) {
+        if (envelope == null) {
+            return filteredSnapshot(geoFilter, providerFilter, svcFilter, rcFilter, snapshotOptions);
+        }
+        // Only consider the providers found in the location index
+        return filteredSnapshot(nexusImpl.getProviders(envelope), geoFilter, providerFilter, svcFilter, rcFilter,
+                snapshotOptions);
+    }
+
+    private List<ProviderSnapshot> filteredSnapshot(Collection<Provider> providers,
+            BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter, Predicate<ProviderSnapshot> providerFilter,
+            Predicate<ServiceSnapshot> svcFilter, Predicate<ResourceSnapshot> rcFilter,
+            EnumSet<SnapshotOption> snapshotOptions) {
 
         final Instant snapshotTime = Instant.now();
 
         // Filter providers with their API model
-        Stream<ProviderSnapshotImpl> providersStream = nexusImpl.getProviders().stream()
+        Stream<ProviderSnapshotImpl> providersStream = providers.stream()
                 .map(p -> new ProviderSnapshotImpl(p, snapshotTime, snapshotOptions));
         if (providerFilter != null) {
             providersStream = providersStream.filter(providerFilter);
@@ -93,19 +93,19 @@ public class SensinactProviderImpl extends CommandScopedImpl implements Sensinac
 
     @Override
     public void addLinkedProvider(SensinactProvider provider) {
-        checkValid();
+        checkExclusive();
         nexus.linkProviders(getName(), provider.getName(), Instant.now());
     }
 
     @Override
     public void removeLinkedProvider(SensinactProvider provider) {
-        checkValid();
+        checkExclusive();
         nexus.unlinkProviders(getName(), provider.getName(), Instant.now());
     }
 
     @Override
     public void delete() {
-        checkValid();
+        checkExclusive();
         nexus.deleteProvider(provider.eClass().getEPackage().getNsURI(), getModelName(), getName());
     }
 
@@ -148,17 +148,7 @@ public class SensinactResourceImpl extends CommandScopedImpl implements Sensinac
         }
 
         try {
-            final boolean hasExternalSetter;
-            ResourceMetadata metadata = (ResourceMetadata) EMFUtil.getMergedModelMetadataView(resource);
-            if (metadata != null) {
-                // Resource created by ResourceBuilder
-                hasExternalSetter = metadata.isExternalSet();
-            } else {
-                // Predefined resource (admin service)
-                hasExternalSetter = false;
-            }
-
-            if (hasExternalSetter) {
+            if (hasExternalSetter()) {
                 // Check new value type
                 final TimedValue<?> cachedValue = getValueFromTwin(type);
                 final TimedValue<?> newValue = new DefaultTimedValue<>(value, timestamp);
@@ -175,6 +165,16 @@ public class SensinactResourceImpl extends CommandScopedImpl implements Sensinac
         }
     }
 
+    /**
+     * @return true if the values set on this resource are pushed to an external
+     *         setter rather than stored in the twin
+     */
+    public boolean hasExternalSetter() {
+        ResourceMetadata metadata = (ResourceMetadata) EMFUtil.getMergedModelMetadataView(resource);
+        // Predefined resources (admin service) have no metadata and no setter
+        return metadata != null && metadata.isExternalSet();
+    }
+
     @Override
     public <T> Promise<TimedValue<T>> getValue(final Class<T> type, final GetLevel getLevel) {
         checkValid();
@@ -0,0 +1,478 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.twin.impl;
+
+import static org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption.INCLUDE_LINKED_PROVIDERS_FULL;
+import static org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption.INCLUDE_LINKED_PROVIDER_IDS;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+import org.eclipse.sensinact.core.impl.snapshot.LinkedProviderSnapshotImpl;
+import org.eclipse.sensinact.core.impl.snapshot.ProviderSnapshotImpl;
+import org.eclipse.sensinact.core.impl.snapshot.ResourceSnapshotImpl;
+import org.eclipse.sensinact.core.impl.snapshot.ServiceSnapshotImpl;
+import org.eclipse.sensinact.core.model.nexus.LocationIndex;
+import org.eclipse.sensinact.core.model.nexus.ModelNexus;
+import org.eclipse.sensinact.core.notification.impl.NotificationAccumulator;
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
+import org.eclipse.sensinact.core.snapshot.LinkedProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption;
+import org.eclipse.sensinact.core.twin.SensinactTwinView;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+import org.osgi.util.promise.PromiseFactory;
+
+/**
+ * A read only view of the twin, made of immutable snapshots of its providers.
+ *
+ * The threads updating the twin record the providers they change through
+ * {@link #track(NotificationAccumulator)} and publish new snapshots of these
+ * providers with {@link #publish(ModelNexus, PromiseFactory)} once their
+ * commands have been executed. As each provider is only updated by a single
+ * thread at a time, the view can then be read concurrently by any thread.
+ *
+ * When only resource values or metadata changed, the new snapshot of a provider
+ * shares the unchanged services and resources of the previous one and only the
+ * changed resources are read from the twin. Published snapshots are never
+ * returned as is: readers always get copies.
+ */
+public class SensinactTwinViewImpl implements SensinactTwinView {
+
+    private static final EnumSet<SnapshotOption> PUBLISHED_OPTIONS = EnumSet.of(INCLUDE_LINKED_PROVIDER_IDS);
+
+    /**
+     * Last published snapshot of each provider, including all of its services
+     * and resources
+     */
+    private final Map<String, ProviderSnapshotImpl> providers = new ConcurrentHashMap<>();
+
+    /**
+     * Spatial index of the locations of the published providers
+     */
+    private final LocationIndex locations = new LocationIndex();
+
+    /**
+     * Providers changed by the current thread since its last publication
+     */
+    private final ThreadLocal<Map<String, ProviderChanges>> changed = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Wraps the given accumulator to record the providers changed by the current
+     * thread
+     *
+     * @param accumulator the accumulator of the current thread
+     * @return the tracking accumulator
+     */
+    public NotificationAccumulator track(NotificationAccumulator accumulator) {
+        return new TrackingAccumulator(accumulator, changed.get());
+    }
+
+    /**
+     * Publishes new snapshots of the providers changed by the current thread. Must
+     * be called by the thread which changed them, before their notifications are
+     * sent.
+     *
+     * @param nexus          the model nexus
+     * @param promiseFactory the gateway promise factory
+     */
+    public void publish(ModelNexus nexus, PromiseFactory promiseFactory) {
+        Map<String, ProviderChanges> changes = changed.get();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        SensinactDigitalTwinImpl twin = new SensinactDigitalTwinImpl(nexus, promiseFactory);
+        try {
+            for (Entry<String, ProviderChanges> entry : changes.entrySet()) {
+                String name = entry.getKey();
+                ProviderChanges change = entry.getValue();
+                ProviderSnapshotImpl previous = providers.get(name);
+                ProviderSnapshotImpl snapshot = change.structure || previous == null ? null
+                        : patch(twin, previous, change);
+                boolean locationChanged = true;
+                if (snapshot == null) {
+                    snapshot = (ProviderSnapshotImpl) twin.snapshotProvider(name, null, null, PUBLISHED_OPTIONS);
+                } else {
+                    locationChanged = change.isResourceChanged("admin", "location");
+                }
+
+                if (snapshot == null) {
+                    providers.remove(name);
+                    locations.remove(name);
+                } else {
+                    providers.put(name, snapshot);
+                    if (locationChanged) {
+                        locations.update(name, getLocation(snapshot));
+                    }
+                }
+            }
+        } finally {
+            twin.invalidate();
+            changes.clear();
+        }
+    }
+
+    /**
+     * Creates a new snapshot of a provider whose structure didn't change, sharing
+     * the unchanged services and resources of its previous snapshot
+     *
+     * @param twin     the twin
+     * @param previous the previous snapshot of the provider
+     * @param change   the changed resources of the provider
+     * @return the new snapshot, null if a full snapshot must be taken
+     */
+    private ProviderSnapshotImpl patch(SensinactDigitalTwinImpl twin, ProviderSnapshotImpl previous,
+            ProviderChanges change) {
+        for (Entry<String, Set<String>> svc : change.resources.entrySet()) {
+            ServiceSnapshotImpl previousSvc = previous.getService(svc.getKey());
+            if (previousSvc == null) {
+                return null;
+            }
+            for (String rc : svc.getValue()) {
+                if (previousSvc.getResource(rc) == null) {
+                    return null;
+                }
+            }
+        }
+
+        final ProviderSnapshotImpl p = new ProviderSnapshotImpl(previous, previous.getLinkedProviders());
+        for (ServiceSnapshot previousSvc : previous.getServices()) {
+            final Set<String> changedRcs = change.resources.get(previousSvc.getName());
+            if (changedRcs == null) {
+                // Shared: the parent of published services is never used
+                p.add((ServiceSnapshotImpl) previousSvc);
+                continue;
+            }
+            final ServiceSnapshotImpl s = new ServiceSnapshotImpl(p, (ServiceSnapshotImpl) previousSvc);
+            for (ResourceSnapshot previousRc : previousSvc.getResources()) {
+                if (!changedRcs.contains(previousRc.getName())) {
+                    s.add((ResourceSnapshotImpl) previousRc);
+                    continue;
+                }
+                final ResourceSnapshotImpl current = (ResourceSnapshotImpl) twin.snapshotResource(p.getName(),
+                        s.getName(), previousRc.getName());
+                if (current == null) {
+                    return null;
+                }
+                s.add(copyResource(current, s));
+            }
+            p.add(s);
+        }
+        return p;
+    }
+
+    @Override
+    public List<ProviderSnapshot> filteredSnapshot(BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter,
+            Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
+            Predicate<ResourceSnapshot> rcFilter) {
+        return filteredSnapshot(geoFilter, providerFilter, svcFilter, rcFilter, EnumSet.noneOf(SnapshotOption.class));
+    }
+
+    @Override
+    public List<ProviderSnapshot> filteredSnapshot(BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter,
+            Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
+            Predicate<ResourceSnapshot> rcFilter, EnumSet<SnapshotOption> snapshotOptions) {
+        return filteredSnapshot(providers.values(), geoFilter, providerFilter, svcFilter, rcFilter,
+                snapshotOptions);
+    }
+
+    private List<ProviderSnapshot> filteredSnapshot(Collection<ProviderSnapshotImpl> candidates,
+            BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter, Predicate<ProviderSnapshot> providerFilter,
+            Predicate<ServiceSnapshot> svcFilter, Predicate<ResourceSnapshot> rcFilter,
+            EnumSet<SnapshotOption> snapshotOptions) {
+        final List<ProviderSnapshot> result = new ArrayList<>();
+        for (ProviderSnapshotImpl published : candidates) {
+            final ProviderSnapshotImpl p = copyProvider(published, snapshotOptions);
+            if (providerFilter != null && !providerFilter.test(p)) {
+                continue;
+            }
+            if (geoFilter != null && !geoFilter.test(p, getLocation(published))) {
+                continue;
+            }
+            copyServicesAndResources(published, p, svcFilter, rcFilter, false);
+            if (!p.getServices().isEmpty()) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<ProviderSnapshot> filteredSnapshot(GeoEnvelope envelope,
+            BiPredicate<ProviderSnapshot, GeoJsonObject> geoFilter, Predicate<ProviderSnapshot> providerFilter,
+            Predicate<ServiceSnapshot> svcFilter, Predicate<ResourceSnapshot> rcFilter,
+            EnumSet<SnapshotOption> snapshotOptions) {
+        if (envelope == null) {
+            return filteredSnapshot(geoFilter, providerFilter, svcFilter, rcFilter, snapshotOptions);
+        }
+        return filteredSnapshot(locations.candidates(envelope).stream().map(providers::get).filter(Objects::nonNull).toList(),
+                geoFilter, providerFilter, svcFilter, rcFilter, snapshotOptions);
+    }
+
+    @Override
+    public ProviderSnapshot snapshotProvider(String providerName) {
+        return snapshotProvider(providerName, null, null, EnumSet.noneOf(SnapshotOption.class));
+    }
+
+    @Override
+    public ProviderSnapshot snapshotProvider(String providerName, Predicate<ServiceSnapshot> serviceFilter,
+            Predicate<ResourceSnapshot> resourceFilter) {
+        return snapshotProvider(providerName, serviceFilter, resourceFilter, EnumSet.noneOf(SnapshotOption.class));
+    }
+
+    @Override
+    public ProviderSnapshot snapshotProvider(String providerName, Predicate<ServiceSnapshot> serviceFilter,
+            Predicate<ResourceSnapshot> resourceFilter, EnumSet<SnapshotOption> snapshotOptions) {
+        final ProviderSnapshotImpl published = providers.get(providerName);
+        if (published == null) {
+            return null;
+        }
+        final ProviderSnapshotImpl p = copyProvider(published, snapshotOptions);
+        copyServicesAndResources(published, p, serviceFilter, resourceFilter, true);
+        return p;
+    }
+
+    @Override
+    public ServiceSnapshot snapshotService(String providerName, String serviceName) {
+        return snapshotService(providerName, serviceName, null);
+    }
+
+    @Override
+    public ServiceSnapshot snapshotService(String providerName, String serviceName,
+            Predicate<ResourceSnapshot> resourceFilter) {
+        final ProviderSnapshotImpl published = providers.get(providerName);
+        final ServiceSnapshotImpl publishedSvc = published == null ? null : published.getService(serviceName);
+        if (publishedSvc == null) {
+            return null;
+        }
+        final ProviderSnapshotImpl p = new ProviderSnapshotImpl(published, List.of());
+        final ServiceSnapshotImpl s = new ServiceSnapshotImpl(p, publishedSvc);
+        p.add(s);
+        copyResources(publishedSvc, s, resourceFilter);
+        return s;
+    }
+
+    @Override
+    public ResourceSnapshot snapshotResource(String providerName, String serviceName, String resourceName) {
+        final ProviderSnapshotImpl published = providers.get(providerName);
+        final ServiceSnapshotImpl publishedSvc = published == null ? null : published.getService(serviceName);
+        final ResourceSnapshotImpl publishedRc = publishedSvc == null ? null : publishedSvc.getResource(resourceName);
+        if (publishedRc == null) {
+            return null;
+        }
+        final ProviderSnapshotImpl p = new ProviderSnapshotImpl(published, List.of());
+        final ServiceSnapshotImpl s = new ServiceSnapshotImpl(p, publishedSvc);
+        p.add(s);
+        final ResourceSnapshotImpl r = copyResource(publishedRc, s);
+        s.add(r);
+        return r;
+    }
+
+    private ProviderSnapshotImpl copyProvider(ProviderSnapshotImpl published, EnumSet<SnapshotOption> options) {
+        final List<LinkedProviderSnapshot> linked;
+        if (options.contains(INCLUDE_LINKED_PROVIDERS_FULL)) {
+            final Instant now = Instant.now();
+            linked = published.getLinkedProviders().stream().map(l -> providers.get(l.getName()))
+                    .filter(Objects::nonNull)
+                    .<LinkedProviderSnapshot>map(l -> new LinkedProviderSnapshotImpl(l, now, true)).toList();
+        } else if (options.contains(INCLUDE_LINKED_PROVIDER_IDS)) {
+            linked = published.getLinkedProviders();
+        } else {
+            linked = List.of();
+        }
+        return new ProviderSnapshotImpl(published, linked);
+    }
+
+    private void copyServicesAndResources(ProviderSnapshotImpl published, ProviderSnapshotImpl p,
+            Predicate<ServiceSnapshot> svcFilter, Predicate<ResourceSnapshot> rcFilter, boolean keepEmptyServices) {
+        for (ServiceSnapshot publishedSvc : published.getServices()) {
+            final ServiceSnapshotImpl s = new ServiceSnapshotImpl(p, (ServiceSnapshotImpl) publishedSvc);
+            if (svcFilter != null && !svcFilter.test(s)) {
+                continue;
+            }
+            copyResources((ServiceSnapshotImpl) publishedSvc, s, rcFilter);
+            if (keepEmptyServices || !s.getResources().isEmpty()) {
+                p.add(s);
+            }
+        }
+    }
+
+    private void copyResources(ServiceSnapshotImpl publishedSvc, ServiceSnapshotImpl s,
+            Predicate<ResourceSnapshot> rcFilter) {
+        for (ResourceSnapshot publishedRc : publishedSvc.getResources()) {
+            final ResourceSnapshotImpl r = new ResourceSnapshotImpl(s, (ResourceSnapshotImpl) publishedRc);
+            // Resource filters are applied without values, as for the twin
+            if (rcFilter == null || rcFilter.test(r)) {
+                r.setValue(publishedRc.getValue());
+                s.add(r);
+            }
+        }
+    }
+
+    private ResourceSnapshotImpl copyResource(ResourceSnapshotImpl publishedRc, ServiceSnapshotImpl s) {
+        final ResourceSnapshotImpl r = new ResourceSnapshotImpl(s, publishedRc);
+        r.setValue(publishedRc.getValue());
+        return r;
+    }
+
+    private GeoJsonObject getLocation(ProviderSnapshotImpl published) {
+        final ResourceSnapshotImpl location = published.getResource("admin", "location");
+        if (location == null || location.getValue() == null) {
+            return null;
+        }
+        final Object value = location.getValue().getValue();
+        return value instanceof GeoJsonObject ? (GeoJsonObject) value : null;
+    }
+
+    /**
+     * The changes of a provider since its last publication
+     */
+    private static class ProviderChanges {
+
+        /**
+         * True if services, resources or links were added or removed
+         */
+        boolean structure;
+
+        /**
+         * Names of the resources whose value or metadata changed, by service
+         */
+        final Map<String, Set<String>> resources = new HashMap<>();
+
+        void resourceChanged(String service, String resource) {
+            resources.computeIfAbsent(service, k -> new HashSet<>()).add(resource);
+        }
+
+        boolean isResourceChanged(String service, String resource) {
+            Set<String> rcs = resources.get(service);
+            return rcs != null && rcs.contains(resource);
+        }
+    }
+
+    /**
+     * Records the providers changed through an accumulator
+     */
+    private static class TrackingAccumulator implements NotificationAccumulator {
+
+        private final NotificationAccumulator delegate;
+
+        private final Map<String, ProviderChanges> changed;
+
+        TrackingAccumulator(NotificationAccumulator delegate, Map<String, ProviderChanges> changed) {
+            this.delegate = delegate;
+            this.changed = changed;
+        }
+
+        private ProviderChanges changes(String provider) {
+            return changed.computeIfAbsent(provider, k -> new ProviderChanges());
+        }
+
+        private void structureChanged(String provider) {
+            changes(provider).structure = true;
+        }
+
+        @Override
+        public void addProvider(String modelPackageUri, String model, String name) {
+            structureChanged(name);
+            delegate.addProvider(modelPackageUri, model, name);
+        }
+
+        @Override
+        public void removeProvider(String modelPackageUri, String model, String name) {
+            structureChanged(name);
+            delegate.removeProvider(modelPackageUri, model, name);
+        }
+
+        @Override
+        public void addService(String modelPackageUri, String model, String provider, String name) {
+            structureChanged(provider);
+            delegate.addService(modelPackageUri, model, provider, name);
+        }
+
+        @Override
+        public void removeService(String modelPackageUri, String model, String provider, String name) {
+            structureChanged(provider);
+            delegate.removeService(modelPackageUri, model, provider, name);
+        }
+
+        @Override
+        public void addResource(String modelPackageUri, String model, String provider, String service, String name) {
+            structureChanged(provider);
+            delegate.addResource(modelPackageUri, model, provider, service, name);
+        }
+
+        @Override
+        public void removeResource(String modelPackageUri, String model, String provider, String service,
+                String name) {
+            structureChanged(provider);
+            delegate.removeResource(modelPackageUri, model, provider, service, name);
+        }
+
+        @Override
+        public void metadataValueUpdate(String modelPackageUri, String model, String provider, String service,
+                String resource, Map<String, Object> oldValues, Map<String, Object> newValues, Instant timestamp) {
+            changes(provider).resourceChanged(service, resource);
+            delegate.metadataValueUpdate(modelPackageUri, model, provider, service, resource, oldValues, newValues,
+                    timestamp);
+        }
+
+        @Override
+        public void resourceValueUpdate(String modelPackageUri, String model, String provider, String service,
+                String resource, Class<?> type, Object oldValue, Object newValue, Map<String, Object> metadata,
+                Instant timestamp) {
+            changes(provider).resourceChanged(service, resource);
+            delegate.resourceValueUpdate(modelPackageUri, model, provider, service, resource, type, oldValue,
+                    newValue, metadata, timestamp);
+        }
+
+        @Override
+        public void resourceAction(String modelPackageUri, String model, String provider, String service,
+                String resource, Instant timestamp) {
+            delegate.resourceAction(modelPackageUri, model, provider, service, resource, timestamp);
+        }
+
+        @Override
+        public void completeAndSend() {
+            delegate.completeAndSend();
+        }
+
+        @Override
+        public void link(String modelPackageUri, String model, String parentProvider, List<String> list,
+                String childProvider, Instant metaTimestamp) {
+            structureChanged(parentProvider);
+            delegate.link(modelPackageUri, model, parentProvider, list, childProvider, metaTimestamp);
+        }
+
+        @Override
+        public void unlink(String modelPackageUri, String model, String parentProvider, List<String> list,
+                String childProvider, Instant metaTimestamp) {
+            structureChanged(parentProvider);
+            delegate.unlink(modelPackageUri, model, parentProvider, list, childProvider, metaTimestamp);
+        }
+    }
+}
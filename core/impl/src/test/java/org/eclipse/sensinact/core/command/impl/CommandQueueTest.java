@@ -0,0 +1,118 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandQueueTest {
+
+    @Test
+    void testCapacityAndParking() {
+        CommandQueue<String> queue = new CommandQueue<>(2, 1);
+
+        assertTrue(queue.offer(0, "a"));
+        assertTrue(queue.offer(0, "b"));
+        assertFalse(queue.offer(0, "c"));
+
+        assertFalse(queue.offerOrPark(0, "c"));
+        assertEquals(1, queue.parked());
+        // Items forcibly added don't wait for the parked ones
+        queue.add(0, "d");
+
+        assertEquals("a", queue.poll());
+        assertEquals(0, queue.parked());
+        assertEquals(List.of("b", "d", "c"), drain(queue));
+    }
+
+    @Test
+    void testDrop() {
+        CommandQueue<String> queue = new CommandQueue<>(2, 1);
+        queue.add(0, "keep");
+        queue.add(0, "drop");
+
+        assertEquals("drop", queue.offerOrDrop(0, "new", "drop"::equals));
+        assertEquals("other", queue.offerOrDrop(0, "other", "drop"::equals));
+        assertEquals(List.of("keep", "new"), drain(queue));
+    }
+
+    @Test
+    void testWeightedLanes() {
+        CommandQueue<String> queue = new CommandQueue<>(16, 3, 1);
+        for (int i = 0; i < 5; i++) {
+            queue.add(1, "b" + i);
+        }
+        for (int i = 0; i < 5; i++) {
+            queue.add(0, "i" + i);
+        }
+
+        assertEquals(List.of("i0", "i1", "i2", "b0", "i3", "i4", "b1", "b2", "b3", "b4"), drain(queue));
+    }
+
+    @Test
+    void testKeyOrderAcrossLanes() {
+        // Items are keyed by their first letter
+        CommandQueue<String> queue = new CommandQueue<>(s -> s.charAt(0), 16, 3, 1);
+        queue.add(1, "p1");
+        // Follows the pending bulk item with the same key
+        queue.add(0, "p2");
+        queue.add(0, "q1");
+        assertEquals(2, queue.size(1));
+
+        assertEquals(List.of("q1", "p1", "p2"), drain(queue));
+
+        // Nothing is pending for the key anymore
+        queue.add(0, "p3");
+        assertEquals(1, queue.size(0));
+        assertEquals(List.of("p3"), drain(queue));
+    }
+
+    @Test
+    void testKeyOrderWithParkedItems() {
+        CommandQueue<String> queue = new CommandQueue<>(s -> s.charAt(0), 1, 1, 1);
+        assertTrue(queue.offer(1, "p1"));
+        assertFalse(queue.offerOrPark(1, "p2"));
+        // Can't overtake the parked item with the same key
+        queue.add(0, "p3");
+        queue.add(0, "q1");
+
+        assertEquals(List.of("q1", "p1", "p2", "p3"), drain(queue));
+    }
+
+    @Test
+    void testDroppedItemsAreUnpinned() {
+        CommandQueue<String> queue = new CommandQueue<>(s -> s.charAt(0), 1, 1, 1);
+        queue.add(1, "p1");
+        assertEquals("p1", queue.offerOrDrop(1, "q1", "p1"::equals));
+
+        assertTrue(queue.offer(0, "p2"));
+        assertEquals(1, queue.size(0));
+    }
+
+    private List<String> drain(CommandQueue<String> queue) {
+        List<String> result = new ArrayList<>();
+        String s;
+        while ((s = queue.poll()) != null) {
+            result.add(s);
+        }
+        assertNull(queue.poll());
+        return result;
+    }
+}
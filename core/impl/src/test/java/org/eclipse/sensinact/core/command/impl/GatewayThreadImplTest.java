@@ -14,34 +14,50 @@ package org.eclipse.sensinact.core.command.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
 import org.eclipse.sensinact.core.command.AbstractTwinCommand;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
+import org.eclipse.sensinact.core.command.ResourceCommand;
 import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricMeter;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
 import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.model.Model;
 import org.eclipse.sensinact.core.model.Resource;
 import org.eclipse.sensinact.core.model.SensinactModelManager;
 import org.eclipse.sensinact.core.model.Service;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
 import org.eclipse.sensinact.core.twin.SensinactProvider;
 import org.eclipse.sensinact.core.twin.SensinactResource;
 import org.eclipse.sensinact.core.twin.SensinactService;
+import org.eclipse.sensinact.core.twin.SensinactTwinView;
 import org.eclipse.sensinact.model.core.provider.ProviderPackage;
 import org.eclipse.sensinact.core.emf.util.EMFTestUtil;
 import org.junit.jupiter.api.AfterEach;
@@ -53,6 +69,7 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.osgi.service.typedevent.TypedEventBus;
+import org.osgi.util.converter.Converters;
 import org.osgi.util.promise.Promise;
 import org.osgi.util.promise.PromiseFactory;
 
@@ -68,6 +85,8 @@ public class GatewayThreadImplTest {
     @Spy
     ResourceSet resourceSet = EMFTestUtil.createResourceSet();
 
+    IMetricsManager metrics;
+
     GatewayThreadImpl thread = null;
 
     @BeforeEach
@@ -84,14 +103,19 @@ public class GatewayThreadImplTest {
         }
         resourceSet = EMFTestUtil.createResourceSet();
 
-        IMetricsManager metrics = mock(IMetricsManager.class);
+        metrics = mock(IMetricsManager.class);
         IMetricCounter counter = mock(IMetricCounter.class);
         IMetricsHistogram histogram = mock(IMetricsHistogram.class);
+        IMetricMeter meter = mock(IMetricMeter.class);
         IMetricTimer timer = mock(IMetricTimer.class);
         lenient().when(metrics.getCounter(anyString())).thenReturn(counter);
         lenient().when(metrics.getHistogram(anyString())).thenReturn(histogram);
+        lenient().when(metrics.getMeter(anyString())).thenReturn(meter);
         lenient().when(metrics.withTimer(anyString())).thenReturn(timer);
         lenient().when(metrics.withTimers(any())).thenReturn(timer);
+        IMetricTimerHandle timerHandle = mock(IMetricTimerHandle.class);
+        lenient().when(timerHandle.start()).thenReturn(timer);
+        lenient().when(metrics.getTimer(anyString())).thenReturn(timerHandle);
 
         thread = new GatewayThreadImpl(metrics, typedEventBus, resourceSet, providerPackage);
     }
@@ -138,6 +162,39 @@ public class GatewayThreadImplTest {
         assertEquals(testValue, result.getValue());
     }
 
+    @Test
+    void testCommittedView() throws Exception {
+        SensinactTwinView view = thread.getCommittedView();
+        assertNull(view.snapshotProvider("viewProvider"));
+
+        thread.execute(new AbstractSensinactCommand<Void>() {
+            @Override
+            protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
+                    PromiseFactory promiseFactory) {
+                modelMgr.createModel("viewModel").withService("svc").withResource("rc").withType(Integer.class)
+                        .build().build().build();
+                twin.createProvider("viewModel", "viewProvider");
+                return twin.getResource("viewProvider", "svc", "rc").setValue(42, Instant.now());
+            }
+        }).getValue();
+
+        ResourceSnapshot rc = view.snapshotResource("viewProvider", "svc", "rc");
+        assertEquals(42, rc.getValue().getValue());
+        assertEquals(1, view.filteredSnapshot(null, p -> "viewProvider".equals(p.getName()), null,
+                r -> "rc".equals(r.getName())).size());
+
+        thread.execute(new AbstractTwinCommand<Void>() {
+            @Override
+            protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                return twin.getResource("viewProvider", "svc", "rc").setValue(43, Instant.now());
+            }
+        }).getValue();
+
+        // The view is updated but published snapshots are immutable
+        assertEquals(43, view.snapshotResource("viewProvider", "svc", "rc").getValue().getValue());
+        assertEquals(42, rc.getValue().getValue());
+    }
+
     @Nested
     class LifecycleTests {
         @Nested
@@ -254,4 +311,235 @@ public class GatewayThreadImplTest {
             }
         }
     }
+
+    @Nested
+    class PartitionTests {
+
+        GatewayThreadImpl partitioned;
+
+        @BeforeEach
+        void setup() {
+            partitioned = new GatewayThreadImpl(metrics, typedEventBus, resourceSet, providerPackage,
+                    Converters.standardConverter().convert(Map.of("partitions", 4))
+                            .to(GatewayThreadConfiguration.class));
+        }
+
+        @AfterEach
+        void teardown() {
+            partitioned.deactivate();
+        }
+
+        @Test
+        void testProviderCommandsRunInParallel() throws Exception {
+            partitioned.execute(new AbstractSensinactCommand<Void>() {
+                @Override
+                protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
+                        PromiseFactory promiseFactory) {
+                    assertFalse(GatewayThreadImpl.isPartitionThread());
+                    modelMgr.createModel("partitionModel").withService("bar").withResource("foobar")
+                            .withType(Integer.class).withInitialValue(42).build().build().build();
+                    for (int i = 0; i < 16; i++) {
+                        twin.createProvider("partitionModel", "partition" + i);
+                    }
+                    return promiseFactory.resolved(null);
+                }
+            }).getValue();
+
+            // Each command waits for all the others: this can only complete if
+            // commands for different partitions run concurrently
+            String[] providers = { "partition0", "partition1" };
+            assertTrue(Math.floorMod(providers[0].hashCode(), 4) != Math.floorMod(providers[1].hashCode(), 4));
+            CountDownLatch latch = new CountDownLatch(providers.length);
+
+            Promise<?>[] results = new Promise<?>[providers.length];
+            for (int i = 0; i < providers.length; i++) {
+                results[i] = partitioned.execute(new ResourceCommand<Integer>(providers[i], "bar", "foobar") {
+                    @Override
+                    protected Promise<Integer> call(SensinactResource resource, PromiseFactory pf) {
+                        assertTrue(GatewayThreadImpl.isPartitionThread());
+                        latch.countDown();
+                        try {
+                            assertTrue(latch.await(2, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        return pf.resolved(42);
+                    }
+                });
+            }
+
+            for (Promise<?> result : results) {
+                assertEquals(42, result.getValue());
+            }
+        }
+    }
+
+    @Nested
+    class BatchTests {
+
+        GatewayThreadImpl batched;
+
+        @BeforeEach
+        void setup() {
+            batched = new GatewayThreadImpl(metrics, typedEventBus, resourceSet, providerPackage,
+                    Converters.standardConverter().convert(Map.of("batch.size", 16, "batch.duration.ms", 1000))
+                            .to(GatewayThreadConfiguration.class));
+        }
+
+        @AfterEach
+        void teardown() {
+            batched.deactivate();
+        }
+
+        @Test
+        void testBatchedUpdatesAreCollapsed() throws Exception {
+            batched.execute(new AbstractSensinactCommand<Void>() {
+                @Override
+                protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
+                        PromiseFactory promiseFactory) {
+                    modelMgr.createModel("batchModel").withService("bar").withResource("foobar")
+                            .withType(Integer.class).build().build().build();
+                    twin.createProvider("batchModel", "batchProvider");
+                    return promiseFactory.resolved(null);
+                }
+            }).getValue();
+            clearInvocations(typedEventBus);
+
+            // Hold the gateway thread so that the updates are queued together
+            Semaphore blocker = new Semaphore(0);
+            batched.execute(new AbstractTwinCommand<Void>() {
+                @Override
+                protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    try {
+                        blocker.tryAcquire(2, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return pf.resolved(null);
+                }
+            });
+
+            Instant now = Instant.now();
+            Promise<?>[] results = new Promise<?>[5];
+            for (int i = 0; i < results.length; i++) {
+                final int value = i;
+                results[i] = batched.execute(new ResourceCommand<Void>("batchProvider", "bar", "foobar") {
+                    @Override
+                    protected Promise<Void> call(SensinactResource resource, PromiseFactory pf) {
+                        return resource.setValue(value, now.plusMillis(value));
+                    }
+                });
+            }
+            blocker.release();
+
+            for (Promise<?> result : results) {
+                assertTrue(result.getFailure() == null);
+            }
+
+            verify(typedEventBus, after(500).times(1)).deliver(anyString(),
+                    argThat(n -> n instanceof ResourceDataNotification rdn && "batchProvider".equals(rdn.provider())
+                            && Integer.valueOf(4).equals(rdn.newValue())));
+            verify(typedEventBus, times(1)).deliver(anyString(),
+                    argThat(n -> n instanceof ResourceDataNotification));
+        }
+    }
+
+    @Nested
+    class AdmissionTests {
+
+        GatewayThreadImpl bounded;
+
+        Semaphore blocker = new Semaphore(0);
+
+        @AfterEach
+        void teardown() {
+            blocker.release(10);
+            bounded.deactivate();
+        }
+
+        void start(String policy) throws InterruptedException {
+            bounded = new GatewayThreadImpl(metrics, typedEventBus, resourceSet, providerPackage,
+                    Converters.standardConverter()
+                            .convert(Map.of("queue.capacity", 1, "overflow.policy", policy))
+                            .to(GatewayThreadConfiguration.class));
+
+            // Hold the gateway thread, with an empty queue
+            CountDownLatch started = new CountDownLatch(1);
+            bounded.execute(new AbstractTwinCommand<Void>() {
+                @Override
+                protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    started.countDown();
+                    try {
+                        blocker.tryAcquire(2, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return pf.resolved(null);
+                }
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+        }
+
+        AbstractTwinCommand<Integer> command(int value, String resource) {
+            return new UpdateCommand(value, resource);
+        }
+
+        /**
+         * A command superseded by the later ones updating the same resource
+         */
+        class UpdateCommand extends AbstractTwinCommand<Integer> {
+
+            final int value;
+
+            final String resource;
+
+            UpdateCommand(int value, String resource) {
+                this.value = value;
+                this.resource = resource;
+            }
+
+            @Override
+            protected Promise<Integer> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                return pf.resolved(value);
+            }
+
+            @Override
+            public boolean isSupersededBy(AbstractSensinactCommand<?> command) {
+                return resource != null && command instanceof UpdateCommand other && resource.equals(other.resource);
+            }
+        }
+
+        @Test
+        void testTryExecuteRejectsWhenFull() throws Exception {
+            start("REJECT");
+
+            Promise<Integer> queued = bounded.tryExecute(command(1, null));
+            Promise<Integer> rejected = bounded.tryExecute(command(2, null));
+            Promise<Integer> parked = bounded.executeWhenCapacity(command(3, null));
+
+            assertTrue(rejected.isDone());
+            assertTrue(rejected.getFailure() instanceof GatewayOverloadedException);
+            assertFalse(parked.isDone());
+
+            blocker.release();
+            assertEquals(1, queued.getValue());
+            assertEquals(3, parked.getValue());
+        }
+
+        @Test
+        void testDropOldest() throws Exception {
+            start("DROP_OLDEST");
+
+            Promise<Integer> dropped = bounded.execute(command(1, "a"));
+            // Only an update of the same resource can replace a queued one
+            Promise<Integer> rejected = bounded.execute(command(2, "b"));
+            Promise<Integer> kept = bounded.execute(command(3, "a"));
+
+            assertTrue(dropped.getFailure() instanceof GatewayOverloadedException);
+            assertTrue(rejected.getFailure() instanceof GatewayOverloadedException);
+
+            blocker.release();
+            assertEquals(3, kept.getValue());
+        }
+    }
 }
@@ -57,6 +57,7 @@ import org.eclipse.sensinact.core.command.ResourceCommand;
 import org.eclipse.sensinact.core.emf.util.EMFTestUtil;
 import org.eclipse.sensinact.core.metrics.IMetricCounter;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
 import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.model.Model;
@@ -115,6 +116,9 @@ public class WhiteboardImplTest {
         lenient().when(metrics.getHistogram(anyString())).thenReturn(histogram);
         lenient().when(metrics.withTimer(anyString())).thenReturn(timer);
         lenient().when(metrics.withTimers(any(String[].class))).thenReturn(timer);
+        IMetricTimerHandle timerHandle = mock(IMetricTimerHandle.class);
+        lenient().when(timerHandle.start()).thenReturn(timer);
+        lenient().when(metrics.getTimer(anyString())).thenReturn(timerHandle);
 
         thread = new GatewayThreadImpl(metrics, typedEventBus, resourceSet, ProviderPackage.eINSTANCE);
     }
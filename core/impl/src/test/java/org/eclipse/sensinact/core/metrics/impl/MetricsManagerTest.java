@@ -0,0 +1,110 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.metrics.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.util.converter.Converters;
+
+/**
+ * Tests the metric handles of the metrics manager
+ */
+public class MetricsManagerTest {
+
+    MetricsManager manager;
+
+    @BeforeEach
+    void start() {
+        manager = new MetricsManager();
+        manager.activate(Converters.standardConverter().convert(Map.of("enabled", true))
+                .to(MetricsConfiguration.class));
+    }
+
+    @AfterEach
+    void stop() {
+        manager.deactivate();
+    }
+
+    @Test
+    void testHandlesAreShared() {
+        assertSame(manager.getCounter("test"), manager.getCounter("test"));
+        assertSame(manager.getHistogram("test"), manager.getHistogram("test"));
+        assertSame(manager.getMeter("test"), manager.getMeter("test"));
+        assertSame(manager.getTimer("test"), manager.getTimer("test"));
+    }
+
+    @Test
+    void testCounterSurvivesStateChanges() {
+        IMetricCounter counter = manager.getCounter("test");
+        counter.inc();
+        counter.inc();
+        assertEquals(2, manager.registry().counter("test").getCount());
+
+        // Cleared metrics are created again on next use
+        manager.clear();
+        counter.inc();
+        assertEquals(1, manager.registry().counter("test").getCount());
+
+        // Disabled metrics are ignored
+        manager.disableMetrics();
+        counter.inc();
+        assertFalse(manager.registry().getCounters().containsKey("test"));
+
+        manager.enableMetrics();
+        counter.inc();
+        assertEquals(1, manager.registry().counter("test").getCount());
+
+        // Only explicitly enabled metrics are kept
+        manager.enableMetrics("other");
+        counter.inc();
+        assertEquals(1, manager.registry().counter("test").getCount());
+
+        manager.disableMetrics("other");
+        counter.inc();
+        assertEquals(2, manager.registry().counter("test").getCount());
+    }
+
+    @Test
+    void testTimerHandle() {
+        IMetricTimerHandle handle = manager.getTimer("test");
+        try (IMetricTimer timer = handle.start()) {
+            assertEquals("test", timer.getName());
+        }
+        assertEquals(1, manager.registry().timer("test").getCount());
+
+        manager.disableMetrics();
+        try (IMetricTimer timer = handle.start()) {
+            assertTrue(timer instanceof DummyTimer);
+        }
+
+        // Handles outlive the registry
+        manager.deactivate();
+        handle.start().close();
+        manager.getCounter("test").inc();
+        manager.activate(Converters.standardConverter().convert(Map.of("enabled", true))
+                .to(MetricsConfiguration.class));
+        handle.start().close();
+        assertEquals(1, manager.registry().timer("test").getCount());
+    }
+}
@@ -0,0 +1,71 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
+import org.eclipse.sensinact.gateway.geojson.Coordinates;
+import org.eclipse.sensinact.gateway.geojson.Point;
+import org.eclipse.sensinact.gateway.geojson.Polygon;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the spatial index of the provider locations
+ */
+class LocationIndexTest {
+
+    private static Polygon box(double minLon, double minLat, double maxLon, double maxLat) {
+        return new Polygon(List.of(List.of(new Coordinates(minLon, minLat), new Coordinates(maxLon, minLat),
+                new Coordinates(maxLon, maxLat), new Coordinates(minLon, maxLat), new Coordinates(minLon, minLat))),
+                null, null);
+    }
+
+    @Test
+    void testCandidates() {
+        final LocationIndex index = new LocationIndex();
+        index.update("paris", new Point(2.35, 48.85));
+        index.update("london", new Point(-0.12, 51.5));
+        index.update("europe", box(-10, 35, 30, 70));
+        assertEquals(3, index.size());
+
+        assertEquals(Set.of("paris", "europe"), index.candidates(new GeoEnvelope(2, 48, 3, 49)));
+        assertEquals(Set.of("london", "europe"), index.candidates(new GeoEnvelope(-1, 51, 0, 52)));
+        assertEquals(Set.of(), index.candidates(new GeoEnvelope(100, 10, 101, 11)));
+        // Large query: all envelopes are checked
+        assertEquals(Set.of("paris", "london", "europe"), index.candidates(new GeoEnvelope(-180, -90, 180, 90)));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        final LocationIndex index = new LocationIndex();
+        index.update("sensor", new Point(2.35, 48.85));
+        index.update("sensor", new Point(-0.12, 51.5));
+        assertTrue(index.candidates(new GeoEnvelope(2, 48, 3, 49)).isEmpty());
+        assertEquals(Set.of("sensor"), index.candidates(new GeoEnvelope(-1, 51, 0, 52)));
+
+        // No location
+        index.update("sensor", null);
+        assertEquals(0, index.size());
+        assertTrue(index.candidates(new GeoEnvelope(-1, 51, 0, 52)).isEmpty());
+
+        index.update("sensor", new Point(2.35, 48.85));
+        index.remove("sensor");
+        assertEquals(0, index.size());
+        assertTrue(index.candidates(new GeoEnvelope(2, 48, 3, 49)).isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.persistence.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TwinJournalTest {
+
+    private static final Instant TS = Instant.parse("2024-01-02T03:04:05.123456789Z");
+
+    @TempDir
+    Path dir;
+
+    private static TwinRecord value(String provider, Object value) {
+        return TwinRecord.value("https://eclipse.org/sensinact/test", "model", provider, "svc", "rc",
+                value == null ? null : value.getClass().getName(), value, TS);
+    }
+
+    private List<TwinRecord> load() throws IOException {
+        List<TwinRecord> records = new ArrayList<>();
+        TwinJournal journal = new TwinJournal(dir);
+        journal.load(records::add);
+        journal.close();
+        return records;
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        List<TwinRecord> records = List.of(value("a", 42), value("a", -7L), value("b", 1.5d), value("b", 2.5f),
+                value("c", "text"), value("c", null), value("d", true), value("d", TS),
+                value("e", List.of(1, 2, 3)), value("e", Map.of("k", "v")), value("f", new BigDecimal("1.25")),
+                TwinRecord.metadata(null, "model", "a", "svc", "rc", Map.of("unit", "m"), Set.of("old"), TS),
+                TwinRecord.link(true, null, "model", "a", "b", TS), TwinRecord.link(false, null, "model", "a", "b", TS),
+                TwinRecord.delete(null, "model", "a"));
+
+        TwinJournal journal = new TwinJournal(dir);
+        journal.load(r -> {
+        });
+        journal.append(records.subList(0, 5));
+        journal.flush();
+        journal.append(records.subList(5, records.size()));
+        journal.close();
+
+        assertEquals(records, load());
+    }
+
+    @Test
+    void testCheckpoint() throws IOException {
+        TwinJournal journal = new TwinJournal(dir);
+        journal.load(r -> {
+        });
+        journal.append(List.of(value("a", 1), value("a", 2)));
+        journal.checkpoint(out -> out.accept(value("a", 2)));
+        journal.append(List.of(value("a", 3)));
+        journal.close();
+
+        assertEquals(List.of(value("a", 2), value("a", 3)), load());
+        try (Stream<Path> files = Files.list(dir)) {
+            // The checkpoint and the segments opened since then
+            assertTrue(files.filter(p -> p.getFileName().toString().startsWith("journal-")).count() <= 3);
+        }
+    }
+
+    @Test
+    void testTornFrame() throws IOException {
+        TwinJournal journal = new TwinJournal(dir);
+        journal.load(r -> {
+        });
+        journal.append(List.of(value("a", 1)));
+        journal.flush();
+        journal.append(List.of(value("a", 2)));
+        journal.close();
+
+        // Cut the last frame in half
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.getFileName().toString().startsWith("journal-")).sorted().findFirst()
+                    .get();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertEquals(List.of(value("a", 1)), load());
+
+        // New changes go to a new segment
+        journal = new TwinJournal(dir);
+        journal.load(r -> {
+        });
+        journal.append(List.of(value("a", 3)));
+        journal.close();
+        assertEquals(List.of(value("a", 1), value("a", 3)), load());
+    }
+}
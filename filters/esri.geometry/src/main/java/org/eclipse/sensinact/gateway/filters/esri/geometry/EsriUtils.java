@@ -12,7 +12,9 @@
 **********************************************************************/
 package org.eclipse.sensinact.gateway.filters.esri.geometry;
 
+import static com.esri.core.geometry.Geometry.GeometryAccelerationDegree.enumMild;
 import static com.esri.core.geometry.Operator.Type.Buffer;
+import static com.esri.core.geometry.Operator.Type.Relate;
 import static com.esri.core.geometry.Operator.Type.Union;
 import static java.util.stream.Collectors.toList;
 
@@ -38,6 +40,7 @@ import com.esri.core.geometry.MultiPath;
 import com.esri.core.geometry.MultiPoint;
 import com.esri.core.geometry.OperatorBuffer;
 import com.esri.core.geometry.OperatorFactoryLocal;
+import com.esri.core.geometry.OperatorRelate;
 import com.esri.core.geometry.OperatorUnion;
 import com.esri.core.geometry.Point;
 import com.esri.core.geometry.Polygon;
@@ -71,6 +74,42 @@ public class EsriUtils {
 
     private static final double RADS_TO_DEGS = 180 / Math.PI;
 
+    /**
+     * Used to accelerate the cached geometries
+     */
+    private static final OperatorRelate RELATE_OPERATOR = (OperatorRelate) OperatorFactoryLocal.getInstance().getOperator(Relate);
+
+    /**
+     * Geometries of the GeoJSON objects converted by {@link #toCachedEsriGeometry(GeoJsonObject)}
+     */
+    private static final GeometryCache CACHE = new GeometryCache();
+
+    /**
+     * Converts a GeoJSON object, reusing the geometry computed for the same
+     * object instance if any. This avoids converting the location of a provider
+     * each time a filter is tested while it hasn't changed. Polygons are
+     * accelerated for the relation operators.
+     *
+     * The returned geometry is shared and must not be modified.
+     *
+     * @param value the GeoJSON object
+     * @return the matching geometry
+     */
+    public static Geometry toCachedEsriGeometry(GeoJsonObject value) {
+        if(value == null) {
+            return new Point();
+        }
+        return CACHE.get(value, v -> {
+            Geometry geometry = toEsriGeometry(v);
+            if(geometry.getDimension() == 2 && !geometry.isEmpty()) {
+                // Mild acceleration: the provider location is usually tested
+                // against a few filters only
+                RELATE_OPERATOR.accelerateGeometry(geometry, WGS84_COORDS, enumMild);
+            }
+            return geometry;
+        });
+    }
+
     public static Geometry toEsriGeometry(GeoJsonObject value) {
         if(value == null) {
             return new Point();
@@ -0,0 +1,105 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.filters.esri.geometry;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+
+import com.esri.core.geometry.Geometry;
+
+/**
+ * Keeps the ESRI geometries converted from GeoJSON objects.
+ *
+ * GeoJSON objects are compared by identity and weakly referenced: the
+ * geometry of a provider location is kept as long as the location value is
+ * stored in the model, and dropped once the location is updated. Geometries
+ * are shared and must not be modified by the callers.
+ */
+class GeometryCache {
+
+    /**
+     * Weak identity reference to a GeoJSON object
+     */
+    private static final class Key extends WeakReference<GeoJsonObject> {
+
+        private final int hash;
+
+        Key(final GeoJsonObject referent, final ReferenceQueue<GeoJsonObject> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof Key)) {
+                return false;
+            }
+            final GeoJsonObject referent = get();
+            return referent != null && referent == ((Key) obj).get();
+        }
+    }
+
+    private final ReferenceQueue<GeoJsonObject> queue = new ReferenceQueue<>();
+
+    private final Map<Key, Geometry> geometries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached geometry of the given object, converting it if necessary
+     *
+     * @param value     GeoJSON object
+     * @param converter Conversion function, called without lock
+     * @return The geometry of the object
+     */
+    Geometry get(final GeoJsonObject value, final Function<GeoJsonObject, Geometry> converter) {
+        expunge();
+
+        final Geometry cached = geometries.get(new Key(value, null));
+        if (cached != null) {
+            return cached;
+        }
+
+        final Geometry geometry = converter.apply(value);
+        final Geometry previous = geometries.putIfAbsent(new Key(value, queue), geometry);
+        return previous != null ? previous : geometry;
+    }
+
+    /**
+     * Returns the number of cached geometries
+     */
+    int size() {
+        expunge();
+        return geometries.size();
+    }
+
+    /**
+     * Removes the geometries of the collected GeoJSON objects
+     */
+    private void expunge() {
+        Object ref;
+        while ((ref = queue.poll()) != null) {
+            geometries.remove(ref);
+        }
+    }
+}
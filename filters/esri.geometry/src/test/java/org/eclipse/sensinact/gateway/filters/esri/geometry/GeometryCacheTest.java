@@ -0,0 +1,77 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.filters.esri.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+import org.eclipse.sensinact.gateway.geojson.Point;
+import org.junit.jupiter.api.Test;
+
+import com.esri.core.geometry.Geometry;
+
+class GeometryCacheTest {
+
+    private final GeometryCache cache = new GeometryCache();
+
+    private final AtomicInteger conversions = new AtomicInteger();
+
+    private final Function<GeoJsonObject, Geometry> converter = o -> {
+        conversions.incrementAndGet();
+        final Point point = (Point) o;
+        return new com.esri.core.geometry.Point(point.coordinates().longitude(), point.coordinates().latitude());
+    };
+
+    @Test
+    void testSameObjectConvertedOnce() {
+        final Point point = new Point(12d, 34d);
+        final Geometry geometry = cache.get(point, converter);
+        assertSame(geometry, cache.get(point, converter));
+        assertEquals(1, conversions.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testEqualObjectsConvertedSeparately() {
+        // Objects are compared by identity, not by value
+        final Point first = new Point(12d, 34d);
+        final Point second = new Point(12d, 34d);
+        assertNotSame(cache.get(first, converter), cache.get(second, converter));
+        assertEquals(2, conversions.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testCollectedObjectsExpunged() throws Exception {
+        final Point kept = new Point(1d, 2d);
+        cache.get(kept, converter);
+        for (int i = 0; i < 100; i++) {
+            cache.get(new Point(i, i), converter);
+        }
+
+        for (int i = 0; i < 100 && cache.size() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, cache.size());
+
+        // The remaining object is still cached
+        cache.get(kept, converter);
+        assertEquals(101, conversions.get());
+    }
+}
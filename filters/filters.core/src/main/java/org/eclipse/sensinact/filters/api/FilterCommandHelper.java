@@ -14,6 +14,7 @@ package org.eclipse.sensinact.filters.api;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,6 +24,7 @@ import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
+import org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption;
 import org.osgi.util.promise.Promise;
 import org.osgi.util.promise.PromiseFactory;
 
@@ -37,9 +39,10 @@ public class FilterCommandHelper {
         try {
             providers = thread.execute(new AbstractTwinCommand<Collection<ProviderSnapshot>>() {
                 protected Promise<Collection<ProviderSnapshot>> call(SensinactDigitalTwin model, PromiseFactory pf) {
-                    return pf.resolved(
-                            model.filteredSnapshot(criterion.getLocationFilter(), criterion.getProviderFilter(),
-                                    criterion.getServiceFilter(), criterion.getResourceFilter()));
+                    return pf.resolved(model.filteredSnapshot(criterion.getLocationEnvelope(),
+                            criterion.getLocationFilter(), criterion.getProviderFilter(),
+                            criterion.getServiceFilter(), criterion.getResourceFilter(),
+                            EnumSet.noneOf(SnapshotOption.class)));
                 }
             }).getValue();
         } catch (InterruptedException e) {
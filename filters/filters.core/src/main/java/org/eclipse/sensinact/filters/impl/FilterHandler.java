@@ -13,9 +13,16 @@
 package org.eclipse.sensinact.filters.impl;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
 
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.filters.api.FilterParserException;
 import org.eclipse.sensinact.filters.api.IFilterHandler;
@@ -25,20 +32,144 @@ import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 
 /**
- * Handler to ease usage of filters
+ * Handler to ease usage of filters.
+ *
+ * Parsed filters are kept in a bounded cache, which is cleared each time a
+ * filter parser service comes, goes or is modified.
  */
 @Component(immediate = true, service = IFilterHandler.class)
 public class FilterHandler implements IFilterHandler {
 
-    @Activate
+    public static @interface Config {
+        /**
+         * Maximum number of parsed filters kept in cache (0 to disable the cache)
+         */
+        int cache_size() default 256;
+    }
+
+    /**
+     * Cache key
+     */
+    private record CacheKey(String language, String query, Map<String, Object> parameters) {
+    }
+
+    /**
+     * Cache lock
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Parsed filters, from the least to the most recently used. Null filters are
+     * cached as empty optionals. Null if the cache is disabled.
+     */
+    private Map<CacheKey, Optional<ICriterion>> cache;
+
+    /**
+     * Incremented each time the cache is invalidated
+     */
+    private long generation;
+
     private BundleContext context;
 
+    @Reference
+    private IMetricsManager metrics;
+
+    private IMetricCounter hits;
+
+    private IMetricCounter misses;
+
+    @Activate
+    void activate(final BundleContext context, final Config config) {
+        this.context = context;
+        hits = metrics.getCounter("sensinact.filters.cache.hit");
+        misses = metrics.getCounter("sensinact.filters.cache.miss");
+
+        final int maxSize = config.cache_size();
+        synchronized (lock) {
+            if (maxSize > 0) {
+                cache = new LinkedHashMap<>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Entry<CacheKey, Optional<ICriterion>> eldest) {
+                        return size() > maxSize;
+                    }
+                };
+            }
+        }
+    }
+
+    @Reference(service = IFilterParser.class, cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC, updated = "updatedParser", unbind = "removeParser")
+    void addParser(final ServiceReference<IFilterParser> svcRef) {
+        invalidate();
+    }
+
+    void updatedParser(final ServiceReference<IFilterParser> svcRef) {
+        invalidate();
+    }
+
+    void removeParser(final ServiceReference<IFilterParser> svcRef) {
+        invalidate();
+    }
+
+    /**
+     * Clears the cache, ignoring the filters being parsed
+     */
+    private void invalidate() {
+        synchronized (lock) {
+            generation++;
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
     @Override
     public ICriterion parseFilter(final String filterLanguage, final String filterQuery,
             final Map<String, Object> parameters) throws FilterParserException {
 
+        if (!isCacheEnabled()) {
+            return doParseFilter(filterLanguage, filterQuery, parameters);
+        }
+
+        final CacheKey key = new CacheKey(filterLanguage, filterQuery,
+                parameters == null || parameters.isEmpty() ? Map.of()
+                        : Collections.unmodifiableMap(new HashMap<>(parameters)));
+        final long currentGeneration;
+        synchronized (lock) {
+            final Optional<ICriterion> cached = cache.get(key);
+            if (cached != null) {
+                hits.inc();
+                return cached.orElse(null);
+            }
+            currentGeneration = generation;
+        }
+        misses.inc();
+
+        final ICriterion criterion = doParseFilter(filterLanguage, filterQuery, parameters);
+        synchronized (lock) {
+            // Don't keep a filter parsed by a parser that has been replaced since
+            if (currentGeneration == generation) {
+                cache.put(key, Optional.ofNullable(criterion));
+            }
+        }
+        return criterion;
+    }
+
+    private boolean isCacheEnabled() {
+        synchronized (lock) {
+            return cache != null;
+        }
+    }
+
+    private ICriterion doParseFilter(final String filterLanguage, final String filterQuery,
+            final Map<String, Object> parameters) throws FilterParserException {
         final ServiceReference<IFilterParser> svcRef = findParser(filterLanguage);
         try {
             final IFilterParser parser = context.getService(svcRef);
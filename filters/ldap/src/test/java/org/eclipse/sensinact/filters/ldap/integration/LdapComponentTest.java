@@ -14,6 +14,7 @@ package org.eclipse.sensinact.filters.ldap.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -73,4 +74,16 @@ public class LdapComponentTest {
         assertEquals(1, providers.size());
         assertEquals("ldap-test-component", providers.iterator().next().getName());
     }
+
+    @Test
+    void testCachedFilter() throws Exception {
+        ICriterion filter = filterHandler.parseFilter("ldap", "(PROVIDER=ldap-test-component-2)");
+        assertNotNull(filter);
+        assertSame(filter, filterHandler.parseFilter("ldap", "(PROVIDER=ldap-test-component-2)"));
+
+        // Cached filters can be executed again
+        Collection<ProviderSnapshot> providers = FilterCommandHelper.executeFilter(thread, filter);
+        assertEquals(1, providers.size());
+        assertEquals("ldap-test-component-2", providers.iterator().next().getName());
+    }
 }
@@ -19,6 +19,7 @@ import static org.eclipse.sensinact.gateway.filters.esri.geometry.EsriUtils.WGS8
 import java.util.Objects;
 import java.util.function.Predicate;
 
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
 import org.eclipse.sensinact.filters.resource.selector.api.LocationSelection;
 import org.eclipse.sensinact.filters.resource.selector.api.LocationSelection.MatchType;
 import org.eclipse.sensinact.gateway.filters.esri.geometry.EsriUtils;
@@ -26,6 +27,7 @@ import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.esri.core.geometry.Envelope2D;
 import com.esri.core.geometry.Geometry;
 import com.esri.core.geometry.OperatorFactoryLocal;
 import com.esri.core.geometry.OperatorRelate;
@@ -101,22 +103,45 @@ public class LocationSelectionCriterion {
 
     private final Predicate<GeoJsonObject> locationFilter;
 
+    private final GeoEnvelope envelope;
+
     public LocationSelectionCriterion(LocationSelection ls) {
-        this.locationFilter = toLocationFilter(ls);
+        Geometry target = EsriUtils.toEsriGeometry(ls.value());
+
+        Double radius = ls.radius();
+        if(radius != null) {
+            target = EsriUtils.bufferGeometry(target, radius);
+        }
+
+        this.envelope = toEnvelope(ls.type(), target);
+        this.locationFilter = toLocationFilter(ls, target);
     }
 
     public Predicate<GeoJsonObject> locationFilter() {
         return locationFilter;
     }
 
-    private static Predicate<GeoJsonObject> toLocationFilter(LocationSelection ls) {
-
-        Geometry target = EsriUtils.toEsriGeometry(ls.value());
+    /**
+     * Envelope that a location must intersect to be accepted, null for a disjoint
+     * match
+     */
+    public GeoEnvelope envelope() {
+        return envelope;
+    }
 
-        Double radius = ls.radius();
-        if(radius != null) {
-            target = EsriUtils.bufferGeometry(target, radius);
+    private static GeoEnvelope toEnvelope(MatchType type, Geometry target) {
+        if(type == MatchType.DISJOINT || target.isEmpty()) {
+            // Disjoint locations can be anywhere
+            return null;
         }
+
+        // All other matches need the location to share a point with the target
+        Envelope2D env = new Envelope2D();
+        target.queryEnvelope2D(env);
+        return new GeoEnvelope(env.xmin, env.ymin, env.xmax, env.ymax);
+    }
+
+    private static Predicate<GeoJsonObject> toLocationFilter(LocationSelection ls, Geometry target) {
         // We accelerate the value as it will potentially be called for every provider
         // in the gateway, and for every subsequent update
         RELATE_OPERATOR.accelerateGeometry(target, null, enumMedium);
@@ -144,7 +169,7 @@ public class LocationSelectionCriterion {
                 throw new IllegalArgumentException("Unknown match type " + type);
         };
         return l -> {
-            Geometry g = EsriUtils.toEsriGeometry(l);
+            Geometry g = EsriUtils.toCachedEsriGeometry(l);
             return !g.isEmpty() && locationCheck.test(g);
         };
     }
@@ -18,9 +18,11 @@ import static org.eclipse.sensinact.filters.resource.selector.impl.ResourceSelec
 import static org.eclipse.sensinact.filters.resource.selector.impl.ResourceSelectorCriterion.never;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
@@ -41,6 +43,7 @@ public class ProviderSelectionCriterion {
 
     private final ResourceValueFilter valueFilter;
     private final BiPredicate<ProviderSnapshot, GeoJsonObject> locationFilter;
+    private final GeoEnvelope locationEnvelope;
 
     public ProviderSelectionCriterion(ProviderSelection ps) {
         this.ps = ps;
@@ -73,6 +76,12 @@ public class ProviderSelectionCriterion {
                     .map(LocationSelectionCriterion::locationFilter)
                     .reduce(Predicate::and)
                     .orElse(always()));
+        // All location selections must match: any of their envelopes will do
+        locationEnvelope = locations.stream()
+                .map(LocationSelectionCriterion::envelope)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
     }
 
     public Predicate<ProviderSnapshot> providerFilter() {
@@ -95,6 +104,10 @@ public class ProviderSelectionCriterion {
         return locationFilter;
     }
 
+    public GeoEnvelope locationEnvelope() {
+        return locationEnvelope;
+    }
+
     public String exactModel() {
         return ResourceSelectionCriterion.exactSelection(ps.model());
     }
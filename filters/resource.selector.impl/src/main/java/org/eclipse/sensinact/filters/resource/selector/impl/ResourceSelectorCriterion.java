@@ -21,6 +21,7 @@ import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
@@ -49,6 +50,7 @@ public class ResourceSelectorCriterion implements ICriterion {
 
     private final Predicate<ProviderSnapshot> providerFilter;
     private final BiPredicate<ProviderSnapshot, GeoJsonObject> locationFilter;
+    private final GeoEnvelope locationEnvelope;
     private final Predicate<ServiceSnapshot> serviceFilter;
     private final Predicate<ResourceSnapshot> resourceFilter;
 
@@ -71,6 +73,8 @@ public class ResourceSelectorCriterion implements ICriterion {
                 .reduce(BiPredicate::or)
                 .orElse(null);
 
+        this.locationEnvelope = toLocationEnvelope(providerSelections);
+
         Stream<Predicate<ServiceSnapshot>> services = Stream.concat(
                 providerSelections.stream().map(ProviderSelectionCriterion::serviceFilter),
                 additionalResources.stream().map(ResourceSelectionCriterion::serviceFilter));
@@ -91,6 +95,19 @@ public class ResourceSelectorCriterion implements ICriterion {
                 .anyMatch(ps -> ps.resourceValueFilter().test(p, rl));
     }
 
+    private static GeoEnvelope toLocationEnvelope(List<ProviderSelectionCriterion> providerSelections) {
+        // Any provider selection can match: all of them must be bounded
+        GeoEnvelope envelope = null;
+        for (ProviderSelectionCriterion ps : providerSelections) {
+            GeoEnvelope psEnvelope = ps.locationEnvelope();
+            if (psEnvelope == null) {
+                return null;
+            }
+            envelope = envelope == null ? psEnvelope : envelope.union(psEnvelope);
+        }
+        return envelope;
+    }
+
     static <T> Predicate<T> fromSelection(Function<T,String> nameExtractor, Selection s) {
         if(s == null) return always();
         Predicate<String> test = s.asPredicate();
@@ -116,6 +133,11 @@ public class ResourceSelectorCriterion implements ICriterion {
         return locationFilter;
     }
 
+    @Override
+    public GeoEnvelope getLocationEnvelope() {
+        return locationEnvelope;
+    }
+
     @Override
     public Predicate<ProviderSnapshot> getProviderFilter() {
         return providerFilter == ALWAYS ? null : providerFilter;
@@ -13,6 +13,7 @@
 package org.eclipse.sensinact.northbound.query.impl;
 
 import static java.util.stream.Collectors.toMap;
+import static org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption.COMMITTED;
 import static org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption.INCLUDE_LINKED_PROVIDERS_FULL;
 import static org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption.INCLUDE_LINKED_PROVIDER_IDS;
 import static org.eclipse.sensinact.northbound.query.dto.query.QuerySnapshotDTO.SnapshotLinkOption.ID_ONLY;
@@ -87,7 +88,9 @@ import org.eclipse.sensinact.northbound.session.ResourceDescription;
 import org.eclipse.sensinact.northbound.session.ResourceShortDescription;
 import org.eclipse.sensinact.northbound.session.SensiNactSession;
 import org.eclipse.sensinact.northbound.session.ServiceDescription;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
@@ -107,6 +110,23 @@ public class QueryHandler implements IQueryHandler {
      */
     private static final String DEFAULT_FILTER_LANGUAGE = "ldap";
 
+    /**
+     * Definition of the component configuration properties
+     */
+    public @interface Config {
+        /**
+         * Reads filtered snapshots from the last committed state of the twin
+         * instead of waiting for the gateway thread (defaults to false). Results
+         * may then miss the updates still being processed.
+         */
+        boolean committed_reads() default false;
+    }
+
+    /**
+     * Flag to read snapshots from the committed view of the twin
+     */
+    private volatile boolean committedReads;
+
     @Reference
     ResourceSelectorFilterFactory resourceSelectorFilterFactory;
 
@@ -127,10 +147,16 @@ public class QueryHandler implements IQueryHandler {
 
     void unsetFilterHandler(final IFilterHandler filterHandler) {
         synchronized (filterHandlerRef) {
-            filterHandlerRef.set(null);
+            filterHandlerRef.compareAndSet(filterHandler, null);
         }
     }
 
+    @Activate
+    @Modified
+    void configure(final Config config) {
+        committedReads = config.committed_reads();
+    }
+
     @Override
     public AbstractResultDTO handleQuery(final SensiNactSession userSession, final AbstractQueryDTO query) {
 
@@ -194,18 +220,17 @@ public class QueryHandler implements IQueryHandler {
         if(filter == null || filter.isEmpty()) {
             return null;
         }
-        synchronized (filterHandlerRef) {
-                IFilterHandler filterHandler = filterHandlerRef.get();
-                if (filterHandler == null) {
-                    throw new StatusException(501, "No filter implementation available");
-                }
+        // Parsed filters are cached by the handler: don't serialize the calls
+        final IFilterHandler filterHandler = filterHandlerRef.get();
+        if (filterHandler == null) {
+            throw new StatusException(501, "No filter implementation available");
+        }
 
-                try {
-                    return filterHandler.parseFilter(filterLanguage != null ? filterLanguage : DEFAULT_FILTER_LANGUAGE,
-                            filter);
-                } catch (Throwable t) {
-                    throw new StatusException(500, "Error parsing filter: " + t.getMessage(), t);
-                }
+        try {
+            return filterHandler.parseFilter(filterLanguage != null ? filterLanguage : DEFAULT_FILTER_LANGUAGE,
+                    filter);
+        } catch (Throwable t) {
+            throw new StatusException(500, "Error parsing filter: " + t.getMessage(), t);
         }
     }
 
@@ -442,6 +467,10 @@ public class QueryHandler implements IQueryHandler {
                 sessionOptions = EnumSet.of(INCLUDE_LINKED_PROVIDERS_FULL);
             }
 
+            if (committedReads) {
+                // Read-only queries don't need to wait for the gateway thread
+                sessionOptions.add(COMMITTED);
+            }
             return session.filteredSnapshot(filter, sessionOptions);
         } catch (Exception e) {
             throw new StatusException(500, "Error executing filter: " + e.getMessage(), e);
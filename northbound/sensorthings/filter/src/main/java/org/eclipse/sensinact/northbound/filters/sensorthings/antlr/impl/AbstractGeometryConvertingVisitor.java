@@ -33,7 +33,7 @@ public abstract class AbstractGeometryConvertingVisitor<T> extends ODataFilterBa
         }
 
         if(Geometry.class.isAssignableFrom(type) && GeoJsonObject.class.isInstance(object)) {
-            return (R) EsriUtils.toEsriGeometry((GeoJsonObject) object);
+            return (R) EsriUtils.toCachedEsriGeometry((GeoJsonObject) object);
         }
 
         if (!type.isAssignableFrom(object.getClass())) {
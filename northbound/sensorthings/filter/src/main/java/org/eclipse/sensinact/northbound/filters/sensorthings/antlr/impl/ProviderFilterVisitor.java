@@ -0,0 +1,201 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl;
+
+import static org.eclipse.sensinact.sensorthings.models.extended.ExtendedPackage.eNS_URI;
+
+import java.util.function.Predicate;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.northbound.filters.sensorthings.EFilterContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterBaseVisitor;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.AndexprContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.BoolcommonexprContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.CommonexprContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.EqexprContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.FirstmemberexprContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.OrexprContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.PrimitiveliteralContext;
+
+/**
+ * Extracts from a filter a predicate on the provider model and name, which can
+ * be tested before the snapshot of the provider services and resources.
+ *
+ * The predicate is a necessary condition of the filter: a provider it rejects
+ * can't match the filter, but the filter must still be tested on the providers
+ * it accepts. Parts of the filter that can't be checked on the provider name
+ * are ignored, and the visitor returns null if nothing can be checked.
+ *
+ * The entity type isn't checked here: the criteria of a context are also tested
+ * on providers of other entity types, e.g. when expanding them. The root
+ * listings of the REST delegates check it on the provider model instead.
+ */
+public class ProviderFilterVisitor extends ODataFilterBaseVisitor<Predicate<ProviderSnapshot>> {
+
+    private final EFilterContext context;
+
+    public ProviderFilterVisitor(final EFilterContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public Predicate<ProviderSnapshot> visitBoolcommonexpr(BoolcommonexprContext ctx) {
+        // Same structure as the BoolCommonExprVisitor
+        final ParserRuleContext firstElement = ctx.getChild(ParserRuleContext.class, 0);
+        final int nbChildren = ctx.getChildCount();
+
+        Predicate<ProviderSnapshot> predicate = null;
+        switch (firstElement.getRuleIndex()) {
+        case ODataFilterParser.RULE_commonexpr:
+            if (nbChildren >= 2) {
+                final ParserRuleContext secondElement = ctx.getChild(ParserRuleContext.class, 1);
+                if (secondElement.getRuleIndex() == ODataFilterParser.RULE_eqexpr) {
+                    predicate = visitEquality((CommonexprContext) firstElement,
+                            ((EqexprContext) secondElement).commonexpr());
+                }
+            }
+            break;
+
+        case ODataFilterParser.RULE_boolparenexpr:
+            predicate = visitBoolcommonexpr(ctx.boolparenexpr().boolcommonexpr());
+            break;
+
+        default:
+            // Negations and method calls can't be checked early
+            break;
+        }
+
+        if (nbChildren > 1) {
+            final ParserRuleContext lastElement = ctx.getChild(ParserRuleContext.class, nbChildren - 1);
+            switch (lastElement.getRuleIndex()) {
+            case ODataFilterParser.RULE_andexpr: {
+                // Both sides must hold: keep what we know of each
+                final Predicate<ProviderSnapshot> other = visitBoolcommonexpr(
+                        ((AndexprContext) lastElement).boolcommonexpr());
+                if (predicate == null) {
+                    return other;
+                } else if (other == null) {
+                    return predicate;
+                }
+                return predicate.and(other);
+            }
+
+            case ODataFilterParser.RULE_orexpr: {
+                // Only usable if both sides can be checked
+                final Predicate<ProviderSnapshot> other = visitBoolcommonexpr(
+                        ((OrexprContext) lastElement).boolcommonexpr());
+                if (predicate == null || other == null) {
+                    return null;
+                }
+                return predicate.or(other);
+            }
+
+            default:
+                break;
+            }
+        }
+
+        return predicate;
+    }
+
+    /**
+     * Handles an equality between the ID of the entity and a string literal
+     *
+     * @param left  Left part of the equality
+     * @param right Right part of the equality
+     * @return The provider predicate or null
+     */
+    private Predicate<ProviderSnapshot> visitEquality(final CommonexprContext left, final CommonexprContext right) {
+        String id = null;
+        if (isIdPath(left)) {
+            id = getStringLiteral(right);
+        } else if (isIdPath(right)) {
+            id = getStringLiteral(left);
+        }
+
+        if (id == null) {
+            return null;
+        }
+        return idFilter(id);
+    }
+
+    /**
+     * Returns a predicate on the providers that can hold an entity with the given
+     * ID, according to the way path handlers compute the entity IDs
+     *
+     * @param id Entity ID
+     * @return The provider predicate or null
+     */
+    private Predicate<ProviderSnapshot> idFilter(final String id) {
+        switch (context) {
+        case THINGS:
+        case LOCATIONS:
+        case HISTORICAL_LOCATIONS:
+            // Provider
+            return p -> id.equals(p.getName());
+
+        case DATASTREAMS:
+        case OBSERVED_PROPERTIES:
+        case SENSORS:
+            // Provider~Service~Resource for the sensiNact model
+            return p -> isSensorthingModel(p) ? id.equals(p.getName()) : id.startsWith(p.getName() + "~");
+
+        case OBSERVATIONS:
+            // Provider~Service~Resource~Timestamp for the sensiNact model, stored in
+            // the observation otherwise
+            return p -> isSensorthingModel(p) || id.startsWith(p.getName() + "~");
+
+        case FEATURES_OF_INTEREST:
+            // Provider for the sensiNact model, linked provider otherwise
+            return p -> isSensorthingModel(p) || id.equals(p.getName());
+
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the given expression is the simple "id" path
+     */
+    private boolean isIdPath(final CommonexprContext ctx) {
+        return ctx.getChildCount() == 1 && ctx.getChild(0) instanceof FirstmemberexprContext
+                && "id".equals(ctx.getText());
+    }
+
+    /**
+     * Returns the value of a string literal, as parsed by the CommonExprVisitor
+     *
+     * @param ctx Expression
+     * @return The string value or null if the expression isn't a string literal
+     */
+    private String getStringLiteral(final CommonexprContext ctx) {
+        if (ctx.getChildCount() != 1 || !(ctx.getChild(0) instanceof PrimitiveliteralContext)) {
+            return null;
+        }
+
+        final PrimitiveliteralContext literal = (PrimitiveliteralContext) ctx.getChild(0);
+        final ParserRuleContext element = literal.getChild(ParserRuleContext.class, 0);
+        if (element == null || element.getRuleIndex() != ODataFilterParser.RULE_string_1) {
+            return null;
+        }
+
+        final String raw = literal.getText();
+        return (raw.length() >= 2) ? raw.substring(1, raw.length() - 1) : raw;
+    }
+
+    private boolean isSensorthingModel(final ProviderSnapshot provider) {
+        return eNS_URI.equals(provider.getModelPackageUri());
+    }
+}
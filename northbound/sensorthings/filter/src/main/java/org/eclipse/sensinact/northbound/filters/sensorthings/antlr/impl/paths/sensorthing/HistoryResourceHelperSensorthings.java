@@ -12,6 +12,8 @@
 **********************************************************************/
 package org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.paths.sensorthing;
 
+import static org.eclipse.sensinact.sensorthings.sensing.rest.HistoryCursors.previousPageCursor;
+
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -60,13 +62,11 @@ public class HistoryResourceHelperSensorthings {
         Map<String, Object> params = initParameter(resourceSnapshot);
         // Get count for the full dataset (for pagination metadata)
         Long count = (Long) userSession.actOnResource(historyProvider, "history", "count", params);
-        int skip = 0;
+        String cursor = null;
 
         List<TimedValue<?>> timed;
 
         do {
-            params.put("skip", skip);
-
             timed = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history", "range", params);
 
             values.addAll(0,
@@ -74,7 +74,11 @@ public class HistoryResourceHelperSensorthings {
             if (timed.isEmpty()) {
                 break;
             }
-            skip += timed.size();
+            cursor = previousPageCursor(cursor, timed);
+            if (cursor == null) {
+                break;
+            }
+            params.put("cursor", cursor);
             // Keep going until the list is as full as count, or it hits maxResults
         } while ((count == null || values.size() < count) && values.size() < maxResults);
         return values;
@@ -105,12 +109,10 @@ public class HistoryResourceHelperSensorthings {
             Long count = (Long) userSession.actOnResource(historyProvider, "history", "count", params);
             if (count != null)
                 totalCount.addAndGet(count);
-            int skip = 0;
+            String cursor = null;
 
             List<TimedValue<?>> timed;
             do {
-                params.put("skip", skip);
-
                 timed = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history", "range", params);
                 List<Instant> historicalLocationList = timed.stream().map(t -> t.getTimestamp()).toList();
                 if (count != null && count < Integer.MAX_VALUE && historicalLocationList.size() < timed.size()) {
@@ -120,7 +122,11 @@ public class HistoryResourceHelperSensorthings {
                 if (timed.isEmpty()) {
                     break;
                 }
-                skip += timed.size();
+                cursor = previousPageCursor(cursor, timed);
+                if (cursor == null) {
+                    break;
+                }
+                params.put("cursor", cursor);
 
             } while ((count == null || values.size() < count) && values.size() < maxResults);
         }
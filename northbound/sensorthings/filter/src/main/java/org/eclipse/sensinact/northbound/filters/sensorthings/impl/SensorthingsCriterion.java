@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.BiPredicate;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
@@ -30,11 +31,18 @@ import org.eclipse.sensinact.northbound.session.SensiNactSession;
 import org.eclipse.sensinact.sensorthings.sensing.dto.expand.ExpandedObservation;
 import org.eclipse.sensinact.sensorthings.sensing.dto.util.IDtoMemoryCache;
 
+/**
+ * Criterion of a parsed SensorThings filter.
+ *
+ * The criterion doesn't keep a session: it gets one when it is evaluated, so
+ * that it can be cached and shared by requests.
+ */
 public class SensorthingsCriterion implements ICriterion {
 
     private final EFilterContext context;
     private final Predicate<ResourceValueFilterInputHolder> predicate;
-    private SensiNactSession session;
+    private final Predicate<ProviderSnapshot> providerFilter;
+    private final Supplier<SensiNactSession> sessionSupplier;
     private final Map<String, Object> configProperties;
     private final IDtoMemoryCache<ExpandedObservation> cacheObs;
     private final IDtoMemoryCache<Instant> cacheHl;
@@ -42,9 +50,23 @@ public class SensorthingsCriterion implements ICriterion {
     public SensorthingsCriterion(final EFilterContext context, SensiNactSession session,
             final Predicate<ResourceValueFilterInputHolder> predicate, Map<String, Object> configProperties,
             IDtoMemoryCache<ExpandedObservation> cacheObs, IDtoMemoryCache<Instant> cacheHl) {
+        this(context, () -> session, predicate, null, configProperties, cacheObs, cacheHl);
+    }
+
+    /**
+     * @param sessionSupplier Gives the session used to evaluate the filter
+     * @param providerFilter  Necessary condition of the predicate that can be
+     *                        tested on the provider before its snapshot (can be
+     *                        null)
+     */
+    public SensorthingsCriterion(final EFilterContext context, final Supplier<SensiNactSession> sessionSupplier,
+            final Predicate<ResourceValueFilterInputHolder> predicate,
+            final Predicate<ProviderSnapshot> providerFilter, Map<String, Object> configProperties,
+            IDtoMemoryCache<ExpandedObservation> cacheObs, IDtoMemoryCache<Instant> cacheHl) {
         this.context = context;
         this.predicate = predicate;
-        this.session = session;
+        this.providerFilter = providerFilter;
+        this.sessionSupplier = sessionSupplier;
         this.configProperties = configProperties;
         this.cacheHl = cacheHl;
         this.cacheObs = cacheObs;
@@ -57,7 +79,7 @@ public class SensorthingsCriterion implements ICriterion {
 
     @Override
     public Predicate<ProviderSnapshot> getProviderFilter() {
-        return null;
+        return providerFilter;
     }
 
     @Override
@@ -84,6 +106,7 @@ public class SensorthingsCriterion implements ICriterion {
             return new ResourceValueFilter() {
                 @Override
                 public boolean test(final ProviderSnapshot provider, final List<? extends ResourceSnapshot> resources) {
+                    final SensiNactSession session = sessionSupplier.get();
                     List<ResourceValueFilterInputHolder> matchs = resources.stream().map(r -> {
                         return new ResourceValueFilterInputHolder(context, session, provider, r, configProperties,
                                 cacheObs, cacheHl);
@@ -24,6 +24,7 @@ import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.filters.api.FilterParserException;
 import org.eclipse.sensinact.filters.api.IFilterParser;
 import org.eclipse.sensinact.filters.propertytypes.FiltersSupported;
@@ -34,6 +35,7 @@ import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterLe
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.BoolcommonexprContext;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.BoolCommonExprVisitor;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.ProviderFilterVisitor;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.ResourceValueFilterInputHolder;
 import org.eclipse.sensinact.northbound.security.api.UserInfo;
 import org.eclipse.sensinact.northbound.session.SensiNactSession;
@@ -42,6 +44,7 @@ import org.eclipse.sensinact.sensorthings.sensing.dto.expand.ExpandedObservation
 import org.eclipse.sensinact.sensorthings.sensing.dto.util.IDtoMemoryCache;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 
 @Component(configurationPid = "sensinact.sensorthings.northbound.rest")
@@ -62,8 +65,7 @@ public class SensorthingsFilterComponent implements IFilterParser, ISensorthings
 
     public static final String NOT_SET = "<<NOT_SET>>";
 
-    @Activate
-    Config config;
+    volatile Config config;
 
     @Reference
     SensiNactSessionManager sessionManager;
@@ -74,12 +76,27 @@ public class SensorthingsFilterComponent implements IFilterParser, ISensorthings
     @Reference(target = "(cache.type=historical-location)")
     IDtoMemoryCache<Instant> cacheHl;
 
-    SensiNactSession session;
+    volatile SensiNactSession session;
+
+    /**
+     * The parsed criteria capture the properties of the configuration. Updating
+     * the configuration updates the properties of the parser service, which makes
+     * the filter handler drop its cached criteria.
+     */
+    @Activate
+    @Modified
+    void configure(final Config config) {
+        this.config = config;
+    }
 
     public SensiNactSession getSession() {
-        if (session == null || session.isExpired())
-            session = sessionManager.getDefaultSession(UserInfo.ANONYMOUS);
-        return session;
+        // Called when cached criteria are evaluated, possibly concurrently
+        SensiNactSession current = session;
+        if (current == null || current.isExpired()) {
+            current = sessionManager.getDefaultSession(UserInfo.ANONYMOUS);
+            session = current;
+        }
+        return current;
     }
 
     public void setSession(SensiNactSession session) {
@@ -135,6 +152,7 @@ public class SensorthingsFilterComponent implements IFilterParser, ISensorthings
     @Override
     public ICriterion parseFilter(String query, EFilterContext filterContext) throws FilterParserException {
         final Predicate<ResourceValueFilterInputHolder> predicate;
+        final Predicate<ProviderSnapshot> providerFilter;
 
         // Parse the filter
         try {
@@ -145,11 +163,13 @@ public class SensorthingsFilterComponent implements IFilterParser, ISensorthings
             final BoolcommonexprContext parsedContext = parser.boolcommonexpr();
             final BoolCommonExprVisitor visitor = new BoolCommonExprVisitor(parser);
             predicate = visitor.visit(parsedContext);
+            // Extract what can be checked before the provider snapshot
+            providerFilter = new ProviderFilterVisitor(filterContext).visit(parsedContext);
         } catch (Exception e) {
             throw new FilterParserException("Error parsing SensorThings query '" + query + "': " + e, e);
         }
         // Return the ICriterion
-        return new SensorthingsCriterion(filterContext, getSession(), predicate, getProperties(),
+        return new SensorthingsCriterion(filterContext, this::getSession, predicate, providerFilter, getProperties(),
                 isHistoryMemory() ? cacheObs : null, isHistoryMemory() ? cacheHl : null);
     }
 }
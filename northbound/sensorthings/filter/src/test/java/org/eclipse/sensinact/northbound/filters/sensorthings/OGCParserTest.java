@@ -13,6 +13,7 @@
 package org.eclipse.sensinact.northbound.filters.sensorthings;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.ZoneId;
@@ -37,6 +38,7 @@ import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterLe
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.BoolcommonexprContext;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.BoolCommonExprVisitor;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.ProviderFilterVisitor;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.ResourceValueFilterInputHolder;
 import org.junit.jupiter.api.Test;
 
@@ -373,4 +375,42 @@ public class OGCParserTest {
                 RcUtils.getSession(), provider, List.of(rc), Map.of());
         assertQueries(expectations, holder);
     }
+
+    private Predicate<ProviderSnapshot> providerFilter(final EFilterContext filterContext, final String query) {
+        CodePointCharStream inStream = CharStreams.fromString(query);
+        ODataFilterLexer markupLexer = new ODataFilterLexer(inStream);
+        CommonTokenStream commonTokenStream = new CommonTokenStream(markupLexer);
+        ODataFilterParser parser = new ODataFilterParser(commonTokenStream);
+        return new ProviderFilterVisitor(filterContext).visit(parser.boolcommonexpr());
+    }
+
+    @Test
+    void testProviderFilter() throws Exception {
+        ProviderSnapshot provider = RcUtils.makeProvider("thing1");
+        ProviderSnapshot other = RcUtils.makeProvider("thing2");
+
+        Predicate<ProviderSnapshot> filter = providerFilter(EFilterContext.THINGS, "id eq 'thing1'");
+        assertEquals(true, filter.test(provider));
+        assertEquals(false, filter.test(other));
+
+        // Reversed equality and conditions that can't be checked early
+        filter = providerFilter(EFilterContext.THINGS, "'thing1' eq id and name eq 'foo'");
+        assertEquals(true, filter.test(provider));
+        assertEquals(false, filter.test(other));
+
+        filter = providerFilter(EFilterContext.THINGS, "(id eq 'thing1' or id eq 'thing2')");
+        assertEquals(true, filter.test(provider));
+        assertEquals(true, filter.test(other));
+
+        // Datastream IDs start with the provider name
+        filter = providerFilter(EFilterContext.DATASTREAMS, "id eq 'thing1~sensor~value'");
+        assertEquals(true, filter.test(provider));
+        assertEquals(false, filter.test(other));
+
+        // Nothing can be checked on the provider
+        assertNull(providerFilter(EFilterContext.THINGS, "name eq 'foo'"));
+        assertNull(providerFilter(EFilterContext.THINGS, "id eq 'thing1' or name eq 'foo'"));
+        assertNull(providerFilter(EFilterContext.THINGS, "not (id eq 'thing1')"));
+        assertNull(providerFilter(EFilterContext.THINGS, "Datastreams/id eq 'thing1'"));
+    }
 }
@@ -22,6 +22,13 @@ public interface ExpansionSettings {
 
     void addExpansion(String pathSegment, Id context, Object expansion);
 
+    /**
+     * @return true if nothing has to be expanded
+     */
+    default boolean isEmpty() {
+        return false;
+    }
+
     ExpansionSettings EMPTY = new ExpansionSettings() {
         @Override
         public boolean shouldExpand(String pathSegment, Id context) {
@@ -37,5 +44,10 @@ public interface ExpansionSettings {
         public void addExpansion(String pathSegment, Id context, Object expansion) {
             throw new IllegalArgumentException("Empty Expansion Settings");
         }
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
     };
 }
@@ -0,0 +1,51 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.sensorthings.sensing.rest;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.eclipse.sensinact.core.twin.TimedValue;
+
+/**
+ * Handling of the cursors of the history range queries, written as
+ * <code>&lt;timestamp&gt;;&lt;count&gt;</code>
+ */
+public final class HistoryCursors {
+
+    private HistoryCursors() {
+    }
+
+    /**
+     * Computes the history cursor continuing before a page of values, which are
+     * in chronological order
+     *
+     * @param cursor the cursor used to get the page, or <code>null</code>
+     * @param timed  the page of values
+     * @return the cursor of the previous page, or <code>null</code> if it can't
+     *         be computed
+     */
+    public static String previousPageCursor(String cursor, List<TimedValue<?>> timed) {
+        Instant boundary = timed.get(0).getTimestamp();
+        if (boundary == null) {
+            return null;
+        }
+        long count = timed.stream().takeWhile(t -> boundary.equals(t.getTimestamp())).count();
+        String prefix = boundary + ";";
+        if (cursor != null && cursor.startsWith(prefix)) {
+            // All the values of the page have the timestamp of the previous cursor
+            count += Long.parseLong(cursor.substring(prefix.length()));
+        }
+        return prefix + count;
+    }
+}
@@ -24,4 +24,30 @@ public interface IFilterConstants {
      */
     String EXPAND_SETTINGS_STRING = "sensinact.sensorthings.expand";
 
+    /**
+     * Request context property holding the $top value
+     */
+    String PROP_TOP = "org.eclipse.sensinact.sensorthings.sensing.rest.top";
+
+    /**
+     * Request context property holding the $skip value
+     */
+    String PROP_SKIP = "org.eclipse.sensinact.sensorthings.sensing.rest.skip";
+
+    /**
+     * Request context property holding the $count flag
+     */
+    String PROP_COUNT = "org.eclipse.sensinact.sensorthings.sensing.rest.count";
+
+    /**
+     * Request context property holding the parsed $orderby clauses
+     */
+    String PROP_ORDERBY = "org.eclipse.sensinact.sensorthings.sensing.rest.orderby";
+
+    /**
+     * Request context property set when the $top, $skip, $count and $orderby
+     * options have already been applied to the result list
+     */
+    String PROP_QUERY_OPTIONS_APPLIED = "org.eclipse.sensinact.sensorthings.sensing.rest.query.applied";
+
 }
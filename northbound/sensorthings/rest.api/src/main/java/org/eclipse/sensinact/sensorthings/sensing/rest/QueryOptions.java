@@ -0,0 +1,245 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.sensorthings.sensing.rest;
+
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_COUNT;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_ORDERBY;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_SKIP;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_TOP;
+
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import tools.jackson.databind.JsonNode;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.container.ContainerRequestContext;
+
+/**
+ * The $top, $skip, $count and $orderby options of a request, as parsed by the
+ * request filters.
+ *
+ * Delegates listing many entities apply them while building the result list,
+ * to avoid mapping and expanding entities which won't be returned, and then
+ * set the {@link IFilterConstants#PROP_QUERY_OPTIONS_APPLIED} request property
+ * so that the response filters don't apply them again.
+ *
+ * @param top     Maximum number of entities to return, null for no limit
+ * @param skip    Number of entities to skip
+ * @param count   Flag to indicate if the total number of entities must be
+ *                returned
+ * @param orderBy Sort clauses
+ */
+public record QueryOptions(Integer top, int skip, boolean count, List<OrderBy> orderBy) {
+
+    /**
+     * Default order, by ascending ID
+     */
+    public static final List<OrderBy> DEFAULT_ORDER = List.of(new OrderBy(List.of("id"), true));
+
+    /**
+     * A sort clause of the $orderby option
+     *
+     * @param path      Path to the sorted property
+     * @param ascending Sort direction
+     */
+    public record OrderBy(List<String> path, boolean ascending) {
+
+        /**
+         * Parses a sort clause, like "id desc"
+         */
+        public static OrderBy parse(String s) {
+            String clause = s.trim();
+            boolean ascending;
+            if (clause.endsWith("asc")) {
+                ascending = true;
+                clause = clause.substring(0, clause.length() - 3).trim();
+            } else if (clause.endsWith("desc")) {
+                ascending = false;
+                clause = clause.substring(0, clause.length() - 4).trim();
+            } else {
+                ascending = true;
+            }
+            return new OrderBy(List.of(clause.split("/")), ascending);
+        }
+
+        /**
+         * Checks if this clause sorts on the entity ID
+         */
+        public boolean isId() {
+            return path.size() == 1 && "id".equals(path.get(0));
+        }
+
+        /**
+         * Extracts the sorted property of an entity
+         *
+         * @param o      Entity DTO
+         * @param toJson Converter of non-record objects
+         * @return The sort key
+         * @throws BadRequestException if the property can't be found
+         */
+        @SuppressWarnings("unchecked")
+        public Comparable<Object> key(Object o, Function<Object, JsonNode> toJson) {
+            Object result = o;
+            for (String s : path) {
+                if (result == null) {
+                    break;
+                }
+                try {
+                    if (result instanceof Record) {
+                        RecordComponent[] components = result.getClass().getRecordComponents();
+                        RecordComponent component = Arrays.stream(components).filter(rc -> rc.getName().equals(s))
+                                .findFirst().get();
+                        result = component.getAccessor().invoke(result);
+                    } else {
+                        JsonNode jn = result instanceof JsonNode node ? node : toJson.apply(result);
+                        if (jn.has(s)) {
+                            result = jn.get(s);
+                        } else {
+                            throw new IllegalArgumentException("No property " + s + " in object " + jn);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new BadRequestException("Failed to order objects by " + path);
+                }
+            }
+            if (result == null) {
+                return null;
+            }
+            if (result instanceof Comparable<?>) {
+                return (Comparable<Object>) result;
+            }
+            return (Comparable<Object>) (Comparable<?>) result.toString();
+        }
+    }
+
+    /**
+     * Value with its sort keys and initial position, to keep the sort stable
+     */
+    private record Keyed<T>(List<Comparable<Object>> keys, int index, T value) {
+    }
+
+    private static final Comparator<Comparable<Object>> BASE_COMPARATOR = Comparator
+            .nullsFirst(Comparator.naturalOrder());
+
+    /**
+     * Returns the options stored in the request context
+     *
+     * @param requestContext Request context
+     * @return The query options or null if they were not parsed
+     */
+    @SuppressWarnings("unchecked")
+    public static QueryOptions get(ContainerRequestContext requestContext) {
+        if (requestContext == null) {
+            return null;
+        }
+        List<OrderBy> orderBy = (List<OrderBy>) requestContext.getProperty(PROP_ORDERBY);
+        if (orderBy == null) {
+            return null;
+        }
+        Integer skip = (Integer) requestContext.getProperty(PROP_SKIP);
+        return new QueryOptions((Integer) requestContext.getProperty(PROP_TOP), skip == null ? 0 : skip,
+                Boolean.TRUE.equals(requestContext.getProperty(PROP_COUNT)), orderBy);
+    }
+
+    /**
+     * Checks if the entities are only sorted by ID
+     */
+    public boolean isOrderedById() {
+        return orderBy.stream().allMatch(OrderBy::isId);
+    }
+
+    /**
+     * Checks if there are more entities after the requested page
+     *
+     * @param total Total number of entities
+     */
+    public boolean hasNext(int total) {
+        return top != null && (long) skip + top < total;
+    }
+
+    /**
+     * Extracts the sort keys of an entity DTO, one per sort clause
+     *
+     * @param o      Entity DTO
+     * @param toJson Converter of non-record objects
+     * @return The sort keys
+     */
+    public List<Comparable<Object>> keys(Object o, Function<Object, JsonNode> toJson) {
+        List<Comparable<Object>> keys = new ArrayList<>(orderBy.size());
+        for (OrderBy clause : orderBy) {
+            keys.add(clause.key(o, toJson));
+        }
+        return keys;
+    }
+
+    /**
+     * Sorts the values and returns those of the requested page.
+     *
+     * The sort keys are extracted once per value. When a $top is given, only the
+     * first values are kept in a bounded heap instead of sorting the whole list.
+     *
+     * @param values    Values to sort
+     * @param extractor Sort keys extractor, returning one key per sort clause
+     * @return The values of the page, in order
+     */
+    public <T> List<T> page(List<T> values, Function<? super T, List<Comparable<Object>>> extractor) {
+        if (skip >= values.size()) {
+            return List.of();
+        }
+
+        final int limit = top == null ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, (long) skip + top);
+        final Comparator<Keyed<T>> comparator = this::compare;
+
+        List<Keyed<T>> selected;
+        int index = 0;
+        if (limit < values.size()) {
+            // Keep the "limit" smallest values, the greatest one at the head
+            PriorityQueue<Keyed<T>> heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+            for (T value : values) {
+                Keyed<T> keyed = new Keyed<>(extractor.apply(value), index++, value);
+                if (heap.size() < limit) {
+                    heap.add(keyed);
+                } else if (comparator.compare(keyed, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(keyed);
+                }
+            }
+            selected = new ArrayList<>(heap);
+        } else {
+            selected = new ArrayList<>(values.size());
+            for (T value : values) {
+                selected.add(new Keyed<>(extractor.apply(value), index++, value));
+            }
+        }
+
+        selected.sort(comparator);
+        return selected.subList(Math.min(skip, selected.size()), selected.size()).stream().map(Keyed::value)
+                .toList();
+    }
+
+    private int compare(Keyed<?> a, Keyed<?> b) {
+        for (int i = 0; i < orderBy.size(); i++) {
+            int result = BASE_COMPARATOR.compare(a.keys().get(i), b.keys().get(i));
+            if (result != 0) {
+                return orderBy.get(i).ascending() ? result : -result;
+            }
+        }
+        return Integer.compare(a.index(), b.index());
+    }
+}
@@ -120,6 +120,7 @@ public final class ExpansionSettingsImpl implements ExpansionSettings {
         return expandedValues.get(pathSegment);
     }
 
+    @Override
     public boolean isEmpty() {
         return configuredExpansions.isEmpty();
     }
@@ -13,21 +13,22 @@
 package org.eclipse.sensinact.sensorthings.sensing.rest.filters;
 
 import static jakarta.ws.rs.Priorities.ENTITY_CODER;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_ORDERBY;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_QUERY_OPTIONS_APPLIED;
 
 import java.io.IOException;
-import java.lang.reflect.RecordComponent;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 
 import org.eclipse.sensinact.sensorthings.sensing.dto.ResultList;
 import org.eclipse.sensinact.sensorthings.sensing.dto.Self;
+import org.eclipse.sensinact.sensorthings.sensing.rest.QueryOptions;
+import org.eclipse.sensinact.sensorthings.sensing.rest.QueryOptions.OrderBy;
 
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
 import jakarta.annotation.Priority;
-import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.container.ContainerResponseContext;
@@ -44,8 +45,6 @@ import jakarta.ws.rs.ext.Providers;
 @Priority(ENTITY_CODER + 3)
 public class OrderByFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
-    private static final String ORDERBY_PROP = "org.eclipse.sensinact.sensorthings.sensing.rest.orderby";
-
     @Context
     Providers providers;
 
@@ -56,17 +55,25 @@ public class OrderByFilter implements ContainerRequestFilter, ContainerResponseF
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
             throws IOException {
+        if (Boolean.TRUE.equals(requestContext.getProperty(PROP_QUERY_OPTIONS_APPLIED))) {
+            // Already sorted while building the result list
+            return;
+        }
+
         @SuppressWarnings("unchecked")
-        Comparator<Object> comparator = (Comparator<Object>) requestContext.getProperty(ORDERBY_PROP);
-        if (comparator == null) {
+        List<OrderBy> orderBy = (List<OrderBy>) requestContext.getProperty(PROP_ORDERBY);
+        if (orderBy == null) {
             return;
         }
 
         Object entity = responseContext.getEntity();
         if (entity instanceof ResultList) {
             ResultList<? extends Self> resultList = (ResultList<?>) entity;
+            // Skip and top are applied by their own filters
+            QueryOptions sort = new QueryOptions(null, 0, false, orderBy);
+            ObjectMapper mapper = getMapper();
             ResultList<? extends Self> newEntity = new ResultList<>(resultList.count(), resultList.nextLink(),
-                    resultList.value().stream().sorted(comparator).toList());
+                    sort.page(resultList.value(), v -> sort.keys(v, o -> mapper.convertValue(o, JsonNode.class))));
             responseContext.setEntity(newEntity);
         }
     }
@@ -76,78 +83,12 @@ public class OrderByFilter implements ContainerRequestFilter, ContainerResponseF
         List<String> list = requestContext.getUriInfo().getQueryParameters().getOrDefault("$orderby", List.of());
 
         try {
-            Comparator<Object> comparator = list.stream().flatMap(s -> Arrays.stream(s.split(",")))
-                    .map(this::toComparator).reduce(Comparator::thenComparing).orElseGet(() -> toComparator("id"));
-            requestContext.setProperty(ORDERBY_PROP, comparator);
+            List<OrderBy> orderBy = list.stream().flatMap(s -> Arrays.stream(s.split(","))).map(OrderBy::parse)
+                    .toList();
+            requestContext.setProperty(PROP_ORDERBY, orderBy.isEmpty() ? QueryOptions.DEFAULT_ORDER : orderBy);
         } catch (Exception e) {
             requestContext.abortWith(
                     Response.status(Status.BAD_REQUEST).entity("Not a valid orderby definition " + list).build());
         }
     }
-
-    private static final Comparator<Comparable<Object>> BASE_COMPARATOR = Comparator
-            .nullsFirst(Comparator.naturalOrder());
-
-    private Comparator<Object> toComparator(String s) {
-
-        String clause = s.trim();
-        boolean ascending;
-        if (clause.endsWith("asc")) {
-            ascending = true;
-            clause = clause.substring(0, clause.length() - 3).trim();
-        } else if (clause.endsWith("desc")) {
-            ascending = false;
-            clause = clause.substring(0, clause.length() - 4).trim();
-        } else {
-            ascending = true;
-        }
-
-        final String[] path = clause.split("/");
-        Comparator<Object> result = (a, b) -> {
-            return BASE_COMPARATOR.compare(get(a, path), get(b, path));
-        };
-
-        return ascending ? result : result.reversed();
-    }
-
-    @SuppressWarnings("unchecked")
-    public Comparable<Object> get(Object o, String[] path) {
-        Object result = o;
-        for (String s : path) {
-            if (result == null) {
-                break;
-            }
-            try {
-                if (o instanceof Record) {
-                    RecordComponent[] components = o.getClass().getRecordComponents();
-                    RecordComponent component = Arrays.stream(components).filter(rc -> rc.getName().equals(s))
-                            .findFirst().get();
-                    result = component.getAccessor().invoke(result);
-                } else if (o instanceof JsonNode jn) {
-                    if (jn.has(s)) {
-                        result = jn.get(s);
-                    } else {
-                        throw new IllegalArgumentException("No property " + s + " in object " + jn);
-                    }
-                } else {
-                    JsonNode jn = getMapper().convertValue(o, JsonNode.class);
-                    if (jn.has(s)) {
-                        result = jn.get(s);
-                    } else {
-                        throw new IllegalArgumentException("No property " + s + " in object " + jn);
-                    }
-                }
-            } catch (Exception e) {
-                throw new BadRequestException("Failed to order objects by " + Arrays.toString(path));
-            }
-        }
-        if (result == null)
-            return null;
-        if (result instanceof Comparable<?>) {
-            return (Comparable<Object>) result;
-        }
-        return (Comparable<Object>) (Comparable<?>) result.toString();
-
-    }
-
 }
@@ -13,6 +13,8 @@
 package org.eclipse.sensinact.sensorthings.sensing.rest.filters;
 
 import static jakarta.ws.rs.Priorities.ENTITY_CODER;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_QUERY_OPTIONS_APPLIED;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_SKIP;
 
 import java.io.IOException;
 import java.util.List;
@@ -34,12 +36,15 @@ import jakarta.ws.rs.core.Response.Status;
 @Priority(ENTITY_CODER + 2)
 public class SkipFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
-    static final String SKIP_PROP = "org.eclipse.sensinact.sensorthings.sensing.rest.skip";
-
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
             throws IOException {
-        Integer skip = (Integer) requestContext.getProperty(SKIP_PROP);
+        if (Boolean.TRUE.equals(requestContext.getProperty(PROP_QUERY_OPTIONS_APPLIED))) {
+            // Already handled while building the result list
+            return;
+        }
+
+        Integer skip = (Integer) requestContext.getProperty(PROP_SKIP);
         if (skip == null || skip == 0) {
             return;
         }
@@ -80,7 +85,7 @@ public class SkipFilter implements ContainerRequestFilter, ContainerResponseFilt
                     .entity("The $skip parameter must be an integer greater than zero").build());
         }
 
-        requestContext.setProperty(SKIP_PROP, skip);
+        requestContext.setProperty(PROP_SKIP, skip);
     }
 
 }
@@ -13,6 +13,9 @@
 package org.eclipse.sensinact.sensorthings.sensing.rest.filters;
 
 import static jakarta.ws.rs.Priorities.ENTITY_CODER;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_QUERY_OPTIONS_APPLIED;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_SKIP;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_TOP;
 
 import java.io.IOException;
 import java.util.List;
@@ -37,15 +40,18 @@ import jakarta.ws.rs.core.Response.Status;
 @Priority(ENTITY_CODER + 1)
 public class TopFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
-    private static final String TOP_PROP = "org.eclipse.sensinact.sensorthings.sensing.rest.top";
-
     @Context
     ResourceInfo resourceInfo;
 
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
             throws IOException {
-        Integer top = (Integer) requestContext.getProperty(TOP_PROP);
+        if (Boolean.TRUE.equals(requestContext.getProperty(PROP_QUERY_OPTIONS_APPLIED))) {
+            // Already handled while building the result list
+            return;
+        }
+
+        Integer top = (Integer) requestContext.getProperty(PROP_TOP);
         if (top == null) {
             return;
         }
@@ -56,7 +62,7 @@ public class TopFilter implements ContainerRequestFilter, ContainerResponseFilte
             int size = resultList.value().size();
             List<? extends Self> value = resultList.value().subList(0, Math.min(top, size));
 
-            Integer skip = (Integer) requestContext.getProperty(SkipFilter.SKIP_PROP);
+            Integer skip = (Integer) requestContext.getProperty(PROP_SKIP);
             Integer nextSkip = (skip == null) ? top : top + skip;
             String nextLink = null;
             if (top < size) {
@@ -107,7 +113,7 @@ public class TopFilter implements ContainerRequestFilter, ContainerResponseFilte
                     .entity("The $top parameter must be an integer greater than zero").build());
             return;
         }
-        requestContext.setProperty(TOP_PROP, top);
+        requestContext.setProperty(PROP_TOP, top);
     }
 
 }
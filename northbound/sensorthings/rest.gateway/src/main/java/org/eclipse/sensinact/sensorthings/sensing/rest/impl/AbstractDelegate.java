@@ -20,12 +20,22 @@ import static org.eclipse.sensinact.sensorthings.sensing.rest.ExpansionSettings.
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
@@ -33,6 +43,7 @@ import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
 import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption;
 import org.eclipse.sensinact.filters.api.FilterParserException;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 import org.eclipse.sensinact.northbound.filters.sensorthings.EFilterContext;
 import org.eclipse.sensinact.northbound.filters.sensorthings.ISensorthingsFilterParser;
 import org.eclipse.sensinact.northbound.session.SensiNactSession;
@@ -52,9 +63,11 @@ import org.eclipse.sensinact.sensorthings.sensing.dto.util.IDtoMemoryCache;
 import org.eclipse.sensinact.sensorthings.sensing.rest.ExpansionSettings;
 import org.eclipse.sensinact.sensorthings.sensing.rest.IExtraDelegate;
 import org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants;
+import org.eclipse.sensinact.sensorthings.sensing.rest.QueryOptions;
 import org.eclipse.sensinact.sensorthings.sensing.rest.impl.sensorthings.DtoMapper;
 import org.eclipse.sensinact.sensorthings.sensing.rest.impl.sensorthings.HistoryResourceHelperSensorthings;
 
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
@@ -268,6 +281,44 @@ public abstract class AbstractDelegate {
 
     }
 
+    /**
+     * Lists the providers of a SensorThings entity type matching the filter. The
+     * type is checked on the provider model, before the snapshot of the provider
+     * services and resources.
+     *
+     * @param criterion  the filter of the request, or <code>null</code>
+     * @param entityType the model of the entity providers
+     */
+    protected List<ProviderSnapshot> listProviders(final ICriterion criterion, final EClass entityType) {
+        final ICriterion typeCriterion = new ICriterion() {
+            @Override
+            public Predicate<ProviderSnapshot> getProviderFilter() {
+                return p -> DtoMapperSimple.isSensorthingModel(p) && entityType.getName().equals(p.getModelName());
+            }
+
+            @Override
+            public BiPredicate<ProviderSnapshot, GeoJsonObject> getLocationFilter() {
+                return null;
+            }
+
+            @Override
+            public Predicate<ServiceSnapshot> getServiceFilter() {
+                return null;
+            }
+
+            @Override
+            public Predicate<ResourceSnapshot> getResourceFilter() {
+                return null;
+            }
+
+            @Override
+            public ResourceValueFilter getResourceValueFilter() {
+                return null;
+            }
+        };
+        return listProviders(criterion == null ? typeCriterion : criterion.and(typeCriterion));
+    }
+
     @SuppressWarnings("unchecked")
     protected IDtoMemoryCache<ExpandedObservation> getCacheObservation() {
         return providers.getContextResolver(IDtoMemoryCache.class, MediaType.WILDCARD_TYPE)
@@ -445,6 +496,74 @@ public abstract class AbstractDelegate {
         return es == null ? EMPTY : es;
     }
 
+    /**
+     * Builds the result list of a collection, applying the $top, $skip, $count
+     * and $orderby options before mapping and expanding all the entities.
+     *
+     * If the entities are only sorted by ID and the ID of the entity of each
+     * source is known, the sources are sorted and paged without being mapped.
+     * Otherwise, the entities are first mapped without expansion to extract their
+     * sort keys, and only those of the page are mapped again with expansions. The
+     * mapper is then called twice for the sources of the page when expansions are
+     * requested.
+     *
+     * @param sources    Sources of the entities (providers, resources...)
+     * @param idFunction Returns the ID of the single entity mapped from a source,
+     *                   null if a source can be mapped to any number of entities
+     * @param mapper     Maps a source to its entities, with the given expansion
+     *                   settings
+     * @return The result list
+     */
+    protected <S, T extends Id> ResultList<T> toResultList(List<S> sources, Function<S, String> idFunction,
+            BiFunction<ExpansionSettings, S, Stream<? extends T>> mapper) {
+        final ExpansionSettings expansions = getExpansions();
+        final QueryOptions options = QueryOptions.get(requestContext);
+        if (options == null) {
+            // Options will be handled by the response filters, if any
+            return new ResultList<>(sources.stream().<T>flatMap(s -> mapper.apply(expansions, s)).toList());
+        }
+
+        final int total;
+        final List<T> page;
+        if (idFunction != null && options.isOrderedById()) {
+            total = sources.size();
+            page = options
+                    .page(sources, s -> Collections.nCopies(options.orderBy().size(), toKey(idFunction.apply(s))))
+                    .stream().<T>flatMap(s -> mapper.apply(expansions, s)).toList();
+        } else {
+            final ObjectMapper jsonMapper = getMapper();
+            final List<Entry<S, T>> entities = sources.stream()
+                    .flatMap(s -> mapper.apply(EMPTY, s).<Entry<S, T>>map(t -> Map.entry(s, t))).toList();
+            total = entities.size();
+            final List<Entry<S, T>> selected = options.page(entities,
+                    e -> options.keys(e.getValue(), o -> jsonMapper.convertValue(o, JsonNode.class)));
+            if (expansions.isEmpty()) {
+                page = selected.stream().map(Entry::getValue).toList();
+            } else {
+                // Map the sources of the page again, with expansions
+                final Map<S, Map<Object, T>> expanded = new IdentityHashMap<>();
+                page = selected.stream().map(e -> expanded
+                        .computeIfAbsent(e.getKey(),
+                                s -> mapper.apply(expansions, s).collect(
+                                        Collectors.<T, Object, T>toMap(Id::id, t -> t, (first, other) -> first)))
+                        .getOrDefault(e.getValue().id(), e.getValue())).toList();
+            }
+        }
+        requestContext.setProperty(IFilterConstants.PROP_QUERY_OPTIONS_APPLIED, Boolean.TRUE);
+
+        String nextLink = null;
+        if (options.hasNext(total)) {
+            nextLink = uriInfo.getRequestUriBuilder().replaceQueryParam("$skip", options.skip() + options.top())
+                    .build().toString();
+        }
+        return new ResultList<>(options.count() ? total : null, nextLink, page);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> toKey(String id) {
+        return (Comparable<Object>) (Comparable<?>) id;
+    }
+
     /**
      * return the Provider link to the id
      *
@@ -96,6 +96,50 @@ public class DtoMapper {
         return Optional.empty();
     }
 
+    /**
+     * Returns the ID of the datastream, sensor or observed property of a resource
+     */
+    public static String toResourceId(ResourceSnapshot resource) {
+        return String.format("%s~%s~%s", resource.getService().getProvider().getName(),
+                resource.getService().getName(), resource.getName());
+    }
+
+    /**
+     * Returns the ID of the observation of a resource value
+     */
+    public static String toObservationId(ResourceSnapshot resource, Instant timestamp) {
+        return String.format("%s~%s", toResourceId(resource), Long.toString(timestamp.toEpochMilli(), 16));
+    }
+
+    /**
+     * Returns the ID of the observation of the current value of a set resource
+     */
+    public static String toObservationId(ResourceSnapshot resource) {
+        return toObservationId(resource, resource.getValue().getTimestamp());
+    }
+
+    /**
+     * Returns the ID of the location, or historical location, of a provider at
+     * the given time
+     */
+    public static String toLocationId(String providerName, Instant time) {
+        return String.format("%s~%s", providerName, Long.toString(time.toEpochMilli(), 16));
+    }
+
+    /**
+     * Returns the ID of the current location of a provider, without parsing it
+     */
+    public static String toLocationId(ProviderSnapshot provider) {
+        return toLocationId(provider.getName(), getLocationTime(getProviderAdminField(provider, LOCATION)));
+    }
+
+    /**
+     * Returns the ID of the feature of interest of a provider
+     */
+    public static String toFeatureOfInterestId(ProviderSnapshot provider) {
+        return provider.getName();
+    }
+
     private static String toString(Object o) {
         return o == null ? null : String.valueOf(o);
     }
@@ -152,7 +196,7 @@ public class DtoMapper {
         final Instant time = rcLocation.getTimestamp();
         final GeoJsonObject object = rcLocation.getValue();
 
-        String id = String.format("%s~%s", providerName, Long.toString(time.toEpochMilli(), 16));
+        String id = toLocationId(providerName, time);
 
         String name = Objects.requireNonNullElse(getProperty(object, "name"), providerName);
 
@@ -220,7 +264,7 @@ public class DtoMapper {
 
         final Instant time = t.map(TimedValue::getTimestamp).orElse(Instant.EPOCH);
 
-        String id = String.format("%s~%s", provider.getName(), Long.toString(time.toEpochMilli(), 16));
+        String id = toLocationId(provider.getName(), time);
 
         String selfLink = uriInfo.getBaseUriBuilder().path(VERSION).path("HistoricalLocations({id})")
                 .resolveTemplate("id", id).build().toString();
@@ -255,10 +299,9 @@ public class DtoMapper {
         }
 
         ProviderSnapshot providerSnapshot = resource.getService().getProvider();
-        final String provider = providerSnapshot.getName();
         final Map<String, Object> metadata = resource.getMetadata();
 
-        String id = String.format("%s~%s~%s", provider, resource.getService().getName(), resource.getName());
+        String id = toResourceId(resource);
 
         String name = toString(metadata.getOrDefault(FRIENDLY_NAME, resource.getName()));
         String description = toString(metadata.getOrDefault(DESCRIPTION, NO_DESCRIPTION));
@@ -321,8 +364,7 @@ public class DtoMapper {
         final Instant timestamp = t.map(TimedValue::getTimestamp).orElse(null);
 
         ProviderSnapshot providerSnapshot = resource.getService().getProvider();
-        String id = String.format("%s~%s~%s~%s", providerSnapshot.getName(), resource.getService().getName(),
-                resource.getName(), Long.toString(timestamp.toEpochMilli(), 16));
+        String id = toObservationId(resource, timestamp);
 
         Object result = t.map(TimedValue::getValue).orElse(null);
         Object resultQuality = resource.getMetadata().get(SENSORTHINGS_OBSERVATION_QUALITY);
@@ -354,8 +396,7 @@ public class DtoMapper {
         final Map<String, Object> metadata = resource.getMetadata();
 
         ProviderSnapshot providerSnapshot = resource.getService().getProvider();
-        String id = String.format("%s~%s~%s", providerSnapshot.getName(), resource.getService().getName(),
-                resource.getName());
+        String id = toResourceId(resource);
 
         String name = toString(metadata.getOrDefault(FRIENDLY_NAME, resource.getName()));
         String description = toString(metadata.getOrDefault(DESCRIPTION, NO_DESCRIPTION));
@@ -385,7 +426,7 @@ public class DtoMapper {
         final TimedValue<GeoJsonObject> location = getLocation(provider, mapper, false);
         final GeoJsonObject object = location.getValue();
 
-        String id = providerName;
+        String id = toFeatureOfInterestId(provider);
 
         String name = Objects.requireNonNullElse(getProperty(object, "name"), providerName);
 
@@ -476,22 +517,13 @@ public class DtoMapper {
             boolean allowNull) {
         final Optional<? extends ResourceSnapshot> locationResource = getProviderAdminField(provider, LOCATION);
 
-        final Instant time;
-        final Object rawValue;
-        if (locationResource.isEmpty()) {
-            time = Instant.EPOCH;
-            rawValue = null;
-        } else {
-            final TimedValue<?> timedValue = locationResource.get().getValue();
-            if (timedValue == null) {
-                time = Instant.EPOCH;
-                rawValue = null;
-            } else {
-                time = timedValue.getTimestamp() != null ? timedValue.getTimestamp() : Instant.EPOCH;
-                rawValue = timedValue.getValue();
-            }
-        }
-        return getLocation(mapper, rawValue, time, allowNull);
+        final Object rawValue = locationResource.map(ResourceSnapshot::getValue).map(TimedValue::getValue)
+                .orElse(null);
+        return getLocation(mapper, rawValue, getLocationTime(locationResource), allowNull);
+    }
+
+    private static Instant getLocationTime(Optional<? extends ResourceSnapshot> locationResource) {
+        return locationResource.map(ResourceSnapshot::getValue).map(TimedValue::getTimestamp).orElse(Instant.EPOCH);
     }
 
     private static TimedValue<GeoJsonObject> getLocation(ObjectMapper mapper, Object rawValue, Instant time,
@@ -533,7 +565,7 @@ public class DtoMapper {
         final ProviderSnapshot provider = resource.getService().getProvider();
         final Map<String, Object> metadata = resource.getMetadata();
 
-        String id = String.format("%s~%s~%s", provider.getName(), resource.getService().getName(), resource.getName());
+        String id = toResourceId(resource);
 
         String name = toString(metadata.getOrDefault(FRIENDLY_NAME, resource.getName()));
         String description = toString(metadata.getOrDefault(DESCRIPTION, NO_DESCRIPTION));
@@ -12,6 +12,8 @@
 **********************************************************************/
 package org.eclipse.sensinact.sensorthings.sensing.rest.impl.sensinact;
 
+import static org.eclipse.sensinact.sensorthings.sensing.rest.HistoryCursors.previousPageCursor;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -56,12 +58,10 @@ class HistoryResourceHelperSensinact {
         // Get count for the full dataset (for pagination metadata)
         Long count = (Long) userSession.actOnResource(historyProvider, "history", "count", params);
         List<Observation> values = new ArrayList<>();
-        int skip = 0;
+        String cursor = null;
 
         List<TimedValue<?>> timed;
         do {
-            params.put("skip", skip);
-
             timed = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history", "range", params);
 
             // Filtering happens at a lower level, so we may not use all the discovered
@@ -75,7 +75,11 @@ class HistoryResourceHelperSensinact {
             if (timed.isEmpty()) {
                 break;
             }
-            skip += timed.size();
+            cursor = previousPageCursor(cursor, timed);
+            if (cursor == null) {
+                break;
+            }
+            params.put("cursor", cursor);
             // Keep going until the list is as full as count, or it hits maxResults
         } while ((count == null || values.size() < count) && values.size() < maxResults);
         return new ResultList<>(count == null ? null : count > Integer.MAX_VALUE ? Integer.MAX_VALUE : count.intValue(),
@@ -96,12 +100,10 @@ class HistoryResourceHelperSensinact {
         // Get count for the full dataset (for pagination metadata)
         Long count = (Long) userSession.actOnResource(historyProvider, "history", "count", params);
         List<HistoricalLocation> values = new ArrayList<>();
-        int skip = 0;
+        String cursor = null;
 
         List<TimedValue<?>> timed;
         do {
-            params.put("skip", skip);
-
             timed = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history", "range", params);
             List<HistoricalLocation> historicalLocationList = DtoMapper.toHistoricalLocationList(userSession,
                     application, mapper, uriInfo, expansions, filter, provider, timed);
@@ -112,7 +114,11 @@ class HistoryResourceHelperSensinact {
             if (timed.isEmpty()) {
                 break;
             }
-            skip += timed.size();
+            cursor = previousPageCursor(cursor, timed);
+            if (cursor == null) {
+                break;
+            }
+            params.put("cursor", cursor);
 
         } while ((count == null || values.size() < count) && values.size() < maxResults);
         return new ResultList<>(count == null ? null : count > Integer.MAX_VALUE ? Integer.MAX_VALUE : count.intValue(),
@@ -25,6 +25,7 @@ import static org.eclipse.sensinact.sensorthings.sensing.rest.impl.sensinact.Dto
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
@@ -113,43 +114,40 @@ public class RootResourceDelegateSensinact extends AbstractDelegate {
 
     public ResultList<Thing> getThings() {
         ICriterion criterion = parseFilter(EFilterContext.THINGS);
-        List<ProviderSnapshot> providers = listProvidersSeninact(criterion);
-        return new ResultList<>(providers.stream().filter(p -> !"sensiNact".equals(p.getName()))
-                .map(p -> toThing(getSession(), application, getMapper(), uriInfo, getExpansions(), criterion, p))
-                .toList());
+        List<ProviderSnapshot> providers = listProvidersSeninact(criterion).stream()
+                .filter(p -> !"sensiNact".equals(p.getName())).toList();
+        return toResultList(providers, ProviderSnapshot::getName,
+                (es, p) -> Stream.of(toThing(getSession(), application, getMapper(), uriInfo, es, criterion, p)));
     }
 
     public ResultList<Location> getLocations() {
         ICriterion criterion = parseFilter(EFilterContext.LOCATIONS);
-        List<ProviderSnapshot> providers = listProvidersSeninact(criterion);
-        return new ResultList<>(providers.stream().filter(p -> hasResourceSet(p, "admin", "location"))
-                .map(p -> toLocation(getSession(), application, getMapper(), uriInfo, getExpansions(), criterion, p))
-                .toList());
+        List<ProviderSnapshot> providers = listProvidersSeninact(criterion).stream()
+                .filter(p -> hasResourceSet(p, "admin", "location")).toList();
+        return toResultList(providers, DtoMapper::toLocationId,
+                (es, p) -> Stream.of(toLocation(getSession(), application, getMapper(), uriInfo, es, criterion, p)));
     }
 
     public ResultList<HistoricalLocation> getHistoricalLocations() {
         ICriterion criterion = parseFilter(EFilterContext.HISTORICAL_LOCATIONS);
-        List<ProviderSnapshot> providers = listProvidersSeninact(criterion);
-        return new ResultList<>(providers.stream().filter(p -> hasResourceSet(p, "admin", "location"))
-                .map(p -> toHistoricalLocation(getSession(), application, getMapper(), uriInfo, getExpansions(),
-                        criterion, p))
-                .filter(Optional::isPresent).map(Optional::get).toList());
+        List<ProviderSnapshot> providers = listProvidersSeninact(criterion).stream()
+                .filter(p -> hasResourceSet(p, "admin", "location")).toList();
+        return toResultList(providers, null, (es, p) -> toHistoricalLocation(getSession(), application, getMapper(),
+                uriInfo, es, criterion, p).stream());
     }
 
     public ResultList<Datastream> getDatastreams() {
         ICriterion criterion = parseFilter(EFilterContext.DATASTREAMS);
         List<ResourceSnapshot> resources = listSetResourcesSensinact(criterion);
-        return new ResultList<>(resources.stream()
-                .map(r -> toDatastream(getSession(), application, getMapper(), uriInfo, getExpansions(), r, criterion))
-                .toList());
+        return toResultList(resources, DtoMapper::toResourceId,
+                (es, r) -> Stream.of(toDatastream(getSession(), application, getMapper(), uriInfo, es, r, criterion)));
     }
 
     public ResultList<Sensor> getSensors() {
         ICriterion criterion = parseFilter(EFilterContext.SENSORS);
         List<ResourceSnapshot> resources = listSetResourcesSensinact(criterion);
-        return new ResultList<>(resources.stream()
-                .map(r -> toSensor(getSession(), application, getMapper(), uriInfo, getExpansions(), criterion, r))
-                .toList());
+        return toResultList(resources, DtoMapper::toResourceId,
+                (es, r) -> Stream.of(toSensor(getSession(), application, getMapper(), uriInfo, es, criterion, r)));
     }
 
     // No history as it is *live* observation data not a data stream
@@ -157,24 +155,23 @@ public class RootResourceDelegateSensinact extends AbstractDelegate {
     public ResultList<Observation> getObservations() {
         ICriterion criterion = parseFilter(EFilterContext.OBSERVATIONS);
         List<ResourceSnapshot> resources = listSetResourcesSensinact(criterion);
-        return new ResultList<>(resources.stream()
-                .map(r -> toObservation(getSession(), application, getMapper(), uriInfo, getExpansions(), criterion, r))
-                .filter(Optional::isPresent).map(Optional::get).toList());
+        // Resources are set and filtered as in toObservation: one observation each
+        return toResultList(resources, DtoMapper::toObservationId,
+                (es, r) -> toObservation(getSession(), application, getMapper(), uriInfo, es, criterion, r).stream());
     }
 
     public ResultList<ObservedProperty> getObservedProperties() {
         ICriterion criterion = parseFilter(EFilterContext.OBSERVED_PROPERTIES);
         List<ResourceSnapshot> resources = listSetResourcesSensinact(criterion);
-        return new ResultList<>(resources.stream().map(
-                r -> toObservedProperty(getSession(), application, getMapper(), uriInfo, getExpansions(), criterion, r))
-                .toList());
+        return toResultList(resources, DtoMapper::toResourceId, (es, r) -> Stream
+                .of(toObservedProperty(getSession(), application, getMapper(), uriInfo, es, criterion, r)));
     }
 
     public ResultList<FeatureOfInterest> getFeaturesOfInterest() {
         ICriterion criterion = parseFilter(EFilterContext.FEATURES_OF_INTEREST);
         List<ProviderSnapshot> providers = listProvidersSeninact(criterion);
-        return new ResultList<>(providers.stream().map(p -> toFeatureOfInterest(getSession(), application, getMapper(),
-                uriInfo, getExpansions(), criterion, p)).toList());
+        return toResultList(providers, DtoMapper::toFeatureOfInterestId, (es, p) -> Stream
+                .of(toFeatureOfInterest(getSession(), application, getMapper(), uriInfo, es, criterion, p)));
     }
 
     static ResultList<Observation> getObservationList(SensiNactSession userSession, Application application,
@@ -12,6 +12,8 @@
 **********************************************************************/
 package org.eclipse.sensinact.sensorthings.sensing.rest.impl.sensorthings;
 
+import static org.eclipse.sensinact.sensorthings.sensing.rest.HistoryCursors.previousPageCursor;
+
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -77,13 +79,11 @@ public class HistoryResourceHelperSensorthings {
         Map<String, Object> params = initParameter(resourceSnapshot);
         // Get count for the full dataset (for pagination metadata)
         Long count = (Long) userSession.actOnResource(historyProvider, "history", "count", params);
-        int skip = 0;
+        String cursor = null;
 
         List<TimedValue<?>> timed;
 
         do {
-            params.put("skip", skip);
-
             timed = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history", "range", params);
             // Filtering happens at a lower level, so we may not use all the discovered
             // history
@@ -97,7 +97,11 @@ public class HistoryResourceHelperSensorthings {
             if (timed.isEmpty()) {
                 break;
             }
-            skip += timed.size();
+            cursor = previousPageCursor(cursor, timed);
+            if (cursor == null) {
+                break;
+            }
+            params.put("cursor", cursor);
             // Keep going until the list is as full as count, or it hits maxResults
         } while ((count == null || values.size() < count) && values.size() < maxResults);
         return new ResultList<>(count == null ? null : count > Integer.MAX_VALUE ? Integer.MAX_VALUE : count.intValue(),
@@ -148,12 +152,10 @@ public class HistoryResourceHelperSensorthings {
             Long count = (Long) userSession.actOnResource(historyProvider, "history", "count", params);
             if (count != null)
                 totalCount.addAndGet(count);
-            int skip = 0;
+            String cursor = null;
 
             List<TimedValue<?>> timed;
             do {
-                params.put("skip", skip);
-
                 timed = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history", "range", params);
                 List<HistoricalLocation> historicalLocationList = dtoMapper.toHistoricalLocationList(userSession,
                         mapper, uriInfo, expansions, filter, providerThing, locationId, timed);
@@ -164,7 +166,11 @@ public class HistoryResourceHelperSensorthings {
                 if (timed.isEmpty()) {
                     break;
                 }
-                skip += timed.size();
+                cursor = previousPageCursor(cursor, timed);
+                if (cursor == null) {
+                    break;
+                }
+                params.put("cursor", cursor);
 
             } while ((count == null || values.size() < count) && values.size() < maxResults);
         }
@@ -12,13 +12,19 @@
 **********************************************************************/
 package org.eclipse.sensinact.sensorthings.sensing.rest.impl.sensorthings;
 
+import static org.eclipse.sensinact.sensorthings.models.extended.ExtendedPackage.Literals.SENSOR_THING_DATASTREAM;
+import static org.eclipse.sensinact.sensorthings.models.extended.ExtendedPackage.Literals.SENSOR_THING_DEVICE;
+import static org.eclipse.sensinact.sensorthings.models.extended.ExtendedPackage.Literals.SENSOR_THING_FOI;
+import static org.eclipse.sensinact.sensorthings.models.extended.ExtendedPackage.Literals.SENSOR_THING_LOCATION;
+import static org.eclipse.sensinact.sensorthings.models.extended.ExtendedPackage.Literals.SENSOR_THING_OBSERVED_PROPERTY;
+import static org.eclipse.sensinact.sensorthings.models.extended.ExtendedPackage.Literals.SENSOR_THING_SENSOR;
 import static org.eclipse.sensinact.sensorthings.sensing.rest.ExpansionSettings.EMPTY;
 
 import java.net.URI;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.snapshot.ICriterion;
@@ -66,76 +72,64 @@ public class RootResourceDelegateSensorthings extends AbstractDelegate {
     public ResultList<Thing> getThings() {
         ICriterion criterion = parseFilter(EFilterContext.THINGS);
 
-        List<ProviderSnapshot> providers = listProviders(criterion);
-        ResultList<Thing> result = new ResultList<>(
-                providers.stream().filter(p -> DtoMapperSimple.isSensorthingModel(p))
-                        .filter(p -> DtoMapperSimple.getThingService(p) != null).map(p -> getSensorThingDtoMapper()
-                                .toThing(getSession(), getMapper(), uriInfo, getExpansions(), criterion, p))
-                        .toList());
-
-        return result;
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_DEVICE).stream()
+                .filter(p -> DtoMapperSimple.getThingService(p) != null).toList();
+        return toResultList(providers, ProviderSnapshot::getName, (es, p) -> Stream
+                .of(getSensorThingDtoMapper().toThing(getSession(), getMapper(), uriInfo, es, criterion, p)));
     }
 
     public ResultList<Location> getLocations() {
         ICriterion criterion = parseFilter(EFilterContext.LOCATIONS);
-        List<ProviderSnapshot> providers = listProviders(criterion);
-        ResultList<Location> result = new ResultList<>(
-                providers.stream().filter(p -> DtoMapperSimple.isSensorthingModel(p))
-                        .filter(p -> DtoMapperSimple.getLocationService(p) != null).map(p -> getSensorThingDtoMapper()
-                                .toLocation(getSession(), getMapper(), uriInfo, getExpansions(), criterion, p))
-                        .toList());
-        return result;
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_LOCATION).stream()
+                .filter(p -> DtoMapperSimple.getLocationService(p) != null).toList();
+        return toResultList(providers,
+                p -> DtoMapperSimple.getResourceField(DtoMapperSimple.getLocationService(p), "id", String.class),
+                (es, p) -> Stream.of(
+                        getSensorThingDtoMapper().toLocation(getSession(), getMapper(), uriInfo, es, criterion, p)));
     }
 
     public ResultList<HistoricalLocation> getHistoricalLocations() {
         ICriterion criterion = parseFilter(EFilterContext.HISTORICAL_LOCATIONS);
 
-        List<ProviderSnapshot> providers = listProviders(criterion).stream()
-                .filter(p -> DtoMapperSimple.isSensorthingModel(p)).toList();
-        Stream<HistoricalLocation> cacheHl = Stream.empty();
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_DEVICE);
+        // Each source maps a live or cached historical location
+        Stream<Function<ExpansionSettings, Optional<HistoricalLocation>>> cacheHl = Stream.empty();
         if (isHistoryMemory()) {
             cacheHl = getCacheHistoricalLocation().keySet().stream().map(id -> {
                 String provId = DtoMapperSimple.extractFirstIdSegment(id);
                 ProviderSnapshot p = validateAndGetProvider(provId);
-                return getSensorThingDtoMapper().toHistoricalLocation(getSession(), getMapper(), uriInfo,
-                        getExpansions(), criterion, id, getCacheHistoricalLocation().getDto(id), p);
-            }).filter(hl -> hl.isPresent()).map(hl -> hl.get());
+                return es -> getSensorThingDtoMapper().toHistoricalLocation(getSession(), getMapper(), uriInfo, es,
+                        criterion, id, getCacheHistoricalLocation().getDto(id), p);
+            });
         }
-        Stream<HistoricalLocation> liveHl = providers
-                .stream().filter(p -> DtoMapperSimple.getThingService(p) != null).map(p -> getSensorThingDtoMapper()
-                        .toHistoricalLocation(getSession(), getMapper(), uriInfo, getExpansions(), criterion, p))
-                .filter(Optional::isPresent).map(Optional::get);
-        ResultList<HistoricalLocation> result = new ResultList<>(Stream.concat(liveHl, cacheHl).toList());
-        return result;
-
+        Stream<Function<ExpansionSettings, Optional<HistoricalLocation>>> liveHl = providers.stream()
+                .filter(p -> DtoMapperSimple.getThingService(p) != null)
+                .map(p -> es -> getSensorThingDtoMapper().toHistoricalLocation(getSession(), getMapper(), uriInfo, es,
+                        criterion, p));
+        return toResultList(Stream.concat(liveHl, cacheHl).toList(), null, (es, hl) -> hl.apply(es).stream());
     }
 
     public ResultList<Datastream> getDatastreams() {
         ICriterion criterion = parseFilter(EFilterContext.DATASTREAMS);
 
-        List<ProviderSnapshot> providers = listProviders(criterion);
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_DATASTREAM);
         List<ProviderSnapshot> providersDatastreams = providers.stream()
-                .filter(p -> DtoMapperSimple.isSensorthingModel(p))
                 .filter(p -> DtoMapperSimple.getDatastreamService(p) != null).toList();
-        ResultList<Datastream> result = new ResultList<>(
-                providersDatastreams.stream().map(p -> getSensorThingDtoMapper().toDatastream(getSession(), getMapper(),
-                        uriInfo, getExpansions(), criterion, p)).toList());
-        return result;
-
+        return toResultList(providersDatastreams,
+                p -> DtoMapperSimple.getResourceField(DtoMapperSimple.getDatastreamService(p), "id", String.class),
+                (es, p) -> Stream.of(
+                        getSensorThingDtoMapper().toDatastream(getSession(), getMapper(), uriInfo, es, criterion, p)));
     }
 
     public ResultList<Sensor> getSensors() {
         ICriterion criterion = parseFilter(EFilterContext.SENSORS);
 
-        List<ProviderSnapshot> providers = listProviders(criterion);
-        List<ProviderSnapshot> providerSensor = providers.stream().filter(p -> DtoMapperSimple.isSensorthingModel(p))
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_SENSOR);
+        List<ProviderSnapshot> providerSensor = providers.stream()
                 .filter(p -> DtoMapperSimple.getSensorService(p) != null).toList();
-        ResultList<Sensor> result = new ResultList<>(providerSensor.stream()
-                .map(p -> getSensorThingDtoMapper().toSensor(getSession(), getMapper(), uriInfo, getExpansions(),
-                        criterion, p))
-                .collect(Collectors.toMap(Sensor::id, op -> op, (existing, replacement) -> existing)).values().stream()
-                .toList());
-        return result;
+        // Sensors are identified by their provider name
+        return toResultList(providerSensor, ProviderSnapshot::getName, (es, p) -> Stream
+                .of(getSensorThingDtoMapper().toSensor(getSession(), getMapper(), uriInfo, es, criterion, p)));
     }
 
     // No history as it is *live* observation data not a data stream
@@ -143,45 +137,40 @@ public class RootResourceDelegateSensorthings extends AbstractDelegate {
     public ResultList<Observation> getObservations() {
         ICriterion criterion = parseFilter(EFilterContext.OBSERVATIONS);
 
-        List<ProviderSnapshot> providers = listProviders(criterion);
-        Stream<? extends Observation> listStoreObservation = providers.stream()
-                .filter(p -> DtoMapperSimple.isSensorthingModel(p)).map(p -> DtoMapperSimple.getDatastreamService(p))
-                .filter(Objects::nonNull).map(s -> s.getResource("lastObservation"))
-                .flatMap(r -> getObservationList(getSession(), getSensorThingDtoMapper(), getMapper(), uriInfo,
-                        requestContext, r, criterion, getHistoryProvider(), getMaxResult(25),
-                        getCacheObservationIfHistoryMemory()).value().stream());
-
-        ResultList<Observation> result = new ResultList<>(listStoreObservation.toList());
-        return result;
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_DATASTREAM);
+        List<ResourceSnapshot> lastObservations = providers.stream().map(p -> DtoMapperSimple.getDatastreamService(p))
+                .filter(Objects::nonNull).<ResourceSnapshot>map(s -> s.getResource("lastObservation")).toList();
+
+        // The IDs and order of the observations are only known from the history,
+        // so all of them are mapped. With $expand, the history of the datastreams
+        // of the page is queried again: paging the history queries would need a
+        // global order across the datastreams
+        return toResultList(lastObservations, null,
+                (es, r) -> getObservationList(getSession(), getSensorThingDtoMapper(), getMapper(), uriInfo, es, r,
+                        criterion, getHistoryProvider(), getMaxResult(25), getCacheObservationIfHistoryMemory())
+                        .value().stream());
     }
 
     public ResultList<ObservedProperty> getObservedProperties() {
         ICriterion criterion = parseFilter(EFilterContext.OBSERVED_PROPERTIES);
 
-        List<ProviderSnapshot> providers = listProviders(criterion);
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_OBSERVED_PROPERTY);
         List<ProviderSnapshot> providerObservedProperty = providers.stream()
-                .filter(p -> DtoMapperSimple.isSensorthingModel(p))
                 .filter(p -> DtoMapperSimple.getObservedPropertyService(p) != null).toList();
 
-        ResultList<ObservedProperty> result = new ResultList<>(providerObservedProperty.stream()
-                .map(r -> getSensorThingDtoMapper().toObservedProperty(getSession(), getMapper(), uriInfo,
-                        getExpansions(), criterion, r))
-                .collect(Collectors.toMap(ObservedProperty::id, op -> op, (existing, replacement) -> existing)).values()
-                .stream().toList());
-        return result;
+        // Observed properties are identified by their provider name
+        return toResultList(providerObservedProperty, ProviderSnapshot::getName,
+                (es, p) -> Stream.of(getSensorThingDtoMapper().toObservedProperty(getSession(), getMapper(), uriInfo,
+                        es, criterion, p)));
     }
 
     public ResultList<FeatureOfInterest> getFeaturesOfInterest() {
         ICriterion criterion = parseFilter(EFilterContext.FEATURES_OF_INTEREST);
 
-        List<ProviderSnapshot> providers = listProviders(criterion);
-        List<FeatureOfInterest> resources = providers.stream().filter(p -> DtoMapperSimple.isSensorthingModel(p))
-                .filter(p -> DtoMapperSimple.getFeatureOfInterestService(p) != null).map(p -> getSensorThingDtoMapper()
-                        .toFeatureOfInterest(getSession(), getMapper(), uriInfo, getExpansions(), criterion, p))
-                .toList();
-
-        ResultList<FeatureOfInterest> result = new ResultList<>(resources);
-        return result;
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_FOI).stream()
+                .filter(p -> DtoMapperSimple.getFeatureOfInterestService(p) != null).toList();
+        return toResultList(providers, ProviderSnapshot::getName, (es, p) -> Stream.of(getSensorThingDtoMapper()
+                .toFeatureOfInterest(getSession(), getMapper(), uriInfo, es, criterion, p)));
     }
 
     public static ResultList<Observation> getObservationList(SensiNactSession userSession, DtoMapper dtoMapper,
@@ -321,13 +310,10 @@ public class RootResourceDelegateSensorthings extends AbstractDelegate {
 
     public ResultList<Thing> getThingsRef() {
         ICriterion criterion = parseFilter(EFilterContext.THINGS);
-        List<ProviderSnapshot> providers = listProviders(criterion);
-        ResultList<Thing> result = new ResultList<>(
-                providers.stream().filter(p -> DtoMapperSimple.isSensorthingModel(p))
-                        .filter(p -> DtoMapperSimple.getThingService(p) != null).map(p -> getSensorThingDtoMapper()
-                                .toThing(getSession(), getMapper(), uriInfo, getExpansions(), criterion, p))
-                        .toList());
-        return result;
+        List<ProviderSnapshot> providers = listProviders(criterion, SENSOR_THING_DEVICE).stream()
+                .filter(p -> DtoMapperSimple.getThingService(p) != null).toList();
+        return toResultList(providers, ProviderSnapshot::getName, (es, p) -> Stream
+                .of(getSensorThingDtoMapper().toThing(getSession(), getMapper(), uriInfo, es, criterion, p)));
     }
 
 }
@@ -0,0 +1,236 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.sensorthings.sensing.rest.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.eclipse.sensinact.sensorthings.sensing.dto.Id;
+import org.eclipse.sensinact.sensorthings.sensing.dto.ResultList;
+import org.eclipse.sensinact.sensorthings.sensing.rest.ExpansionSettings;
+import org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants;
+import org.eclipse.sensinact.sensorthings.sensing.rest.QueryOptions;
+import org.eclipse.sensinact.sensorthings.sensing.rest.QueryOptions.OrderBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Application;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Providers;
+
+@ExtendWith(MockitoExtension.class)
+class AbstractDelegateTest {
+
+    public record Entity(String selfLink, Object id, String name, boolean expanded) implements Id {
+    }
+
+    /**
+     * A source mapped to an entity, recording its mappings
+     */
+    private static class Source {
+        final String id;
+        final String name;
+        final List<ExpansionSettings> mappings = new ArrayList<>();
+
+        Source(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        Entity map(ExpansionSettings es) {
+            mappings.add(es);
+            return new Entity(null, id, name, !es.isEmpty());
+        }
+    }
+
+    @Mock
+    private UriInfo uriInfo;
+
+    @Mock
+    private UriBuilder uriBuilder;
+
+    @Mock
+    private Providers providers;
+
+    @Mock
+    private ContextResolver<ObjectMapper> mapperResolver;
+
+    @Mock
+    private Application application;
+
+    @Mock
+    private ContainerRequestContext requestContext;
+
+    @Mock
+    private ExpansionSettings expansions;
+
+    private final Map<String, Object> properties = new HashMap<>();
+
+    private AbstractDelegate delegate;
+
+    private List<Source> sources;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(requestContext.getProperty(anyString())).thenAnswer(i -> properties.get(i.getArgument(0)));
+        lenient().doAnswer(i -> properties.put(i.getArgument(0), i.getArgument(1))).when(requestContext)
+                .setProperty(anyString(), any());
+        delegate = new AbstractDelegate(uriInfo, providers, application, requestContext) {
+        };
+        // Names are in the reverse order of the IDs
+        sources = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sources.add(new Source("id" + i, "name" + (9 - i)));
+        }
+    }
+
+    private void options(Integer top, Integer skip, boolean count, String... orderBy) {
+        properties.put(IFilterConstants.PROP_TOP, top);
+        properties.put(IFilterConstants.PROP_SKIP, skip);
+        properties.put(IFilterConstants.PROP_COUNT, count);
+        properties.put(IFilterConstants.PROP_ORDERBY,
+                orderBy.length == 0 ? QueryOptions.DEFAULT_ORDER : Stream.of(orderBy).map(OrderBy::parse).toList());
+    }
+
+    private void mockMapper() {
+        when(providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE))
+                .thenReturn(mapperResolver);
+        when(mapperResolver.getContext(null)).thenReturn(JsonMapper.builder().build());
+    }
+
+    private void mockNextLink(int skip, String link) {
+        when(uriInfo.getRequestUriBuilder()).thenReturn(uriBuilder);
+        when(uriBuilder.replaceQueryParam("$skip", skip)).thenReturn(uriBuilder);
+        when(uriBuilder.build()).thenReturn(URI.create(link));
+    }
+
+    private ResultList<Entity> resultList(boolean knownIds) {
+        return delegate.toResultList(sources, knownIds ? s -> s.id : null, (es, s) -> Stream.of(s.map(es)));
+    }
+
+    private static List<Object> ids(ResultList<Entity> result) {
+        return result.value().stream().map(Entity::id).toList();
+    }
+
+    @Test
+    void testWithoutOptions() {
+        ResultList<Entity> result = resultList(true);
+        assertEquals(10, result.value().size());
+        assertNull(result.count());
+        assertNull(result.nextLink());
+        // Left to the response filters
+        assertNull(properties.get(IFilterConstants.PROP_QUERY_OPTIONS_APPLIED));
+    }
+
+    @Test
+    void testKnownIdsOnlyMapsThePage() {
+        options(3, 2, false);
+        mockNextLink(5, "http://localhost/Things?$skip=5");
+
+        ResultList<Entity> result = resultList(true);
+        assertEquals(List.of("id2", "id3", "id4"), ids(result));
+        assertNull(result.count());
+        assertEquals("http://localhost/Things?$skip=5", result.nextLink());
+        assertEquals(Boolean.TRUE, properties.get(IFilterConstants.PROP_QUERY_OPTIONS_APPLIED));
+        for (Source source : sources) {
+            assertEquals(ids(result).contains(source.id) ? 1 : 0, source.mappings.size(), source.id);
+        }
+    }
+
+    @Test
+    void testSortedBySourceProperty() {
+        mockMapper();
+        options(2, 0, false, "name");
+        mockNextLink(2, "http://localhost/Things?$skip=2");
+
+        ResultList<Entity> result = resultList(true);
+        assertEquals(List.of("id9", "id8"), ids(result));
+        // Each entity is mapped once, without expansion
+        for (Source source : sources) {
+            assertEquals(List.of(ExpansionSettings.EMPTY), source.mappings, source.id);
+        }
+    }
+
+    @Test
+    void testExpansionsOfThePage() {
+        properties.put(IFilterConstants.EXPAND_SETTINGS_STRING, expansions);
+        mockMapper();
+        options(2, 1, false, "name desc");
+        mockNextLink(3, "http://localhost/Things?$skip=3");
+
+        ResultList<Entity> result = resultList(false);
+        assertEquals(List.of("id1", "id2"), ids(result));
+        assertTrue(result.value().stream().allMatch(Entity::expanded));
+        for (Source source : sources) {
+            if (ids(result).contains(source.id)) {
+                assertEquals(List.of(ExpansionSettings.EMPTY, expansions), source.mappings, source.id);
+            } else {
+                assertEquals(List.of(ExpansionSettings.EMPTY), source.mappings, source.id);
+            }
+        }
+    }
+
+    @Test
+    void testCountWithTop() {
+        options(4, 0, true);
+        mockNextLink(4, "http://localhost/Things?$skip=4");
+
+        ResultList<Entity> result = resultList(true);
+        assertEquals(List.of("id0", "id1", "id2", "id3"), ids(result));
+        assertEquals(10, result.count());
+        assertEquals("http://localhost/Things?$skip=4", result.nextLink());
+    }
+
+    @Test
+    void testLastPage() {
+        options(4, 8, true, "id desc");
+
+        ResultList<Entity> result = resultList(true);
+        assertEquals(List.of("id1", "id0"), ids(result));
+        assertEquals(10, result.count());
+        assertNull(result.nextLink());
+    }
+
+    @Test
+    void testSkipBeyondSize() {
+        mockMapper();
+        options(5, 10, true);
+
+        ResultList<Entity> result = resultList(false);
+        assertEquals(0, result.value().size());
+        assertEquals(10, result.count());
+        assertNull(result.nextLink());
+    }
+}
@@ -0,0 +1,135 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.sensorthings.sensing.rest.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.sensinact.sensorthings.sensing.rest.QueryOptions;
+import org.eclipse.sensinact.sensorthings.sensing.rest.QueryOptions.OrderBy;
+import org.junit.jupiter.api.Test;
+
+class QueryOptionsTest {
+
+    public record Item(String id, Integer rank) {
+    }
+
+    private static List<OrderBy> orderBy(String... clauses) {
+        return List.of(clauses).stream().map(OrderBy::parse).toList();
+    }
+
+    private static List<Item> page(QueryOptions options, List<Item> items) {
+        return options.page(items, i -> options.keys(i, null));
+    }
+
+    private static List<String> ids(List<Item> items) {
+        return items.stream().map(Item::id).toList();
+    }
+
+    private static List<Item> randomItems(int size, int ranks) {
+        Random random = new Random(42);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(String.format("%03d", i), random.nextInt(ranks)));
+        }
+        return items;
+    }
+
+    @Test
+    void testHeapSelectionMatchesFullSort() {
+        List<Item> items = randomItems(200, 20);
+        List<Item> sorted = page(new QueryOptions(null, 0, false, orderBy("rank desc", "id")), items);
+        assertEquals(items.size(), sorted.size());
+
+        for (int skip : new int[] { 0, 1, 15, 190 }) {
+            for (int top : new int[] { 1, 7, 50 }) {
+                List<Item> expected = sorted.subList(skip, Math.min(sorted.size(), skip + top));
+                assertEquals(expected, page(new QueryOptions(top, skip, false, orderBy("rank desc", "id")), items),
+                        "skip=" + skip + ", top=" + top);
+            }
+        }
+        assertEquals(sorted.stream().sorted(Comparator.comparing(Item::rank, Comparator.reverseOrder())
+                .thenComparing(Item::id)).toList(), sorted);
+    }
+
+    @Test
+    void testStableTies() {
+        // Same rank for all the items: the input order is kept
+        List<Item> items = List.of(new Item("c", 1), new Item("a", 1), new Item("d", 1), new Item("b", 1));
+        List<OrderBy> byRank = orderBy("rank");
+
+        assertEquals(List.of("c", "a", "d", "b"), ids(page(new QueryOptions(null, 0, false, byRank), items)));
+        // Heap selection
+        assertEquals(List.of("c", "a"), ids(page(new QueryOptions(2, 0, false, byRank), items)));
+        assertEquals(List.of("d"), ids(page(new QueryOptions(1, 2, false, byRank), items)));
+        // Descending order doesn't reverse the ties
+        assertEquals(List.of("c", "a", "d"), ids(page(new QueryOptions(3, 0, false, orderBy("rank desc")), items)));
+    }
+
+    @Test
+    void testNullKeysFirst() {
+        List<Item> items = List.of(new Item("a", 2), new Item("b", null), new Item("c", 1));
+        assertEquals(List.of("b", "c", "a"), ids(page(new QueryOptions(null, 0, false, orderBy("rank")), items)));
+        assertEquals(List.of("b", "c"), ids(page(new QueryOptions(2, 0, false, orderBy("rank")), items)));
+    }
+
+    @Test
+    void testSkipBeyondSize() {
+        List<Item> items = randomItems(5, 3);
+        AtomicInteger extracted = new AtomicInteger();
+        QueryOptions options = new QueryOptions(10, 5, true, QueryOptions.DEFAULT_ORDER);
+        assertEquals(List.of(), options.page(items, i -> {
+            extracted.incrementAndGet();
+            return options.keys(i, null);
+        }));
+        // Nothing to sort
+        assertEquals(0, extracted.get());
+        assertEquals(List.of(), page(new QueryOptions(null, 8, false, QueryOptions.DEFAULT_ORDER), items));
+    }
+
+    @Test
+    void testKeysExtractedOnce() {
+        List<Item> items = randomItems(50, 5);
+        AtomicInteger extracted = new AtomicInteger();
+        QueryOptions options = new QueryOptions(3, 0, false, orderBy("rank"));
+        options.page(items, i -> {
+            extracted.incrementAndGet();
+            return options.keys(i, null);
+        });
+        assertEquals(items.size(), extracted.get());
+    }
+
+    @Test
+    void testHasNext() {
+        assertFalse(new QueryOptions(null, 0, true, QueryOptions.DEFAULT_ORDER).hasNext(10));
+        assertTrue(new QueryOptions(3, 0, true, QueryOptions.DEFAULT_ORDER).hasNext(10));
+        assertTrue(new QueryOptions(3, 6, true, QueryOptions.DEFAULT_ORDER).hasNext(10));
+        assertFalse(new QueryOptions(3, 7, true, QueryOptions.DEFAULT_ORDER).hasNext(10));
+        assertFalse(new QueryOptions(Integer.MAX_VALUE, 1, false, QueryOptions.DEFAULT_ORDER).hasNext(10));
+    }
+
+    @Test
+    void testOrderedById() {
+        assertTrue(new QueryOptions(null, 0, false, QueryOptions.DEFAULT_ORDER).isOrderedById());
+        assertTrue(new QueryOptions(null, 0, false, orderBy("id desc")).isOrderedById());
+        assertFalse(new QueryOptions(null, 0, false, orderBy("id", "rank")).isOrderedById());
+        assertFalse(new QueryOptions(null, 0, false, orderBy("Thing/id")).isOrderedById());
+    }
+}
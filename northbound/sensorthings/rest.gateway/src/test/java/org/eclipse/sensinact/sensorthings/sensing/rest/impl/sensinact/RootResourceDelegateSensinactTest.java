@@ -0,0 +1,147 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.sensorthings.sensing.rest.impl.sensinact;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.northbound.session.SensiNactSession;
+import org.eclipse.sensinact.sensorthings.sensing.dto.FeatureOfInterest;
+import org.eclipse.sensinact.sensorthings.sensing.dto.ResultList;
+import org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants;
+import org.eclipse.sensinact.sensorthings.sensing.rest.QueryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Application;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Providers;
+
+/**
+ * Test the paging of the listings of the sensiNact model entities
+ */
+@ExtendWith(MockitoExtension.class)
+class RootResourceDelegateSensinactTest {
+
+    @Mock(strictness = Mock.Strictness.LENIENT)
+    private UriInfo uriInfo;
+
+    @Mock(strictness = Mock.Strictness.LENIENT)
+    private UriBuilder uriBuilder;
+
+    @Mock
+    private Providers providers;
+
+    @Mock
+    private ContextResolver<SensiNactSession> sessionResolver;
+
+    @Mock
+    private ContextResolver<ObjectMapper> mapperResolver;
+
+    @Mock
+    private SensiNactSession session;
+
+    @Mock
+    private Application application;
+
+    @Mock
+    private ContainerRequestContext requestContext;
+
+    private final Map<String, Object> properties = new HashMap<>();
+
+    private final List<ProviderSnapshot> snapshots = new ArrayList<>();
+
+    private RootResourceDelegateSensinact delegate;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(requestContext.getProperty(anyString())).thenAnswer(i -> properties.get(i.getArgument(0)));
+        lenient().doAnswer(i -> properties.put(i.getArgument(0), i.getArgument(1))).when(requestContext)
+                .setProperty(anyString(), any());
+        when(providers.getContextResolver(SensiNactSession.class, MediaType.WILDCARD_TYPE))
+                .thenReturn(sessionResolver);
+        when(sessionResolver.getContext(null)).thenReturn(session);
+        lenient().when(providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE))
+                .thenReturn(mapperResolver);
+        lenient().when(mapperResolver.getContext(null)).thenReturn(JsonMapper.builder().build());
+
+        when(uriInfo.getBaseUriBuilder()).thenReturn(uriBuilder);
+        when(uriInfo.getRequestUriBuilder()).thenReturn(uriBuilder);
+        when(uriBuilder.path(anyString())).thenReturn(uriBuilder);
+        when(uriBuilder.uri(anyString())).thenReturn(uriBuilder);
+        when(uriBuilder.resolveTemplate(anyString(), any())).thenReturn(uriBuilder);
+        when(uriBuilder.replaceQueryParam(anyString(), any())).thenReturn(uriBuilder);
+        when(uriBuilder.build()).thenReturn(URI.create("http://localhost/v1.1/FeaturesOfInterest"));
+
+        // Listed in the reverse order of their IDs
+        for (int i = 4; i >= 0; i--) {
+            ServiceSnapshot admin = mock(ServiceSnapshot.class);
+            lenient().when(admin.getName()).thenReturn("admin");
+            lenient().when(admin.getResources()).thenReturn(List.of());
+            ProviderSnapshot provider = mock(ProviderSnapshot.class);
+            lenient().when(provider.getName()).thenReturn("provider" + i);
+            lenient().when(provider.getModelPackageUri()).thenReturn("https://eclipse.org/sensinact/test");
+            lenient().when(provider.getServices()).thenReturn(List.of(admin));
+            snapshots.add(provider);
+        }
+        when(session.filteredSnapshot(null)).thenReturn(snapshots);
+
+        delegate = new RootResourceDelegateSensinact(uriInfo, providers, application, requestContext);
+    }
+
+    @Test
+    void testTopOnlyMapsThePage() {
+        properties.put(IFilterConstants.PROP_TOP, 2);
+        properties.put(IFilterConstants.PROP_SKIP, 0);
+        properties.put(IFilterConstants.PROP_COUNT, true);
+        properties.put(IFilterConstants.PROP_ORDERBY, QueryOptions.DEFAULT_ORDER);
+
+        ResultList<FeatureOfInterest> result = delegate.getFeaturesOfInterest();
+        assertEquals(List.of("provider0", "provider1"), result.value().stream().map(FeatureOfInterest::id).toList());
+        assertEquals(5, result.count());
+
+        // The location of a provider is only read to map its feature of interest
+        for (ProviderSnapshot provider : snapshots) {
+            if (result.value().stream().anyMatch(f -> f.id().equals(provider.getName()))) {
+                verify(provider, atLeastOnce()).getServices();
+            } else {
+                verify(provider, never()).getServices();
+            }
+        }
+    }
+}
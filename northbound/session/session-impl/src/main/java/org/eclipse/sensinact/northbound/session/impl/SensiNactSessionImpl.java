@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
@@ -56,6 +57,7 @@ import org.eclipse.sensinact.core.push.DataUpdate;
 import org.eclipse.sensinact.core.push.dto.BulkGenericDto;
 import org.eclipse.sensinact.core.push.dto.GenericDto;
 import org.eclipse.sensinact.core.snapshot.CommonProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.GeoEnvelope;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.LinkedProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
@@ -68,6 +70,7 @@ import org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption;
 import org.eclipse.sensinact.core.twin.SensinactProvider;
 import org.eclipse.sensinact.core.twin.SensinactResource;
 import org.eclipse.sensinact.core.twin.SensinactService;
+import org.eclipse.sensinact.core.twin.SensinactTwinView;
 import org.eclipse.sensinact.core.twin.TimedValue;
 import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 import org.eclipse.sensinact.northbound.security.api.PreAuthorizer;
@@ -211,7 +214,10 @@ public class SensiNactSessionImpl implements SensiNactSession {
     public String subscribe(ICriterion filter, Consumer<SnapshotUpdate> updateListener) {
         return doAddListener(subId -> new SensinactSessionSnapshotListener(sessionId,
                 subId, List.of(), authorizer, filter, updateListener,
-                () -> asyncFilteredSnapshot(filter, EnumSet.of(SnapshotOption.INCLUDE_LINKED_PROVIDERS_FULL), false)));
+                () -> asyncFilteredSnapshot(filter, null, EnumSet.of(SnapshotOption.INCLUDE_LINKED_PROVIDERS_FULL),
+                        false),
+                providers -> asyncFilteredSnapshot(filter, providers,
+                        EnumSet.of(SnapshotOption.INCLUDE_LINKED_PROVIDERS_FULL), false)));
     }
 
     private <I, T> T executeGetCommand(Function<SensinactDigitalTwin, I> caller, Function<I, T> converter) {
@@ -632,31 +638,47 @@ public class SensiNactSessionImpl implements SensiNactSession {
 
     @Override
     public List<ProviderSnapshot> filteredSnapshot(ICriterion filter, EnumSet<SnapshotOption> snapshotOptions) {
-        return safeGetValue(asyncFilteredSnapshot(filter, snapshotOptions, true));
+        return safeGetValue(asyncFilteredSnapshot(filter, null, snapshotOptions, true));
     }
 
-    private Promise<List<ProviderSnapshot>> asyncFilteredSnapshot(ICriterion filter,
+    /**
+     * Takes a filtered snapshot of the twin
+     *
+     * @param filter          the filter, may be null
+     * @param providers       the names of the providers to consider, or null for
+     *                        all providers
+     * @param snapshotOptions the snapshot options
+     * @param waitForGateway  true to wait for the snapshot to be taken
+     * @return the promise of the snapshot
+     */
+    private Promise<List<ProviderSnapshot>> asyncFilteredSnapshot(ICriterion filter, Set<String> providers,
             EnumSet<SnapshotOption> snapshotOptions, boolean waitForGateway) {
         // We check validity here as we don't use the blocking safeExecute
         checkWithException();
         Predicate<ServiceSnapshot> service = this::authorizeService;
         Predicate<ResourceSnapshot> resource = this::authorizeResource;
+        // Cheap name check first, before any authorization
+        Predicate<ProviderSnapshot> named = providers == null ? ps -> true : ps -> providers.contains(ps.getName());
 
         Promise<List<ProviderSnapshot>> snapshots;
         if (filter == null) {
-            snapshots = thread.execute(getCommand((m) -> m.filteredSnapshot(null, ps -> authorizeProvider(ps, false),
-                    service, resource, snapshotOptions), Function.identity(), null));
+            snapshots = snapshot((m) -> m.filteredSnapshot(null, named.and(ps -> authorizeProvider(ps, false)),
+                    service, resource, snapshotOptions), snapshotOptions);
             if(waitForGateway) {
                 safeGetValue(snapshots);
             }
         } else {
             BiPredicate<ProviderSnapshot, GeoJsonObject> location = filter.getLocationFilter();
-            Predicate<ProviderSnapshot> provider = ps -> authorizeProvider(ps, location != null);
+            Predicate<ProviderSnapshot> provider = named.and(ps -> authorizeProvider(ps, location != null));
             Predicate<ProviderSnapshot> pf = filter.getProviderFilter();
             Predicate<ServiceSnapshot> sf = filter.getServiceFilter();
             Predicate<ResourceSnapshot> rf = filter.getResourceFilter();
-            snapshots = thread.execute(getCommand((m) -> m.filteredSnapshot(location, pf == null ? provider : provider.and(pf),
-                    sf == null ? service : service.and(sf), rf == null ? resource : resource.and(rf)), Function.identity(), null));
+            GeoEnvelope envelope = location == null ? null : filter.getLocationEnvelope();
+            // The options only select the view: filtered snapshots are taken without them
+            snapshots = snapshot((m) -> m.filteredSnapshot(envelope, location,
+                    pf == null ? provider : provider.and(pf), sf == null ? service : service.and(sf),
+                    rf == null ? resource : resource.and(rf), EnumSet.noneOf(SnapshotOption.class)),
+                    snapshotOptions);
             if(waitForGateway) {
                 safeGetValue(snapshots);
             }
@@ -677,6 +699,26 @@ public class SensiNactSessionImpl implements SensiNactSession {
                 .toList());
     }
 
+    /**
+     * Takes a snapshot of the twin, from the committed view if allowed by the
+     * options or else using the gateway thread
+     *
+     * @param caller          the snapshot function
+     * @param snapshotOptions the snapshot options
+     * @return the promise of the snapshot
+     */
+    private Promise<List<ProviderSnapshot>> snapshot(Function<SensinactTwinView, List<ProviderSnapshot>> caller,
+            EnumSet<SnapshotOption> snapshotOptions) {
+        if (snapshotOptions.contains(SnapshotOption.COMMITTED)) {
+            try {
+                return promiseFactory.resolved(caller.apply(thread.getCommittedView()));
+            } catch (Exception e) {
+                return promiseFactory.failed(e);
+            }
+        }
+        return thread.execute(getCommand(caller::apply, Function.identity(), null));
+    }
+
     /**
      * Takes a provider snapshot and applies authorization checks to the linked providers
      * <p>
@@ -18,8 +18,10 @@ import static java.util.stream.Collectors.toUnmodifiableSet;
 import static org.eclipse.sensinact.core.authorization.PermissionLevel.DESCRIBE;
 import static org.eclipse.sensinact.core.authorization.PermissionLevel.READ;
 
+import java.time.Instant;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +33,7 @@ import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -63,19 +66,64 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
 
     private static enum State { OUTDATED, UP_TO_DATE, SKIP }
 
+    /**
+     * The effect of a notification on the cached snapshot
+     *
+     * @param provider the patched provider
+     * @param patch    the patch of the cached provider snapshot, returning null
+     *                 if the provider is removed
+     * @param refresh  the providers to snapshot again, or null for a full
+     *                 snapshot
+     */
+    private static record Change(String provider, UnaryOperator<ProviderSnapshot> patch, Set<String> refresh) {
+        static final Change NONE = new Change(null, null, Set.of());
+        static final Change FULL = new Change(null, null, null);
+
+        static Change patch(String provider, UnaryOperator<ProviderSnapshot> patch) {
+            return new Change(provider, patch, Set.of());
+        }
+
+        static Change refresh(Set<String> providers) {
+            return new Change(null, null, providers);
+        }
+
+        boolean isRefresh() {
+            return refresh == null || !refresh.isEmpty();
+        }
+    }
+
+    /**
+     * A change of the cached snapshot, holding the previous and next snapshots of
+     * the affected providers. Providers missing from the next snapshots departed.
+     */
+    private static record Delta(Map<String, ProviderSnapshot> previous, Map<String, ProviderSnapshot> next) {
+    }
+
     private static final Logger LOG = LoggerFactory.getLogger(SensinactSessionSnapshotListener.class);
 
     private final ICriterion filter;
     private final Consumer<SnapshotUpdate> snapshotUpdate;
     private final Supplier<Promise<List<ProviderSnapshot>>> updateRequest;
+    private final Function<Set<String>, Promise<List<ProviderSnapshot>>> providersRequest;
 
     private final List<String> registeredTopics;
 
     private final Object lock = new Object();
-    private Deque<Function<Map<String, ProviderSnapshot>, State>> pendingChecks = new LinkedList<>();
+    private Deque<Function<Map<String, ProviderSnapshot>, Change>> pendingChecks = new LinkedList<>();
     private boolean firstUpdateSent;
     private boolean updateInProgress;
-    private Deque<Map<String, ProviderSnapshot>> snapshots = new LinkedList<Map<String,ProviderSnapshot>>();
+    /**
+     * The cached snapshot, patched from the notifications
+     */
+    private final Map<String, ProviderSnapshot> current = new HashMap<>();
+    /**
+     * Linked provider name -&gt; names of the cached providers linking to it
+     */
+    private final Map<String, Set<String>> linkers = new HashMap<>();
+    /**
+     * Changes waiting to be delivered to the listener
+     */
+    private final Deque<Delta> deltas = new LinkedList<>();
     /**
      * Mutual exclusion when delivering updates
      */
@@ -85,12 +133,14 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
     public SensinactSessionSnapshotListener(String sessionId,
             String subscriptionId, List<String> topics, Authorizer authorizer,
             ICriterion filter, Consumer<SnapshotUpdate> snapshotUpdate,
-            Supplier<Promise<List<ProviderSnapshot>>> updateRequest) {
+            Supplier<Promise<List<ProviderSnapshot>>> updateRequest,
+            Function<Set<String>, Promise<List<ProviderSnapshot>>> providersRequest) {
         super(sessionId, subscriptionId, topics, authorizer);
 
         this.filter = filter;
         this.snapshotUpdate = snapshotUpdate;
         this.updateRequest = updateRequest;
+        this.providersRequest = providersRequest;
 
         registeredTopics = getFullTopicList(topics.isEmpty() ? filter.dataTopics()
                 : topics.stream().map("DATA/"::concat).toList());
@@ -98,7 +148,6 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
         synchronized (lock) {
             // First update is against zero
             firstUpdateSent = false;
-            snapshots.addLast(Map.of());
         }
     }
 
@@ -107,7 +156,7 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
         // Register first so we never miss an update
         super.register(context);
         // Ensure that we always do an initial update
-        tryUpdate();
+        checkUpdate(m -> Change.FULL);
     }
 
     public List<String> getRegisteredTopics() {
@@ -168,65 +217,108 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
                 .flatMap(mapper);
     }
 
-    private void checkUpdate(Function<Map<String, ProviderSnapshot>, State> check) {
-        Map<String, ProviderSnapshot> ps;
+    /**
+     * Applies a check to the cached snapshot. Value and metadata changes are
+     * patched in place, other changes trigger a new snapshot of the affected
+     * providers only. Checks are queued while a snapshot is in progress.
+     */
+    private void checkUpdate(Function<Map<String, ProviderSnapshot>, Change> check) {
+        Change change;
         synchronized (lock) {
             if(updateInProgress) {
-                pendingChecks.addFirst(check);
+                pendingChecks.addLast(check);
                 return;
             }
-            ps = snapshots.peekLast();
+            change = check.apply(current);
+            if(change.patch() != null) {
+                String name = change.provider();
+                ProviderSnapshot previous = remove(name);
+                ProviderSnapshot next = change.patch().apply(previous);
+                if(next != null) {
+                    put(name, next);
+                }
+                deltas.addLast(new Delta(Map.of(name, previous), next == null ? Map.of() : Map.of(name, next)));
+            } else if(change.isRefresh()) {
+                updateInProgress = true;
+            }
         }
-        if(check.apply(ps) == State.OUTDATED) {
-            tryUpdate();
+        if(change.patch() != null) {
+            notifyListener();
+        } else if(change.isRefresh()) {
+            requestUpdate(change.refresh());
         }
     }
 
-    private void tryUpdate() {
-        boolean doUpdate;
-        synchronized (lock) {
-            if(updateInProgress) {
-                doUpdate = false;
-            } else {
-                doUpdate = true;
-                updateInProgress = true;
-            }
+    private void requestUpdate(Set<String> providers) {
+        Promise<List<ProviderSnapshot>> request;
+        try {
+            request = providers == null ? updateRequest.get() : providersRequest.apply(providers);
+        } catch (Exception e) {
+            failedUpdate(e);
+            return;
         }
-        if(doUpdate) {
-            updateRequest.get()
-                .onSuccess(this::successfulUpdate)
-                .onFailure(t -> LOG.error("Failed to update the snapshot", t));
+        request.onSuccess(l -> successfulUpdate(providers, l))
+            .onFailure(this::failedUpdate);
+    }
+
+    private void failedUpdate(Throwable t) {
+        LOG.error("Failed to update the snapshot for subscription {} in session {}", subscriptionId, sessionId, t);
+        synchronized (lock) {
+            // The notifications received meanwhile can't be applied to a stale snapshot
+            updateInProgress = false;
+            pendingChecks.clear();
         }
     }
 
-    private void successfulUpdate(List<ProviderSnapshot> newSnapshot) {
+    private void successfulUpdate(Set<String> providers, List<ProviderSnapshot> newSnapshot) {
         Map<String, ProviderSnapshot> snapshotMap = newSnapshot.stream()
                 .collect(toUnmodifiableMap(ProviderSnapshot::getName, identity()));
-        Deque<Function<Map<String, ProviderSnapshot>,State>> queuedChecks;
+        Deque<Function<Map<String, ProviderSnapshot>, Change>> queuedChecks;
         synchronized (lock) {
-            snapshots.addLast(snapshotMap);
+            Map<String, ProviderSnapshot> previous = new HashMap<>();
+            if(providers == null) {
+                previous.putAll(current);
+                current.clear();
+                linkers.clear();
+            } else {
+                for (String provider : providers) {
+                    ProviderSnapshot ps = remove(provider);
+                    if(ps != null) {
+                        previous.put(provider, ps);
+                    }
+                }
+            }
+            snapshotMap.forEach(this::put);
+            deltas.addLast(new Delta(previous, snapshotMap));
             updateInProgress = false;
             queuedChecks = pendingChecks;
             pendingChecks = new LinkedList<>();
         }
         // Notify the listener
         notifyListener();
-        // Check to see if we need to do more updates
-        checks: for (Function<Map<String, ProviderSnapshot>, State> check : queuedChecks) {
-            State state = check.apply(snapshotMap);
-            switch (state) {
-            // If oudated trigger an update and then stop checking
-            case OUTDATED:
-                tryUpdate();
-                break checks;
-            // If up to date then all subsequent checks must also be up to date
-            case UP_TO_DATE: break checks;
-            // If "skip" i.e. unknown then keep checking
-            case SKIP: continue checks;
-            default:
-                LOG.error("Unexpected check state {}", state);
+        // Replay the notifications received during the update, in order. Those
+        // already covered by the new snapshot have no effect
+        queuedChecks.forEach(this::checkUpdate);
+    }
+
+    private void put(String name, ProviderSnapshot snapshot) {
+        current.put(name, snapshot);
+        for (LinkedProviderSnapshot lp : snapshot.getLinkedProviders()) {
+            linkers.computeIfAbsent(lp.getName(), k -> new HashSet<>()).add(name);
+        }
+    }
+
+    private ProviderSnapshot remove(String name) {
+        ProviderSnapshot snapshot = current.remove(name);
+        if(snapshot != null) {
+            for (LinkedProviderSnapshot lp : snapshot.getLinkedProviders()) {
+                Set<String> names = linkers.get(lp.getName());
+                if(names != null && names.remove(name) && names.isEmpty()) {
+                    linkers.remove(lp.getName());
+                }
             }
         }
+        return snapshot;
     }
 
     private void notifyListener() {
@@ -238,14 +330,14 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
         }
         try {
             boolean firstUpdateSent;
-            Map<String, ProviderSnapshot> previous;
-            Map<String, ProviderSnapshot> next;
+            Delta delta;
             synchronized (lock) {
                 firstUpdateSent = this.firstUpdateSent;
                 this.firstUpdateSent = true;
-                previous = snapshots.removeFirst();
-                next = snapshots.peekFirst();
+                delta = deltas.removeFirst();
             }
+            Map<String, ProviderSnapshot> previous = delta.previous();
+            Map<String, ProviderSnapshot> next = delta.next();
 
             Map<String, ProviderSnapshot> arriving = next.entrySet().stream()
                     .filter(e -> !previous.containsKey(e.getKey()))
@@ -341,6 +433,48 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
                 .isPresent();
     }
 
+    /**
+     * @return the given provider and the cached providers linking to it
+     */
+    private Set<String> withLinkers(String provider) {
+        Set<String> names = new HashSet<>(linkers.getOrDefault(provider, Set.of()));
+        names.add(provider);
+        return names;
+    }
+
+    /**
+     * Patches a cached resource, unless the change may affect the selection of
+     * the provider or the providers linking to it, in which case they are
+     * snapshot again
+     */
+    private Change patchResource(ResourceNotification rn, UnaryOperator<ResourceSnapshot> patch) {
+        boolean admin = "admin".equals(rn.service());
+        if(filter.getResourceValueFilter() != null
+                || (admin && "location".equals(rn.resource()) && filter.getLocationFilter() != null)
+                || (admin && linkers.containsKey(rn.provider()))) {
+            return Change.refresh(withLinkers(rn.provider()));
+        }
+        return Change.patch(rn.provider(), ps -> patchResource(ps, rn.service(), rn.resource(), patch));
+    }
+
+    private static ProviderSnapshot patchResource(ProviderSnapshot ps, String service, String resource,
+            UnaryOperator<ResourceSnapshot> patch) {
+        // Services are rebuilt without provider to be attached to the new snapshot
+        List<ServiceSnapshot> services = ps.getServices().stream()
+                .map(s -> (ServiceSnapshot) new ImmutableServiceSnapshot(null, s.getName(),
+                        !s.getName().equals(service) ? s.getResources() : s.getResources().stream()
+                                .map(r -> r.getName().equals(resource) ? patch.apply(r) : r)
+                                .toList()))
+                .toList();
+        return new ImmutableProviderSnapshot(ps.getModelPackageUri(), ps.getModelName(), ps.getName(),
+                Instant.now(), services, ps.getLinkedProviders());
+    }
+
+    private static ResourceSnapshot withValue(ResourceSnapshot rs, TimedValue<?> value, Map<String, Object> metadata) {
+        return new ImmutableResourceSnapshot(null, rs.getName(), rs.getValueType(), rs.getResourceType(),
+                rs.getType(), value, metadata, rs.getArguments(), rs.isMultiple());
+    }
+
     protected void notifyLifecycle(String topic, LifecycleNotification ln) {
 
         switch(ln.status()) {
@@ -352,9 +486,11 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
                 } else {
                     if(ln.status() == Status.PROVIDER_CREATED) {
                         // A new provider may be interesting
-                        checkUpdate(m -> m.containsKey(ln.provider()) ? State.UP_TO_DATE : State.OUTDATED);
+                        checkUpdate(m -> m.containsKey(ln.provider()) ? Change.NONE
+                                : Change.refresh(withLinkers(ln.provider())));
                     } else {
-                        checkUpdate(m -> m.containsKey(ln.provider()) ? State.OUTDATED : State.UP_TO_DATE);
+                        checkUpdate(m -> linkers.containsKey(ln.provider()) ? Change.refresh(withLinkers(ln.provider()))
+                                : m.containsKey(ln.provider()) ? Change.patch(ln.provider(), ps -> null) : Change.NONE);
                     }
                 }
                 break;
@@ -366,9 +502,11 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
                 } else {
                     if(ln.status() == Status.RESOURCE_CREATED) {
                         // A new resource may be interesting
-                        checkUpdate(m -> containsResource(m, ln) ? State.UP_TO_DATE : State.OUTDATED);
+                        checkUpdate(m -> containsResource(m, ln) ? Change.NONE
+                                : Change.refresh(withLinkers(ln.provider())));
                     } else {
-                        checkUpdate(m -> containsResource(m, ln) ? State.OUTDATED : State.UP_TO_DATE);
+                        checkUpdate(m -> containsResource(m, ln) ? Change.refresh(withLinkers(ln.provider()))
+                                : Change.NONE);
                     }
                 }
                 break;
@@ -379,11 +517,13 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
                     // We are not allowed to see this change, so don't bother checking for an update
                     return;
                 } else {
-                    if(ln.status() == Status.RESOURCE_CREATED) {
+                    if(ln.status() == Status.SERVICE_CREATED) {
                         // A new service may be interesting
-                        checkUpdate(m -> containsService(m, ln) ? State.UP_TO_DATE : State.OUTDATED);
+                        checkUpdate(m -> containsService(m, ln) ? Change.NONE
+                                : Change.refresh(withLinkers(ln.provider())));
                     } else {
-                        checkUpdate(m -> containsService(m, ln) ? State.OUTDATED : State.UP_TO_DATE);
+                        checkUpdate(m -> containsService(m, ln) ? Change.refresh(withLinkers(ln.provider()))
+                                : Change.NONE);
                     }
                 }
                 break;
@@ -397,10 +537,15 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
         if(!authorizer.hasResourcePermission(READ, rdn.modelPackageUri(), rdn.model(), rdn.provider(), rdn.service(), rdn.resource())) {
             return;
         }
+        TimedValue<?> event = new DefaultTimedValue<>(rdn.newValue(), rdn.timestamp());
         checkUpdate(m -> Optional.ofNullable(m.get(rdn.provider()))
                 .map(ps -> ps.getResource(rdn.service(), rdn.resource()))
-                .map(rs -> checkUpdate(rs.getValue(), new DefaultTimedValue<>(rdn.newValue(), rdn.timestamp())))
-                .orElseGet(() -> checkResourceIsWanted(rdn)));
+                .map(rs -> checkUpdate(rs.getValue(), event) != State.OUTDATED ? Change.NONE
+                        : patchResource(rdn, r -> withValue(r, event,
+                                rdn.metadata() == null ? r.getMetadata() : rdn.metadata())))
+                .orElseGet(() -> checkResourceIsWanted(rdn) == State.OUTDATED
+                        ? Change.refresh(withLinkers(rdn.provider()))
+                        : Change.NONE));
     }
 
     private State checkUpdate(TimedValue<?> snapshot, TimedValue<?> event) {
@@ -442,8 +587,9 @@ public class SensinactSessionSnapshotListener extends AbstractSensinactSessionEv
         }
         checkUpdate(m -> Optional.ofNullable(m.get(rmn.provider()))
                 .map(ps -> ps.getResource(rmn.service(), rmn.resource()))
-                .map(rs -> rs.getMetadata().equals(rmn.newValues())? State.SKIP : State.OUTDATED)
-                .orElse(State.SKIP));
+                .map(rs -> rs.getMetadata().equals(rmn.newValues()) ? Change.NONE
+                        : patchResource(rmn, r -> withValue(r, r.getValue(), rmn.newValues())))
+                .orElse(Change.NONE));
     }
 
     protected void notifyAction(String topic, ResourceActionNotification notification) {
@@ -319,6 +319,67 @@ public class SessionSubscribeTest {
         assertNull(queue.poll(500, TimeUnit.MILLISECONDS));
     }
 
+    /**
+     * Show that successive updates of a provider only report that provider, with
+     * its latest value
+     *
+     * @throws Exception
+     */
+    @Test
+    void snapshotSubscribeIncrementalUpdates() throws Exception {
+
+        final String other = "other";
+
+        BlockingQueue<SnapshotUpdate> queue = new ArrayBlockingQueue<>(32);
+
+        ResourceSelection anyValue = new ResourceSelection(new Selection(SERVICE), new Selection(RESOURCE),
+                List.of());
+
+        ICriterion criterion = filterFactory.parseResourceSelector(
+                new ResourceSelector(List.of(new ProviderSelection(new Selection(MODEL_URI), new Selection(MODEL), null,
+                        List.of(anyValue), List.of())), List.of()));
+
+        pushDto(VALUE);
+        pushDto(other, VALUE);
+
+        SensiNactSession session = sessionManager.getDefaultSession(BOB);
+        session.subscribe(criterion, queue::add);
+
+        SnapshotUpdate update = queue.poll(1, TimeUnit.SECONDS);
+        assertNotNull(update);
+        assertEquals(Set.of(PROVIDER, other), update.arriving().keySet());
+
+        for (int i = 1; i <= 5; i++) {
+            pushDto(VALUE + i);
+
+            update = queue.poll(1, TimeUnit.SECONDS);
+            assertNotNull(update);
+
+            assertEquals(0, update.arriving().size());
+            assertEquals(Set.of(PROVIDER), update.modified().keySet());
+            assertEquals(0, update.departing().size());
+            assertEquals(VALUE + i,
+                    update.modified().get(PROVIDER).getResource(SERVICE, RESOURCE).getValue().getValue());
+        }
+
+        // Deleting the provider makes it depart
+        thread.execute(new AbstractTwinCommand<Void>() {
+            @Override
+            protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                twin.getProvider(other).delete();
+                return pf.resolved(null);
+            }
+        });
+
+        update = queue.poll(1, TimeUnit.SECONDS);
+        assertNotNull(update);
+        assertEquals(0, update.arriving().size());
+        assertEquals(0, update.modified().size());
+        assertEquals(Set.of(other), update.departing());
+
+        assertNull(queue.poll(500, TimeUnit.MILLISECONDS));
+    }
+
     /**
      * Show that data updates result in events received by subscribers
      *
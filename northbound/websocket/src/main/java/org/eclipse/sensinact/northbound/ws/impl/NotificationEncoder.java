@@ -0,0 +1,94 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.ws.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.sensinact.core.notification.LifecycleNotification;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.notification.ResourceNotification;
+import org.eclipse.sensinact.northbound.query.dto.notification.AbstractResourceNotificationDTO;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResourceDataNotificationDTO;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResourceLifecycleNotificationDTO;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResultResourceNotificationDTO;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+import tools.jackson.databind.util.RawValue;
+
+/**
+ * Encodes the resource notifications sent to the WebSocket clients. The
+ * content of a notification is serialized once and shared by all the
+ * subscriptions it is delivered to: only the envelope, a
+ * {@link ResultResourceNotificationDTO} holding the subscription ID, is written
+ * for each of them.
+ */
+class NotificationEncoder {
+
+    /**
+     * Number of recently encoded notifications kept
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    private record Encoded(ResourceNotification notification, RawValue content) {
+    }
+
+    private final ObjectMapper mapper;
+
+    /**
+     * Direct-mapped cache of the encoded notifications, by hash code
+     */
+    private final AtomicReferenceArray<Encoded> cache = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    /**
+     * @param mapper JSON mapper
+     */
+    NotificationEncoder(final ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Encodes a subscription notification
+     *
+     * @param notification   Resource notification
+     * @param subscriptionId ID of the subscription
+     * @param uri            URI of the resource
+     * @return The JSON notification message
+     */
+    String encode(final ResourceNotification notification, final String subscriptionId, final String uri) {
+        final ResultResourceNotificationDTO result = new ResultResourceNotificationDTO();
+        result.statusCode = 200;
+        result.uri = uri;
+        result.subscriptionId = subscriptionId;
+        // Same fields as the serialized DTO, with the shared content
+        final ObjectNode node = mapper.valueToTree(result);
+        node.putRawValue("notification", content(notification));
+        return mapper.writeValueAsString(node);
+    }
+
+    private RawValue content(final ResourceNotification notification) {
+        final int slot = Math.floorMod(notification.hashCode(), CACHE_SIZE);
+        Encoded encoded = cache.get(slot);
+        if (encoded == null || !encoded.notification().equals(notification)) {
+            final AbstractResourceNotificationDTO dto;
+            if (notification instanceof LifecycleNotification ln) {
+                dto = new ResourceLifecycleNotificationDTO(ln);
+            } else {
+                dto = new ResourceDataNotificationDTO((ResourceDataNotification) notification);
+            }
+            encoded = new Encoded(notification, new RawValue(mapper.writeValueAsString(dto)));
+            cache.set(slot, encoded);
+        }
+        return encoded.content();
+    }
+}
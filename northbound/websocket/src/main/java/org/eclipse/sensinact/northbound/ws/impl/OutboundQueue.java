@@ -0,0 +1,220 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.ws.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+/**
+ * Bounded queue of the messages waiting to be sent to a WebSocket client.
+ * Messages are sent asynchronously, one at a time, so that the callers never
+ * wait for the client.
+ * <p>
+ * A message offered with a conflation key replaces the pending message with
+ * the same key, unless a message without key was queued in between. When the
+ * queue is full, it is closed and the overflow handler is notified.
+ */
+class OutboundQueue implements WriteCallback {
+
+    /**
+     * Asynchronous message sender
+     */
+    interface Sender {
+        void send(String payload, WriteCallback callback) throws Exception;
+    }
+
+    private static final class Pending {
+        final Object key;
+        String payload;
+
+        Pending(Object key, String payload) {
+            this.key = key;
+            this.payload = payload;
+        }
+    }
+
+    private final int capacity;
+
+    private final Sender sender;
+
+    private final Runnable overflowHandler;
+
+    private final Consumer<Throwable> failureHandler;
+
+    /**
+     * Messages waiting to be sent
+     */
+    private final Deque<Pending> pending = new ArrayDeque<>();
+
+    /**
+     * Pending messages that can still be replaced, by conflation key
+     */
+    private final Map<Object, Pending> conflatable = new HashMap<>();
+
+    private boolean closed;
+
+    /**
+     * A message is being sent
+     */
+    private boolean sending;
+
+    /**
+     * The sender is being called: completions are left to the sending loop
+     */
+    private boolean inSend;
+
+    private boolean completedInline;
+
+    /**
+     * @param capacity        Maximum number of pending messages
+     * @param sender          Asynchronous message sender
+     * @param overflowHandler Called when the queue overflows
+     * @param failureHandler  Called when a message can't be sent
+     */
+    OutboundQueue(int capacity, Sender sender, Runnable overflowHandler, Consumer<Throwable> failureHandler) {
+        this.capacity = capacity;
+        this.sender = sender;
+        this.overflowHandler = overflowHandler;
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Queues a message
+     *
+     * @param key     Conflation key, null if the message must not be replaced
+     * @param payload Message
+     * @return false if the queue is closed or has overflowed
+     */
+    boolean offer(Object key, String payload) {
+        boolean overflow = false;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+
+            Pending replaced = key == null ? null : conflatable.get(key);
+            if (replaced != null) {
+                // Latest value wins, at the position of the first one
+                replaced.payload = payload;
+                return true;
+            }
+
+            if (pending.size() >= capacity) {
+                doClose();
+                overflow = true;
+            } else {
+                Pending p = new Pending(key, payload);
+                pending.addLast(p);
+                if (key == null) {
+                    // Don't reorder messages around this one
+                    conflatable.clear();
+                } else {
+                    conflatable.put(key, p);
+                }
+                if (sending) {
+                    return true;
+                }
+                sending = true;
+            }
+        }
+
+        if (overflow) {
+            overflowHandler.run();
+            return false;
+        }
+        drain();
+        return true;
+    }
+
+    /**
+     * Drops the pending messages and rejects new ones
+     */
+    synchronized void close() {
+        doClose();
+    }
+
+    /**
+     * {@return the number of pending messages}
+     */
+    synchronized int size() {
+        return pending.size();
+    }
+
+    private void doClose() {
+        closed = true;
+        pending.clear();
+        conflatable.clear();
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                next = closed ? null : pending.pollFirst();
+                if (next == null) {
+                    sending = false;
+                    return;
+                }
+                if (next.key != null) {
+                    conflatable.remove(next.key, next);
+                }
+                inSend = true;
+                completedInline = false;
+            }
+
+            try {
+                sender.send(next.payload, this);
+            } catch (Exception e) {
+                synchronized (this) {
+                    inSend = false;
+                }
+                writeFailed(e);
+                return;
+            }
+
+            synchronized (this) {
+                inSend = false;
+                if (!completedInline) {
+                    // The completion callback will resume sending
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void writeSuccess() {
+        synchronized (this) {
+            if (inSend) {
+                // Completed before the sender returned: avoid recursion
+                completedInline = true;
+                return;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void writeFailed(Throwable x) {
+        synchronized (this) {
+            doClose();
+            sending = false;
+        }
+        failureHandler.accept(x);
+    }
+}
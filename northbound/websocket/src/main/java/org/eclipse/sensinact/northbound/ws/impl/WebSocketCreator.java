@@ -31,6 +31,9 @@ import org.osgi.util.promise.PromiseFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.json.JsonMapper;
+
 /**
  * Manages the web sockets pool
  */
@@ -55,12 +58,56 @@ public class WebSocketCreator
     private final IQueryHandler queryHandler;
 
     /**
-     * @param sessionManager Session manager
-     * @param queryHandler   Query handler
+     * Notification encoder, shared by all web sockets
+     */
+    private final NotificationEncoder encoder = new NotificationEncoder(
+            JsonMapper.builder().configure(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS, false).build());
+
+    /**
+     * Maximum number of messages waiting to be sent to a web socket
      */
-    public WebSocketCreator(final SensiNactSessionManager sessionManager, final IQueryHandler queryHandler) {
+    private final int outboundQueueSize;
+
+    /**
+     * Conflate the pending data notifications of a resource
+     */
+    private final boolean conflateNotifications;
+
+    /**
+     * @param sessionManager        Session manager
+     * @param queryHandler          Query handler
+     * @param outboundQueueSize     Maximum number of messages waiting to be sent
+     *                              to a web socket
+     * @param conflateNotifications Conflate the pending data notifications of a
+     *                              resource
+     */
+    public WebSocketCreator(final SensiNactSessionManager sessionManager, final IQueryHandler queryHandler,
+            final int outboundQueueSize, final boolean conflateNotifications) {
         this.sessionManager = sessionManager;
         this.queryHandler = queryHandler;
+        this.outboundQueueSize = outboundQueueSize;
+        this.conflateNotifications = conflateNotifications;
+    }
+
+    /**
+     * {@return the shared notification encoder}
+     */
+    NotificationEncoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * {@return the maximum number of messages waiting to be sent to a web socket}
+     */
+    int getOutboundQueueSize() {
+        return outboundQueueSize;
+    }
+
+    /**
+     * {@return true if the pending data notifications of a resource are conflated}
+     */
+    boolean isConflateNotifications() {
+        return conflateNotifications;
     }
 
     /**
@@ -58,10 +58,6 @@ import org.eclipse.sensinact.northbound.query.api.IQueryHandler;
 import org.eclipse.sensinact.northbound.query.api.StatusException;
 import org.eclipse.sensinact.northbound.query.dto.SensinactPath;
 import org.eclipse.sensinact.northbound.query.dto.notification.AbstractResultNotificationDTO;
-import org.eclipse.sensinact.northbound.query.dto.notification.ErrorResultNotificationDTO;
-import org.eclipse.sensinact.northbound.query.dto.notification.ResourceDataNotificationDTO;
-import org.eclipse.sensinact.northbound.query.dto.notification.ResourceLifecycleNotificationDTO;
-import org.eclipse.sensinact.northbound.query.dto.notification.ResultResourceNotificationDTO;
 import org.eclipse.sensinact.northbound.query.dto.notification.ResultSnapshotNotificationDTO;
 import org.eclipse.sensinact.northbound.query.dto.notification.SnapshotUpdateNotificationDTO;
 import org.eclipse.sensinact.northbound.query.dto.query.QuerySubscribeDTO;
@@ -133,6 +129,17 @@ public class WebSocketEndpoint {
      */
     private final byte[] pingPayload = "liveness-check".getBytes();
 
+    /**
+     * Messages waiting to be sent to the client
+     */
+    private volatile OutboundQueue outbound;
+
+    /**
+     * Conflation key of the data notifications of a resource
+     */
+    private record ConflationKey(String subscriptionId, String uri) {
+    }
+
     /**
      * @param pool             WebSocket connections pool
      * @param sensiNactSession User session manager
@@ -155,12 +162,28 @@ public class WebSocketEndpoint {
     /**
      * Explicit WebSocket closure
      */
-    public synchronized void close() {
+    public void close() {
+        close(StatusCode.NORMAL, null);
+    }
+
+    /**
+     * Closes the WebSocket
+     *
+     * @param statusCode Close status code
+     * @param reason     Close reason, can be null
+     */
+    private synchronized void close(final int statusCode, final String reason) {
         Session ws = wsSession.getAndSet(null);
         if (ws == null) {
             return;
         }
 
+        // Drop pending messages
+        OutboundQueue queue = outbound;
+        if (queue != null) {
+            queue.close();
+        }
+
         // Disable activity checking
         activityCheckInProgress.set(null);
 
@@ -175,7 +198,7 @@ public class WebSocketEndpoint {
         if (ws.isOpen()) {
             // Close websocket session
             try {
-                ws.close();
+                ws.close(statusCode, reason);
             } catch (Throwable t) {
                 logger.error("Error closing WebSocket: {}", t.getMessage(), t);
             }
@@ -187,9 +210,31 @@ public class WebSocketEndpoint {
     @OnWebSocketConnect
     public void open(final Session session) {
         logger.debug("WebSocket opening - {}", session);
+        outbound = new OutboundQueue(pool.getOutboundQueueSize(),
+                (payload, callback) -> session.getRemote().sendString(payload, callback), this::slowConsumer,
+                this::sendFailed);
         wsSession.set(session);
     }
 
+    /**
+     * Disconnects a client that doesn't keep up with its notifications
+     */
+    private void slowConsumer() {
+        logger.warn("WebSocket client of session {} is too slow to receive its messages. Disconnecting.",
+                getSessionId());
+        close(StatusCode.TRY_AGAIN_LATER, "Too many pending messages");
+    }
+
+    /**
+     * Closes the WebSocket after an error sending a message
+     *
+     * @param t Sending error
+     */
+    private void sendFailed(final Throwable t) {
+        logger.error("Error sending message to client: {}. Closing WebSocket.", t.getMessage(), t);
+        close();
+    }
+
     @OnWebSocketClose
     public void onClose(final Session session, int statusCode, final String reason) {
         logger.debug("WebSocket closing - {} ({}: {})", session, statusCode, reason);
@@ -215,7 +260,7 @@ public class WebSocketEndpoint {
             query = mapper.readValue(strContent, AbstractQueryDTO.class);
         } catch (Throwable t) {
             logger.error("Error parsing WebSocket query: {}", t.getMessage(), t);
-            sendError(wsSession, null, 400, "Error parsing query: " + t.getMessage());
+            sendError(null, 400, "Error parsing query: " + t.getMessage());
             return;
         }
 
@@ -237,13 +282,13 @@ public class WebSocketEndpoint {
 
             result.requestId = query.requestId;
 
-            sendResult(wsSession, result);
+            sendResult(result);
         } catch (StatusException e) {
             logger.error("Error handling query {}: {}", query, e.getMessage(), e);
-            sendError(wsSession, query.uri, e.statusCode, "Error running query: " + e.getMessage());
+            sendError(query.uri, e.statusCode, "Error running query: " + e.getMessage());
         } catch (Throwable t) {
             logger.error("Error handling query {}: {}", query, t.getMessage(), t);
-            sendError(wsSession, query.uri, 500, "Error running query: " + t.getMessage());
+            sendError(query.uri, 500, "Error running query: " + t.getMessage());
         }
     }
 
@@ -454,7 +499,7 @@ public class WebSocketEndpoint {
                 subscriptions.remove(id);
                 userSession.removeListener(id);
             } else {
-                sendResult(ws, result);
+                sendResult(result);
             }
         } catch (Exception e) {
             subscriptions.remove(id);
@@ -471,12 +516,12 @@ public class WebSocketEndpoint {
     private String handleSnapshotSubscription(QuerySubscribeDTO query, SensinactPath path, CountDownLatch latch,
             AtomicReference<String> listenerId) throws StatusException {
         if(query.filter == null || query.filter.isBlank()) {
-            sendError(wsSession.get(), path, 400, "A filter is required for snapshot subscriptions");
+            sendError(path, 400, "A filter is required for snapshot subscriptions");
             return null;
         }
 
         if(path != null && !path.isEmpty()) {
-            sendError(wsSession.get(), path, 400, "A path must not be used with snapshot subscriptions");
+            sendError(path, 400, "A path must not be used with snapshot subscriptions");
             return null;
         }
 
@@ -497,7 +542,7 @@ public class WebSocketEndpoint {
                             update.arriving().entrySet().stream().collect(toMap(Entry::getKey, e -> mapper.apply(e.getValue()))),
                             update.modified().entrySet().stream().collect(toMap(Entry::getKey, e -> mapper.apply(e.getValue()))),
                             update.departing());
-                    sendNotification(ws, listenerId.get(), dto, null);
+                    sendNotification(listenerId.get(), dto, null);
                 }
             } catch (Throwable e) {
                 logger.warn("Error notifying WebSocket of life cycle update", e);
@@ -540,10 +585,7 @@ public class WebSocketEndpoint {
                     logger.warn("Detected closed WebSocket. Stop listening");
                     userSession.removeListener(listenerId.get());
                 } else if ((p == null || p.test(evt)) && checkLatch(latch)) {
-                    ResultResourceNotificationDTO dto = new ResultResourceNotificationDTO();
-                    dto.notification = new ResourceDataNotificationDTO(evt);
-                    sendNotification(ws, listenerId.get(), dto,
-                            new SensinactPath(evt.provider(), evt.service(), evt.resource()).toUri());
+                    sendNotification(listenerId.get(), evt, pool.isConflateNotifications());
                 }
             } catch (Throwable e) {
                 logger.warn("Error notifying WebSocket of life cycle update", e);
@@ -557,10 +599,7 @@ public class WebSocketEndpoint {
                     logger.warn("Detected closed WebSocket. Stop listening");
                     userSession.removeListener(listenerId.get());
                 } else if ((p == null || p.test(evt)) && checkLatch(latch)) {
-                    ResultResourceNotificationDTO dto = new ResultResourceNotificationDTO();
-                    dto.notification = new ResourceLifecycleNotificationDTO(evt);
-                    sendNotification(ws, listenerId.get(), dto,
-                            new SensinactPath(evt.provider(), evt.service(), evt.resource()).toUri());
+                    sendNotification(listenerId.get(), evt, false);
                 }
             } catch (Throwable e) {
                 logger.error("Error notifying WebSocket of a data update", e);
@@ -579,31 +618,46 @@ public class WebSocketEndpoint {
         }
     }
 
+    /**
+     * Sends a resource notification to the client. The notification content is
+     * encoded once for all the subscriptions receiving it.
+     *
+     * @param listenerId   ID of the subscription
+     * @param notification Resource notification
+     * @param conflate     Replace any pending notification of the same resource
+     */
+    private void sendNotification(final String listenerId, final ResourceNotification notification,
+            final boolean conflate) {
+        final String uri = new SensinactPath(notification.provider(), notification.service(), notification.resource())
+                .toUri();
+        send(conflate ? new ConflationKey(listenerId, uri) : null,
+                pool.getEncoder().encode(notification, listenerId, uri));
+    }
+
     /**
      * Sends a notification to the client
      *
-     * @param ws
+     * @param listenerId ID of the subscription
+     * @param result     Notification DTO
+     * @param uri        Notification URI
+     */
+    private void sendNotification(final String listenerId, final AbstractResultNotificationDTO result, String uri) {
+        result.statusCode = 200;
+        result.uri = uri;
+        result.subscriptionId = listenerId;
+        send(null, mapper.writeValueAsString(result));
+    }
+
+    /**
+     * Queues a message for the client
      *
-     * @param listenerId   ID of the subscription
-     * @param notification Notification DTO
+     * @param key     Conflation key, null if the message must not be replaced
+     * @param payload Message
      */
-    private void sendNotification(Session ws, final String listenerId,
-            final AbstractResultNotificationDTO result, String uri) {
-        try {
-            result.statusCode = 200;
-            result.uri = uri;
-            result.subscriptionId = listenerId;
-            ws.getRemote().sendString(mapper.writeValueAsString(result));
-        } catch (IOException e) {
-            logger.error("Error sending notification to client: {}", e.getMessage(), e);
-            try {
-                final ErrorResultNotificationDTO errorNotification = new ErrorResultNotificationDTO(listenerId);
-                ws.getRemote().sendString(mapper.writeValueAsString(errorNotification));
-            } catch (IOException e2) {
-                logger.error("Error sending notification to client: {}. Closing WebSocket.", e2.getMessage(), e2);
-                userSession.removeListener(listenerId);
-                WebSocketEndpoint.this.close();
-            }
+    private void send(final Object key, final String payload) {
+        final OutboundQueue queue = outbound;
+        if (queue != null) {
+            queue.offer(key, payload);
         }
     }
 
@@ -628,26 +682,27 @@ public class WebSocketEndpoint {
     /**
      * Sends a result
      *
-     * @param session WebSocket session
-     * @param dto     Result DTO
+     * @param dto Result DTO
      */
-    private void sendResult(final Session session, final AbstractResultDTO dto) {
+    private void sendResult(final AbstractResultDTO dto) {
+        final String payload;
         try {
-            session.getRemote().sendString(mapper.writeValueAsString(dto));
-        } catch (IOException e) {
-            sendError(session, null, 500, "Error sending results: " + e.getMessage());
+            payload = mapper.writeValueAsString(dto);
+        } catch (JacksonException e) {
+            sendError(null, 500, "Error sending results: " + e.getMessage());
+            return;
         }
+        send(null, payload);
     }
 
     /**
      * Sends an error to the client
      *
-     * @param session      WebSocket session
-     * @param uri          Target URI, if known
+     * @param target       Target path, if known
      * @param statusCode   Error status code
      * @param errorMessage Error message
      */
-    private void sendError(final Session session, final SensinactPath target, final int statusCode,
+    private void sendError(final SensinactPath target, final int statusCode,
             final String errorMessage) {
         final AbstractResultDTO dto = new ErrorResultDTO();
         dto.uri = target != null ? target.toUri() : null;
@@ -662,10 +717,6 @@ public class WebSocketEndpoint {
             payload = "{\"uri\": null, \"statusCode\": 500, \"error\": \"Error sending error\", \"result\": null}";
         }
 
-        try {
-            session.getRemote().sendString(payload);
-        } catch (IOException e) {
-            logger.error("Error sending error to client: {}", e.getMessage(), e);
-        }
+        send(null, payload);
     }
 }
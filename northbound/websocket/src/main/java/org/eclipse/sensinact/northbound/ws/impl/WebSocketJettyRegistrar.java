@@ -75,6 +75,18 @@ public class WebSocketJettyRegistrar extends JettyWebSocketServlet implements Fi
 
     @interface Config {
         boolean allow_anonymous() default false;
+
+        /**
+         * Maximum number of messages waiting to be sent to a client. Clients
+         * falling further behind are disconnected.
+         */
+        int outbound_queue_size() default 1024;
+
+        /**
+         * Replace the pending data notifications of a resource by the newer ones
+         * when a client falls behind
+         */
+        boolean conflate_notifications() default true;
     }
 
     @Reference
@@ -106,7 +118,8 @@ public class WebSocketJettyRegistrar extends JettyWebSocketServlet implements Fi
     @Activate
     void activate(final Config config) {
         this.config = config;
-        sessionPool = new WebSocketCreator(sessionManager, queryHandler);
+        sessionPool = new WebSocketCreator(sessionManager, queryHandler, config.outbound_queue_size(),
+                config.conflate_notifications());
     }
 
     @Deactivate
@@ -0,0 +1,85 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.ws.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.eclipse.sensinact.core.notification.LifecycleNotification;
+import org.eclipse.sensinact.core.notification.LifecycleNotification.Status;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResourceDataNotificationDTO;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResourceLifecycleNotificationDTO;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResultResourceNotificationDTO;
+import org.junit.jupiter.api.Test;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests the encoding of the WebSocket notifications
+ */
+public class NotificationEncoderTest {
+
+    final ObjectMapper mapper = JsonMapper.builder().configure(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+            .build();
+
+    final NotificationEncoder encoder = new NotificationEncoder(mapper);
+
+    /**
+     * Returns the notification as serialized from the result DTO
+     */
+    private String expected(final String subscriptionId, final String uri, final ResultResourceNotificationDTO dto) {
+        dto.statusCode = 200;
+        dto.uri = uri;
+        dto.subscriptionId = subscriptionId;
+        return mapper.writeValueAsString(dto);
+    }
+
+    @Test
+    void testDataNotification() throws Exception {
+        final ResourceDataNotification notification = new ResourceDataNotification("https://test", "model",
+                "provider", "svc", "value", 21, 42, Instant.parse("2025-01-01T12:00:00Z"), Integer.class,
+                Map.of("unit", "C"));
+
+        final ResultResourceNotificationDTO dto = new ResultResourceNotificationDTO();
+        dto.notification = new ResourceDataNotificationDTO(notification);
+        final String expected = expected("sub-1", "/provider/svc/value", dto);
+
+        assertEquals(expected, encoder.encode(notification, "sub-1", "/provider/svc/value"));
+        // The cached content is shared by the other subscriptions
+        dto.subscriptionId = "sub-2";
+        assertEquals(mapper.writeValueAsString(dto), encoder.encode(notification, "sub-2", "/provider/svc/value"));
+    }
+
+    @Test
+    void testLifecycleNotification() throws Exception {
+        final LifecycleNotification notification = new LifecycleNotification("https://test", "model", "provider",
+                "svc", "value", Status.RESOURCE_CREATED, 42, Map.of());
+
+        final ResultResourceNotificationDTO dto = new ResultResourceNotificationDTO();
+        dto.notification = new ResourceLifecycleNotificationDTO(notification);
+
+        // The timestamp of the lifecycle notification is the time of the encoding
+        final ObjectNode expected = (ObjectNode) mapper.readTree(expected("sub-1", "/provider/svc/value", dto));
+        final ObjectNode encoded = (ObjectNode) mapper
+                .readTree(encoder.encode(notification, "sub-1", "/provider/svc/value"));
+        ((ObjectNode) expected.get("notification")).remove("timestamp");
+        ((ObjectNode) encoded.get("notification")).remove("timestamp");
+        assertEquals(expected, encoded);
+    }
+}
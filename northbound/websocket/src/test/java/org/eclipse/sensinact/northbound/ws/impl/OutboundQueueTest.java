@@ -0,0 +1,152 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.ws.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the outbound message queue of the WebSockets
+ */
+public class OutboundQueueTest {
+
+    final List<String> sent = new ArrayList<>();
+    final AtomicReference<WriteCallback> inFlight = new AtomicReference<>();
+    final AtomicInteger overflows = new AtomicInteger();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    OutboundQueue queue;
+
+    @BeforeEach
+    void setup() {
+        queue = new OutboundQueue(3, (payload, callback) -> {
+            sent.add(payload);
+            inFlight.set(callback);
+        }, overflows::incrementAndGet, failure::set);
+    }
+
+    /**
+     * Completes the message being sent
+     */
+    void complete() {
+        inFlight.getAndSet(null).writeSuccess();
+    }
+
+    @Test
+    void sendsInOrderOneAtATime() {
+        assertTrue(queue.offer(null, "a"));
+        assertTrue(queue.offer(null, "b"));
+        assertTrue(queue.offer(null, "c"));
+
+        assertEquals(List.of("a"), sent);
+        assertEquals(2, queue.size());
+
+        complete();
+        assertEquals(List.of("a", "b"), sent);
+        complete();
+        complete();
+        assertEquals(List.of("a", "b", "c"), sent);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void inlineCompletion() {
+        queue = new OutboundQueue(10_000, (payload, callback) -> {
+            sent.add(payload);
+            callback.writeSuccess();
+        }, overflows::incrementAndGet, failure::set);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(queue.offer(null, String.valueOf(i)));
+        }
+        assertEquals(10_000, sent.size());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void latestValueWins() {
+        queue.offer(null, "first");
+        queue.offer("r1", "r1=1");
+        queue.offer("r2", "r2=1");
+        queue.offer("r1", "r1=2");
+        queue.offer("r2", "r2=2");
+
+        complete();
+        complete();
+        complete();
+        assertEquals(List.of("first", "r1=2", "r2=2"), sent);
+    }
+
+    @Test
+    void noConflationAcrossBarrier() {
+        queue.offer(null, "first");
+        queue.offer("r1", "r1=1");
+        queue.offer(null, "deleted");
+        queue.offer("r1", "r1=2");
+
+        complete();
+        complete();
+        complete();
+        assertEquals(List.of("first", "r1=1", "deleted", "r1=2"), sent);
+    }
+
+    @Test
+    void sentMessageIsNotReplaced() {
+        queue.offer("r1", "r1=1");
+        queue.offer("r1", "r1=2");
+
+        complete();
+        assertEquals(List.of("r1=1", "r1=2"), sent);
+    }
+
+    @Test
+    void slowConsumer() {
+        // One message in flight and three pending
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(null, String.valueOf(i)));
+        }
+        assertEquals(0, overflows.get());
+
+        assertFalse(queue.offer(null, "overflow"));
+        assertEquals(1, overflows.get());
+        assertEquals(0, queue.size());
+
+        // Closed for good
+        complete();
+        assertFalse(queue.offer(null, "after"));
+        assertEquals(List.of("0"), sent);
+    }
+
+    @Test
+    void sendFailure() {
+        queue.offer(null, "a");
+        queue.offer(null, "b");
+
+        Exception e = new Exception("broken pipe");
+        inFlight.get().writeFailed(e);
+
+        assertEquals(e, failure.get());
+        assertFalse(queue.offer(null, "c"));
+        assertEquals(List.of("a"), sent);
+    }
+}
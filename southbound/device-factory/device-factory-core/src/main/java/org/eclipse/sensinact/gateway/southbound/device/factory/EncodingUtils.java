@@ -13,7 +13,9 @@
 package org.eclipse.sensinact.gateway.southbound.device.factory;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 
 /**
  *
@@ -48,4 +50,23 @@ public class EncodingUtils {
 
         return new ByteArrayInputStream(toCheck, offset, size);
     }
+
+    /**
+     * Wraps the given input stream to skip the UTF-8 Byte Order Mark if present.
+     * Make sure the expected encoding is UTF-8 before calling this method
+     *
+     * @param input UTF-8 content
+     * @return The content without the BOM prefix
+     * @throws IOException Error reading input
+     */
+    public static InputStream removeBOM(final InputStream input) throws IOException {
+        final PushbackInputStream pushback = new PushbackInputStream(input, 3);
+        final byte[] prefix = pushback.readNBytes(3);
+        if (prefix.length < 3 || (prefix[0] & 0xFF) != 0xEF || (prefix[1] & 0xFF) != 0xBB
+                || (prefix[2] & 0xFF) != 0xBF) {
+            // No BOM marker
+            pushback.unread(prefix);
+        }
+        return pushback;
+    }
 }
@@ -12,6 +12,8 @@
 **********************************************************************/
 package org.eclipse.sensinact.gateway.southbound.device.factory;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Map;
 
 import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
@@ -28,7 +30,20 @@ public interface IDeviceMappingHandler {
      * @param payload       Raw content to parse
      * @throws DeviceFactoryException Error handling records
      */
-    void handle(DeviceMappingConfigurationDTO configuration, Map<String, String> context, byte[] payload)
+    default void handle(DeviceMappingConfigurationDTO configuration, Map<String, String> context, byte[] payload)
+            throws MissingParserException, InvalidResourcePathException, ParserException, DeviceFactoryException {
+        handle(configuration, context, new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Handles the content of the given payload as it is read and updates
+     * resources accordingly. The input stream is not closed by this method.
+     *
+     * @param configuration Mapping configuration (must contain the parser ID)
+     * @param payload       Raw content to parse
+     * @throws DeviceFactoryException Error handling records
+     */
+    void handle(DeviceMappingConfigurationDTO configuration, Map<String, String> context, InputStream payload)
             throws MissingParserException, InvalidResourcePathException, ParserException, DeviceFactoryException;
 
 }
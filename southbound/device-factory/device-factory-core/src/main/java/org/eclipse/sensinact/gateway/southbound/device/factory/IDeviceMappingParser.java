@@ -12,6 +12,8 @@
 **********************************************************************/
 package org.eclipse.sensinact.gateway.southbound.device.factory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -41,4 +43,29 @@ public interface IDeviceMappingParser {
      */
     List<? extends IDeviceMappingRecord> parseRecords(byte[] rawInput, Map<String, Object> parserConfiguration,
             Map<String, String> context) throws ParserException;
+
+    /**
+     * Parse the records found in the given payload as they are read. The input
+     * stream is owned by the caller and must not be closed by the reader.
+     * <p>
+     * By default, the whole payload is read then given to
+     * {@link #parseRecords(byte[], Map, Map)}: parsers should override this
+     * method to avoid keeping the whole content in memory.
+     *
+     * @param input               RAW payload
+     * @param parserConfiguration Parser configuration
+     * @param context             Payload context (MQTT topic, ...)
+     * @return The record reader (can be null)
+     * @throws ParserException Error parsing payload
+     */
+    default IDeviceMappingRecordReader readRecords(InputStream input, Map<String, Object> parserConfiguration,
+            Map<String, String> context) throws ParserException {
+        final byte[] rawInput;
+        try {
+            rawInput = input.readAllBytes();
+        } catch (IOException e) {
+            throw new ParserException("Error reading payload", e);
+        }
+        return IDeviceMappingRecordReader.of(parseRecords(rawInput, parserConfiguration, context));
+    }
 }
@@ -0,0 +1,78 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.device.factory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Gives access to the records of a payload as they are parsed
+ */
+public interface IDeviceMappingRecordReader extends AutoCloseable {
+
+    /**
+     * Reads the next record of the payload
+     *
+     * @return The next record or null if all records have been read
+     * @throws ParserException Error parsing payload
+     */
+    IDeviceMappingRecord next() throws ParserException;
+
+    /**
+     * Releases the resources associated to the payload
+     *
+     * @throws ParserException Error closing the payload
+     */
+    @Override
+    void close() throws ParserException;
+
+    /**
+     * Reads all the remaining records of the payload
+     *
+     * @return The list of records
+     * @throws ParserException Error parsing payload
+     */
+    default List<IDeviceMappingRecord> readAll() throws ParserException {
+        final List<IDeviceMappingRecord> records = new ArrayList<>();
+        IDeviceMappingRecord record;
+        while ((record = next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Creates a reader for already parsed records
+     *
+     * @param records Parsed records (can be null)
+     * @return A record reader, or null if the list is null
+     */
+    static IDeviceMappingRecordReader of(final List<? extends IDeviceMappingRecord> records) {
+        if (records == null) {
+            return null;
+        }
+
+        final Iterator<? extends IDeviceMappingRecord> iterator = records.iterator();
+        return new IDeviceMappingRecordReader() {
+            @Override
+            public IDeviceMappingRecord next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
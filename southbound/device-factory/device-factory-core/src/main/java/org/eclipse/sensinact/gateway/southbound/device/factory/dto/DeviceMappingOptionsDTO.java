@@ -50,4 +50,7 @@ public class DeviceMappingOptionsDTO {
 
     @JsonProperty("log.errors")
     public boolean logErrors = false;
+
+    @JsonProperty("bulk.size")
+    public int bulkSize = 0;
 }
@@ -14,7 +14,7 @@ package org.eclipse.sensinact.gateway.southbound.device.factory.impl;
 
 import static java.util.stream.Collectors.toMap;
 
-import java.time.DateTimeException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -22,27 +22,28 @@ import java.time.OffsetTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.chrono.ChronoZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
 import java.time.temporal.UnsupportedTemporalTypeException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.annotation.dto.NullAction;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.push.DataUpdate;
 import org.eclipse.sensinact.core.push.DataUpdateException;
@@ -57,10 +58,10 @@ import org.eclipse.sensinact.gateway.southbound.device.factory.DeviceFactoryExce
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingHandler;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingParser;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecord;
+import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecordReader;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IPlaceHolderKeys;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IResourceMapping;
 import org.eclipse.sensinact.gateway.southbound.device.factory.InvalidResourcePathException;
-import org.eclipse.sensinact.gateway.southbound.device.factory.LocaleUtils;
 import org.eclipse.sensinact.gateway.southbound.device.factory.MissingParserException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.ParserException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.RecordPath;
@@ -69,6 +70,7 @@ import org.eclipse.sensinact.gateway.southbound.device.factory.VariableNotFoundE
 import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
 import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingOptionsDTO;
 import org.osgi.service.component.ComponentServiceObjects;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -138,11 +140,49 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
     @Reference
     IMetricsManager metrics;
 
+    /**
+     * Mapping setup timer
+     */
+    private IMetricTimerHandle mappingSetupTimer;
+
+    /**
+     * Record mapping timer
+     */
+    private IMetricTimerHandle recordMappingTimer;
+
+    /**
+     * Timers of a parser: the payload timer measures the preparation of the
+     * records reader, once per payload, and the record timer measures the reading
+     * of each record
+     */
+    private record ParserTimers(IMetricTimerHandle payload, IMetricTimerHandle record) {
+    }
+
+    /**
+     * Parsing timers, by parser ID
+     */
+    private final Map<String, ParserTimers> parseTimers = new ConcurrentHashMap<>();
+
+    /**
+     * Compiled mapping plans, by configuration
+     */
+    private final Map<DeviceMappingConfigurationDTO, MappingPlan> plans = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
     /**
      * JSON mapper
      */
     private final ObjectMapper mapper = new ObjectMapper();
 
+    /**
+     * Component activated
+     */
+    @Activate
+    void activate() {
+        mappingSetupTimer = metrics.getTimer("device.factory.mapping.setup.time");
+        recordMappingTimer = metrics.getTimer("device.factory.record.mapping.time");
+    }
+
     /**
      * New parser service registered
      */
@@ -180,7 +220,7 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
 
     @Override
     public void handle(final DeviceMappingConfigurationDTO configuration, final Map<String, String> context,
-            final byte[] payload) throws DeviceFactoryException {
+            final InputStream payload) throws DeviceFactoryException {
 
         // Check parser ID
         final String parserId = configuration.parser;
@@ -189,14 +229,19 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         }
 
         // Extract mapping information
+        final MappingPlan plan;
         final RecordState globalState;
-        try (IMetricTimer timer = metrics.withTimer("device.factory.mapping.setup.time")) {
-            globalState = computeInitialState(configuration, context);
-        }
+        final RecordState sharedState;
+        try (IMetricTimer timer = mappingSetupTimer.start()) {
+            plan = getPlan(configuration);
+
+            // Check if a provider is set
+            if (plan.placeholders.get(KEY_PROVIDER) == null) {
+                throw new IllegalArgumentException("No provider mapping given");
+            }
 
-        // Check if a provider is set
-        if (globalState.placeholders.get(KEY_PROVIDER) == null) {
-            throw new IllegalArgumentException("No provider mapping given");
+            globalState = computeInitialState(plan, context);
+            sharedState = computeSharedState(configuration, plan, globalState);
         }
 
         final boolean logErrors = configuration.mappingOptions.logErrors;
@@ -204,46 +249,52 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         // Find it
         final ComponentServiceObjects<IDeviceMappingParser> cso = findParser(parserId);
         final IDeviceMappingParser parser = cso.getService();
+        final ParserTimers timers = parseTimers.computeIfAbsent(parserId,
+                id -> new ParserTimers(metrics.getTimer("device.factory.parse." + id + ".time"),
+                        metrics.getTimer("device.factory.parse." + id + ".record.time")));
+        IDeviceMappingRecordReader records = null;
         try {
             // Use it
-            final List<? extends IDeviceMappingRecord> records;
-            try (IMetricTimer timer = metrics.withTimer("device.factory.parse." + parserId + ".time")) {
-                records = parser.parseRecords(payload, configuration.parserOptions, context);
+            try (IMetricTimer timer = timers.payload().start()) {
+                records = parser.readRecords(payload, configuration.parserOptions, context);
             }
 
             if (records != null) {
-                final BulkGenericDto bulk = new BulkGenericDto();
+                final int bulkSize = configuration.mappingOptions.bulkSize;
+                BulkGenericDto bulk = new BulkGenericDto();
                 bulk.dtos = new ArrayList<>();
 
-                for (final IDeviceMappingRecord record : records) {
+                while (true) {
+                    final IDeviceMappingRecord record;
+                    try (IMetricTimer timer = timers.record().start()) {
+                        record = records.next();
+                    }
+                    if (record == null) {
+                        break;
+                    }
+
                     try {
-                        try (IMetricTimer timer = metrics.withTimer("device.factory.record.mapping.time")) {
-                            bulk.dtos.addAll(handleRecord(configuration, globalState, record));
+                        try (IMetricTimer timer = recordMappingTimer.start()) {
+                            final RecordState recordState = sharedState != null ? sharedState
+                                    : computeRecordState(configuration, globalState, record);
+                            bulk.dtos.addAll(handleRecord(configuration, plan, recordState, record));
                         }
                     } catch (InvalidResourcePathException | ParserException | VariableNotFoundException e) {
                         if (logErrors) {
                             logger.error("Error parsing record with parser {}: {}", parserId, e.getMessage(), e);
                         }
                     }
+
+                    if (bulkSize > 0 && bulk.dtos.size() >= bulkSize) {
+                        // Don't keep the updates of the whole payload in memory
+                        pushUpdate(bulk, parserId, logErrors);
+                        bulk = new BulkGenericDto();
+                        bulk.dtos = new ArrayList<>();
+                    }
                 }
 
                 if (!bulk.dtos.isEmpty()) {
-                    // Send all updates to the gateway thread at once
-                    Promise<?> pushUpdate = dataUpdate.pushUpdate(bulk);
-                    if (logErrors) {
-                        pushUpdate = pushUpdate.onFailure((t) -> {
-                            if (t instanceof FailedUpdatesException) {
-                                for (DataUpdateException ex : ((FailedUpdatesException) t).getFailedUpdates()) {
-                                    logger.error("Error updating digital twin of {}/{}/{} with parser {}: {}",
-                                            ex.getProvider(), ex.getService(), ex.getResource(), parserId,
-                                            ex.getMessage(), ex);
-                                }
-                            } else {
-                                logger.error("Error updating digital twin with parser {}: {}", parserId, t.getMessage(),
-                                        t);
-                            }
-                        });
-                    }
+                    pushUpdate(bulk, parserId, logErrors);
                 }
             } else if (logErrors) {
                 logger.error("No record found by parser {}", parserId);
@@ -254,7 +305,38 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
             }
             throw e;
         } finally {
-            cso.ungetService(parser);
+            try {
+                if (records != null) {
+                    records.close();
+                }
+            } finally {
+                cso.ungetService(parser);
+            }
+        }
+    }
+
+    /**
+     * Sends updates to the gateway thread at once
+     *
+     * @param bulk      Updates to send
+     * @param parserId  ID of the parser that read the updates
+     * @param logErrors Flag to log update errors
+     */
+    private void pushUpdate(final BulkGenericDto bulk, final String parserId, final boolean logErrors) {
+        final Promise<?> promise = dataUpdate.pushUpdate(bulk);
+        if (logErrors) {
+            promise.onFailure((t) -> {
+                if (t instanceof FailedUpdatesException) {
+                    for (DataUpdateException ex : ((FailedUpdatesException) t).getFailedUpdates()) {
+                        logger.error("Error updating digital twin of {}/{}/{} with parser {}: {}", ex.getProvider(),
+                                ex.getService(), ex.getResource(), parserId, ex.getMessage(), ex);
+                    }
+                } else if (t instanceof GatewayOverloadedException) {
+                    logger.warn("Gateway overloaded, dropped update from parser {}", parserId);
+                } else {
+                    logger.error("Error updating digital twin with parser {}: {}", parserId, t.getMessage(), t);
+                }
+            });
         }
     }
 
@@ -298,20 +380,17 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
     /**
      * Handles a record, i.e. an entry containing fields
      *
-     * @param session       sensiNact session to use to update resources
      * @param configuration Mapping configuration (must contain the parser ID)
+     * @param plan          Compiled mapping configuration
+     * @param recordState   Mapping state resolved for this record
      * @param record        Record to read
      * @return True if resources have been updated
-     * @throws InvalidResourcePathException Invalid mapping
-     * @throws ParserException              Error parsing content
-     * @throws VariableNotFoundException    Error resolving variables
+     * @throws ParserException Error parsing content
      */
-    private List<GenericDto> handleRecord(final DeviceMappingConfigurationDTO configuration,
-            final RecordState globalState, final IDeviceMappingRecord record)
-            throws InvalidResourcePathException, ParserException, VariableNotFoundException {
+    private List<GenericDto> handleRecord(final DeviceMappingConfigurationDTO configuration, final MappingPlan plan,
+            final RecordState recordState, final IDeviceMappingRecord record) throws ParserException {
 
         final DeviceMappingOptionsDTO options = configuration.mappingOptions;
-        final RecordState recordState = computeRecordState(configuration, globalState, record);
 
         // Extract the provider
         final String provider = getFieldString(record, recordState.placeholders.get(KEY_PROVIDER), options);
@@ -339,7 +418,7 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         final List<GenericDto> bulk = new ArrayList<>();
 
         // Compute the timestamp
-        final Instant timestamp = computeTimestamp(provider, record, recordState.placeholders, configuration);
+        final Instant timestamp = computeTimestamp(provider, record, recordState.placeholders, configuration, plan);
 
         // Get the friendly name
         final IResourceMapping nameKey = recordState.placeholders.get(KEY_NAME);
@@ -477,60 +556,83 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
     }
 
     /**
-     * Computes the list of place holders, variables and resource mapping
+     * Returns the compiled form of the given configuration, parsing it if
+     * necessary
      *
      * @param configuration Device mapping configuration
-     * @param context
-     * @return The global state
+     * @return The mapping plan
      * @throws InvalidResourcePathException Error parsing resource path
      */
-    private RecordState computeInitialState(DeviceMappingConfigurationDTO configuration, Map<String, String> context)
+    private MappingPlan getPlan(final DeviceMappingConfigurationDTO configuration)
             throws InvalidResourcePathException {
-        final Map<String, IResourceMapping> placeholders = new HashMap<>();
-        final Map<String, IResourceMapping> variablesMappings = new HashMap<>();
-        final List<ResourceRecordMapping> rcMappings = new ArrayList<>();
-        final List<ResourceLiteralMapping> rcLiterals = new ArrayList<>();
-
-        final ResourceMappingHandler handler = new ResourceMappingHandler();
-
-        for (Entry<String, Object> entry : configuration.mapping.entrySet()) {
-            final String key = entry.getKey();
-            final IResourceMapping mapping = handler.parseMapping(key, entry.getValue());
-            if (key.startsWith("@")) {
-                // Placeholder
-                placeholders.put(key, mapping);
-            } else if (key.startsWith("$") && !key.startsWith("${")) {
-                // Variable definition
-                if (VariableSolver.isValidKey(key)) {
-                    variablesMappings.put(key, mapping);
-                } else {
-                    throw new InvalidResourcePathException(String.format("Invalid variable format: '%s'", key));
-                }
-            } else {
-                // Mapping
-                if (mapping.isLiteral()) {
-                    rcLiterals.add((ResourceLiteralMapping) mapping);
-                } else {
-                    rcMappings.add((ResourceRecordMapping) mapping);
-                }
-            }
+        MappingPlan plan = plans.get(configuration);
+        if (plan == null || !plan.matches(configuration)) {
+            // New or updated configuration
+            plan = new MappingPlan(configuration);
+            plans.put(configuration, plan);
         }
+        return plan;
+    }
 
+    /**
+     * Associates the mapping plan to the context variables
+     *
+     * @param plan    Compiled mapping configuration
+     * @param context Payload context
+     * @return The global state
+     */
+    private RecordState computeInitialState(final MappingPlan plan, final Map<String, String> context) {
         final RecordState state = new RecordState();
-        state.placeholders = Map.copyOf(placeholders);
-        state.rawVariables = Map.copyOf(variablesMappings);
-        state.rcMappings = List.copyOf(rcMappings);
-        state.rcLiterals = List.copyOf(rcLiterals);
-        state.variables = Map.copyOf(
-                context.entrySet().stream().collect(toMap(e -> "$context.".concat(e.getKey()), Entry::getValue)));
+        state.placeholders = plan.placeholders;
+        state.rawVariables = plan.rawVariables;
+        state.rcMappings = plan.rcMappings;
+        state.rcLiterals = plan.rcLiterals;
+        if (plan.constant) {
+            state.variables = Map.of();
+        } else {
+            state.variables = Map.copyOf(context.entrySet().stream()
+                    .collect(toMap(e -> "$context.".concat(e.getKey()), Entry::getValue)));
+        }
         return state;
     }
 
+    /**
+     * Computes the state shared by all the records of a payload, i.e. when the
+     * mapping doesn't depend on variables read from the records
+     *
+     * @param configuration Mapping configuration
+     * @param plan          Compiled mapping configuration
+     * @param initialState  Global state
+     * @return The state of all records or null if it must be computed for each
+     *         record
+     */
+    private RecordState computeSharedState(final DeviceMappingConfigurationDTO configuration, final MappingPlan plan,
+            final RecordState initialState) {
+        if (plan.validRcMappings != null) {
+            final RecordState state = new RecordState();
+            state.placeholders = plan.placeholders;
+            state.variables = initialState.variables;
+            state.rcMappings = plan.validRcMappings;
+            state.rcLiterals = plan.validRcLiterals;
+            return state;
+        } else if (plan.rawVariables.isEmpty()) {
+            try {
+                return computeRecordState(configuration, initialState, null);
+            } catch (InvalidResourcePathException | ParserException | VariableNotFoundException e) {
+                // Will be reported for each record
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
     /**
      * Computes the state associated to this mapping
      *
      * @param configuration Mapping configuration
-     * @param record        Current record
+     * @param record        Current record (can be null if the mapping has no
+     *                      variable definition)
      * @return The state of the current record
      * @throws InvalidResourcePathException Error parsing a resource or record path
      * @throws ParserException              Error parsing content
@@ -808,25 +910,6 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         return new Point(c, null, null);
     }
 
-    /**
-     * Parse the configured timezone, UTC by default
-     *
-     * @param dateTimezone Timezone from mapping configuration
-     * @return Parsed timezone or UTC
-     */
-    private ZoneId getTimezone(final String dateTimezone) {
-        if (dateTimezone == null || dateTimezone.isBlank()) {
-            return ZoneOffset.UTC;
-        } else {
-            try {
-                return ZoneId.of(dateTimezone);
-            } catch (DateTimeException e) {
-                logger.warn("Can't parse configured timezone '{}': {}", dateTimezone, e.getMessage());
-                return ZoneOffset.UTC;
-            }
-        }
-    }
-
     /**
      * Looks for a time value in the given record
      *
@@ -834,10 +917,12 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
      * @param record        Record to read
      * @param placeholders  Defined mapping placeholders
      * @param configuration Mapping configuration
+     * @param plan          Compiled mapping configuration
      * @return The parsed timestamp or the current time
      */
     private Instant computeTimestamp(final String provider, final IDeviceMappingRecord record,
-            final Map<String, IResourceMapping> placeholders, final DeviceMappingConfigurationDTO configuration) {
+            final Map<String, IResourceMapping> placeholders, final DeviceMappingConfigurationDTO configuration,
+            final MappingPlan plan) {
 
         final DeviceMappingOptionsDTO options = configuration.mappingOptions;
 
@@ -849,15 +934,13 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
             }
         }
 
-        final ZoneId timezone = getTimezone(configuration.mappingOptions.dateTimezone);
-        final Locale locale = LocaleUtils.fromString(configuration.mappingOptions.formatDateTimeLocale);
+        final ZoneId timezone = plan.timezone;
 
         final IResourceMapping dateTimePath = placeholders.get(KEY_DATETIME);
         if (dateTimePath != null) {
             final String strDateTime = getFieldString(record, dateTimePath, options);
             if (strDateTime != null && !strDateTime.isBlank()) {
-                final TemporalAccessor parsedDateTime = parseDateTime(strDateTime, configuration.mappingOptions,
-                        locale);
+                final TemporalAccessor parsedDateTime = plan.dateTimeFormat(options).parse(strDateTime);
                 return extractDateTime(parsedDateTime, timezone);
             }
         }
@@ -867,7 +950,7 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         if (datePath != null) {
             final String strDate = getFieldString(record, datePath, options);
             if (strDate != null && !strDate.isBlank()) {
-                date = parseDate(strDate, configuration.mappingOptions, locale);
+                date = extractDate(plan.dateFormat(options).parse(strDate));
             }
         }
 
@@ -876,7 +959,7 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         if (timePath != null) {
             final String strTime = getFieldString(record, timePath, options);
             if (strTime != null && !strTime.isBlank()) {
-                time = parseTime(strTime, date, timezone, configuration.mappingOptions, locale);
+                time = extractTime(plan.timeFormat(options).parse(strTime), date, timezone);
             }
         }
 
@@ -953,93 +1036,6 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         return OffsetTime.of(hour, minute, second, nanoOfSecond, offset);
     }
 
-    /**
-     * Parses a date string
-     *
-     * @param strDate Date string
-     * @param options Device mapping options
-     * @param locale  Configured locale
-     * @return The parsed date
-     */
-    private LocalDate parseDate(final String strDate, final DeviceMappingOptionsDTO options, final Locale locale) {
-        DateTimeFormatter format = DateTimeFormatter.ISO_LOCAL_DATE;
-        if (options.formatDate != null && !options.formatDate.isBlank()) {
-            format = DateTimeFormatter.ofPattern(options.formatDate);
-        } else if (options.formatDateStyle != null && !options.formatDateStyle.isBlank()) {
-            format = DateTimeFormatter.ofLocalizedDate(FormatStyle.valueOf(options.formatDateStyle.toUpperCase()));
-        }
-
-        if (locale != null) {
-            format = format.withLocale(locale);
-        }
-
-        return extractDate(format.parse(strDate));
-    }
-
-    /**
-     * Parses a time string
-     *
-     * @param strTime      Time string
-     * @param expectedDate Expected date of the time (today if null)
-     * @param timezone     Fallback timezone
-     * @param options      Device mapping options
-     * @param locale       Configured locale
-     * @return The parsed time at the expected date or today
-     */
-    private OffsetTime parseTime(final String strTime, final LocalDate expectedDate, final ZoneId timezone,
-            final DeviceMappingOptionsDTO options, final Locale locale) {
-        DateTimeFormatter format = DateTimeFormatter.ISO_OFFSET_TIME;
-        if (options.formatTime != null && !options.formatTime.isBlank()) {
-            format = DateTimeFormatter.ofPattern(options.formatTime);
-        } else if (options.formatTimeStyle != null && !options.formatTimeStyle.isBlank()) {
-            format = DateTimeFormatter.ofLocalizedDate(FormatStyle.valueOf(options.formatTimeStyle.toUpperCase()));
-        }
-
-        if (locale != null) {
-            format = format.withLocale(locale);
-        }
-
-        return extractTime(format.parse(strTime), expectedDate, timezone);
-    }
-
-    /**
-     * Parses a date time according to mapping options
-     *
-     * @param strDateTime String value of the date time
-     * @param options     Mapping options
-     * @param locale      Configured locale
-     * @return The parsed date time
-     */
-    private TemporalAccessor parseDateTime(final String strDateTime, final DeviceMappingOptionsDTO options,
-            final Locale locale) {
-        DateTimeFormatter format = DateTimeFormatter.ISO_DATE_TIME;
-
-        final String formatDateTime = options.formatDateTime;
-        if (formatDateTime != null && !formatDateTime.isBlank()) {
-            format = DateTimeFormatter.ofPattern(formatDateTime);
-        } else {
-            String formatDateStyle = options.formatDateStyle;
-            String formatTimeStyle = options.formatTimeStyle;
-
-            if (formatTimeStyle == null || formatTimeStyle.isBlank()) {
-                formatTimeStyle = formatDateStyle;
-            } else if (formatDateStyle == null || formatDateStyle.isBlank()) {
-                formatDateStyle = formatTimeStyle;
-            }
-
-            if (formatTimeStyle != null && !formatTimeStyle.isBlank()) {
-                format = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.valueOf(formatDateStyle.toUpperCase()),
-                        FormatStyle.valueOf(formatTimeStyle.toUpperCase()));
-            }
-        }
-
-        if (locale != null) {
-            format = format.withLocale(locale);
-        }
-
-        return format.parse(strDateTime);
-    }
-
     /**
      * Extract date and time from a parsed temporal accessor
      *
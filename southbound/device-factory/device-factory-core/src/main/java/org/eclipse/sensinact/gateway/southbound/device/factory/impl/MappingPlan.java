@@ -0,0 +1,299 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.device.factory.impl;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.sensinact.gateway.southbound.device.factory.IResourceMapping;
+import org.eclipse.sensinact.gateway.southbound.device.factory.InvalidResourcePathException;
+import org.eclipse.sensinact.gateway.southbound.device.factory.LocaleUtils;
+import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
+import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingOptionsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parsed form of a device mapping configuration, computed once and reused for
+ * all the payloads handled with that configuration.
+ */
+final class MappingPlan {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MappingPlan.class);
+
+    /**
+     * Copy of the mapping this plan was compiled from
+     */
+    private final Map<String, Object> mapping;
+
+    /**
+     * Copy of the date and time options this plan was compiled from
+     */
+    private final List<String> dateTimeOptions;
+
+    /**
+     * Place holder -&gt; record path
+     */
+    final Map<String, IResourceMapping> placeholders;
+
+    /**
+     * Variable name -&gt; unresolved record path
+     */
+    final Map<String, IResourceMapping> rawVariables;
+
+    /**
+     * SensiNact resource path -&gt; record path
+     */
+    final List<ResourceRecordMapping> rcMappings;
+
+    /**
+     * SensiNact resource path -&gt; literal record path
+     */
+    final List<ResourceLiteralMapping> rcLiterals;
+
+    /**
+     * Flag to indicate that the mapping doesn't use any variable: the mappings
+     * are then the same for all records
+     */
+    final boolean constant;
+
+    /**
+     * Valid resource mappings, when the mapping is constant (null otherwise)
+     */
+    final List<ResourceRecordMapping> validRcMappings;
+
+    /**
+     * Valid literal mappings, when the mapping is constant (null otherwise)
+     */
+    final List<ResourceLiteralMapping> validRcLiterals;
+
+    /**
+     * Configured timezone, UTC by default
+     */
+    final ZoneId timezone;
+
+    /**
+     * Configured date time locale (can be null)
+     */
+    final Locale locale;
+
+    /**
+     * Date time formatters, created on first use
+     */
+    private volatile DateTimeFormatter dateFormat;
+    private volatile DateTimeFormatter timeFormat;
+    private volatile DateTimeFormatter dateTimeFormat;
+
+    /**
+     * Parses the given configuration
+     *
+     * @param configuration Device mapping configuration
+     * @throws InvalidResourcePathException Error parsing resource path
+     */
+    MappingPlan(final DeviceMappingConfigurationDTO configuration) throws InvalidResourcePathException {
+        this.mapping = new HashMap<>(configuration.mapping);
+        this.dateTimeOptions = dateTimeOptions(configuration.mappingOptions);
+
+        final Map<String, IResourceMapping> placeholders = new HashMap<>();
+        final Map<String, IResourceMapping> variablesMappings = new HashMap<>();
+        final List<ResourceRecordMapping> rcMappings = new ArrayList<>();
+        final List<ResourceLiteralMapping> rcLiterals = new ArrayList<>();
+        boolean useVariables = false;
+
+        final ResourceMappingHandler handler = new ResourceMappingHandler();
+
+        for (Entry<String, Object> entry : mapping.entrySet()) {
+            final String key = entry.getKey();
+            final IResourceMapping parsed = handler.parseMapping(key, entry.getValue());
+            useVariables |= VariableSolver.containsVariables(key) || VariableSolver.containsVariables(entry.getValue());
+            if (key.startsWith("@")) {
+                // Placeholder
+                placeholders.put(key, parsed);
+            } else if (key.startsWith("$") && !key.startsWith("${")) {
+                // Variable definition
+                if (VariableSolver.isValidKey(key)) {
+                    variablesMappings.put(key, parsed);
+                } else {
+                    throw new InvalidResourcePathException(String.format("Invalid variable format: '%s'", key));
+                }
+            } else {
+                // Mapping
+                if (parsed.isLiteral()) {
+                    rcLiterals.add((ResourceLiteralMapping) parsed);
+                } else {
+                    rcMappings.add((ResourceRecordMapping) parsed);
+                }
+            }
+        }
+
+        this.placeholders = Map.copyOf(placeholders);
+        this.rawVariables = Map.copyOf(variablesMappings);
+        this.rcMappings = List.copyOf(rcMappings);
+        this.rcLiterals = List.copyOf(rcLiterals);
+        this.constant = !useVariables && this.rawVariables.isEmpty();
+
+        List<ResourceRecordMapping> validRcMappings = null;
+        List<ResourceLiteralMapping> validRcLiterals = null;
+        if (constant) {
+            try {
+                validRcMappings = new ArrayList<>(rcMappings.size());
+                for (final ResourceRecordMapping rcMapping : rcMappings) {
+                    validRcMappings.add((ResourceRecordMapping) rcMapping.ensureValidPath());
+                }
+                validRcLiterals = new ArrayList<>(rcLiterals.size());
+                for (final ResourceLiteralMapping rcLiteral : rcLiterals) {
+                    validRcLiterals.add((ResourceLiteralMapping) rcLiteral.ensureValidPath());
+                }
+                validRcMappings = List.copyOf(validRcMappings);
+                validRcLiterals = List.copyOf(validRcLiterals);
+            } catch (InvalidResourcePathException e) {
+                // Reported for each record
+                validRcMappings = null;
+                validRcLiterals = null;
+            }
+        }
+        this.validRcMappings = validRcMappings;
+        this.validRcLiterals = validRcLiterals;
+
+        final DeviceMappingOptionsDTO options = configuration.mappingOptions;
+        this.timezone = getTimezone(options.dateTimezone);
+        this.locale = LocaleUtils.fromString(options.formatDateTimeLocale);
+    }
+
+    /**
+     * Checks if this plan was compiled from the current content of the given
+     * configuration
+     *
+     * @param configuration Device mapping configuration
+     * @return True if the plan can be used for this configuration
+     */
+    boolean matches(final DeviceMappingConfigurationDTO configuration) {
+        return mapping.equals(configuration.mapping)
+                && dateTimeOptions.equals(dateTimeOptions(configuration.mappingOptions));
+    }
+
+    /**
+     * Returns the date time options used by the plan
+     */
+    private static List<String> dateTimeOptions(final DeviceMappingOptionsDTO options) {
+        return Arrays.asList(options.formatDate, options.formatTime, options.formatDateTime,
+                options.formatDateTimeLocale, options.formatDateStyle, options.formatTimeStyle, options.dateTimezone);
+    }
+
+    /**
+     * Parse the configured timezone, UTC by default
+     *
+     * @param dateTimezone Timezone from mapping configuration
+     * @return Parsed timezone or UTC
+     */
+    private static ZoneId getTimezone(final String dateTimezone) {
+        if (dateTimezone == null || dateTimezone.isBlank()) {
+            return ZoneOffset.UTC;
+        } else {
+            try {
+                return ZoneId.of(dateTimezone);
+            } catch (DateTimeException e) {
+                logger.warn("Can't parse configured timezone '{}': {}", dateTimezone, e.getMessage());
+                return ZoneOffset.UTC;
+            }
+        }
+    }
+
+    /**
+     * Returns the date formatter
+     *
+     * @param options Device mapping options
+     */
+    DateTimeFormatter dateFormat(final DeviceMappingOptionsDTO options) {
+        DateTimeFormatter format = dateFormat;
+        if (format == null) {
+            format = DateTimeFormatter.ISO_LOCAL_DATE;
+            if (options.formatDate != null && !options.formatDate.isBlank()) {
+                format = DateTimeFormatter.ofPattern(options.formatDate);
+            } else if (options.formatDateStyle != null && !options.formatDateStyle.isBlank()) {
+                format = DateTimeFormatter.ofLocalizedDate(FormatStyle.valueOf(options.formatDateStyle.toUpperCase()));
+            }
+            dateFormat = format = withLocale(format);
+        }
+        return format;
+    }
+
+    /**
+     * Returns the time formatter
+     *
+     * @param options Device mapping options
+     */
+    DateTimeFormatter timeFormat(final DeviceMappingOptionsDTO options) {
+        DateTimeFormatter format = timeFormat;
+        if (format == null) {
+            format = DateTimeFormatter.ISO_OFFSET_TIME;
+            if (options.formatTime != null && !options.formatTime.isBlank()) {
+                format = DateTimeFormatter.ofPattern(options.formatTime);
+            } else if (options.formatTimeStyle != null && !options.formatTimeStyle.isBlank()) {
+                format = DateTimeFormatter.ofLocalizedDate(FormatStyle.valueOf(options.formatTimeStyle.toUpperCase()));
+            }
+            timeFormat = format = withLocale(format);
+        }
+        return format;
+    }
+
+    /**
+     * Returns the date time formatter
+     *
+     * @param options Device mapping options
+     */
+    DateTimeFormatter dateTimeFormat(final DeviceMappingOptionsDTO options) {
+        DateTimeFormatter format = dateTimeFormat;
+        if (format == null) {
+            format = DateTimeFormatter.ISO_DATE_TIME;
+
+            final String formatDateTime = options.formatDateTime;
+            if (formatDateTime != null && !formatDateTime.isBlank()) {
+                format = DateTimeFormatter.ofPattern(formatDateTime);
+            } else {
+                String formatDateStyle = options.formatDateStyle;
+                String formatTimeStyle = options.formatTimeStyle;
+
+                if (formatTimeStyle == null || formatTimeStyle.isBlank()) {
+                    formatTimeStyle = formatDateStyle;
+                } else if (formatDateStyle == null || formatDateStyle.isBlank()) {
+                    formatDateStyle = formatTimeStyle;
+                }
+
+                if (formatTimeStyle != null && !formatTimeStyle.isBlank()) {
+                    format = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.valueOf(formatDateStyle.toUpperCase()),
+                            FormatStyle.valueOf(formatTimeStyle.toUpperCase()));
+                }
+            }
+            dateTimeFormat = format = withLocale(format);
+        }
+        return format;
+    }
+
+    private DateTimeFormatter withLocale(final DateTimeFormatter format) {
+        return locale != null ? format.withLocale(locale) : format;
+    }
+}
@@ -62,7 +62,8 @@ public class RecordHandlingTest {
     void start() throws InterruptedException {
         deviceMapper = new FactoryParserHandler();
         deviceMapper.dataUpdate = Mockito.mock(DataUpdate.class);
-        deviceMapper.metrics = Mockito.mock(IMetricsManager.class);
+        deviceMapper.metrics = Mockito.mock(IMetricsManager.class, Mockito.RETURNS_MOCKS);
+        deviceMapper.activate();
 
         Mockito.when(deviceMapper.dataUpdate.pushUpdate(Mockito.any())).thenAnswer(i -> {
             final BulkGenericDto dto = i.getArgument(0, BulkGenericDto.class);
@@ -474,4 +475,47 @@ public class RecordHandlingTest {
             assertEquals(now.truncatedTo(ChronoUnit.SECONDS), dto.timestamp);
         }
     }
+
+    @Test
+    void testReusedConfiguration() throws Exception {
+        final DeviceMappingConfigurationDTO config = prepareConfig();
+
+        // Several records sharing the same mapping
+        parser.setRecords(List.of(new MapRecord(Map.of("p", "p1", "val", 1, "date", "2024-01-02")),
+                new MapRecord(Map.of("p", "p2", "val", 2, "date", "2024-01-03"))));
+
+        config.mapping.put("@provider", "p");
+        config.mapping.put("@date", "date");
+        config.mapping.put("data/value", "val");
+        config.mappingOptions.dateTimezone = "+01";
+        deviceMapper.handle(config, Map.of(), new byte[0]);
+
+        assertEquals(1, getResourceValue("p1", "data", "value", Integer.class));
+        assertEquals(2, getResourceValue("p2", "data", "value", Integer.class));
+        assertEquals(OffsetDateTime.of(2024, 1, 3, 0, 0, 0, 0, ZoneOffset.ofHours(1)).toInstant(),
+                getResourceValue("p2", "data", "value").timestamp);
+
+        // Same configuration, new payload
+        bulks.clear();
+        parser.setRecords(Map.of("p", "p3", "val", 3, "date", "04/01/2024"));
+        config.mappingOptions.formatDate = "dd/MM/yyyy";
+        deviceMapper.handle(config, Map.of(), new byte[0]);
+        assertEquals(3, getResourceValue("p3", "data", "value", Integer.class));
+        assertEquals(OffsetDateTime.of(2024, 1, 4, 0, 0, 0, 0, ZoneOffset.ofHours(1)).toInstant(),
+                getResourceValue("p3", "data", "value").timestamp);
+
+        // Updated mapping
+        bulks.clear();
+        config.mapping.put("data/other", "val");
+        deviceMapper.handle(config, Map.of(), new byte[0]);
+        assertEquals(3, getResourceValue("p3", "data", "other", Integer.class));
+
+        // Same configuration, new context
+        bulks.clear();
+        config.mapping.put("data/${context.rc}", "val");
+        deviceMapper.handle(config, Map.of("rc", "a"), new byte[0]);
+        deviceMapper.handle(config, Map.of("rc", "b"), new byte[0]);
+        assertEquals(3, getResourceValue("p3", "data", "a", Integer.class));
+        assertEquals(3, getResourceValue("p3", "data", "b", Integer.class));
+    }
 }
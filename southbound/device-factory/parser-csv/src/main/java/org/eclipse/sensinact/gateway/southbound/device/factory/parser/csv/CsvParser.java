@@ -16,9 +16,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +29,7 @@ import org.apache.commons.csv.CSVRecord;
 import org.eclipse.sensinact.gateway.southbound.device.factory.EncodingUtils;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingParser;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecord;
+import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecordReader;
 import org.eclipse.sensinact.gateway.southbound.device.factory.ParserException;
 import org.osgi.service.component.annotations.Component;
 
@@ -41,6 +43,15 @@ public class CsvParser implements IDeviceMappingParser {
     @Override
     public List<? extends IDeviceMappingRecord> parseRecords(byte[] rawInput, Map<String, Object> parserConfiguration,
             Map<String, String> context) throws ParserException {
+        try (IDeviceMappingRecordReader reader = readRecords(new ByteArrayInputStream(rawInput), parserConfiguration,
+                context)) {
+            return reader.readAll();
+        }
+    }
+
+    @Override
+    public IDeviceMappingRecordReader readRecords(InputStream rawInput, Map<String, Object> parserConfiguration,
+            Map<String, String> context) throws ParserException {
 
         // Read CSV file
         final Charset charset;
@@ -52,10 +63,14 @@ public class CsvParser implements IDeviceMappingParser {
         }
 
         final InputStream input;
-        if (StandardCharsets.UTF_8.equals(charset) && rawInput.length > 3) {
-            input = EncodingUtils.removeBOM(rawInput);
-        } else {
-            input = new ByteArrayInputStream(rawInput);
+        try {
+            if (StandardCharsets.UTF_8.equals(charset)) {
+                input = EncodingUtils.removeBOM(rawInput);
+            } else {
+                input = rawInput;
+            }
+        } catch (IOException e) {
+            throw new ParserException("Error reading CSV content", e);
         }
 
         // Prepare parser
@@ -74,14 +89,29 @@ public class CsvParser implements IDeviceMappingParser {
             format = format.setHeader().setSkipHeaderRecord(true);
         }
 
-        final List<CsvRecord> records = new ArrayList<>();
-        try (CSVParser parser = format.build().parse(new InputStreamReader(input, charset))) {
-            for (CSVRecord record : parser) {
-                records.add(new CsvRecord(record, withHeader != null && !withHeader));
-            }
-        } catch (IllegalStateException | IOException e) {
+        final boolean columnIndexOnly = withHeader != null && !withHeader;
+        final Iterator<CSVRecord> iterator;
+        try {
+            // The parser is not closed as the input stream belongs to the caller
+            final CSVParser parser = format.build().parse(new InputStreamReader(input, charset));
+            iterator = parser.iterator();
+        } catch (IllegalStateException | IllegalArgumentException | IOException | UncheckedIOException e) {
             throw new ParserException("Error reading CSV content", e);
         }
-        return records;
+
+        return new IDeviceMappingRecordReader() {
+            @Override
+            public IDeviceMappingRecord next() throws ParserException {
+                try {
+                    return iterator.hasNext() ? new CsvRecord(iterator.next(), columnIndexOnly) : null;
+                } catch (IllegalStateException | UncheckedIOException e) {
+                    throw new ParserException("Error reading CSV content", e);
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
     }
 }
@@ -59,7 +59,8 @@ public class CSVParserTest {
     void start() throws InterruptedException {
         deviceMapper = new FactoryParserHandler();
         deviceMapper.dataUpdate = Mockito.mock(DataUpdate.class);
-        deviceMapper.metrics = Mockito.mock(IMetricsManager.class);
+        deviceMapper.metrics = Mockito.mock(IMetricsManager.class, Mockito.RETURNS_MOCKS);
+        deviceMapper.activate();
 
         Mockito.when(deviceMapper.dataUpdate.pushUpdate(Mockito.any())).thenAnswer(i -> {
             final BulkGenericDto dto = i.getArgument(0, BulkGenericDto.class);
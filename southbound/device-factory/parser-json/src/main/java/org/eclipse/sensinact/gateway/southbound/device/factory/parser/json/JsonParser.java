@@ -13,23 +13,28 @@
 package org.eclipse.sensinact.gateway.southbound.device.factory.parser.json;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.sensinact.gateway.southbound.device.factory.EncodingUtils;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingParser;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecord;
+import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecordReader;
 import org.eclipse.sensinact.gateway.southbound.device.factory.ParserException;
 import org.osgi.service.component.annotations.Component;
 
 import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.StreamReadFeature;
+import tools.jackson.databind.DeserializationFeature;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 
 /**
  * JSON parser provider
@@ -39,13 +44,24 @@ import tools.jackson.databind.ObjectMapper;
 public class JsonParser implements IDeviceMappingParser {
 
     /**
-     * Object mapper
+     * Object mapper, reading records one by one from an input stream that belongs
+     * to the caller
      */
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectMapper objectMapper = JsonMapper.builder().disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .disable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS).build();
 
     @Override
     public List<? extends IDeviceMappingRecord> parseRecords(byte[] rawInput, Map<String, Object> parserConfiguration,
             final Map<String, String> context) throws ParserException {
+        try (IDeviceMappingRecordReader reader = readRecords(new ByteArrayInputStream(rawInput), parserConfiguration,
+                context)) {
+            return reader.readAll();
+        }
+    }
+
+    @Override
+    public IDeviceMappingRecordReader readRecords(final InputStream input, final Map<String, Object> parserConfiguration,
+            final Map<String, String> context) throws ParserException {
 
         // Configured base entry
         String base = (String) parserConfiguration.get("base");
@@ -53,77 +69,152 @@ public class JsonParser implements IDeviceMappingParser {
             base = null;
         }
 
+        tools.jackson.core.JsonParser parser = null;
         try {
             // Use the configured encoding
             final String strEncoding = (String) parserConfiguration.get("encoding");
-            final JsonNode root;
             if (strEncoding != null && !strEncoding.isBlank()) {
                 final Charset charset = Charset.forName(strEncoding);
                 final InputStream is;
-                if (StandardCharsets.UTF_8.equals(charset) && rawInput.length > 3) {
-                    is = EncodingUtils.removeBOM(rawInput);
+                if (StandardCharsets.UTF_8.equals(charset)) {
+                    is = EncodingUtils.removeBOM(input);
                 } else {
-                    is = new ByteArrayInputStream(rawInput);
+                    is = input;
                 }
-                root = objectMapper.readValue(new InputStreamReader(is, charset), JsonNode.class);
+                parser = objectMapper.createParser(new InputStreamReader(is, charset));
             } else {
-                root = objectMapper.readValue(rawInput, JsonNode.class);
+                parser = objectMapper.createParser(input);
             }
 
-            return parseRecords(root, base);
+            parser.nextToken();
+            walkToBase(parser, base);
+            return makeReader(parser);
         } catch (IllegalArgumentException e) {
+            close(parser);
             throw new ParserException("Invalid JSON input", e);
-        } catch (JacksonException e) {
+        } catch (JacksonException | IOException e) {
+            close(parser);
             throw new ParserException("Error parsing JSON input", e);
+        } catch (ParserException e) {
+            close(parser);
+            throw e;
         }
     }
 
-    private JsonNode getPath(JsonNode node, String pathPart) {
-
-        if (node.isArray()) {
-            return node.get(Integer.valueOf(pathPart));
+    private void close(final tools.jackson.core.JsonParser parser) {
+        if (parser != null) {
+            parser.close();
         }
-
-        return node.get(pathPart);
     }
 
     /**
-     * Creates records based on the parsed JSON node
+     * Moves the parser to the value at the given base path, skipping the other
+     * values
      *
-     * @param root JSON root object/array
-     * @param base Base path to access the record(s)
-     * @return The list of parsed records
-     * @throws ParserException Error reading input
+     * @param parser JSON parser, on the root value
+     * @param base   Base path to access the record(s)
+     * @throws ParserException Base path not found
      */
-    private List<JsonRecord> parseRecords(final JsonNode root, final String base) throws ParserException {
-
-        final JsonNode subRoot;
+    private void walkToBase(final tools.jackson.core.JsonParser parser, final String base) throws ParserException {
         if (base == null) {
-            subRoot = root;
-        } else {
-            // Walk to the base
-            final String[] parts = base.split("/");
+            return;
+        }
 
-            JsonNode current = root;
-            for (String part : parts) {
-                if (!part.isBlank()) {
-                    current = getPath(current, part);
+        for (String part : base.split("/")) {
+            if (part.isBlank()) {
+                continue;
+            }
+
+            final JsonToken token = parser.currentToken();
+            boolean found = false;
+            if (token == JsonToken.START_ARRAY) {
+                final int index = Integer.valueOf(part);
+                for (int i = 0; !found && parser.nextToken() != JsonToken.END_ARRAY; i++) {
+                    if (i == index) {
+                        found = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                String name;
+                while (!found && (name = parser.nextName()) != null) {
+                    parser.nextToken();
+                    if (name.equals(part)) {
+                        found = true;
+                    } else {
+                        parser.skipChildren();
+                    }
                 }
             }
 
-            subRoot = current;
+            if (!found) {
+                throw new ParserException("Base path not found in JSON input: " + base);
+            }
         }
+    }
 
-        if (subRoot.isObject()) {
-            return List.of(new JsonRecord(objectMapper, subRoot));
-        } else if (subRoot.isArray()) {
-            final List<JsonRecord> result = new ArrayList<>(subRoot.size());
-            for (JsonNode child : subRoot) {
-                result.add(new JsonRecord(objectMapper, child));
-            }
-            return result;
+    /**
+     * Creates the reader of records based on the current JSON value
+     *
+     * @param parser JSON parser, on the base value
+     * @return The record reader
+     * @throws ParserException Unsupported content
+     */
+    private IDeviceMappingRecordReader makeReader(final tools.jackson.core.JsonParser parser) throws ParserException {
+        final JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            final JsonRecord record = new JsonRecord(objectMapper, objectMapper.readTree(parser));
+            return new IDeviceMappingRecordReader() {
+                private boolean read;
+
+                @Override
+                public IDeviceMappingRecord next() {
+                    if (read) {
+                        return null;
+                    }
+                    read = true;
+                    return record;
+                }
+
+                @Override
+                public void close() {
+                    parser.close();
+                }
+            };
+        } else if (token == JsonToken.START_ARRAY) {
+            return new IDeviceMappingRecordReader() {
+                private boolean done;
+
+                @Override
+                public IDeviceMappingRecord next() throws ParserException {
+                    if (done) {
+                        return null;
+                    }
+
+                    try {
+                        if (parser.nextToken() == JsonToken.END_ARRAY) {
+                            done = true;
+                            return null;
+                        }
+                        final JsonNode child = objectMapper.readTree(parser);
+                        return new JsonRecord(objectMapper, child);
+                    } catch (IllegalArgumentException e) {
+                        done = true;
+                        throw new ParserException("Invalid JSON input", e);
+                    } catch (JacksonException e) {
+                        done = true;
+                        throw new ParserException("Error parsing JSON input", e);
+                    }
+                }
+
+                @Override
+                public void close() {
+                    parser.close();
+                }
+            };
         } else {
-            throw new ParserException("Unsupported JSON content: " + subRoot.getNodeType());
+            throw new ParserException("Unsupported JSON content: " + token);
         }
     }
 }
@@ -58,7 +58,8 @@ public class JSONParserTest {
     void start() throws InterruptedException {
         deviceMapper = new FactoryParserHandler();
         deviceMapper.dataUpdate = Mockito.mock(DataUpdate.class);
-        deviceMapper.metrics = Mockito.mock(IMetricsManager.class);
+        deviceMapper.metrics = Mockito.mock(IMetricsManager.class, Mockito.RETURNS_MOCKS);
+        deviceMapper.activate();
 
         Mockito.when(deviceMapper.dataUpdate.pushUpdate(Mockito.any())).thenAnswer(i -> {
             final BulkGenericDto dto = i.getArgument(0, BulkGenericDto.class);
@@ -391,4 +392,30 @@ public class JSONParserTest {
         assertEquals(2.350484, geoPoint.coordinates().longitude(), 0.001);
         assertTrue(Double.isNaN(geoPoint.coordinates().elevation()));
     }
+
+    /**
+     * Mapping a JSON stream, sending updates by chunks
+     */
+    @Test
+    void testStreamedRecords() throws Exception {
+        // Read the configuration
+        DeviceMappingConfigurationDTO config = readConfiguration("json/deep-multiple-mapping.json");
+        config.mappingOptions.bulkSize = 1;
+
+        // Apply mapping while reading the file
+        try (InputStream inStream = getClass().getClassLoader().getResourceAsStream("json/deep-multiple.json")) {
+            deviceMapper.handle(config, Map.of(), inStream);
+        }
+
+        // The updates of each record have been sent separately
+        assertTrue(bulks.size() > 1);
+
+        // Same content as the fully read file
+        final List<GenericDto> streamed = bulks.stream().flatMap(b -> b.dtos.stream()).toList();
+        bulks.clear();
+        deviceMapper.handle(readConfiguration("json/deep-multiple-mapping.json"), Map.of(),
+                readFile("json/deep-multiple.json"));
+        assertEquals(1, bulks.size());
+        assertEquals(bulks.get(0).dtos.size(), streamed.size());
+    }
 }
@@ -12,6 +12,7 @@
 **********************************************************************/
 package org.eclipse.sensinact.gateway.southbound.history.api;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
 
@@ -51,6 +52,14 @@ public interface HistoricalQueries {
      * the query then the 501st result will be empty (null timestamp and value) to
      * indicate that an additional query is needed to see the full dataset.
      *
+     * The following pages are best queried with a <code>cursor</code> rather than
+     * with <code>skip</code>, as the cost of a query using a cursor does not
+     * depend on the number of values already read. A cursor is written as
+     * <code>&lt;timestamp&gt;;&lt;count&gt;</code>, where the timestamp is the
+     * ISO-8601 timestamp of the last value received (of the first one if
+     * <code>fromTime</code> is <code>null</code>), and the count is the number of
+     * values with this timestamp received so far.
+     *
      * @param provider
      * @param service
      * @param resource
@@ -61,6 +70,10 @@ public interface HistoricalQueries {
      * @param skip     the number of values to skip in the result set. If fromTime
      *                 is <code>null</code> then this will be skipped from the end
      *                 not the start of the results.
+     * @param cursor   the position to continue from, applied before
+     *                 <code>skip</code>. If <code>null</code> then the results
+     *                 start at <code>fromTime</code> (or end at
+     *                 <code>toTime</code>)
      * @return A {@link List&lt;TimedValue&gt;} of results in chronological order.
      *         There will be a maximum of 500 data values in the list. If a from
      *         time is provided and more than 500 data points exist then the 501st
@@ -70,7 +83,8 @@ public interface HistoricalQueries {
     @ACT(model = "sensiNactHistory", service = "history", resource = "range")
     List<TimedValue<?>> getValueRange(@ActParam("provider") String provider, @ActParam("service") String service,
             @ActParam("resource") String resource, @ActParam("fromTime") ZonedDateTime fromTime,
-            @ActParam("toTime") ZonedDateTime toTime, @ActParam("skip") Integer skip);
+            @ActParam("toTime") ZonedDateTime toTime, @ActParam("skip") Integer skip,
+            @ActParam("cursor") String cursor);
 
     /**
      * Get the number of stored values for a given resource
@@ -88,4 +102,39 @@ public interface HistoricalQueries {
     Long getStoredValueCount(@ActParam("provider") String provider, @ActParam("service") String service,
             @ActParam("resource") String resource, @ActParam("fromTime") ZonedDateTime fromTime,
             @ActParam("toTime") ZonedDateTime toTime);
+
+    /**
+     * Return the values of a resource aggregated per time bucket between the
+     * given times, computed by the store rather than by fetching the raw values.
+     *
+     * The supported aggregation functions are <code>avg</code>, <code>min</code>
+     * and <code>max</code>, for numeric values only, and <code>count</code>,
+     * <code>first</code> and <code>last</code>, for any value.
+     *
+     * Buckets without any value are omitted. As for
+     * {@link #getValueRange(String, String, String, ZonedDateTime, ZonedDateTime, Integer, String)}
+     * a maximum of 500 buckets will be returned. If a from time is provided and
+     * more buckets exist then the 501st result will be empty (null timestamp and
+     * value) to indicate that an additional query is needed. If no bucket width is
+     * given then it is computed so that the whole range fits in 500 buckets.
+     *
+     * @param provider
+     * @param service
+     * @param resource
+     * @param function the aggregation function
+     * @param bucket   the width of the time buckets. If <code>null</code> then
+     *                 <code>fromTime</code> must be set
+     * @param fromTime the time to start from. If <code>null</code> then the latest
+     *                 buckets before <code>toTime</code> will be returned
+     * @param toTime   the time to finish at. If <code>null</code> then there is no
+     *                 finishing time limit.
+     * @return A {@link List&lt;TimedValue&gt;} of results in chronological order,
+     *         with the start of the bucket as timestamp and the aggregated value
+     *         as value
+     */
+    @ACT(model = "sensiNactHistory", service = "history", resource = "aggregate")
+    List<TimedValue<?>> getAggregatedValues(@ActParam("provider") String provider, @ActParam("service") String service,
+            @ActParam("resource") String resource, @ActParam("function") String function,
+            @ActParam("bucket") Duration bucket, @ActParam("fromTime") ZonedDateTime fromTime,
+            @ActParam("toTime") ZonedDateTime toTime);
 }
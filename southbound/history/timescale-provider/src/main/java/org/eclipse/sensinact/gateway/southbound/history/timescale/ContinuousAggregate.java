@@ -0,0 +1,120 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.timescale;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleHistoricalStore.Config;
+
+/**
+ * A TimescaleDB continuous aggregate of the numeric data, maintaining the sum,
+ * count, minimum and maximum of the values of each resource per time bucket
+ *
+ * @param view          the name of the materialized view
+ * @param bucketSeconds the width of the buckets in seconds
+ * @param resources     the covered resources, as
+ *                      <code>provider/service/resource</code>, or an empty set
+ *                      if all the resources are covered
+ */
+record ContinuousAggregate(String view, long bucketSeconds, Set<String> resources) {
+
+    /**
+     * Parses the continuous aggregates from the configuration
+     *
+     * @param config the history store configuration
+     * @return the configured continuous aggregates, largest buckets first
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    static List<ContinuousAggregate> fromConfig(Config config) {
+        Set<String> resources = new TreeSet<>();
+        for (String r : config.continuous_aggregate_resources()) {
+            if (r.split("/", -1).length != 3) {
+                throw new IllegalArgumentException(
+                        "Invalid continuous aggregate resource " + r + ", expected provider/service/resource");
+            }
+            resources.add(r);
+        }
+
+        // Each selection of resources gets its own views, as the definition of an
+        // existing view can't be changed
+        String suffix = resources.isEmpty() ? ""
+                : "_" + Integer.toHexString(String.join("\n", resources).hashCode());
+
+        List<ContinuousAggregate> aggregates = new ArrayList<>();
+        for (String width : config.continuous_aggregates()) {
+            long seconds;
+            try {
+                seconds = Duration.parse(width).getSeconds();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid continuous aggregate bucket width " + width, e);
+            }
+            if (seconds < 1) {
+                throw new IllegalArgumentException("Continuous aggregate buckets must be at least one second: " + width);
+            }
+            aggregates.add(new ContinuousAggregate("sensinact.numeric_data_" + seconds + "s" + suffix, seconds,
+                    Set.copyOf(resources)));
+        }
+        aggregates.sort((a, b) -> Long.compare(b.bucketSeconds, a.bucketSeconds));
+        return List.copyOf(aggregates);
+    }
+
+    /**
+     * @return the statement creating the view if needed. The view is created
+     *         without data, which is materialized by the refresh policy
+     */
+    String createStatement() {
+        String where = resources.isEmpty() ? ""
+                : resources.stream().map(r -> r.split("/", -1))
+                        .map(r -> "('" + escape(r[0]) + "', '" + escape(r[1]) + "', '" + escape(r[2]) + "')")
+                        .collect(Collectors.joining(", ", " WHERE (provider, service, resource) IN (", ")"));
+        // Not materialized-only so that the buckets not refreshed yet are computed
+        // from the raw data
+        return "CREATE MATERIALIZED VIEW IF NOT EXISTS " + view
+                + " WITH (timescaledb.continuous, timescaledb.materialized_only = false) AS SELECT time_bucket(INTERVAL '"
+                + bucketSeconds + " seconds', time) AS bucket, provider, service, resource, SUM(data) AS total, "
+                + "COUNT(data) AS samples, MIN(data) AS minimum, MAX(data) AS maximum FROM sensinact.numeric_data"
+                + where + " GROUP BY bucket, provider, service, resource WITH NO DATA;";
+    }
+
+    /**
+     * @return the statement adding the refresh policy of the view if needed. The
+     *         bucket in progress is left to the real-time aggregation
+     */
+    String policyStatement() {
+        return "SELECT add_continuous_aggregate_policy('" + view + "', start_offset => NULL, end_offset => INTERVAL '"
+                + bucketSeconds + " seconds', schedule_interval => INTERVAL '" + Math.min(bucketSeconds, 3600)
+                + " seconds', if_not_exists => TRUE);";
+    }
+
+    /**
+     * @param provider
+     * @param service
+     * @param resource
+     * @param bucket   the width of the requested buckets in seconds
+     * @return true if the requested buckets can be computed from this aggregate
+     */
+    boolean canServe(String provider, String service, String resource, long bucket) {
+        return bucket % bucketSeconds == 0
+                && (resources.isEmpty() || resources.contains(provider + "/" + service + "/" + resource));
+    }
+
+    private static String escape(String s) {
+        return s.replace("'", "''");
+    }
+}
@@ -12,26 +12,47 @@
 **********************************************************************/
 package org.eclipse.sensinact.gateway.southbound.history.timescale;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.notification.ResourceDataNotification;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.twin.DefaultTimedValue;
 import org.eclipse.sensinact.core.twin.TimedValue;
 import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 import org.eclipse.sensinact.gateway.southbound.history.api.HistoricalQueries;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleHistoricalStore.Config;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleHistoricalStore.OverflowPolicy;
 import org.osgi.service.transaction.control.TransactionControl;
 import org.osgi.service.typedevent.TypedEventHandler;
 import org.slf4j.Logger;
@@ -44,83 +65,178 @@ import tools.jackson.databind.ObjectMapper;
 
 public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNotification>, HistoricalQueries {
 
-    private static final String INSERT_TEMPLATE = "INSERT INTO %s ( time, modelpackageuri, model, provider, service, resource, data ) values ( ?, ?, ?, ?, ?, ?, %s );";
+    private static final String INSERT_TEMPLATE = "INSERT INTO %s ( time, modelpackageuri, model, provider, service, resource, data ) values ( ?, ?, ?, ?, ?, ?, %s )";
+
+    /**
+     * The tables storing the data updates
+     */
+    private enum Table {
+        NUMERIC("sensinact.numeric_data", "?", "data AS num, NULL AS text, NULL AS geo", "data"),
+        TEXT("sensinact.text_data", "?", "NULL AS num, data AS text, NULL AS geo", "data"),
+        GEO("sensinact.geo_data", "(SELECT ST_GeomFromGeoJSON( ? )::geography)",
+                "NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo", "ST_AsGeoJSON(data)");
+
+        final String table;
+        final String insert;
+        /**
+         * The selected data columns, as expected by {@link TimescaleDatabaseWorker#toTimedValue(ResultSet)}
+         */
+        final String columns;
+        /**
+         * The expression ordering the values stored at the same time, consistent
+         * with the ordering of the selected data columns
+         */
+        final String sortKey;
+
+        Table(String name, String value, String columns, String sortKey) {
+            this.table = name;
+            this.insert = String.format(INSERT_TEMPLATE, name, value);
+            this.columns = columns;
+            this.sortKey = sortKey;
+        }
+    }
 
-    private static final String SINGLE_TEMPLATE = "SELECT time, num, text, geo FROM ( "
-            + "( SELECT time, data AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ORDER BY time DESC LIMIT 1 ) "
+    /**
+     * Finds the tables holding data of a resource, using the table ordinals
+     */
+    private static final String PROBE_TEMPLATE = Arrays.stream(Table.values())
+            .map(t -> "( SELECT " + t.ordinal() + " FROM " + t.table
+                    + " WHERE provider = ? AND service = ? AND resource = ? LIMIT 1 )")
+            .collect(Collectors.joining(" UNION ALL ")) + ";";
+
+    /**
+     * The order of the query results, values stored at the same time being
+     * sorted by value to make the continuation cursors deterministic
+     */
+    private static final String RESULT_ORDER = "time %1$s, num %1$s, text %1$s, geo %1$s";
+
+    /**
+     * The conditions of the aggregation queries, with optional time limits
+     */
+    private static final String AGGREGATE_WHERE = "WHERE provider = ? AND service = ? AND resource = ? "
+            + "AND time >= COALESCE(?, '-infinity'::timestamptz) AND time <= COALESCE(?, 'infinity'::timestamptz)";
+
+    private static final String AGGREGATE_NUMERIC_TEMPLATE = "SELECT time_bucket(make_interval(secs => ?), time) AS time, %1$s(data) AS num, NULL AS text, NULL AS geo "
+            + "FROM sensinact.numeric_data " + AGGREGATE_WHERE + " GROUP BY 1 ORDER BY 1 %2$s LIMIT ?;";
+
+    private static final String AGGREGATE_COUNT_TEMPLATE = "SELECT time, SUM(c) AS num, NULL AS text, NULL AS geo FROM ( "
+            + "( SELECT time_bucket(make_interval(secs => ?), time) AS time, COUNT(time) AS c FROM sensinact.numeric_data " + AGGREGATE_WHERE + " GROUP BY 1 ) "
             + "UNION ALL "
-            + "( SELECT time, NULL AS num, data AS text, NULL AS geo FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ORDER BY time DESC LIMIT 1 ) "
+            + "( SELECT time_bucket(make_interval(secs => ?), time) AS time, COUNT(time) AS c FROM sensinact.text_data " + AGGREGATE_WHERE + " GROUP BY 1 ) "
             + "UNION ALL "
-            + "( SELECT time, NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ORDER BY time DESC LIMIT 1 ) "
-            + ") results ORDER BY time DESC LIMIT 1;";
-    private static final String SINGLE_TEMPLATE_WITHOUT_TIME = "SELECT time, num, text, geo FROM ( "
-            + "( SELECT time, data AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? ORDER BY time ASC LIMIT 1 ) "
-            + "UNION ALL "
-            + "( SELECT time, NULL AS num, data AS text, NULL AS geo FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? ORDER BY time ASC LIMIT 1 ) "
-            + "UNION ALL "
-            + "( SELECT time, NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? ORDER BY time ASC LIMIT 1 ) "
-            + ") results ORDER BY time DESC LIMIT 1;";
+            + "( SELECT time_bucket(make_interval(secs => ?), time) AS time, COUNT(time) AS c FROM sensinact.geo_data " + AGGREGATE_WHERE + " GROUP BY 1 ) "
+            + ") results GROUP BY 1 ORDER BY 1 %2$s LIMIT ?;";
 
-    private static final String RANGE_TEMPLATE = "SELECT time, num, text, geo FROM ( "
-            + "( SELECT time, data AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? AND time >= ? ORDER BY time ASC ) "
-            + "UNION ALL "
-            + "( SELECT time, NULL AS num, data AS text, NULL AS geo FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? AND time >= ? ORDER BY time ASC ) "
+    private static final String AGGREGATE_SELECT_TEMPLATE = "SELECT time, num, text, geo FROM ( "
+            + "( SELECT time_bucket(make_interval(secs => ?), time) AS time, %1$s(data, time) AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data " + AGGREGATE_WHERE + " GROUP BY 1 ) "
             + "UNION ALL "
-            + "( SELECT time, NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? AND time >= ? ORDER BY time ASC ) "
-            + ") results ORDER BY time ASC OFFSET ? LIMIT 501;";
-    private static final String RANGE_TEMPLATE_WITHOUT_LIMIT = "SELECT time, num, text, geo FROM ( "
-            + "( SELECT time, data AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time >= ? ORDER BY time ASC ) "
+            + "( SELECT time_bucket(make_interval(secs => ?), time) AS time, NULL AS num, %1$s(data, time) AS text, NULL AS geo FROM sensinact.text_data " + AGGREGATE_WHERE + " GROUP BY 1 ) "
             + "UNION ALL "
-            + "( SELECT time, NULL AS num, data AS text, NULL AS geo FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? AND time >= ? ORDER BY time ASC ) "
-            + "UNION ALL "
-            + "( SELECT time, NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? AND time >= ? ORDER BY time ASC ) "
-            + ") results ORDER BY time ASC OFFSET ? LIMIT 501;";
-    private static final String RANGE_TEMPLATE_WITHOUT_START = "SELECT reverse.* from ( SELECT time, num, text, geo FROM ( "
-            + "( SELECT time, data AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ORDER BY time DESC ) "
-            + "UNION ALL "
-            + "( SELECT time, NULL AS num, data AS text, NULL AS geo FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ORDER BY time DESC ) "
-            + "UNION ALL "
-            + "( SELECT time, NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ORDER BY time DESC ) "
-            + ") results ORDER BY time DESC OFFSET ? LIMIT 500 ) reverse ORDER BY time ASC;";
-    private static final String RANGE_TEMPLATE_WITHOUT_START_OR_LIMIT = "SELECT reverse.* from ( SELECT time, num, text, geo FROM ( "
-            + "( SELECT time, data AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? ORDER BY time DESC) "
-            + "UNION ALL "
-            + "( SELECT time, NULL AS num, data AS text, NULL AS geo FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? ORDER BY time DESC ) "
-            + "UNION ALL "
-            + "( SELECT time, NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? ORDER BY time DESC ) "
-            + ") results ORDER BY time DESC OFFSET ? LIMIT 500 ) reverse ORDER BY time ASC;";
+            + "( SELECT time_bucket(make_interval(secs => ?), time) AS time, NULL AS num, NULL AS text, ST_AsGeoJSON(%1$s(data, time)) AS geo FROM sensinact.geo_data " + AGGREGATE_WHERE + " GROUP BY 1 ) "
+            + ") results ORDER BY 1 %2$s LIMIT ?;";
+
+    /**
+     * Re-aggregates the buckets of a continuous aggregate. The bucket containing
+     * the start time is included entirely.
+     */
+    private static final String AGGREGATE_CONTINUOUS_TEMPLATE = "SELECT time_bucket(make_interval(secs => ?), bucket) AS time, %1$s AS num, NULL AS text, NULL AS geo "
+            + "FROM %3$s WHERE provider = ? AND service = ? AND resource = ? "
+            + "AND bucket >= COALESCE(time_bucket(make_interval(secs => ?), ?::timestamptz), '-infinity'::timestamptz) "
+            + "AND bucket <= COALESCE(?, 'infinity'::timestamptz) GROUP BY 1 ORDER BY 1 %2$s LIMIT ?;";
+
+    /**
+     * The maximum number of buckets returned by an aggregation query
+     */
+    private static final int MAX_BUCKETS = 500;
+
+    /**
+     * The aggregation functions of the aggregation queries
+     */
+    private enum Aggregation {
+        AVG(AGGREGATE_NUMERIC_TEMPLATE, "avg", "SUM(total) / NULLIF(SUM(samples), 0)"),
+        MIN(AGGREGATE_NUMERIC_TEMPLATE, "min", "MIN(minimum)"),
+        MAX(AGGREGATE_NUMERIC_TEMPLATE, "max", "MAX(maximum)"),
+        COUNT(AGGREGATE_COUNT_TEMPLATE, null, null),
+        FIRST(AGGREGATE_SELECT_TEMPLATE, "first", null),
+        LAST(AGGREGATE_SELECT_TEMPLATE, "last", null);
+
+        final String ascending;
+        final String descending;
+        /**
+         * The expression computing the aggregate from a continuous aggregate, null
+         * if not supported
+         */
+        final String continuous;
+
+        Aggregation(String template, String function, String continuous) {
+            this.ascending = String.format(template, function, "ASC");
+            this.descending = String.format(template, function, "DESC");
+            this.continuous = continuous;
+        }
 
-    private static final String COUNT_TEMPLATE = "SELECT SUM(c) FROM ( "
-            + "( SELECT COUNT(time) as c FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? AND time >= ? ) "
-            + "UNION ALL "
-            + "( SELECT COUNT(time) as c FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? AND time >= ? ) "
-            + "UNION ALL "
-            + "( SELECT COUNT(time) as c FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? AND time >= ? ) "
-            + ") results;";
-    private static final String COUNT_TEMPLATE_WITHOUT_LIMIT = "SELECT SUM(c) FROM ( "
-            + "( SELECT COUNT(time) as c FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time >= ? ) "
-            + "UNION ALL "
-            + "( SELECT COUNT(time) as c FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? AND time >= ? ) "
-            + "UNION ALL "
-            + "( SELECT COUNT(time) as c FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? AND time >= ? ) "
-            + ") results;";
-    private static final String COUNT_TEMPLATE_WITHOUT_START = "SELECT SUM(c) FROM ( "
-            + "( SELECT COUNT(time) as c FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ) "
-            + "UNION ALL "
-            + "( SELECT COUNT(time) as c FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ) "
-            + "UNION ALL "
-            + "( SELECT COUNT(time) as c FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ) "
-            + ") results;";
-    private static final String COUNT_TEMPLATE_WITHOUT_START_OR_LIMIT = "SELECT SUM(c) FROM ( "
-            + "( SELECT COUNT(time) as c FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? ) "
-            + "UNION ALL "
-            + "( SELECT COUNT(time) as c FROM sensinact.text_data WHERE provider = ? AND service = ? AND resource = ? ) "
-            + "UNION ALL "
-            + "( SELECT COUNT(time) as c FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? ) "
-            + ") results;";
+        /**
+         * @return true if the query is on the numeric data only
+         */
+        boolean numericOnly() {
+            return continuous != null;
+        }
+
+        static Aggregation parse(String function) {
+            if (function == null) {
+                throw new IllegalArgumentException("No aggregation function given");
+            }
+            try {
+                return valueOf(function.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported aggregation function " + function
+                        + ", expected one of avg, min, max, count, first or last");
+            }
+        }
+    }
 
     private static final Logger logger = LoggerFactory.getLogger(TimescaleDatabaseWorker.class);
 
+    private record ResourceKey(String provider, String service, String resource) {
+    }
+
+    /**
+     * The tables known to hold data of a resource
+     *
+     * @param probed true if the tables were looked up in the database, false if
+     *               they are only known from the updates received
+     * @param tables the tables holding data of the resource
+     */
+    private record Route(boolean probed, Set<Table> tables) {
+        Route merge(Route other) {
+            EnumSet<Table> merged = EnumSet.noneOf(Table.class);
+            merged.addAll(tables);
+            merged.addAll(other.tables);
+            return new Route(probed || other.probed, Collections.unmodifiableSet(merged));
+        }
+    }
+
+    /**
+     * A position in the values of a resource
+     *
+     * @param time  the timestamp of the last value received
+     * @param count the number of values with this timestamp received so far
+     */
+    private record Cursor(Instant time, int count) {
+        static Cursor parse(String token) {
+            int idx = token.lastIndexOf(';');
+            try {
+                Cursor cursor = new Cursor(Instant.parse(token.substring(0, idx)),
+                        Integer.parseInt(token.substring(idx + 1)));
+                if (cursor.count >= 0) {
+                    return cursor;
+                }
+            } catch (RuntimeException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Invalid history cursor " + token);
+        }
+    }
+
     private final TransactionControl txControl;
 
     private final Supplier<Connection> connectionSupplier;
@@ -132,12 +248,77 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
 
     private final Predicate<ResourceDataNotification> exclude;
 
+    /**
+     * The data updates waiting to be written
+     */
+    private final BlockingQueue<PendingUpdate> queue;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final int batchSize;
+
+    private final long batchDelayNanos;
+
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    private final IMetricCounter queueCounter;
+    private final IMetricCounter droppedCounter;
+    private final IMetricsHistogram batchSizeHistogram;
+    private final IMetricTimerHandle flushTimer;
+
+    /**
+     * The tables holding the data of the most recently used resources, so that
+     * queries only hit the relevant tables
+     */
+    private final Map<ResourceKey, Route> routes;
+
+    /**
+     * The continuous aggregates, largest buckets first
+     */
+    private final List<ContinuousAggregate> aggregates;
+
     public TimescaleDatabaseWorker(TransactionControl txControl, Supplier<Connection> connectionSupplier,
-            ICriterion include, ICriterion exclude) {
+            ICriterion include, ICriterion exclude, IMetricsManager metrics, Config config,
+            List<ContinuousAggregate> aggregates) {
         this.txControl = txControl;
+        this.aggregates = aggregates;
         this.connectionSupplier = connectionSupplier;
         this.include = include.dataEventFilter();
         this.exclude = exclude == null ? x -> Boolean.FALSE : exclude.dataEventFilter();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.queue_capacity()));
+        this.overflowPolicy = config.queue_overflow() == null ? OverflowPolicy.BLOCK : config.queue_overflow();
+        this.batchSize = Math.max(1, config.batch_size());
+        this.batchDelayNanos = MILLISECONDS.toNanos(Math.max(1, config.batch_delay_ms()));
+        this.queueCounter = metrics.getCounter("sensinact.history.timescale.queue");
+        this.droppedCounter = metrics.getCounter("sensinact.history.timescale.dropped");
+        this.batchSizeHistogram = metrics.getHistogram("sensinact.history.timescale.batch.size");
+        this.flushTimer = metrics.getTimer("sensinact.history.timescale.flush.time");
+        final int maxRoutes = Math.max(1, config.route_cache_size());
+        this.routes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<ResourceKey, Route> eldest) {
+                return size() > maxRoutes;
+            }
+        });
+        this.writer = new Thread(this::runWriter, "sensiNact Timescale history writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Starts writing the queued updates
+     */
+    void start() {
+        writer.start();
+    }
+
+    /**
+     * A data update waiting to be written
+     */
+    private record PendingUpdate(String topic, Table table, ResourceDataNotification event) {
     }
 
     @Override
@@ -161,70 +342,205 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
             return;
         }
 
-        final String command;
-        final Object value;
-
+        final Table table;
         if (isGeographic(event)) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("Event is geographic");
+            table = Table.GEO;
+        } else if (isNumber(event.type())) {
+            table = Table.NUMERIC;
+        } else {
+            table = Table.TEXT;
+        }
+
+        final ResourceKey key = new ResourceKey(event.provider(), event.service(), event.resource());
+        final Route route = routes.get(key);
+        if (route == null || !route.tables().contains(table)) {
+            routes.merge(key, new Route(false, EnumSet.of(table)), Route::merge);
+        }
+
+        final PendingUpdate update = new PendingUpdate(topic, table, event);
+        if (closed) {
+            logger.warn("The history store is stopping. The update for {} will be skipped", topic);
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            if (!queue.offer(update)) {
+                droppedCounter.inc();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("The history queue is full. The update for {} is dropped", topic);
+                }
+                return;
             }
-            command = String.format(INSERT_TEMPLATE, "sensinact.geo_data",
-                    "(SELECT ST_GeomFromGeoJSON( ? )::geography)");
-            String tmpValue;
-            if (event.newValue() == null) {
-                tmpValue = null;
-            } else if (event.newValue() instanceof GeoJsonObject) {
-                try {
-                    tmpValue = mapper.writeValueAsString(event.newValue());
-                } catch (JacksonException e) {
-                    if (logger.isWarnEnabled()) {
-                        logger.warn("Unable to serialize geographic data for {}", topic, e);
+        } else {
+            try {
+                // Stop waiting for room if the store is closed
+                while (!queue.offer(update, batchDelayNanos, NANOSECONDS)) {
+                    if (closed) {
+                        logger.warn("The history store is stopping. The update for {} will be skipped", topic);
+                        return;
                     }
-                    return;
                 }
-            } else {
-                tmpValue = event.newValue().toString();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting to store the update for {}", topic);
+                return;
             }
-            value = tmpValue;
-        } else if (isNumber(event.type())) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("Event is numeric");
+        }
+        queueCounter.inc();
+    }
+
+    /**
+     * Writes the queued updates, in batches filled until they reach the maximum
+     * batch size or the oldest update reaches the maximum batch delay
+     */
+    private void runWriter() {
+        final List<PendingUpdate> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingUpdate first = queue.poll(batchDelayNanos, NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                final long deadline = System.nanoTime() + batchDelayNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || closed) {
+                        break;
+                    }
+                    PendingUpdate next = queue.poll(remaining, NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Write what we have, the loop checks if we must stop
             }
-            command = String.format(INSERT_TEMPLATE, "sensinact.numeric_data", "?");
-            value = event.newValue();
-        } else {
-            if (logger.isDebugEnabled()) {
-                logger.debug("Event is being treated as text");
+
+            if (!batch.isEmpty()) {
+                for (int i = 0; i < batch.size(); i++) {
+                    queueCounter.dec();
+                }
+                batchSizeHistogram.update(batch.size());
+                try (IMetricTimer timer = flushTimer.start()) {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    logger.error("Unexpected error storing {} data updates", batch.size(), e);
+                }
+                batch.clear();
             }
-            command = String.format(INSERT_TEMPLATE, "sensinact.text_data", "?");
-            value = event.newValue() == null ? null : event.newValue().toString();
         }
+    }
+
+    private void write(List<PendingUpdate> batch) {
         Connection conn = connectionSupplier.get();
         if (conn == null) {
-            logger.warn("JDBC connection unavailable. This update will be skipped");
+            logger.warn("JDBC connection unavailable. {} updates will be skipped", batch.size());
             return;
         }
 
         try {
-            txControl.required(() -> {
-
-                PreparedStatement ps = conn.prepareStatement(command);
-                ps.setTimestamp(1, Timestamp.from(event.timestamp()));
-                ps.setString(2, event.modelPackageUri());
-                ps.setString(3, event.model());
-                ps.setString(4, event.provider());
-                ps.setString(5, event.service());
-                ps.setString(6, event.resource());
-                ps.setObject(7, value);
-
-                return ps.execute();
-            });
+            insert(conn, batch);
         } catch (Exception e) {
-            if (logger.isWarnEnabled()) {
-                logger.warn("Unable to store data for {}", topic, e);
+            if (batch.size() == 1) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Unable to store data for {}", batch.get(0).topic(), e);
+                }
+                return;
+            }
+            // Retry the updates one by one, to only lose the invalid ones
+            if (logger.isDebugEnabled()) {
+                logger.debug("Unable to store a batch of {} updates, storing them individually", batch.size(), e);
+            }
+            for (PendingUpdate update : batch) {
+                try {
+                    insert(conn, List.of(update));
+                } catch (Exception e2) {
+                    if (logger.isWarnEnabled()) {
+                        logger.warn("Unable to store data for {}", update.topic(), e2);
+                    }
+                }
             }
         }
+    }
 
+    private void insert(Connection conn, List<PendingUpdate> updates) {
+        txControl.required(() -> {
+            final PreparedStatement[] statements = new PreparedStatement[Table.values().length];
+            try {
+                for (PendingUpdate update : updates) {
+                    final Object value;
+                    try {
+                        value = toStoredValue(update);
+                    } catch (JacksonException e) {
+                        if (logger.isWarnEnabled()) {
+                            logger.warn("Unable to serialize geographic data for {}", update.topic(), e);
+                        }
+                        continue;
+                    }
+
+                    final ResourceDataNotification event = update.event();
+                    PreparedStatement ps = statements[update.table().ordinal()];
+                    if (ps == null) {
+                        ps = conn.prepareStatement(update.table().insert);
+                        statements[update.table().ordinal()] = ps;
+                    }
+                    ps.setTimestamp(1, Timestamp.from(event.timestamp()));
+                    ps.setString(2, event.modelPackageUri());
+                    ps.setString(3, event.model());
+                    ps.setString(4, event.provider());
+                    ps.setString(5, event.service());
+                    ps.setString(6, event.resource());
+                    ps.setObject(7, value);
+                    ps.addBatch();
+                }
+                for (PreparedStatement ps : statements) {
+                    if (ps != null) {
+                        ps.executeBatch();
+                    }
+                }
+            } finally {
+                for (PreparedStatement ps : statements) {
+                    if (ps != null) {
+                        ps.close();
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private Object toStoredValue(PendingUpdate update) {
+        final Object newValue = update.event().newValue();
+        if (newValue == null) {
+            return null;
+        }
+        switch (update.table()) {
+        case GEO:
+            return newValue instanceof GeoJsonObject ? mapper.writeValueAsString(newValue) : newValue.toString();
+        case NUMERIC:
+            return newValue;
+        default:
+            return newValue.toString();
+        }
+    }
+
+    /**
+     * Stops accepting updates and waits for the queued ones to be written. The
+     * writer isn't interrupted: it notices the closing within the batch delay, and
+     * stops once the queue is empty.
+     */
+    void close() {
+        closed = true;
+        try {
+            writer.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warn("Timed out writing the pending history updates, {} of them may be lost", queue.size());
+        }
     }
 
     private boolean isGeographic(ResourceDataNotification event) {
@@ -246,14 +562,29 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
         try {
             return txControl.required(() -> {
 
-                PreparedStatement ps;
-                if (time == null) {
-                    ps = conn.prepareStatement(SINGLE_TEMPLATE_WITHOUT_TIME);
-                    setVariables(ps, provider, service, resource);
-                } else {
-                    ps = conn.prepareStatement(SINGLE_TEMPLATE);
-                    setVariables(ps, provider, service, resource,
-                            Timestamp.from(time == null ? Instant.now() : time.toInstant()));
+                Set<Table> tables = tablesFor(conn, provider, service, resource);
+                if (tables.isEmpty()) {
+                    return new DefaultTimedValue<>();
+                }
+
+                // Without time, the earliest value is returned
+                String order = time == null ? "ASC" : "DESC";
+                String query = tables.stream()
+                        .map(t -> "( SELECT time, " + t.columns + " FROM " + t.table
+                                + " WHERE provider = ? AND service = ? AND resource = ?"
+                                + (time == null ? "" : " AND time <= ?") + " ORDER BY time " + order + " LIMIT 1 )")
+                        .collect(Collectors.joining(" UNION ALL ", "SELECT time, num, text, geo FROM ( ",
+                                " ) results ORDER BY time " + order + " LIMIT 1;"));
+
+                PreparedStatement ps = conn.prepareStatement(query);
+                int idx = 1;
+                for (int i = 0; i < tables.size(); i++) {
+                    ps.setString(idx++, provider);
+                    ps.setString(idx++, service);
+                    ps.setString(idx++, resource);
+                    if (time != null) {
+                        ps.setTimestamp(idx++, Timestamp.from(time.toInstant()));
+                    }
                 }
 
                 ResultSet rs = ps.executeQuery();
@@ -274,6 +605,38 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
         }
     }
 
+    /**
+     * Returns the tables holding data of a resource, looking them up in the
+     * database the first time
+     */
+    private Set<Table> tablesFor(Connection conn, String provider, String service, String resource)
+            throws SQLException {
+        final ResourceKey key = new ResourceKey(provider, service, resource);
+        Route route = routes.get(key);
+        if (route == null || !route.probed()) {
+            EnumSet<Table> found = EnumSet.noneOf(Table.class);
+            try (PreparedStatement ps = conn.prepareStatement(PROBE_TEMPLATE)) {
+                setVariables(ps, provider, service, resource);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        found.add(Table.values()[rs.getInt(1)]);
+                    }
+                }
+            }
+            // Merged with the tables of the updates received in the meantime
+            route = routes.merge(key, new Route(true, found), Route::merge);
+        }
+        return route.tables();
+    }
+
+    /**
+     * Builds the conditions on the resource and time range of a query
+     */
+    private static String whereClause(boolean from, boolean to) {
+        return " WHERE provider = ? AND service = ? AND resource = ?" + (from ? " AND time >= ?" : "")
+                + (to ? " AND time <= ?" : "");
+    }
+
     private void setVariables(PreparedStatement ps, Object... variables) throws SQLException {
         int idx = 1;
         for (int i = 0; i < 3; i++) {
@@ -318,8 +681,27 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
 
     @Override
     public List<TimedValue<?>> getValueRange(String provider, String service, String resource, ZonedDateTime fromTime,
-            ZonedDateTime toTime, Integer skip) {
-        Integer toSkip = skip == null ? Integer.valueOf(0) : skip;
+            ZonedDateTime toTime, Integer skip, String cursor) {
+        final Cursor position = cursor == null || cursor.isBlank() ? null : Cursor.parse(cursor);
+        // Without a start time, the latest values are returned
+        final boolean latest = fromTime == null;
+        Instant from = fromTime == null ? null : fromTime.toInstant();
+        Instant to = toTime == null ? null : toTime.toInstant();
+        int offset = skip == null ? 0 : skip;
+        if (position != null) {
+            // Seek to the cursor, only skipping the values received with its timestamp
+            if (latest) {
+                to = position.time();
+            } else {
+                from = position.time();
+            }
+            offset += position.count();
+        }
+        final int limit = latest ? 500 : 501;
+
+        final Instant start = from;
+        final Instant end = to;
+        final int toSkip = offset;
         Connection conn = connectionSupplier.get();
 
         try {
@@ -327,29 +709,40 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
 
                 List<TimedValue<?>> list = new ArrayList<>(501);
 
-                PreparedStatement ps;
-                if (toTime == null) {
-                    if (fromTime == null) {
-                        ps = conn.prepareStatement(RANGE_TEMPLATE_WITHOUT_START_OR_LIMIT);
-                        setVariables(ps, provider, service, resource);
-                        ps.setInt(10, toSkip);
-                    } else {
-                        ps = conn.prepareStatement(RANGE_TEMPLATE_WITHOUT_LIMIT);
-                        setVariables(ps, provider, service, resource, Timestamp.from(fromTime.toInstant()));
-                        ps.setInt(13, toSkip);
+                Set<Table> tables = tablesFor(conn, provider, service, resource);
+                if (tables.isEmpty()) {
+                    return list;
+                }
+
+                String order = latest ? "DESC" : "ASC";
+                String query = tables.stream()
+                        .map(t -> "( SELECT time, " + t.columns + " FROM " + t.table
+                                + whereClause(start != null, end != null) + " ORDER BY time " + order + ", "
+                                + t.sortKey + " " + order + " LIMIT ? )")
+                        .collect(Collectors.joining(" UNION ALL ", "SELECT time, num, text, geo FROM ( ",
+                                " ) results ORDER BY " + String.format(RESULT_ORDER, order) + " OFFSET ? LIMIT ?"));
+                if (latest) {
+                    query = "SELECT reverse.* FROM ( " + query + " ) reverse ORDER BY "
+                            + String.format(RESULT_ORDER, "ASC");
+                }
+
+                PreparedStatement ps = conn.prepareStatement(query + ";");
+                int idx = 1;
+                for (int i = 0; i < tables.size(); i++) {
+                    ps.setString(idx++, provider);
+                    ps.setString(idx++, service);
+                    ps.setString(idx++, resource);
+                    if (start != null) {
+                        ps.setTimestamp(idx++, Timestamp.from(start));
                     }
-                } else {
-                    if (fromTime == null) {
-                        ps = conn.prepareStatement(RANGE_TEMPLATE_WITHOUT_START);
-                        setVariables(ps, provider, service, resource, Timestamp.from(toTime.toInstant()));
-                        ps.setInt(13, toSkip);
-                    } else {
-                        ps = conn.prepareStatement(RANGE_TEMPLATE);
-                        setVariables(ps, provider, service, resource, Timestamp.from(toTime.toInstant()),
-                                Timestamp.from(fromTime.toInstant()));
-                        ps.setInt(16, toSkip);
+                    if (end != null) {
+                        ps.setTimestamp(idx++, Timestamp.from(end));
                     }
+                    // Each table provides at most the rows to skip and return
+                    ps.setInt(idx++, toSkip + limit);
                 }
+                ps.setInt(idx++, toSkip);
+                ps.setInt(idx, limit);
 
                 ResultSet rs = ps.executeQuery();
 
@@ -383,23 +776,27 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
         try {
             return txControl.required(() -> {
 
-                PreparedStatement ps;
-                if (toTime == null) {
-                    if (fromTime == null) {
-                        ps = conn.prepareStatement(COUNT_TEMPLATE_WITHOUT_START_OR_LIMIT);
-                        setVariables(ps, provider, service, resource);
-                    } else {
-                        ps = conn.prepareStatement(COUNT_TEMPLATE_WITHOUT_LIMIT);
-                        setVariables(ps, provider, service, resource, Timestamp.from(fromTime.toInstant()));
+                Set<Table> tables = tablesFor(conn, provider, service, resource);
+                if (tables.isEmpty()) {
+                    return 0L;
+                }
+
+                String query = tables.stream()
+                        .map(t -> "( SELECT COUNT(time) AS c FROM " + t.table
+                                + whereClause(fromTime != null, toTime != null) + " )")
+                        .collect(Collectors.joining(" UNION ALL ", "SELECT SUM(c) FROM ( ", " ) results;"));
+
+                PreparedStatement ps = conn.prepareStatement(query);
+                int idx = 1;
+                for (int i = 0; i < tables.size(); i++) {
+                    ps.setString(idx++, provider);
+                    ps.setString(idx++, service);
+                    ps.setString(idx++, resource);
+                    if (fromTime != null) {
+                        ps.setTimestamp(idx++, Timestamp.from(fromTime.toInstant()));
                     }
-                } else {
-                    if (fromTime == null) {
-                        ps = conn.prepareStatement(COUNT_TEMPLATE_WITHOUT_START);
-                        setVariables(ps, provider, service, resource, Timestamp.from(toTime.toInstant()));
-                    } else {
-                        ps = conn.prepareStatement(COUNT_TEMPLATE);
-                        setVariables(ps, provider, service, resource, Timestamp.from(toTime.toInstant()),
-                                Timestamp.from(fromTime.toInstant()));
+                    if (toTime != null) {
+                        ps.setTimestamp(idx++, Timestamp.from(toTime.toInstant()));
                     }
                 }
 
@@ -415,4 +812,89 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
         }
     }
 
+    @Override
+    public List<TimedValue<?>> getAggregatedValues(String provider, String service, String resource, String function,
+            Duration bucket, ZonedDateTime fromTime, ZonedDateTime toTime) {
+        final Aggregation aggregation = Aggregation.parse(function);
+        final long bucketSeconds;
+        if (bucket == null) {
+            if (fromTime == null) {
+                throw new IllegalArgumentException("A bucket width or a start time must be given");
+            }
+            Instant end = toTime == null ? Instant.now() : toTime.toInstant();
+            long span = Math.max(0, Duration.between(fromTime.toInstant(), end).getSeconds());
+            bucketSeconds = Math.max(1, (span + MAX_BUCKETS - 1) / MAX_BUCKETS);
+        } else if (bucket.getSeconds() < 1) {
+            throw new IllegalArgumentException("The bucket width must be at least one second: " + bucket);
+        } else {
+            bucketSeconds = bucket.getSeconds();
+        }
+
+        // Without a start time, the latest buckets are returned
+        final boolean latest = fromTime == null;
+        final Timestamp from = fromTime == null ? null : Timestamp.from(fromTime.toInstant());
+        final Timestamp to = toTime == null ? null : Timestamp.from(toTime.toInstant());
+        final int limit = latest ? MAX_BUCKETS : MAX_BUCKETS + 1;
+
+        final ContinuousAggregate continuous = aggregation.continuous == null ? null
+                : aggregates.stream().filter(a -> a.canServe(provider, service, resource, bucketSeconds)).findFirst()
+                        .orElse(null);
+
+        Connection conn = connectionSupplier.get();
+
+        try {
+            return txControl.required(() -> {
+
+                PreparedStatement ps;
+                int idx;
+                if (continuous != null) {
+                    ps = conn.prepareStatement(String.format(AGGREGATE_CONTINUOUS_TEMPLATE, aggregation.continuous,
+                            latest ? "DESC" : "ASC", continuous.view()));
+                    ps.setDouble(1, bucketSeconds);
+                    ps.setString(2, provider);
+                    ps.setString(3, service);
+                    ps.setString(4, resource);
+                    ps.setDouble(5, continuous.bucketSeconds());
+                    ps.setTimestamp(6, from);
+                    ps.setTimestamp(7, to);
+                    idx = 8;
+                } else {
+                    ps = conn.prepareStatement(latest ? aggregation.descending : aggregation.ascending);
+                    idx = 1;
+                    for (int i = aggregation.numericOnly() ? 2 : 0; i < 3; i++) {
+                        ps.setDouble(idx++, bucketSeconds);
+                        ps.setString(idx++, provider);
+                        ps.setString(idx++, service);
+                        ps.setString(idx++, resource);
+                        ps.setTimestamp(idx++, from);
+                        ps.setTimestamp(idx++, to);
+                    }
+                }
+                ps.setInt(idx, limit);
+
+                ResultSet rs = ps.executeQuery();
+
+                List<TimedValue<?>> list = new ArrayList<>(limit);
+                for (int i = 0; i < MAX_BUCKETS; i++) {
+                    if (rs.next()) {
+                        list.add(toTimedValue(rs));
+                    } else {
+                        break;
+                    }
+                }
+                if (latest) {
+                    Collections.reverse(list);
+                } else if (rs.next()) {
+                    list.add(DefaultTimedValue.EMPTY);
+                }
+                return list;
+            });
+        } catch (Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to aggregate data for {} {} {}", provider, service, resource, e);
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
 }
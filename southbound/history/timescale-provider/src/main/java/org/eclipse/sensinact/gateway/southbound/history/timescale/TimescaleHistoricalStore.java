@@ -16,6 +16,7 @@ import static org.osgi.service.typedevent.TypedEventConstants.TYPED_EVENT_TOPICS
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
@@ -27,6 +28,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
 import org.eclipse.sensinact.core.command.AbstractTwinCommand;
 import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.model.SensinactModelManager;
 import org.eclipse.sensinact.core.notification.TopicUtils;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
@@ -87,6 +89,63 @@ public class TimescaleHistoricalStore {
          *         <code>include.resources</code> selection.
          */
         String[] exclude_resources() default {};
+
+        /**
+         * @return The maximum number of data updates written in a single batch
+         */
+        int batch_size() default 500;
+
+        /**
+         * @return The maximum time in milliseconds a data update waits for its
+         *         batch to fill before being written
+         */
+        long batch_delay_ms() default 100;
+
+        /**
+         * @return The maximum number of data updates waiting to be written
+         */
+        int queue_capacity() default 10000;
+
+        /**
+         * @return What to do with data updates received while the queue is full
+         */
+        OverflowPolicy queue_overflow() default OverflowPolicy.BLOCK;
+
+        /**
+         * @return The maximum number of resources whose data tables are kept in
+         *         memory. The least recently used ones are looked up again in
+         *         the database when queried.
+         */
+        int route_cache_size() default 10000;
+
+        /**
+         * @return The bucket widths, as ISO-8601 durations (e.g.
+         *         <code>PT1H</code>), of the continuous aggregates maintained over
+         *         the numeric data. Average, minimum and maximum aggregation
+         *         queries with a bucket width multiple of one of these are served
+         *         from the continuous aggregate rather than the raw data, in
+         *         which case the first bucket covers the whole aggregate bucket
+         *         containing the start time.
+         */
+        String[] continuous_aggregates() default {};
+
+        /**
+         * @return The resources covered by the continuous aggregates, as
+         *         <code>provider/service/resource</code>. All the numeric
+         *         resources are covered if empty.
+         */
+        String[] continuous_aggregate_resources() default {};
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Block the event delivery until there is room in the queue
+         */
+        BLOCK,
+        /**
+         * Drop the new data update, which is then not stored
+         */
+        DROP
     }
 
     @Reference
@@ -101,6 +160,9 @@ public class TimescaleHistoricalStore {
     @Reference
     ResourceSelectorFilterFactory filterFactory;
 
+    @Reference
+    IMetricsManager metrics;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     private Config config;
@@ -109,12 +171,21 @@ public class TimescaleHistoricalStore {
 
     private ICriterion exclude;
 
+    private List<ContinuousAggregate> aggregates;
+
+    /**
+     * The continuous aggregates successfully set up in the database
+     */
+    private List<ContinuousAggregate> availableAggregates = List.of();
+
     private JDBCConnectionProvider provider;
 
     private final AtomicReference<Connection> connection = new AtomicReference<>();
 
     private ServiceRegistration<?> reg;
 
+    private TimescaleDatabaseWorker worker;
+
     @Activate
     void start(BundleContext ctx, Config config) {
         if (logger.isDebugEnabled()) {
@@ -136,10 +207,13 @@ public class TimescaleHistoricalStore {
             excludeFilter = filterFactory.parseResourceSelector(Arrays.stream(resources).map(this::fromString));
         }
 
+        List<ContinuousAggregate> aggregates = ContinuousAggregate.fromConfig(config);
+
         synchronized (this) {
             this.config = config;
             this.include = includeFilter;
             this.exclude = excludeFilter;
+            this.aggregates = aggregates;
         }
 
         doStart(ctx);
@@ -157,6 +231,7 @@ public class TimescaleHistoricalStore {
         try {
             setProvider(createProvider(config));
             setupTables();
+            setupContinuousAggregates();
         } catch (Exception e) {
             if (logger.isWarnEnabled()) {
                 logger.warn("An error occurred setting up database access", e);
@@ -170,6 +245,8 @@ public class TimescaleHistoricalStore {
     private JDBCConnectionProvider createProvider(Config config) {
         PGSimpleDataSource datasource = new PGSimpleDataSource();
         datasource.setURL(config.url());
+        // Send the batches of inserts as multi-row statements
+        datasource.setReWriteBatchedInserts(true);
         if (!NOT_SET.equals(config.user()) && !config.user().isBlank()) {
             datasource.setUser(config.user());
             datasource.setPassword(config._password());
@@ -240,20 +317,27 @@ public class TimescaleHistoricalStore {
 
     private void safeUnregister() {
         ServiceRegistration<?> reg;
+        TimescaleDatabaseWorker worker;
         synchronized (this) {
             reg = this.reg;
             this.reg = null;
+            worker = this.worker;
+            this.worker = null;
         }
-        safeUnregister(reg);
+        safeUnregister(reg, worker);
     }
 
-    private void safeUnregister(ServiceRegistration<?> reg) {
+    private void safeUnregister(ServiceRegistration<?> reg, TimescaleDatabaseWorker worker) {
         if (reg != null) {
             try {
                 reg.unregister();
             } catch (IllegalStateException ise) {
             }
         }
+        if (worker != null) {
+            // Write the pending updates while the connection is available
+            worker.close();
+        }
     }
 
     private void setupTables() {
@@ -309,15 +393,46 @@ public class TimescaleHistoricalStore {
         }
     }
 
+    private void setupContinuousAggregates() {
+        List<ContinuousAggregate> aggregates;
+        synchronized (this) {
+            aggregates = this.aggregates;
+        }
+        if (logger.isDebugEnabled() && !aggregates.isEmpty()) {
+            logger.debug("Creating continuous aggregates if needed");
+        }
+        Connection conn = connection.get();
+        List<ContinuousAggregate> available = new ArrayList<>(aggregates.size());
+        for (ContinuousAggregate aggregate : aggregates) {
+            try {
+                txControl.required(() -> {
+                    Statement s = conn.createStatement();
+                    s.execute(aggregate.createStatement());
+                    s.execute(aggregate.policyStatement());
+                    return null;
+                });
+                available.add(aggregate);
+            } catch (ScopedWorkException e) {
+                logger.error("Error setting up the continuous aggregate {}. Aggregation queries will use the raw data",
+                        aggregate.view(), e.getCause());
+            }
+        }
+        synchronized (this) {
+            this.availableAggregates = List.copyOf(available);
+        }
+    }
+
     private void registerListener(BundleContext ctx) {
         ServiceRegistration<?> reg;
         ICriterion include;
         ICriterion exclude;
+        List<ContinuousAggregate> aggregates;
         synchronized (this) {
             reg = this.reg;
             this.reg = null;
             include = this.include;
             exclude = this.exclude;
+            aggregates = this.availableAggregates;
         }
         if (reg == null) {
             if (logger.isDebugEnabled()) {
@@ -328,17 +443,21 @@ public class TimescaleHistoricalStore {
                     .map(l -> l.stream().filter(Objects::nonNull).map(TopicUtils::escapeTopicFilter).toList())
                     .orElse(null);
 
-            reg = ctx.registerService(TypedEventHandler.class,
-                    new TimescaleDatabaseWorker(txControl, connection::get, include, exclude),
+            TimescaleDatabaseWorker worker = new TimescaleDatabaseWorker(txControl, connection::get, include,
+                    exclude, metrics, config, aggregates);
+            worker.start();
+            reg = ctx.registerService(TypedEventHandler.class, worker,
                     new Hashtable<>(Map.of(TYPED_EVENT_TOPICS, dataTopics, "sensiNact.whiteboard.resource",
                             true, "sensiNact.provider.name", config.provider())));
             synchronized (this) {
                 if (this.reg == null) {
                     this.reg = reg;
+                    this.worker = worker;
                     reg = null;
+                    worker = null;
                 }
             }
-            safeUnregister(reg);
+            safeUnregister(reg, worker);
 
             gatewayThread.execute(new AbstractTwinCommand<Void>() {
                 @Override
@@ -0,0 +1,184 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.timescale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleHistoricalStore.Config;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleHistoricalStore.OverflowPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.osgi.service.transaction.control.TransactionControl;
+
+@ExtendWith(MockitoExtension.class)
+class TimescaleDatabaseWorkerTest {
+
+    @Mock
+    private TransactionControl txControl;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ICriterion include;
+
+    @Mock
+    private Config config;
+
+    /**
+     * The sizes of the batches executed
+     */
+    private final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicBoolean interrupted = new AtomicBoolean();
+
+    private volatile long writeDelay;
+
+    private TimescaleDatabaseWorker worker;
+
+    @BeforeEach
+    void setup() throws Exception {
+        lenient().when(txControl.required(any())).thenAnswer(i -> i.<Callable<?>>getArgument(0).call());
+        lenient().when(connection.prepareStatement(anyString())).thenReturn(statement);
+        lenient().doAnswer(i -> pending.incrementAndGet()).when(statement).addBatch();
+        lenient().when(statement.executeBatch()).thenAnswer(i -> {
+            Thread.sleep(writeDelay);
+            if (Thread.currentThread().isInterrupted()) {
+                interrupted.set(true);
+            }
+            batches.add(pending.getAndSet(0));
+            return new int[0];
+        });
+        when(include.dataEventFilter()).thenReturn(e -> true);
+
+        when(config.queue_capacity()).thenReturn(100);
+        when(config.queue_overflow()).thenReturn(OverflowPolicy.BLOCK);
+        when(config.batch_size()).thenReturn(10);
+        when(config.batch_delay_ms()).thenReturn(50L);
+        when(config.route_cache_size()).thenReturn(100);
+    }
+
+    @AfterEach
+    void stop() {
+        if (worker != null) {
+            worker.close();
+        }
+    }
+
+    private TimescaleDatabaseWorker createWorker() {
+        worker = new TimescaleDatabaseWorker(txControl, () -> connection, include, null,
+                mock(IMetricsManager.class, RETURNS_DEEP_STUBS), config, List.of());
+        return worker;
+    }
+
+    private void sendUpdates(int count) {
+        for (int i = 0; i < count; i++) {
+            worker.notify("DATA/model/provider/svc/value", new ResourceDataNotification("https://test", "model",
+                    "provider", "svc", "value", null, i, Instant.now(), Integer.class, Map.of()));
+        }
+    }
+
+    private int written() {
+        return batches.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Test
+    void testNothingWrittenBeforeStart() throws Exception {
+        createWorker();
+        sendUpdates(5);
+        verify(connection, after(200).never()).prepareStatement(anyString());
+
+        worker.start();
+        worker.close();
+        assertEquals(5, written());
+    }
+
+    @Test
+    void testQueuedUpdatesWrittenInBatches() throws Exception {
+        createWorker();
+        sendUpdates(25);
+        worker.start();
+        worker.close();
+        assertEquals(List.of(10, 10, 5), batches);
+    }
+
+    @Test
+    void testCloseDrainsWithoutInterrupting() throws Exception {
+        createWorker();
+        writeDelay = 100;
+        worker.start();
+        sendUpdates(35);
+        worker.close();
+        assertEquals(35, written());
+        assertFalse(interrupted.get());
+    }
+
+    @Test
+    void testUpdatesAfterCloseSkipped() throws Exception {
+        createWorker();
+        worker.start();
+        worker.close();
+        sendUpdates(3);
+        assertEquals(0, written());
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void testBlockedUpdateReleasedOnClose() throws Exception {
+        when(config.queue_capacity()).thenReturn(2);
+        createWorker();
+        // Never started: the third update waits for room until the worker closes
+        Thread sender = new Thread(() -> sendUpdates(3));
+        sender.start();
+        sender.join(200);
+        assertTrue(sender.isAlive());
+
+        worker.close();
+        sender.join(1000);
+        assertFalse(sender.isAlive());
+    }
+}
@@ -13,6 +13,7 @@
 package org.eclipse.sensinact.gateway.southbound.history.timescale.integration;
 
 import static java.time.Duration.ofDays;
+import static java.time.Duration.ofHours;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -967,6 +968,69 @@ public class TimescaleHistoryTest {
             }).getValue();
         }
 
+        @Test
+        void cursorPaging() throws Exception {
+            try (Connection conn = getDataSource().getConnection();
+                    PreparedStatement ps = conn.prepareStatement(
+                            "INSERT INTO sensinact.numeric_data ( time, modelpackageuri, model, provider, service, resource, data ) values ( ?, 'cursor', 'cursor', 'cursor', 'cursor', 'cursor', ? )")) {
+                for (int i = 0; i < 600; i++) {
+                    // Three values per timestamp, so that pages end between them
+                    ps.setTimestamp(1, Timestamp.from(TS_2012.plus(ofDays(i / 3))));
+                    ps.setInt(2, i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            thread.execute(new ResourceCommand<Void>("https://eclipse.org/sensinact/" + "sensiNactHistory",
+                    "sensiNactHistory", "timescale-history", "history", "range") {
+
+                @SuppressWarnings("unchecked")
+                @Override
+                protected Promise<Void> call(SensinactResource resource, PromiseFactory pf) {
+                    List<TimedValue<?>> result = safeGet(resource.act(Map.of("provider", "cursor", "service",
+                            "cursor", "resource", "cursor", "fromTime", TS_2012.atOffset(ZoneOffset.UTC)))
+                            .map(List.class::cast));
+                    assertEquals(501, result.size());
+                    for (int i = 0; i < 500; i++) {
+                        assertEquals((long) i, result.get(i).getValue());
+                    }
+                    assertNull(result.get(500).getTimestamp());
+
+                    // Values 498 and 499 were read, 500 has the same timestamp
+                    String cursor = TS_2012.plus(ofDays(166)) + ";2";
+                    result = safeGet(resource.act(Map.of("provider", "cursor", "service", "cursor", "resource",
+                            "cursor", "fromTime", TS_2012.atOffset(ZoneOffset.UTC), "cursor", cursor))
+                            .map(List.class::cast));
+                    assertEquals(100, result.size());
+                    for (int i = 0; i < 100; i++) {
+                        assertEquals((long) i + 500, result.get(i).getValue());
+                    }
+
+                    // No start - get the latest 500, then the previous ones
+                    result = safeGet(
+                            resource.act(Map.of("provider", "cursor", "service", "cursor", "resource", "cursor"))
+                                    .map(List.class::cast));
+                    assertEquals(500, result.size());
+                    for (int i = 0; i < 500; i++) {
+                        assertEquals((long) i + 100, result.get(i).getValue());
+                    }
+
+                    // Values 100 and 101 were read, 99 has the same timestamp
+                    cursor = TS_2012.plus(ofDays(33)) + ";2";
+                    result = safeGet(resource.act(
+                            Map.of("provider", "cursor", "service", "cursor", "resource", "cursor", "cursor", cursor))
+                            .map(List.class::cast));
+                    assertEquals(100, result.size());
+                    for (int i = 0; i < 100; i++) {
+                        assertEquals((long) i, result.get(i).getValue());
+                    }
+
+                    return pf.resolved(null);
+                }
+            }).getValue();
+        }
+
         @Test
         void manyStringCount() throws Exception {
             for (int i = 0; i < 1000; i++) {
@@ -1365,5 +1429,100 @@ public class TimescaleHistoryTest {
             }).getValue();
         }
     }
-}
 
+    @Nested
+    class getAggregatedValueTests {
+
+        private <T> T safeGet(Promise<T> p) {
+            try {
+                return p.getValue();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Test
+        void numericAggregates() throws Exception {
+            for (int i = 0; i < 48; i++) {
+                push.pushUpdate(getDto(i + 1, TS_2012.plus(ofHours(i)))).getValue();
+            }
+
+            waitForRowCount("sensinact.numeric_data", 48);
+
+            thread.execute(new ResourceCommand<Void>("https://eclipse.org/sensinact/" + "sensiNactHistory",
+                    "sensiNactHistory", "timescale-history", "history", "aggregate") {
+
+                @SuppressWarnings("unchecked")
+                @Override
+                protected Promise<Void> call(SensinactResource resource, PromiseFactory pf) {
+                    Map<String, Object> params = Map.of("provider", "buzz", "service", "fizzbuzz", "resource",
+                            "fizzfizzbuzzbuzz", "bucket", ofDays(1), "fromTime", TS_2012.atOffset(ZoneOffset.UTC),
+                            "toTime", TS_2013.atOffset(ZoneOffset.UTC));
+
+                    Map<String, List<Object>> expected = Map.of("avg", List.of(12.5d, 36.5d), "min",
+                            List.of(1L, 25L), "max", List.of(24L, 48L), "count", List.of(24L, 24L), "first",
+                            List.of(1L, 25L), "last", List.of(24L, 48L));
+
+                    for (Map.Entry<String, List<Object>> e : expected.entrySet()) {
+                        Map<String, Object> args = new Hashtable<>(params);
+                        args.put("function", e.getKey());
+                        List<TimedValue<?>> result = safeGet(resource.act(args).map(List.class::cast));
+                        assertEquals(2, result.size(), e.getKey());
+                        assertEquals(e.getValue().get(0), result.get(0).getValue(), e.getKey());
+                        assertEquals(TS_2012, result.get(0).getTimestamp(), e.getKey());
+                        assertEquals(e.getValue().get(1), result.get(1).getValue(), e.getKey());
+                        assertEquals(TS_2012.plus(ofDays(1)), result.get(1).getTimestamp(), e.getKey());
+                    }
+
+                    // No bucket - the range is split in at most 500 buckets
+                    Map<String, Object> args = new Hashtable<>(params);
+                    args.remove("bucket");
+                    args.put("function", "count");
+                    args.put("toTime", TS_2012.plus(ofDays(2)).atOffset(ZoneOffset.UTC));
+                    List<TimedValue<?>> result = safeGet(resource.act(args).map(List.class::cast));
+                    assertEquals(48, result.size());
+                    assertEquals(1L, result.get(0).getValue());
+
+                    return pf.resolved(null);
+                }
+            }).getValue();
+        }
+
+        @Test
+        void textAggregates() throws Exception {
+            push.pushUpdate(getDto("fizz", TS_2012)).getValue();
+            push.pushUpdate(getDto("buzz", TS_2012.plus(ofHours(1)))).getValue();
+            push.pushUpdate(getDto("fizzbuzz", TS_2013)).getValue();
+
+            waitForRowCount("sensinact.text_data", 11);
+
+            thread.execute(new ResourceCommand<Void>("https://eclipse.org/sensinact/" + "sensiNactHistory",
+                    "sensiNactHistory", "timescale-history", "history", "aggregate") {
+
+                @SuppressWarnings("unchecked")
+                @Override
+                protected Promise<Void> call(SensinactResource resource, PromiseFactory pf) {
+                    List<TimedValue<?>> result = safeGet(resource.act(Map.of("provider", "bar", "service", "foobar",
+                            "resource", "foofoobarbar", "function", "last", "bucket", ofDays(1), "fromTime",
+                            TS_2012.atOffset(ZoneOffset.UTC), "toTime", TS_2014.atOffset(ZoneOffset.UTC)))
+                            .map(List.class::cast));
+                    assertEquals(2, result.size());
+                    assertEquals("buzz", result.get(0).getValue());
+                    assertEquals(TS_2012, result.get(0).getTimestamp());
+                    assertEquals("fizzbuzz", result.get(1).getValue());
+                    assertEquals(TS_2013, result.get(1).getTimestamp());
+
+                    // No start - the latest buckets before the end
+                    result = safeGet(resource.act(Map.of("provider", "bar", "service", "foobar", "resource",
+                            "foofoobarbar", "function", "count", "bucket", ofDays(1), "toTime",
+                            TS_2014.atOffset(ZoneOffset.UTC))).map(List.class::cast));
+                    assertEquals(2, result.size());
+                    assertEquals(2L, result.get(0).getValue());
+                    assertEquals(1L, result.get(1).getValue());
+
+                    return pf.resolved(null);
+                }
+            }).getValue();
+        }
+    }
+}
@@ -14,25 +14,40 @@ package org.eclipse.sensinact.gateway.southbound.http.factory;
 
 import static java.util.stream.Collectors.toMap;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Array;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Authentication;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BasicAuthentication;
-import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
 import org.eclipse.jetty.client.util.StringRequestContent;
-import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.sensinact.core.metrics.IMetricMeter;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.gateway.southbound.device.factory.DeviceFactoryException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingHandler;
+import org.eclipse.sensinact.gateway.southbound.http.factory.HttpTaskScheduler.TaskResult;
 import org.eclipse.sensinact.gateway.southbound.http.factory.ParsedHttpTask.KeyValue;
+import org.eclipse.sensinact.gateway.southbound.http.factory.ParsedHttpTask.Validators;
+import org.eclipse.sensinact.gateway.southbound.http.factory.SharedHttpClientResources.ClientLease;
 import org.eclipse.sensinact.gateway.southbound.http.factory.config.HttpDeviceFactoryConfiguration;
 import org.eclipse.sensinact.gateway.southbound.http.factory.config.HttpDeviceFactoryConfigurationPeriodicDTO;
 import org.eclipse.sensinact.gateway.southbound.http.factory.config.HttpDeviceFactoryConfigurationTaskDTO;
@@ -71,9 +86,30 @@ public class HttpDeviceFactory {
     private SharedHttpClientResources rcSharer;
 
     /**
-     * Scheduled executor
+     * SensiNact metrics gathering
      */
-    private ScheduledThreadPoolExecutor scheduledExecutor;
+    @Reference
+    private IMetricsManager metrics;
+
+    /**
+     * Bytes of the responses that were parsed
+     */
+    private IMetricMeter bytesFetched;
+
+    /**
+     * Bytes of the unmodified contents that were not fetched again
+     */
+    private IMetricMeter bytesSkipped;
+
+    /**
+     * HTTP clients used by the tasks of this factory
+     */
+    private volatile ClientLease clients;
+
+    /**
+     * Tasks scheduler
+     */
+    private HttpTaskScheduler scheduler;
 
     /**
      * Component activated
@@ -82,7 +118,12 @@ public class HttpDeviceFactory {
      */
     @Activate
     void activate(final HttpDeviceFactoryConfiguration configuration) throws Exception {
-        scheduledExecutor = new ScheduledThreadPoolExecutor(1);
+        bytesFetched = metrics.getMeter("http.device.factory.bytes.fetched");
+        bytesSkipped = metrics.getMeter("http.device.factory.bytes.skipped");
+        clients = rcSharer.lease();
+        scheduler = new HttpTaskScheduler(configuration.scheduler_threads(),
+                configuration.scheduler_max_inflight_per_host(), configuration.scheduler_jitter(),
+                configuration.scheduler_start_spread(), this::runTask, metrics);
         final ObjectMapper mapper = JsonMapper.builder()
                 .configure(EnumFeature.READ_ENUMS_USING_TO_STRING, false)
                 .configure(EnumFeature.WRITE_ENUMS_USING_TO_STRING, false)
@@ -92,7 +133,7 @@ public class HttpDeviceFactory {
                 HttpDeviceFactoryConfigurationTaskDTO.class, configuration.tasks_oneshot());
         if (oneShotTasks != null) {
             for (HttpDeviceFactoryConfigurationTaskDTO task : oneShotTasks) {
-                runTask(new ParsedHttpTask(task));
+                scheduler.submit(new ParsedHttpTask(task));
             }
         }
 
@@ -100,7 +141,7 @@ public class HttpDeviceFactory {
                 HttpDeviceFactoryConfigurationPeriodicDTO.class, configuration.tasks_periodic());
         if (periodicTasks != null) {
             for (HttpDeviceFactoryConfigurationPeriodicDTO task : periodicTasks) {
-                runScheduledTask(new ParsedHttpPeriodicTask(task));
+                scheduler.schedule(new ParsedHttpPeriodicTask(task));
             }
         }
     }
@@ -112,8 +153,10 @@ public class HttpDeviceFactory {
      */
     @Deactivate
     void deactivate() throws Exception {
-        scheduledExecutor.shutdownNow();
-        scheduledExecutor = null;
+        scheduler.stop();
+        scheduler = null;
+        // Stops the clients which aren't used by other factories
+        clients.close();
     }
 
     /**
@@ -151,23 +194,35 @@ public class HttpDeviceFactory {
     }
 
     /**
-     * Runs an HTTP task
+     * Runs an HTTP task. The response body is parsed by the calling worker as it
+     * is received.
      *
-     * @param task Task to run
+     * @param task   Task to run
+     * @param onDone Called once the request is complete
      */
-    private void runTask(final ParsedHttpTask task) {
+    private void runTask(final ParsedHttpTask task, final Consumer<TaskResult> onDone) {
         try {
-            // Client is already configured
-            final HttpClient client = rcSharer.newClient(task);
-            client.start();
+            // Client is already configured and shared with similar tasks
+            final HttpClient client = clients.getClient(task);
 
             // Prepare request
             final Request request = client.newRequest(task.url);
             request.method(task.method);
+            final Validators validators = task.getValidators();
             request.headers((headers) -> {
                 for (final KeyValue<String, String> header : task.getHeaders()) {
                     headers.add(header.key(), header.value());
                 }
+
+                if (validators != null) {
+                    // Let the server tell us if the content didn't change
+                    if (validators.etag() != null && !headers.contains(HttpHeader.IF_NONE_MATCH)) {
+                        headers.put(HttpHeader.IF_NONE_MATCH, validators.etag());
+                    }
+                    if (validators.lastModified() != null && !headers.contains(HttpHeader.IF_MODIFIED_SINCE)) {
+                        headers.put(HttpHeader.IF_MODIFIED_SINCE, validators.lastModified());
+                    }
+                }
             });
             if (task.body != null) {
                 request.body(new StringRequestContent(task.body));
@@ -179,57 +234,163 @@ public class HttpDeviceFactory {
                 authn.apply(request);
             }
 
-            request.send(new BufferingResponseListener(task.getBufferSize()) {
-
-                private final AtomicReference<Map<String, String>> headers = new AtomicReference<>(Map.of());
-
-                @Override
-                public void onHeaders(Response response) {
-                    super.onHeaders(response);
-                    headers.set(response.getHeaders().getFieldNamesCollection().stream()
-                            .collect(toMap(Function.identity(), h -> response.getHeaders().get(h))));
-                }
+            // Stream the response body to the parser as it is received
+            final InputStreamResponseListener listener = new InputStreamResponseListener();
+            request.send(listener);
 
-                @Override
-                public void onFailure(final Response response, final Throwable failure) {
-                    logger.error("Error accessing {}: {} ({})", task.url, failure.getMessage(),
-                            failure.getClass().getName(), failure);
-                }
+            final Response response;
+            try {
+                response = task.timeout > 0 ? listener.get(task.timeout, TimeUnit.SECONDS)
+                        : listener.get(Long.MAX_VALUE, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                request.abort(e);
+                throw e;
+            } catch (ExecutionException e) {
+                final Throwable failure = e.getCause();
+                logger.error("Error accessing {}: {} ({})", task.url, failure.getMessage(),
+                        failure.getClass().getName(), failure);
+                onDone.accept(TaskResult.FAILURE);
+                return;
+            }
 
-                @Override
-                public void onSuccess(final Response response) {
-                    final int status = response.getStatus();
-                    if (status >= 200 && status < 300) {
-                        try {
-                            mappingHandler.handle(task.mapping, headers.get(), getContent());
-                        } catch (DeviceFactoryException e) {
-                            logger.error("Error parsing input from {}: {}", task.url, e.getMessage(), e);
-                        }
-                    } else {
-                        logger.error("HTTP error {} accessing {}", status, task.url);
+            final int status = response.getStatus();
+            try (LimitedInputStream content = new LimitedInputStream(listener.getInputStream(),
+                    task.getBufferSize())) {
+                if (status == HttpStatus.NOT_MODIFIED_304 && validators != null) {
+                    // Nothing to parse
+                    logger.debug("Content of {} not modified", task.url);
+                    bytesSkipped.mark(validators.contentLength());
+                } else if (status >= 200 && status < 300) {
+                    final Map<String, String> headers = response.getHeaders().getFieldNamesCollection().stream()
+                            .collect(toMap(Function.identity(), h -> response.getHeaders().get(h)));
+                    try {
+                        mappingHandler.handle(task.mapping, headers, content);
+                        // Read what the parser left so that the connection can be reused
+                        content.transferTo(OutputStream.nullOutputStream());
+                        task.setValidators(response.getHeaders().get(HttpHeader.ETAG),
+                                response.getHeaders().get(HttpHeader.LAST_MODIFIED), content.getCount());
+                    } catch (DeviceFactoryException e) {
+                        logger.error("Error parsing input from {}: {}", task.url, e.getMessage(), e);
+                    } finally {
+                        bytesFetched.mark(content.getCount());
                     }
+                } else {
+                    logger.error("HTTP error {} accessing {}", status, task.url);
                 }
-
-                @Override
-                public void onComplete(final Result result) {
-                    // According to the documentation, calling client.stop() would cause a dead lock
-                    scheduledExecutor.submit(() -> LifeCycle.stop(client));
-                }
-            });
+            } catch (IOException e) {
+                // The request failed while reading the content
+                logger.error("Error accessing {}: {} ({})", task.url, e.getMessage(), e.getClass().getName(), e);
+                onDone.accept(TaskResult.FAILURE);
+                return;
+            }
+            // Keep the shared client and its connections for the next requests
+            onDone.accept(toTaskResult(response));
         } catch (Exception ex) {
             logger.error("Error querying {}", task.url, ex);
+            onDone.accept(TaskResult.FAILURE);
         }
     }
 
     /**
-     * Runs a periodic HTTP task
+     * Converts the response of a request to the result of its task
      *
-     * @param task Task to run
+     * @param response Request response
+     * @return The task result
      */
-    private void runScheduledTask(final ParsedHttpPeriodicTask periodicTask) {
-        runTask(periodicTask);
-        if (scheduledExecutor != null) {
-            scheduledExecutor.schedule(() -> runScheduledTask(periodicTask), periodicTask.period, TimeUnit.SECONDS);
+    private static TaskResult toTaskResult(final Response response) {
+        final int status = response.getStatus();
+        if (status == HttpStatus.TOO_MANY_REQUESTS_429 || status == HttpStatus.SERVICE_UNAVAILABLE_503) {
+            return new TaskResult(true, parseRetryAfter(response.getHeaders().get(HttpHeader.RETRY_AFTER)));
+        } else if (HttpStatus.isServerError(status)) {
+            return TaskResult.FAILURE;
+        }
+        return TaskResult.SUCCESS;
+    }
+
+    /**
+     * Parses the value of a Retry-After header
+     *
+     * @param value Header value, either a number of seconds or an HTTP date
+     * @return The delay to wait for or null
+     */
+    private static Duration parseRetryAfter(final String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            // Try as a date
+        }
+
+        try {
+            final Instant date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            final Duration delay = Duration.between(Instant.now(), date);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            logger.debug("Invalid Retry-After header: {}", value);
+            return null;
+        }
+    }
+
+    /**
+     * Counts the bytes read from a response body and fails if they exceed the
+     * configured buffer size
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+
+        private long count;
+
+        LimitedInputStream(final InputStream in, final long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        /**
+         * Returns the number of bytes read so far
+         */
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                add(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read > 0) {
+                add(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            add(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void add(final long read) throws IOException {
+            count += read;
+            if (count > limit) {
+                throw new IOException("Response content exceeds the buffer size of " + limit + " bytes");
+            }
         }
     }
 }
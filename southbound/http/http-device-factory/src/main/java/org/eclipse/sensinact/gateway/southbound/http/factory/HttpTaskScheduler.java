@@ -0,0 +1,289 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.http.factory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the HTTP tasks on a pool of workers, limiting the number of concurrent
+ * requests to each host. Periodic tasks are rescheduled once their previous
+ * execution is complete, with some jitter, and back off while their server
+ * fails or asks to slow down.
+ */
+class HttpTaskScheduler {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(HttpTaskScheduler.class);
+
+    /**
+     * Maximum factor applied to the period of a failing task
+     */
+    private static final int MAX_BACKOFF_FACTOR = 32;
+
+    /**
+     * Maximum delay between two executions of a failing task, in seconds
+     */
+    private static final long MAX_BACKOFF_SECONDS = 3600;
+
+    /**
+     * Result of the execution of a task
+     *
+     * @param failed     The request failed or the server returned an error
+     * @param retryAfter Delay asked by the server before the next request (can be
+     *                   null)
+     */
+    record TaskResult(boolean failed, Duration retryAfter) {
+
+        static final TaskResult SUCCESS = new TaskResult(false, null);
+
+        static final TaskResult FAILURE = new TaskResult(true, null);
+    }
+
+    /**
+     * Executes the request of a task
+     */
+    interface TaskRunner {
+        /**
+         * Sends the request of the task
+         *
+         * @param task   Task to run
+         * @param onDone Must be called once the request is complete
+         */
+        void run(ParsedHttpTask task, Consumer<TaskResult> onDone);
+    }
+
+    /**
+     * Requests in flight and waiting for a host
+     */
+    private static class HostSlots {
+        int inFlight;
+        final Deque<Runnable> waiting = new ArrayDeque<>();
+    }
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final TaskRunner runner;
+
+    private final IMetricsManager metrics;
+
+    private final int maxInFlightPerHost;
+
+    private final double jitter;
+
+    private final long startSpreadMillis;
+
+    /**
+     * Request slots by host (guarded by this)
+     */
+    private final Map<String, HostSlots> hosts = new HashMap<>();
+
+    private volatile boolean stopped;
+
+    /**
+     * @param threads            Number of worker threads
+     * @param maxInFlightPerHost Maximum number of concurrent requests to a host (0
+     *                           for no limit)
+     * @param jitter             Random variation of the period, as a fraction of
+     *                           it
+     * @param startSpread        Maximum random delay before the first execution of
+     *                           a periodic task, in seconds
+     * @param runner             Task runner
+     * @param metrics            Metrics manager
+     */
+    HttpTaskScheduler(final int threads, final int maxInFlightPerHost, final double jitter, final long startSpread,
+            final TaskRunner runner, final IMetricsManager metrics) {
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, threads));
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        this.jitter = Math.min(Math.max(jitter, 0), 1);
+        this.startSpreadMillis = TimeUnit.SECONDS.toMillis(Math.max(startSpread, 0));
+        this.runner = runner;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Stops the scheduler, pending tasks are abandoned
+     */
+    void stop() {
+        stopped = true;
+        executor.shutdownNow();
+        synchronized (this) {
+            hosts.clear();
+        }
+    }
+
+    /**
+     * Runs a task once, as soon as possible
+     *
+     * @param task Task to run
+     */
+    void submit(final ParsedHttpTask task) {
+        executor.execute(() -> acquire(task, () -> run(task, r -> release(task))));
+    }
+
+    /**
+     * Runs a task periodically
+     *
+     * @param task Task to run
+     */
+    void schedule(final ParsedHttpPeriodicTask task) {
+        final long delay = startSpreadMillis > 0
+                ? ThreadLocalRandom.current().nextLong(Math.min(startSpreadMillis, periodMillis(task)) + 1)
+                : 0;
+        scheduleRun(task, metrics.getHistogram("http.device.factory.schedule.lag." + metricHost(task)), delay);
+    }
+
+    private long periodMillis(final ParsedHttpPeriodicTask task) {
+        return TimeUnit.SECONDS.toMillis(task.period);
+    }
+
+    /**
+     * Plans the next execution of a periodic task
+     *
+     * @param task        Periodic task
+     * @param lag         Histogram of the delays between the planned and actual
+     *                    starts of the task, resolved once per task
+     * @param delayMillis Delay before the execution, in milliseconds
+     */
+    private void scheduleRun(final ParsedHttpPeriodicTask task, final IMetricsHistogram lag, final long delayMillis) {
+        if (stopped) {
+            return;
+        }
+
+        final long planned = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        executor.schedule(() -> acquire(task, () -> {
+            lag.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - planned));
+            run(task, result -> {
+                release(task);
+                scheduleRun(task, lag, nextDelay(task, result));
+            });
+        }), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the host part of the metric names of the task. The URL itself must
+     * not be used, as it can hold credentials and would create a metric per URL.
+     */
+    private static String metricHost(final ParsedHttpTask task) {
+        // The host is the URL itself if it couldn't be parsed
+        return task.host == null || task.host.equals(task.url) ? "unknown" : task.host;
+    }
+
+    /**
+     * Runs the task, making sure the completion callback is called once
+     */
+    private void run(final ParsedHttpTask task, final Consumer<TaskResult> onDone) {
+        if (stopped) {
+            return;
+        }
+
+        try {
+            runner.run(task, onDone);
+        } catch (Exception e) {
+            logger.error("Error running task {}", task.url, e);
+            onDone.accept(TaskResult.FAILURE);
+        }
+    }
+
+    /**
+     * Computes the delay before the next execution of a periodic task
+     *
+     * @param task   Periodic task
+     * @param result Result of the last execution
+     * @return The delay in milliseconds
+     */
+    private long nextDelay(final ParsedHttpPeriodicTask task, final TaskResult result) {
+        final long period = periodMillis(task);
+        long delay;
+        if (result.failed()) {
+            final int failures = ++task.consecutiveFailures;
+            final long factor = Math.min(1L << Math.min(failures, 30), MAX_BACKOFF_FACTOR);
+            delay = Math.max(period, Math.min(period * factor, TimeUnit.SECONDS.toMillis(MAX_BACKOFF_SECONDS)));
+            if (result.retryAfter() != null) {
+                delay = Math.max(delay, result.retryAfter().toMillis());
+            }
+            logger.debug("Task {} failed {} times in a row, next try in {}ms", task.url, failures, delay);
+        } else {
+            task.consecutiveFailures = 0;
+            delay = period;
+        }
+
+        if (jitter > 0) {
+            delay += (long) (delay * jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1));
+        }
+        return Math.max(delay, 0);
+    }
+
+    /**
+     * Runs the given action once a request slot is available for the host of the
+     * task
+     */
+    private void acquire(final ParsedHttpTask task, final Runnable action) {
+        if (maxInFlightPerHost > 0) {
+            synchronized (this) {
+                final HostSlots slots = hosts.computeIfAbsent(task.host, h -> new HostSlots());
+                if (slots.inFlight >= maxInFlightPerHost) {
+                    slots.waiting.addLast(action);
+                    return;
+                }
+                slots.inFlight++;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Releases the request slot of the task and starts the next waiting request
+     */
+    private void release(final ParsedHttpTask task) {
+        if (maxInFlightPerHost <= 0) {
+            return;
+        }
+
+        final Runnable next;
+        synchronized (this) {
+            final HostSlots slots = hosts.get(task.host);
+            if (slots == null) {
+                return;
+            }
+
+            next = slots.waiting.pollFirst();
+            if (next == null) {
+                if (--slots.inFlight == 0) {
+                    hosts.remove(task.host);
+                }
+                return;
+            }
+        }
+
+        // Keep the slot for the next request, but don't run it in the caller thread
+        if (!stopped) {
+            executor.execute(next);
+        }
+    }
+}
@@ -29,6 +29,11 @@ public class ParsedHttpPeriodicTask extends ParsedHttpTask {
      */
     public final long period;
 
+    /**
+     * Number of failed executions in a row, used to back off
+     */
+    volatile int consecutiveFailures;
+
     public ParsedHttpPeriodicTask(final HttpDeviceFactoryConfigurationPeriodicDTO task)
             throws DatabindException, JacksonException {
         super(task);
@@ -12,6 +12,7 @@
 **********************************************************************/
 package org.eclipse.sensinact.gateway.southbound.http.factory;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
@@ -34,6 +35,16 @@ public class ParsedHttpTask {
      */
     private static final int MIN_BUFFER_SIZE = 512;
 
+    /**
+     * Validators of a response, used to make conditional requests
+     *
+     * @param etag          Entity tag (can be null)
+     * @param lastModified  Last modification date (can be null)
+     * @param contentLength Length of the content
+     */
+    public record Validators(String etag, String lastModified, long contentLength) {
+    }
+
     /**
      * Simple Key/value pair
      */
@@ -75,6 +86,11 @@ public class ParsedHttpTask {
      */
     public final String url;
 
+    /**
+     * Target host, used to limit concurrent requests
+     */
+    public final String host;
+
     /**
      * Content body
      */
@@ -100,6 +116,16 @@ public class ParsedHttpTask {
      */
     public final boolean followHttpRedirect;
 
+    /**
+     * Send conditional requests based on the previous response
+     */
+    public final boolean conditionalRequests;
+
+    /**
+     * Validators of the last handled response
+     */
+    private volatile Validators validators;
+
     /**
      * HTTP request headers
      */
@@ -118,6 +144,7 @@ public class ParsedHttpTask {
         if (this.url == null || this.url.isBlank()) {
             throw new IllegalArgumentException("No URL given");
         }
+        this.host = parseHost(this.url);
         if (task.body != null) {
             ObjectMapper mapper = new ObjectMapper();
             this.body = mapper.writeValueAsString(task.body);
@@ -126,6 +153,7 @@ public class ParsedHttpTask {
         }
 
         this.followHttpRedirect = task.httpFollowRedirect;
+        this.conditionalRequests = task.httpConditional && "GET".equalsIgnoreCase(this.method);
 
         this.ignoreSslErrors = task.sslIgnoreErrors;
         this.keystorePath = task.sslKeyStore;
@@ -151,6 +179,24 @@ public class ParsedHttpTask {
         }
     }
 
+    /**
+     * Extracts the host and port of the given URL
+     *
+     * @param url Target URL
+     * @return The host part of the URL or the URL itself if it can't be parsed
+     */
+    private static String parseHost(final String url) {
+        try {
+            final URI uri = new URI(url);
+            if (uri.getHost() != null) {
+                return uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+            }
+        } catch (Exception e) {
+            // Use the raw URL
+        }
+        return url;
+    }
+
     /**
      * Parses the configured Headers
      */
@@ -181,6 +227,27 @@ public class ParsedHttpTask {
         return List.copyOf(headers);
     }
 
+    /**
+     * Validators of the last handled response, if any
+     */
+    public Validators getValidators() {
+        return validators;
+    }
+
+    /**
+     * Stores the validators of the last handled response
+     *
+     * @param etag          Entity tag (can be null)
+     * @param lastModified  Last modification date (can be null)
+     * @param contentLength Length of the content
+     */
+    public void setValidators(final String etag, final String lastModified, final long contentLength) {
+        if (conditionalRequests) {
+            this.validators = etag == null && lastModified == null ? null
+                    : new Validators(etag, lastModified, contentLength);
+        }
+    }
+
     /**
      * Returns buffer size in bytes
      */
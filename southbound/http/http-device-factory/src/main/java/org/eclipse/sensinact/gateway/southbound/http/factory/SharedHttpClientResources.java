@@ -14,12 +14,16 @@ package org.eclipse.sensinact.gateway.southbound.http.factory;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.dynamic.HttpClientTransportDynamic;
 import org.eclipse.jetty.io.ClientConnector;
 import org.eclipse.jetty.util.SocketAddressResolver;
 import org.eclipse.jetty.util.SocketAddressResolver.Async;
+import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
@@ -34,10 +38,106 @@ import org.osgi.service.component.annotations.Deactivate;
 @Component(immediate = true, service = SharedHttpClientResources.class)
 public class SharedHttpClientResources {
 
+    /**
+     * Configuration of a shared client. The credentials are part of it as the
+     * client cookies, i.e. the server sessions, must not be shared by different
+     * users.
+     */
+    private record ClientKey(boolean ignoreSslErrors, String keystorePath, String keystorePassword,
+            String trustStorePath, String trustStorePassword, int timeout, boolean followHttpRedirect,
+            String authUser, String authPassword) {
+
+        ClientKey(final ParsedHttpTask task) {
+            this(task.ignoreSslErrors, task.keystorePath, task.keystorePassword, task.trustStorePath,
+                    task.trustStorePassword, task.timeout, task.followHttpRedirect, task.authUser,
+                    task.authPassword);
+        }
+    }
+
+    /**
+     * Started client and the number of leases using it
+     */
+    private static final class SharedClient {
+        final HttpClient client;
+        int users;
+
+        SharedClient(final HttpClient client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * Clients used by a component. Each client is shared with the other leases
+     * using the same configuration, and is stopped once the last lease using it
+     * is closed.
+     */
+    public final class ClientLease implements AutoCloseable {
+
+        /**
+         * Clients acquired by this lease
+         */
+        private final Map<ClientKey, HttpClient> acquired = new ConcurrentHashMap<>();
+
+        /**
+         * Set once the lease is closed (guarded by the clients map)
+         */
+        private boolean closed;
+
+        private ClientLease() {
+        }
+
+        /**
+         * Returns a started HTTP client configured according to the given task. The
+         * client, and its connection pools, are shared by all the tasks with the same
+         * connection configuration: it must not be stopped by the caller.
+         *
+         * @throws IllegalStateException The lease is closed
+         * @throws Exception             Error starting the client
+         */
+        public HttpClient getClient(final ParsedHttpTask task) throws Exception {
+            final ClientKey key = new ClientKey(task);
+            HttpClient client = acquired.get(key);
+            if (client == null) {
+                synchronized (clients) {
+                    if (closed) {
+                        throw new IllegalStateException("HTTP clients lease is closed");
+                    }
+                    client = acquired.get(key);
+                    if (client == null) {
+                        client = acquire(key, task);
+                        acquired.put(key, client);
+                    }
+                }
+            }
+            return client;
+        }
+
+        /**
+         * Releases the clients of this lease, stopping those which aren't used by
+         * another lease anymore
+         */
+        @Override
+        public void close() {
+            synchronized (clients) {
+                if (!closed) {
+                    closed = true;
+                    acquired.keySet().forEach(SharedHttpClientResources.this::release);
+                    acquired.clear();
+                }
+            }
+        }
+    }
+
     private QueuedThreadPool sharedPool;
     private Scheduler sharedScheduler;
     private Async sharedAddressResolver;
 
+    /**
+     * Started clients, shared by the leases with the same configuration. The map
+     * itself is used to synchronize the leases.
+     */
+    private final Map<ClientKey, SharedClient> clients = new HashMap<>();
+
     @Activate
     void activate() throws Exception {
         final String baseName = "sensinact-http-device-factory";
@@ -53,6 +153,10 @@ public class SharedHttpClientResources {
 
     @Deactivate
     void deactivate() throws Exception {
+        synchronized (clients) {
+            clients.values().forEach(shared -> LifeCycle.stop(shared.client));
+            clients.clear();
+        }
         sharedScheduler.stop();
         sharedScheduler = null;
         sharedPool.stop();
@@ -60,6 +164,43 @@ public class SharedHttpClientResources {
         sharedAddressResolver = null;
     }
 
+    /**
+     * Opens a lease on the shared clients. The lease must be closed once its
+     * clients aren't used anymore.
+     */
+    public ClientLease lease() {
+        return new ClientLease();
+    }
+
+    /**
+     * Returns the started client of the given configuration and counts a new user.
+     * Must be called while synchronized on {@link #clients}.
+     */
+    private HttpClient acquire(final ClientKey key, final ParsedHttpTask task) throws Exception {
+        SharedClient shared = clients.get(key);
+        if (shared == null) {
+            final HttpClient client = newClient(task);
+            client.start();
+            shared = new SharedClient(client);
+            clients.put(key, shared);
+        }
+        shared.users++;
+        return shared.client;
+    }
+
+    /**
+     * Counts one user less for the client of the given configuration, and stops it
+     * if it was the last one. Must be called while synchronized on
+     * {@link #clients}.
+     */
+    private void release(final ClientKey key) {
+        final SharedClient shared = clients.get(key);
+        if (shared != null && --shared.users <= 0) {
+            clients.remove(key);
+            LifeCycle.stop(shared.client);
+        }
+    }
+
     /**
      * Returns a new HTTP client using shared resources and configured according to
      * the given task. The client is not started when returned.
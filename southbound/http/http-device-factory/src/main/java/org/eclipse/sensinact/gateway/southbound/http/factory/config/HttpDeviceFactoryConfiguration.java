@@ -20,4 +20,25 @@ public @interface HttpDeviceFactoryConfiguration {
     String[] tasks_oneshot();
 
     String[] tasks_periodic();
+
+    /**
+     * Number of threads running the tasks
+     */
+    int scheduler_threads() default 2;
+
+    /**
+     * Maximum number of concurrent requests to a single host (0 for no limit)
+     */
+    int scheduler_max_inflight_per_host() default 4;
+
+    /**
+     * Random variation of the period of periodic tasks, as a fraction of it (0 to
+     * keep the configured period)
+     */
+    double scheduler_jitter() default 0;
+
+    /**
+     * Maximum random delay before the first run of a periodic task, in seconds
+     */
+    long scheduler_start_spread() default 0;
 }
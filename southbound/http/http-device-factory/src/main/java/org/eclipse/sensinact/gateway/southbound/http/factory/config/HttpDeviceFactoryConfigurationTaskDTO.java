@@ -93,6 +93,13 @@ public class HttpDeviceFactoryConfigurationTaskDTO {
     @JsonProperty("http.followRedirect")
     public boolean httpFollowRedirect;
 
+    /**
+     * Use the ETag and Last-Modified headers of the previous response to skip
+     * unchanged content (GET requests only)
+     */
+    @JsonProperty("http.conditional")
+    public boolean httpConditional = true;
+
     /**
      * HTTP basic authentication login
      */
@@ -0,0 +1,156 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.http.factory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
+import org.eclipse.sensinact.gateway.southbound.http.factory.HttpTaskScheduler.TaskResult;
+import org.eclipse.sensinact.gateway.southbound.http.factory.config.HttpDeviceFactoryConfigurationPeriodicDTO;
+import org.eclipse.sensinact.gateway.southbound.http.factory.config.HttpDeviceFactoryConfigurationTaskDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the scheduling of HTTP tasks
+ */
+public class HttpTaskSchedulerTest {
+
+    record Call(ParsedHttpTask task, Consumer<TaskResult> onDone) {
+    }
+
+    final BlockingQueue<Call> calls = new LinkedBlockingQueue<>();
+
+    IMetricsManager metrics;
+
+    HttpTaskScheduler scheduler;
+
+    @BeforeEach
+    void setup() {
+        metrics = mock(IMetricsManager.class);
+        when(metrics.getHistogram(anyString())).thenReturn(mock(IMetricsHistogram.class));
+    }
+
+    @AfterEach
+    void stop() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    ParsedHttpTask task(final String url) throws Exception {
+        final HttpDeviceFactoryConfigurationTaskDTO dto = new HttpDeviceFactoryConfigurationTaskDTO();
+        dto.url = url;
+        dto.mapping = new DeviceMappingConfigurationDTO();
+        return new ParsedHttpTask(dto);
+    }
+
+    ParsedHttpPeriodicTask periodicTask(final String url) throws Exception {
+        final HttpDeviceFactoryConfigurationPeriodicDTO dto = new HttpDeviceFactoryConfigurationPeriodicDTO();
+        dto.url = url;
+        dto.mapping = new DeviceMappingConfigurationDTO();
+        dto.period = 1;
+        return new ParsedHttpPeriodicTask(dto);
+    }
+
+    @Test
+    void testHostKey() throws Exception {
+        assertEquals("localhost:8080", task("http://localhost:8080/a?b=c").host);
+        assertEquals("localhost", task("https://localhost/a").host);
+        assertEquals("sample", task("sample").host);
+    }
+
+    @Test
+    void testMaxInFlightPerHost() throws Exception {
+        scheduler = new HttpTaskScheduler(4, 2, 0, 0, (t, done) -> calls.add(new Call(t, done)), metrics);
+
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(task("http://host-a/" + i));
+        }
+        scheduler.submit(task("http://host-b/"));
+
+        // Two requests to host A and the one to host B
+        final List<Call> running = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            running.add(calls.poll(1, TimeUnit.SECONDS));
+        }
+        assertEquals(1, running.stream().filter(c -> c.task().host.equals("host-b")).count());
+        assertEquals(null, calls.poll(200, TimeUnit.MILLISECONDS));
+
+        // Completing a request to host A starts the waiting one
+        running.stream().filter(c -> c.task().host.equals("host-a")).findFirst().get().onDone()
+                .accept(TaskResult.SUCCESS);
+        final Call next = calls.poll(1, TimeUnit.SECONDS);
+        assertEquals("host-a", next.task().host);
+    }
+
+    @Test
+    void testBackoff() throws Exception {
+        scheduler = new HttpTaskScheduler(1, 0, 0, 0, (t, done) -> calls.add(new Call(t, done)), metrics);
+
+        final ParsedHttpPeriodicTask task = periodicTask("http://localhost/");
+        scheduler.schedule(task);
+
+        Call call = calls.poll(1, TimeUnit.SECONDS);
+        call.onDone().accept(TaskResult.FAILURE);
+        assertEquals(1, task.consecutiveFailures);
+
+        // Backs off to twice the period
+        long start = System.nanoTime();
+        call = calls.poll(5, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 1900, "Retried too early: " + elapsed);
+
+        // Back to the normal period on success
+        call.onDone().accept(TaskResult.SUCCESS);
+        assertEquals(0, task.consecutiveFailures);
+        start = System.nanoTime();
+        call = calls.poll(5, TimeUnit.SECONDS);
+        elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed < 1900, "Retried too late: " + elapsed);
+
+        // The lag histogram is resolved once for all the runs of the task
+        verify(metrics, times(1)).getHistogram(anyString());
+    }
+
+    @Test
+    void testRetryAfter() throws Exception {
+        scheduler = new HttpTaskScheduler(1, 0, 0, 0, (t, done) -> calls.add(new Call(t, done)), metrics);
+
+        scheduler.schedule(periodicTask("http://localhost/"));
+        final Call call = calls.poll(1, TimeUnit.SECONDS);
+        call.onDone().accept(new TaskResult(true, Duration.ofSeconds(3)));
+
+        final long start = System.nanoTime();
+        assertEquals(null, calls.poll(2500, TimeUnit.MILLISECONDS));
+        assertTrue(calls.poll(2, TimeUnit.SECONDS) != null);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 2900);
+    }
+}
@@ -0,0 +1,80 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.http.factory;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
+import org.eclipse.sensinact.gateway.southbound.http.factory.SharedHttpClientResources.ClientLease;
+import org.eclipse.sensinact.gateway.southbound.http.factory.config.HttpDeviceFactoryConfigurationTaskDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the reference counting of the shared HTTP clients
+ */
+class SharedHttpClientResourcesTest {
+
+    private SharedHttpClientResources resources;
+
+    @BeforeEach
+    void start() throws Exception {
+        resources = new SharedHttpClientResources();
+        resources.activate();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        resources.deactivate();
+    }
+
+    private static ParsedHttpTask task(final String user) {
+        final HttpDeviceFactoryConfigurationTaskDTO dto = new HttpDeviceFactoryConfigurationTaskDTO();
+        dto.url = "http://localhost/" + user;
+        dto.mapping = new DeviceMappingConfigurationDTO();
+        dto.authUser = user;
+        dto.authPassword = "secret";
+        return new ParsedHttpTask(dto);
+    }
+
+    @Test
+    void testClientStoppedWithLastLease() throws Exception {
+        final ClientLease first = resources.lease();
+        final ClientLease second = resources.lease();
+
+        final HttpClient client = first.getClient(task("alice"));
+        assertSame(client, first.getClient(task("alice")));
+        assertSame(client, second.getClient(task("alice")));
+        assertNotSame(client, second.getClient(task("bob")));
+
+        first.close();
+        assertTrue(client.isRunning());
+        assertThrows(IllegalStateException.class, () -> first.getClient(task("alice")));
+
+        second.close();
+        assertTrue(client.isStopped());
+
+        // A new lease gets a new client
+        final ClientLease third = resources.lease();
+        final HttpClient other = third.getClient(task("alice"));
+        assertNotSame(client, other);
+        assertTrue(other.isRunning());
+        third.close();
+        assertTrue(other.isStopped());
+    }
+}
@@ -331,6 +331,55 @@ public class HttpDeviceFactoryTest {
         }
     }
 
+    @Test
+    void testConditionalPeriodicTask() throws Exception {
+        // Excepted providers
+        final String provider1 = "conditional-provider1";
+        final String provider2 = "conditional-provider2";
+
+        // Register listener
+        setupProvidersHandling(provider1, provider2);
+
+        final String inputFileName = "csv-header-dynamic";
+        final String template = new String(readFile(inputFileName + ".csv")).replace("dynamic-provider",
+                "conditional-provider");
+        final String mappingConfig = new String(readFile(inputFileName + "-mapping.json"));
+
+        handler.setData("/data", template.replace("$val1$", "1").replace("$val2$", "2"));
+        handler.setETag("/data", "\"v1\"");
+
+        Configuration config = configAdmin.createFactoryConfiguration("sensinact.http.device.factory", "?");
+        try {
+            // Use a 1-second period
+            config.update(new Hashtable<>(Map.of("tasks.periodic", "[{\"period\": 1, \"url\": \"http://localhost:"
+                    + httpPort + "/data\", \"mapping\": " + mappingConfig + "}]")));
+
+            // Wait for the provider to appear
+            assertNotNull(queue.poll(1, TimeUnit.SECONDS));
+            assertEquals(1, session.getResourceValue(provider1, "data", "value", Integer.class));
+
+            // Next polls are answered with "not modified"
+            final Instant timeout = Instant.now().plus(5, ChronoUnit.SECONDS);
+            while (handler.nbNotModified("/data") < 2 && Instant.now().isBefore(timeout)) {
+                Thread.sleep(100);
+            }
+            assertTrue(handler.nbNotModified("/data") >= 2);
+            assertEquals(1, handler.nbVisits("/data"));
+
+            // Update value
+            queue.clear();
+            queue2.clear();
+            handler.setData("/data", template.replace("$val1$", "10").replace("$val2$", "20"));
+            handler.setETag("/data", "\"v2\"");
+
+            // Wait for notifications
+            assertNotifications(10, 20, 10);
+            assertEquals(2, handler.nbVisits("/data"));
+        } finally {
+            config.delete();
+        }
+    }
+
     @Test
     void testCombined() throws Exception {
         // Excepted providers
@@ -35,6 +35,8 @@ public class RequestHandler extends AbstractHandler {
     private final Map<String, Integer> queryPause = new HashMap<>();
     private final Map<String, AtomicInteger> serverVisits = Collections.synchronizedMap(new HashMap<>());
     private final Map<String, Instant> lastVisitTimes = Collections.synchronizedMap(new HashMap<>());
+    private final Map<String, String> etags = new HashMap<>();
+    private final Map<String, AtomicInteger> notModified = Collections.synchronizedMap(new HashMap<>());
 
     public void setData(final String path, final byte[] data) {
         serverData.put(path, data);
@@ -44,6 +46,14 @@ public class RequestHandler extends AbstractHandler {
         serverData.put(path, data.getBytes());
     }
 
+    public void setETag(final String path, final String etag) {
+        if (etag == null) {
+            etags.remove(path);
+        } else {
+            etags.put(path, etag);
+        }
+    }
+
     public void setPause(final String path, final int pause) {
         if (pause <= 0) {
             queryPause.remove(path);
@@ -57,6 +67,8 @@ public class RequestHandler extends AbstractHandler {
         serverVisits.clear();
         queryPause.clear();
         lastVisitTimes.clear();
+        etags.clear();
+        notModified.clear();
     }
 
     public int nbVisitedPaths() {
@@ -67,6 +79,10 @@ public class RequestHandler extends AbstractHandler {
         return serverVisits.getOrDefault(path, new AtomicInteger()).get();
     }
 
+    public int nbNotModified(final String path) {
+        return notModified.getOrDefault(path, new AtomicInteger()).get();
+    }
+
     public Instant lastVisitTime(final String path) {
         return lastVisitTimes.get(path);
     }
@@ -96,6 +112,16 @@ public class RequestHandler extends AbstractHandler {
             }
         }
 
+        final String etag = etags.get(target);
+        if (etag != null) {
+            if (etag.equals(request.getHeader("If-None-Match"))) {
+                notModified.computeIfAbsent(target, (k) -> new AtomicInteger()).incrementAndGet();
+                response.setStatus(304);
+                return;
+            }
+            response.setHeader("ETag", etag);
+        }
+
         byte[] content = serverData.get(target);
         if (content != null) {
             serverVisits.computeIfAbsent(target, (k) -> new AtomicInteger()).incrementAndGet();
@@ -54,6 +54,35 @@ public @interface MqttClientConfiguration {
      */
     String client_id();
 
+    /**
+     * Number of threads handling the received messages. Messages of a topic are
+     * always handled in order, by the same thread.
+     */
+    int dispatch_threads() default 1;
+
+    /**
+     * Maximum number of received messages waiting to be handled by each thread
+     */
+    int dispatch_queue_size() default 1000;
+
+    /**
+     * Don't keep the last message of each topic for the listeners registered
+     * afterwards
+     */
+    boolean replay_disabled() default false;
+
+    /**
+     * Maximum number of topics whose last message is kept for new listeners (0
+     * for no limit). The least recently updated topics are dropped first.
+     */
+    int replay_max_entries() default 10000;
+
+    /**
+     * Time after which a kept message isn't given to new listeners anymore, in
+     * seconds (0 for no expiry)
+     */
+    long replay_ttl() default 0;
+
     /**
      * Delay before trying to reconnect (in milliseconds)
      */
@@ -16,14 +16,17 @@ import java.net.ConnectException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.UUID;
-import java.util.function.Predicate;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.MqttCallback;
@@ -31,9 +34,14 @@ import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
-import org.eclipse.paho.client.mqttv3.MqttTopic;
+import org.eclipse.sensinact.core.metrics.IMetricsMultiGauge;
 import org.eclipse.sensinact.gateway.southbound.mqtt.api.IMqttMessage;
 import org.eclipse.sensinact.gateway.southbound.mqtt.api.IMqttMessageListener;
+import org.eclipse.sensinact.gateway.southbound.mqtt.impl.ReplayCache.Replay;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
@@ -78,11 +86,29 @@ public class MqttClientHandler implements MqttCallback {
     private final Object lock = new Object();
 
     /**
-     * Listener -&gt; Topic handling predicate
+     * Listener -&gt; Topic filters (guarded by lock)
      */
-    private Map<IMqttMessageListener, Predicate<String>> listeners = new IdentityHashMap<>();
+    private final Map<IMqttMessageListener, TopicTrie<IMqttMessageListener>> listeners = new IdentityHashMap<>();
 
-    private Map<String, IMqttMessage> topic2last = new HashMap<>();
+    /**
+     * Topic filter -&gt; Listeners, rebuilt when listeners are added or removed
+     */
+    private volatile TopicTrie<IMqttMessageListener> listenersTrie = new TopicTrie<>();
+
+    /**
+     * Workers handling the received messages
+     */
+    private TopicDispatcher dispatcher;
+
+    /**
+     * Last message of each topic, given to new listeners (null if disabled)
+     */
+    private volatile ReplayCache replayCache;
+
+    /**
+     * Replay cache metrics registration
+     */
+    private ServiceRegistration<IMetricsMultiGauge> gaugesRegistration;
 
     private String[] topics;
 
@@ -95,18 +121,38 @@ public class MqttClientHandler implements MqttCallback {
      */
     @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
     public void addListener(IMqttMessageListener listener, Map<String, Object> svcProps) {
-        final String[] filters = getArrayProperty(svcProps.get(IMqttMessageListener.MQTT_TOPICS_FILTERS));
-        Predicate<String> predicate = (str) -> serviceMatchesTopic(str, filters);
-        Map<String, IMqttMessage> topic2lastCopy;
+        final TopicTrie<IMqttMessageListener> filters = makeFilters(listener,
+                getArrayProperty(svcProps.get(IMqttMessageListener.MQTT_TOPICS_FILTERS)));
         synchronized(lock) {
-            listeners.put(listener, predicate);
-            topic2lastCopy = new HashMap<>(topic2last);
-        }
-        for (var lastEntry: topic2lastCopy.entrySet()) {
-            String topic = lastEntry.getKey();
-            IMqttMessage message = lastEntry.getValue();
-            if (predicate.test(topic) && message.getPayload().length > 0) {
-                listener.onMqttMessage(message.getHandlerId(), topic, message);
+            listeners.put(listener, filters);
+            updateListenersTrie();
+        }
+
+        // Give the last known messages of the listened topics. They are copied
+        // from the cache then handled by the worker of their topic, without
+        // holding the cache. A replayed message is skipped if its topic was
+        // updated or cleared meanwhile, as the listener gets the live message. At
+        // worst, the listener gets the last message twice.
+        final ReplayCache cache = replayCache;
+        final TopicDispatcher currentDispatcher = dispatcher;
+        if (cache != null && currentDispatcher != null) {
+            final List<Replay> replays = cache.replays(filters);
+            int dispatched = 0;
+            try {
+                for (; dispatched < replays.size(); dispatched++) {
+                    final Replay replay = replays.get(dispatched);
+                    final IMqttMessage message = replay.message();
+                    currentDispatcher.dispatch(message.getTopic(), () -> {
+                        if (cache.endReplay(replay)) {
+                            notifyListener(listener, message.getHandlerId(), message.getTopic(), message);
+                        }
+                    });
+                }
+            } catch (RejectedExecutionException e) {
+                logger.warn("MQTT message replay stopped. Client={}", handlerId);
+                for (Replay replay : replays.subList(dispatched, replays.size())) {
+                    cache.endReplay(replay);
+                }
             }
         }
     }
@@ -117,7 +163,37 @@ public class MqttClientHandler implements MqttCallback {
     public void removeListener(IMqttMessageListener listener) {
         synchronized(lock) {
             listeners.remove(listener);
+            updateListenersTrie();
+        }
+    }
+
+    /**
+     * Prepares the topic filters of a listener
+     *
+     * @param listener Listener
+     * @param filters  Topic filters (can be null)
+     * @return The filters trie, empty if no filter was given (no message)
+     */
+    private TopicTrie<IMqttMessageListener> makeFilters(final IMqttMessageListener listener, final String[] filters) {
+        final TopicTrie<IMqttMessageListener> trie = new TopicTrie<>();
+        if (filters != null) {
+            for (String filter : filters) {
+                trie.add(filter, listener);
+            }
         }
+        return trie;
+    }
+
+    /**
+     * Rebuilds the topic filters trie of all listeners. Must be called while
+     * holding the lock.
+     */
+    private void updateListenersTrie() {
+        final TopicTrie<IMqttMessageListener> trie = new TopicTrie<>();
+        for (Entry<IMqttMessageListener, TopicTrie<IMqttMessageListener>> entry : listeners.entrySet()) {
+            trie.addAll(entry.getValue());
+        }
+        listenersTrie = trie;
     }
 
     /**
@@ -148,6 +224,15 @@ public class MqttClientHandler implements MqttCallback {
         }
 
         connectOptions = setupOptions(config);
+        dispatcher = new TopicDispatcher("mqtt-" + handlerId, config.dispatch_threads(),
+                config.dispatch_queue_size());
+        if (config.replay_disabled()) {
+            replayCache = null;
+        } else {
+            replayCache = new ReplayCache(config.replay_max_entries(),
+                    Duration.ofSeconds(Math.max(config.replay_ttl(), 0)).toMillis());
+            registerGauges(replayCache);
+        }
 
         // Start client (blocking)
         logger.debug("Connecting MQTT client with ID {}", clientId);
@@ -196,14 +281,54 @@ public class MqttClientHandler implements MqttCallback {
             client = null;
         }
 
+        if (dispatcher != null) {
+            dispatcher.stop();
+            dispatcher = null;
+        }
+
         if (reconnectTimer != null) {
             reconnectTimer.cancel();
             reconnectTimer = null;
         }
 
+        if (gaugesRegistration != null) {
+            try {
+                gaugesRegistration.unregister();
+            } catch (IllegalStateException e) {
+                // Already unregistered
+            }
+            gaugesRegistration = null;
+        }
+
+        if (replayCache != null) {
+            replayCache.clear();
+            replayCache = null;
+        }
+
         handlerId = null;
     }
 
+    /**
+     * Registers the size of the replay cache as metrics gauges, if running in an
+     * OSGi framework
+     *
+     * @param cache Replay cache
+     */
+    private void registerGauges(final ReplayCache cache) {
+        final Bundle bundle = FrameworkUtil.getBundle(MqttClientHandler.class);
+        final BundleContext context = bundle != null ? bundle.getBundleContext() : null;
+        if (context == null) {
+            return;
+        }
+
+        final String entriesGauge = "sensinact.mqtt." + handlerId + ".replay.entries";
+        final String bytesGauge = "sensinact.mqtt." + handlerId + ".replay.bytes";
+        final Dictionary<String, Object> props = new Hashtable<>();
+        props.put(IMetricsMultiGauge.NAMES, new String[] { entriesGauge, bytesGauge });
+        gaugesRegistration = context.registerService(IMetricsMultiGauge.class,
+                name -> entriesGauge.equals(name) ? cache.size() : cache.bytes(), props);
+    }
+
     private MqttConnectOptions setupOptions(final MqttClientConfiguration config) throws Exception {
         // Always start with a clean session
         final MqttConnectOptions options = new MqttConnectOptions();
@@ -323,47 +448,62 @@ public class MqttClientHandler implements MqttCallback {
             return;
         }
         final SensiNactMqttMessage snMessage = new SensiNactMqttMessage(handlerId, topic, message);
-        client.messageArrivedComplete(message.getId(), message.getQos());
-
-        Map<IMqttMessageListener, Predicate<String>> listenersCopy;
-        synchronized(lock) {
-            listenersCopy = new IdentityHashMap<>(listeners);
-            topic2last.put(snMessage.getTopic(), snMessage);
+        final ReplayCache cache = replayCache;
+        if (cache != null) {
+            // Replays of this topic queued before this message are skipped by their
+            // worker
+            cache.put(topic, snMessage);
         }
+        dispatch(topic, message, snMessage);
+    }
 
-        // Notify matching listeners
-        for (Entry<IMqttMessageListener, Predicate<String>> entry : listenersCopy.entrySet()) {
-            if (entry.getValue().test(topic)) {
+    /**
+     * Handles a received message outside the MQTT client thread
+     */
+    private void dispatch(final String topic, final MqttMessage message, final IMqttMessage snMessage) {
+        final String currentHandlerId = handlerId;
+        final MqttClient currentClient = client;
+        try {
+            dispatcher.dispatch(topic, () -> {
+                notifyListeners(currentHandlerId, topic, snMessage);
+                // Acknowledge QoS 1 and 2 messages once they have been handled
                 try {
-                    entry.getKey().onMqttMessage(handlerId, topic, snMessage);
-                } catch (Throwable t) {
-                    logger.error("Error handling MQTT message. Client={}, topic={}, error={}", handlerId, topic,
-                            t.getMessage(), t);
+                    currentClient.messageArrivedComplete(message.getId(), message.getQos());
+                } catch (MqttException e) {
+                    logger.warn("Error acknowledging MQTT message. Client={}, topic={}, error={}", currentHandlerId,
+                            topic, e.getMessage());
                 }
-            }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("MQTT message dropped while stopping. Client={}, topic={}", currentHandlerId, topic);
         }
     }
 
     /**
-     * Checks if the given service is configured to handle the given topic
+     * Notifies the listeners whose filters match the topic of the message
      *
-     * @param topic  Message topic
-     * @param svcRef Potential listener
-     * @return True if the listener can handle the topic
+     * @param handlerId Handler ID
+     * @param topic     Message topic
+     * @param message   Received message
      */
-    private boolean serviceMatchesTopic(String topic, String[] filters) {
-        if (filters == null || filters.length == 0) {
-            // No filter: no message
-            return false;
+    private void notifyListeners(final String handlerId, final String topic, final IMqttMessage message) {
+        final Set<IMqttMessageListener> matching = listenersTrie.match(topic);
+        for (IMqttMessageListener listener : matching) {
+            notifyListener(listener, handlerId, topic, message);
         }
+    }
 
-        for (String filter : filters) {
-            if (MqttTopic.isMatched(filter, topic)) {
-                return true;
-            }
+    /**
+     * Notifies a listener, logging its errors
+     */
+    private void notifyListener(final IMqttMessageListener listener, final String handlerId, final String topic,
+            final IMqttMessage message) {
+        try {
+            listener.onMqttMessage(handlerId, topic, message);
+        } catch (Throwable t) {
+            logger.error("Error handling MQTT message. Client={}, topic={}, error={}", handlerId, topic,
+                    t.getMessage(), t);
         }
-
-        return false;
     }
 
     /**
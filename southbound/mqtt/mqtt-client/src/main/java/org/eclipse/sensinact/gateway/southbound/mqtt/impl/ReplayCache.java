@@ -0,0 +1,368 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.mqtt.impl;
+
+import static org.eclipse.sensinact.gateway.southbound.mqtt.impl.TopicTrie.MULTI_LEVEL;
+import static org.eclipse.sensinact.gateway.southbound.mqtt.impl.TopicTrie.SINGLE_LEVEL;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.sensinact.gateway.southbound.mqtt.api.IMqttMessage;
+
+/**
+ * Keeps the last message received on each topic, to give it to the listeners
+ * registered afterwards.
+ *
+ * The number of topics can be limited, in which case the least recently
+ * updated topics are evicted first. Messages can also expire after some time.
+ *
+ * The topics are also kept in a tree of levels, so that a replay only visits
+ * the branches the filters can match. A filter ending with a multi-level
+ * wildcard still visits all the topics below its prefix.
+ *
+ * Replayed messages are given with their sequence number, so that they can be
+ * skipped if their topic was updated or cleared before they are handled. The
+ * eviction of a topic doesn't cancel its replays.
+ */
+final class ReplayCache {
+
+    /**
+     * A cached message
+     *
+     * @param sequence Order of the update in the cache
+     */
+    private record CachedMessage(IMqttMessage message, long receivedNanos, long size, long sequence) {
+    }
+
+    /**
+     * A message to replay
+     *
+     * @param sequence Order of the update in the cache
+     */
+    record Replay(IMqttMessage message, long sequence) {
+    }
+
+    /**
+     * Replays in progress of a topic
+     */
+    private static final class PendingReplays {
+        /**
+         * Number of replays not ended yet
+         */
+        int count;
+
+        /**
+         * Sequence of the last update or clear of the topic
+         */
+        long lastChange;
+
+        PendingReplays(final long lastChange) {
+            this.lastChange = lastChange;
+        }
+    }
+
+    /**
+     * A level of the cached topics
+     */
+    private static final class Level {
+        final Level parent;
+        final String name;
+        final Map<String, Level> children = new HashMap<>();
+
+        /**
+         * Message of the topic ending at this level, if any
+         */
+        CachedMessage message;
+
+        Level(final Level parent, final String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Maximum number of topics (0 for no limit)
+     */
+    private final int maxEntries;
+
+    /**
+     * Time to live of messages in nanoseconds (0 for no expiry)
+     */
+    private final long ttlNanos;
+
+    /**
+     * Topic -&gt; last message, from the least to the most recently updated
+     */
+    private final LinkedHashMap<String, CachedMessage> messages = new LinkedHashMap<>();
+
+    /**
+     * Root of the tree of the cached topics
+     */
+    private final Level root = new Level(null, null);
+
+    /**
+     * Topic -&gt; replays in progress, only for the topics being replayed
+     */
+    private final Map<String, PendingReplays> pending = new HashMap<>();
+
+    /**
+     * Sequence of the last update or clear
+     */
+    private long sequence;
+
+    /**
+     * Approximate size of the cached topics and payloads, in bytes
+     */
+    private long bytes;
+
+    /**
+     * @param maxEntries Maximum number of topics (0 for no limit)
+     * @param ttlMillis  Time to live of messages, in milliseconds (0 for no
+     *                   expiry)
+     */
+    ReplayCache(final int maxEntries, final long ttlMillis) {
+        this.maxEntries = Math.max(maxEntries, 0);
+        this.ttlNanos = Math.max(ttlMillis, 0) * 1_000_000L;
+    }
+
+    /**
+     * Stores the last message of a topic. A message with an empty payload clears
+     * the topic.
+     *
+     * @param topic   Message topic
+     * @param message Received message
+     */
+    synchronized void put(final String topic, final IMqttMessage message) {
+        final long now = System.nanoTime();
+        final long change = ++sequence;
+        remove(topic);
+
+        final PendingReplays replays = pending.get(topic);
+        if (replays != null) {
+            replays.lastChange = change;
+        }
+
+        final byte[] payload = message.getPayload();
+        if (payload != null && payload.length > 0) {
+            final CachedMessage cached = new CachedMessage(message, now, 2L * topic.length() + payload.length,
+                    change);
+            messages.put(topic, cached);
+            level(topic, true).message = cached;
+            bytes += cached.size();
+        }
+
+        // Evict the expired and least recently updated topics
+        final Iterator<Entry<String, CachedMessage>> iterator = messages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Entry<String, CachedMessage> eldest = iterator.next();
+            if ((maxEntries > 0 && messages.size() > maxEntries) || isExpired(eldest.getValue(), now)) {
+                iterator.remove();
+                unlink(eldest.getKey());
+                bytes -= eldest.getValue().size();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the cached messages whose topics match the given filters
+     *
+     * @param filters Topic filters
+     * @return The matching messages, from the least to the most recently updated
+     */
+    synchronized List<IMqttMessage> replay(final TopicTrie<?> filters) {
+        return matching(filters).stream().map(CachedMessage::message).toList();
+    }
+
+    /**
+     * Starts the replay of the cached messages whose topics match the given
+     * filters. {@link #endReplay(Replay)} must be called once for each of the
+     * returned replays.
+     *
+     * @param filters Topic filters
+     * @return The matching messages with their sequence number, from the least
+     *         to the most recently updated
+     */
+    synchronized List<Replay> replays(final TopicTrie<?> filters) {
+        final List<Replay> replays = new ArrayList<>();
+        for (CachedMessage cached : matching(filters)) {
+            pending.computeIfAbsent(cached.message().getTopic(), t -> new PendingReplays(cached.sequence())).count++;
+            replays.add(new Replay(cached.message(), cached.sequence()));
+        }
+        return replays;
+    }
+
+    /**
+     * Ends a replay, checking if its message is still the last one of its topic
+     *
+     * @param replay Replayed message
+     * @return false if the topic was updated or cleared since the replay started
+     */
+    synchronized boolean endReplay(final Replay replay) {
+        final String topic = replay.message().getTopic();
+        final PendingReplays replays = pending.get(topic);
+        if (replays == null) {
+            // The cache was cleared
+            return false;
+        }
+
+        if (--replays.count == 0) {
+            pending.remove(topic);
+        }
+        return replays.lastChange == replay.sequence();
+    }
+
+    /**
+     * Returns the valid cached messages whose topics match the given filters
+     *
+     * @param filters Topic filters
+     * @return The matching messages, from the least to the most recently updated
+     */
+    private List<CachedMessage> matching(final TopicTrie<?> filters) {
+        // A topic can match several filters
+        final Set<CachedMessage> matching = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String filter : filters.filters()) {
+            collect(root, TopicTrie.split(filter), 0, matching);
+        }
+
+        final long now = System.nanoTime();
+        return matching.stream().filter(c -> !isExpired(c, now))
+                .sorted(Comparator.comparingLong(CachedMessage::sequence)).toList();
+    }
+
+    /**
+     * Collects the messages of the topics below a level matching the rest of a
+     * filter
+     */
+    private void collect(final Level level, final String[] filter, final int idx, final Set<CachedMessage> result) {
+        if (idx == filter.length) {
+            if (level.message != null) {
+                result.add(level.message);
+            }
+            return;
+        }
+
+        final String name = filter[idx];
+        if (MULTI_LEVEL.equals(name) && idx == filter.length - 1) {
+            // Also matches the parent level
+            collectAll(level, result);
+        } else if (SINGLE_LEVEL.equals(name)) {
+            for (Level child : level.children.values()) {
+                collect(child, filter, idx + 1, result);
+            }
+        } else {
+            final Level child = level.children.get(name);
+            if (child != null) {
+                collect(child, filter, idx + 1, result);
+            }
+        }
+    }
+
+    /**
+     * Collects the messages of a level and all its sub-levels
+     */
+    private void collectAll(final Level level, final Set<CachedMessage> result) {
+        if (level.message != null) {
+            result.add(level.message);
+        }
+        for (Level child : level.children.values()) {
+            collectAll(child, result);
+        }
+    }
+
+    /**
+     * Returns the number of cached topics
+     */
+    synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * Returns the approximate memory used by the cached topics and payloads, in
+     * bytes
+     */
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Removes all messages
+     */
+    synchronized void clear() {
+        messages.clear();
+        root.children.clear();
+        pending.clear();
+        bytes = 0;
+    }
+
+    private void remove(final String topic) {
+        final CachedMessage previous = messages.remove(topic);
+        if (previous != null) {
+            unlink(topic);
+            bytes -= previous.size();
+        }
+    }
+
+    /**
+     * Returns the level of a topic
+     *
+     * @param topic  Topic name
+     * @param create Create the missing levels
+     * @return The level, or null if it doesn't exist and wasn't created
+     */
+    private Level level(final String topic, final boolean create) {
+        Level level = root;
+        for (String name : TopicTrie.split(topic)) {
+            Level child = level.children.get(name);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Level(level, name);
+                level.children.put(name, child);
+            }
+            level = child;
+        }
+        return level;
+    }
+
+    /**
+     * Removes the message of a topic from the tree, with the levels left empty
+     */
+    private void unlink(final String topic) {
+        Level level = level(topic, false);
+        if (level == null) {
+            return;
+        }
+        level.message = null;
+        while (level.parent != null && level.message == null && level.children.isEmpty()) {
+            level.parent.children.remove(level.name);
+            level = level.parent;
+        }
+    }
+
+    private boolean isExpired(final CachedMessage cached, final long now) {
+        return ttlNanos > 0 && now - cached.receivedNanos() > ttlNanos;
+    }
+}
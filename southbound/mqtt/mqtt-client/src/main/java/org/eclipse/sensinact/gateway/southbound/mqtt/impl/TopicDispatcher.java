@@ -0,0 +1,96 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.mqtt.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the handling of MQTT messages outside the MQTT client thread.
+ *
+ * Messages of a topic are always handled by the same worker, in their order of
+ * arrival. When the queue of a worker is full, the caller is blocked until a
+ * message is handled, which slows down the reading of the MQTT connection.
+ */
+final class TopicDispatcher {
+
+    /**
+     * Single-threaded workers
+     */
+    private final ThreadPoolExecutor[] workers;
+
+    /**
+     * @param name      Prefix of the worker thread names
+     * @param threads   Number of workers
+     * @param queueSize Maximum number of messages waiting for each worker
+     */
+    TopicDispatcher(final String name, final int threads, final int queueSize) {
+        workers = new ThreadPoolExecutor[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            final String threadName = name + "-" + i;
+            workers[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueSize)), r -> {
+                        final Thread thread = new Thread(r, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    }, (r, executor) -> {
+                        // Block the caller to keep the order of the messages
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("MQTT message dispatcher stopped");
+                        }
+                        try {
+                            executor.getQueue().put(r);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted while waiting for a worker", e);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Queues the handling of a message
+     *
+     * @param topic   Message topic
+     * @param handler Message handler
+     * @throws RejectedExecutionException Dispatcher stopped
+     */
+    void dispatch(final String topic, final Runnable handler) {
+        workers[Math.floorMod(topic.hashCode(), workers.length)].execute(handler);
+    }
+
+    /**
+     * Stops the workers, waiting for a short time for the queued messages to be
+     * handled
+     */
+    void stop() {
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+
+        try {
+            for (ThreadPoolExecutor worker : workers) {
+                if (!worker.awaitTermination(1, TimeUnit.SECONDS)) {
+                    worker.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (ThreadPoolExecutor worker : workers) {
+                worker.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.mqtt.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Associates values to MQTT topic filters, and finds the values whose filters
+ * match a topic in a time proportional to the depth of the topic.
+ *
+ * This class is not thread-safe: it is meant to be built once, then shared
+ * read-only.
+ *
+ * @param <T> Type of the values, compared by identity
+ */
+final class TopicTrie<T> {
+
+    /**
+     * Single level wildcard
+     */
+    static final String SINGLE_LEVEL = "+";
+
+    /**
+     * Multi-level wildcard
+     */
+    static final String MULTI_LEVEL = "#";
+
+    /**
+     * A level of a filter
+     */
+    private static final class Node<T> {
+        /**
+         * Literal sub-levels
+         */
+        final Map<String, Node<T>> children = new HashMap<>();
+
+        /**
+         * Sub-level of a single level wildcard
+         */
+        Node<T> singleLevel;
+
+        /**
+         * Values of the filters ending at this level
+         */
+        final Set<T> values = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        /**
+         * Values of the filters ending with a multi-level wildcard after this
+         * level
+         */
+        final Set<T> multiLevel = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private final Node<T> root = new Node<>();
+
+    /**
+     * The filters added to the trie
+     */
+    private final Set<String> filters = new LinkedHashSet<>();
+
+    private boolean empty = true;
+
+    /**
+     * Associates a value to a topic filter
+     *
+     * @param filter MQTT topic filter, with optional wildcards
+     * @param value  Value to associate
+     */
+    void add(final String filter, final T value) {
+        filters.add(filter);
+        final String[] levels = split(filter);
+        Node<T> node = root;
+        for (int i = 0; i < levels.length; i++) {
+            final String level = levels[i];
+            if (MULTI_LEVEL.equals(level) && i == levels.length - 1) {
+                node.multiLevel.add(value);
+                empty = false;
+                return;
+            } else if (SINGLE_LEVEL.equals(level)) {
+                if (node.singleLevel == null) {
+                    node.singleLevel = new Node<>();
+                }
+                node = node.singleLevel;
+            } else {
+                node = node.children.computeIfAbsent(level, l -> new Node<>());
+            }
+        }
+        node.values.add(value);
+        empty = false;
+    }
+
+    /**
+     * Adds all the filters of another trie to this one
+     *
+     * @param other Trie to merge in this one
+     */
+    void addAll(final TopicTrie<T> other) {
+        if (!other.empty) {
+            merge(root, other.root);
+            filters.addAll(other.filters);
+            empty = false;
+        }
+    }
+
+    /**
+     * Returns the filters added to the trie
+     *
+     * @return The distinct filters, in their order of addition
+     */
+    Set<String> filters() {
+        return Collections.unmodifiableSet(filters);
+    }
+
+    private static <T> void merge(final Node<T> target, final Node<T> source) {
+        target.values.addAll(source.values);
+        target.multiLevel.addAll(source.multiLevel);
+        for (Entry<String, Node<T>> entry : source.children.entrySet()) {
+            merge(target.children.computeIfAbsent(entry.getKey(), l -> new Node<>()), entry.getValue());
+        }
+        if (source.singleLevel != null) {
+            if (target.singleLevel == null) {
+                target.singleLevel = new Node<>();
+            }
+            merge(target.singleLevel, source.singleLevel);
+        }
+    }
+
+    /**
+     * Checks if at least one filter matches the given topic
+     *
+     * @param topic Topic name
+     * @return True if a filter matches
+     */
+    boolean matches(final String topic) {
+        return !empty && !match(topic).isEmpty();
+    }
+
+    /**
+     * Returns the values whose filters match the given topic
+     *
+     * @param topic Topic name (without wildcards)
+     * @return The matching values, without duplicates (can be empty)
+     */
+    Set<T> match(final String topic) {
+        if (empty) {
+            return Set.of();
+        }
+
+        final Set<T> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(root, split(topic), 0, result);
+        return result;
+    }
+
+    private void collect(final Node<T> node, final String[] levels, final int idx, final Set<T> result) {
+        // A multi-level wildcard also matches its parent level
+        result.addAll(node.multiLevel);
+        if (idx == levels.length) {
+            result.addAll(node.values);
+            return;
+        }
+
+        final Node<T> child = node.children.get(levels[idx]);
+        if (child != null) {
+            collect(child, levels, idx + 1, result);
+        }
+        if (node.singleLevel != null) {
+            collect(node.singleLevel, levels, idx + 1, result);
+        }
+    }
+
+    /**
+     * Splits a topic or a filter in levels, keeping empty ones
+     */
+    static String[] split(final String topic) {
+        return topic.split("/", -1);
+    }
+}
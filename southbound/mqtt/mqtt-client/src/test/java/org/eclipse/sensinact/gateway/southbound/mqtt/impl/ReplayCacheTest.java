@@ -0,0 +1,156 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.mqtt.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.sensinact.gateway.southbound.mqtt.api.IMqttMessage;
+import org.eclipse.sensinact.gateway.southbound.mqtt.impl.ReplayCache.Replay;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the cache of the last message of each topic
+ */
+class ReplayCacheTest {
+
+    private static IMqttMessage message(final String topic, final String payload) {
+        return new SensiNactMqttMessage("test", topic, new MqttMessage(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static TopicTrie<String> filters(final String... filters) {
+        final TopicTrie<String> trie = new TopicTrie<>();
+        for (String filter : filters) {
+            trie.add(filter, filter);
+        }
+        return trie;
+    }
+
+    private static List<String> topics(final List<IMqttMessage> messages) {
+        return messages.stream().map(IMqttMessage::getTopic).toList();
+    }
+
+    @Test
+    void testFilteredReplay() {
+        final ReplayCache cache = new ReplayCache(0, 0);
+        cache.put("devices/a/telemetry", message("devices/a/telemetry", "1"));
+        cache.put("devices/b/telemetry", message("devices/b/telemetry", "2"));
+        cache.put("devices/a/status", message("devices/a/status", "3"));
+
+        assertEquals(List.of("devices/a/telemetry", "devices/b/telemetry"),
+                topics(cache.replay(filters("devices/+/telemetry"))));
+        assertEquals(3, cache.replay(filters("#")).size());
+        assertTrue(cache.replay(filters()).isEmpty());
+    }
+
+    @Test
+    void testLastMessageOnly() {
+        final ReplayCache cache = new ReplayCache(0, 0);
+        cache.put("a", message("a", "1"));
+        cache.put("a", message("a", "22"));
+        assertEquals(1, cache.size());
+        assertEquals(2 + 2, cache.bytes());
+        assertEquals("22", new String(cache.replay(filters("a")).get(0).getPayload(), StandardCharsets.UTF_8));
+
+        // Empty payload clears the topic
+        cache.put("a", message("a", ""));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void testEviction() {
+        final ReplayCache cache = new ReplayCache(2, 0);
+        cache.put("a", message("a", "1"));
+        cache.put("b", message("b", "1"));
+        // Updating a topic makes it the most recent one
+        cache.put("a", message("a", "2"));
+        cache.put("c", message("c", "1"));
+
+        assertEquals(2, cache.size());
+        assertEquals(List.of("a", "c"), topics(cache.replay(filters("#"))));
+    }
+
+    @Test
+    void testExpiry() throws Exception {
+        final ReplayCache cache = new ReplayCache(0, 50);
+        cache.put("a", message("a", "1"));
+        assertEquals(1, cache.replay(filters("#")).size());
+
+        Thread.sleep(100);
+        assertTrue(cache.replay(filters("#")).isEmpty());
+
+        // Expired messages are evicted on the next update
+        cache.put("b", message("b", "1"));
+        assertEquals(List.of("b"), topics(cache.replay(filters("#"))));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testReplayWalksFilters() {
+        final ReplayCache cache = new ReplayCache(3, 0);
+        cache.put("devices", message("devices", "0"));
+        cache.put("devices/a/telemetry", message("devices/a/telemetry", "1"));
+        cache.put("devices/a/status", message("devices/a/status", "2"));
+        cache.put("other/a/telemetry", message("other/a/telemetry", "3"));
+
+        // The first topic was evicted, along with its level
+        assertEquals(List.of("devices/a/telemetry", "devices/a/status"), topics(cache.replay(filters("devices/#"))));
+
+        // Topics matching several filters are given once, in their update order
+        assertEquals(List.of("devices/a/telemetry", "devices/a/status", "other/a/telemetry"),
+                topics(cache.replay(filters("+/a/telemetry", "devices/+/+", "#"))));
+
+        // A multi-level wildcard matches its parent level
+        cache.put("devices", message("devices", "4"));
+        assertEquals(List.of("devices/a/status", "other/a/telemetry", "devices"),
+                topics(cache.replay(filters("devices/#", "other/a/telemetry"))));
+        assertTrue(cache.replay(filters("devices/b/#", "devices/a")).isEmpty());
+    }
+
+    @Test
+    void testReplayOfLastMessage() {
+        final ReplayCache cache = new ReplayCache(1, 0);
+        cache.put("a", message("a", "1"));
+        assertTrue(cache.endReplay(cache.replays(filters("a")).get(0)));
+
+        // Evicting a topic doesn't cancel its replay
+        Replay replay = cache.replays(filters("a")).get(0);
+        cache.put("b", message("b", "1"));
+        assertEquals(List.of("b"), topics(cache.replay(filters("#"))));
+        assertTrue(cache.endReplay(replay));
+
+        // Updated and cleared topics aren't replayed anymore
+        replay = cache.replays(filters("b")).get(0);
+        final Replay other = cache.replays(filters("b")).get(0);
+        cache.put("b", message("b", "2"));
+        assertFalse(cache.endReplay(replay));
+        assertFalse(cache.endReplay(other));
+
+        replay = cache.replays(filters("b")).get(0);
+        cache.put("b", message("b", ""));
+        assertFalse(cache.endReplay(replay));
+
+        // An evicted topic updated again isn't replayed either
+        cache.put("a", message("a", "2"));
+        replay = cache.replays(filters("a")).get(0);
+        cache.put("b", message("b", "3"));
+        cache.put("a", message("a", "3"));
+        assertFalse(cache.endReplay(replay));
+    }
+}
@@ -0,0 +1,87 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.mqtt.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the MQTT topic filters trie
+ */
+class TopicTrieTest {
+
+    @Test
+    void testLiteral() {
+        final TopicTrie<String> trie = new TopicTrie<>();
+        trie.add("a/b", "1");
+        assertEquals(Set.of("1"), trie.match("a/b"));
+        assertTrue(trie.match("a").isEmpty());
+        assertTrue(trie.match("a/b/c").isEmpty());
+        assertTrue(trie.match("a/c").isEmpty());
+    }
+
+    @Test
+    void testSingleLevel() {
+        final TopicTrie<String> trie = new TopicTrie<>();
+        trie.add("devices/+/telemetry", "1");
+        assertTrue(trie.matches("devices/d1/telemetry"));
+        assertTrue(trie.matches("devices//telemetry"));
+        assertFalse(trie.matches("devices/d1/d2/telemetry"));
+        assertFalse(trie.matches("devices/telemetry"));
+    }
+
+    @Test
+    void testMultiLevel() {
+        final TopicTrie<String> trie = new TopicTrie<>();
+        trie.add("sensor/#", "1");
+        assertTrue(trie.matches("sensor"));
+        assertTrue(trie.matches("sensor/a"));
+        assertTrue(trie.matches("sensor/a/b/c"));
+        assertFalse(trie.matches("other/a"));
+
+        final TopicTrie<String> all = new TopicTrie<>();
+        all.add("#", "all");
+        assertTrue(all.matches("any/topic"));
+    }
+
+    @Test
+    void testMergeWithoutDuplicates() {
+        final TopicTrie<String> first = new TopicTrie<>();
+        first.add("a/+", "1");
+        first.add("a/#", "1");
+        final TopicTrie<String> second = new TopicTrie<>();
+        second.add("a/b", "2");
+
+        final TopicTrie<String> trie = new TopicTrie<>();
+        trie.addAll(first);
+        trie.addAll(second);
+        trie.addAll(new TopicTrie<>());
+
+        assertEquals(Set.of("1", "2"), trie.match("a/b"));
+        assertEquals(Set.of("1"), trie.match("a/c"));
+        assertEquals(Set.of("1"), trie.match("a"));
+        assertTrue(trie.match("b").isEmpty());
+    }
+
+    @Test
+    void testEmpty() {
+        final TopicTrie<String> trie = new TopicTrie<>();
+        assertFalse(trie.matches("a"));
+        assertTrue(trie.match("a").isEmpty());
+    }
+}
@@ -27,10 +27,12 @@ import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.eclipse.sensinact.gateway.southbound.mqtt.api.IMqttMessage;
 import org.eclipse.sensinact.gateway.southbound.mqtt.api.IMqttMessageListener;
 import org.eclipse.sensinact.gateway.southbound.mqtt.impl.MqttClientConfiguration;
@@ -242,4 +244,70 @@ public class MqttTest {
         assertEquals(topic, msg2.getTopic());
         assertEquals(content, new String(msg2.getPayload(), StandardCharsets.UTF_8));
     }
+
+    @Test
+    void testReplayWithLiveMessages() throws Exception {
+        MqttClientConfiguration config = Mockito.mock(MqttClientConfiguration.class);
+        Mockito.when(config.id()).thenReturn("replay");
+        Mockito.when(config.host()).thenReturn("127.0.0.1");
+        Mockito.when(config.port()).thenReturn(2183);
+        Mockito.when(config.topics()).thenReturn(new String[] { "sensinact/mqtt/replay/+" });
+        Mockito.when(config.dispatch_threads()).thenReturn(1);
+        Mockito.when(config.dispatch_queue_size()).thenReturn(16);
+        Mockito.when(config.replay_max_entries()).thenReturn(4);
+        MqttClientHandler handler = new MqttClientHandler();
+        handler.activate(config);
+        handlers.add(handler);
+
+        final String prefix = "sensinact/mqtt/replay/";
+        for (String topic : List.of("a", "b", "c")) {
+            handler.messageArrived(prefix + topic, message("1"));
+        }
+
+        // Hold the worker while the replays and live messages are queued
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        handler.addListener((h, topic, msg) -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, Map.of(IMqttMessageListener.MQTT_TOPICS_FILTERS, new String[] { prefix + "block" }));
+        handler.messageArrived(prefix + "block", message("x"));
+        assertTrue(blocked.await(1, TimeUnit.SECONDS));
+
+        final BlockingQueue<String> received = new ArrayBlockingQueue<>(32);
+        handler.addListener((h, topic, msg) -> received
+                .add(topic.substring(prefix.length()) + "=" + new String(msg.getPayload(), StandardCharsets.UTF_8)),
+                Map.of(IMqttMessageListener.MQTT_TOPICS_FILTERS, new String[] { prefix + "+" }));
+
+        // Update and clear topics after their replay was queued, then evict the
+        // oldest one
+        handler.messageArrived(prefix + "a", message("2"));
+        handler.messageArrived(prefix + "b", message(""));
+        handler.messageArrived(prefix + "d", message("1"));
+        handler.messageArrived(prefix + "e", message("1"));
+        release.countDown();
+
+        // Only the updated and cleared topics replays are skipped
+        final List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            final String msg = received.poll(1, TimeUnit.SECONDS);
+            assertNotNull(msg);
+            messages.add(msg);
+        }
+        assertEquals(List.of("c=1", "block=x", "a=2", "b=", "d=1", "e=1"), messages);
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Prepares a message that doesn't need to be acknowledged
+     */
+    private static MqttMessage message(final String payload) {
+        final MqttMessage message = new MqttMessage(payload.getBytes(StandardCharsets.UTF_8));
+        message.setQos(0);
+        return message;
+    }
 }
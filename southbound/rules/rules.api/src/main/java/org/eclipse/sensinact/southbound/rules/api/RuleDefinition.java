@@ -12,6 +12,7 @@
 package org.eclipse.sensinact.southbound.rules.api;
 
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
@@ -20,8 +21,34 @@ public interface RuleDefinition {
 
     public static final String RULE_NAME_PROPERTY = "sensinact.rule.name";
 
+    /**
+     * Service property to set to true for the rule to be given the changed
+     * providers through {@link #evaluateDelta(List, Map, ResourceUpdater)}
+     * rather than being evaluated again against all the providers
+     */
+    public static final String RULE_INCREMENTAL_PROPERTY = "sensinact.rule.incremental";
+
     public ICriterion getInputFilter();
 
     public void evaluate(List<ProviderSnapshot> data, ResourceUpdater updater);
 
+    /**
+     * Evaluates an incremental rule, i.e. registered with the
+     * {@link #RULE_INCREMENTAL_PROPERTY} set to true, after the data of some
+     * providers changed.
+     * This is called instead of {@link #evaluate(List, ResourceUpdater)} once the
+     * rule has been evaluated against a full snapshot.
+     * <p>
+     * The default implementation evaluates the rule against the whole view.
+     *
+     * @param changed the changed providers. Those which no longer match the input
+     *                filter are not present in the view
+     * @param view    the current data of all the providers matching the input
+     *                filter, by provider name
+     * @param updater the resource updater
+     */
+    public default void evaluateDelta(List<ProviderSnapshot> changed, Map<String, ProviderSnapshot> view,
+            ResourceUpdater updater) {
+        evaluate(List.copyOf(view.values()), updater);
+    }
 }
@@ -0,0 +1,281 @@
+/*********************************************************************
+ * Copyright (c) 2025 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors: Kentyou - initial implementation
+ **********************************************************************/
+package org.eclipse.sensinact.southbound.rules.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+
+import org.eclipse.sensinact.core.model.ResourceType;
+import org.eclipse.sensinact.core.model.ValueType;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.LinkedProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.snapshot.Snapshot;
+import org.eclipse.sensinact.core.twin.DefaultTimedValue;
+import org.eclipse.sensinact.core.twin.TimedValue;
+
+/**
+ * Applies data notifications to provider snapshots without going through the
+ * gateway thread. The patched snapshots copy the structure of the original ones,
+ * so that each service and resource refers to its patched parent, and delegate
+ * to them for everything but the updated resource. Patching an already patched
+ * snapshot delegates to the original snapshot, so that successive events don't
+ * stack up delegates.
+ */
+final class PatchedSnapshots {
+
+    private PatchedSnapshots() {
+    }
+
+    /**
+     * Returns a copy of the provider snapshot with the value and metadata of the
+     * notification. The provider, service and resource filters of the criterion
+     * are applied again to the copy, as the gateway would do.
+     *
+     * @param provider  the provider snapshot, which must contain the resource
+     * @param event     the data notification
+     * @param criterion the criterion of the snapshot
+     * @return the patched snapshot, or <code>null</code> if it doesn't match the
+     *         criterion anymore
+     */
+    static ProviderSnapshot patch(ProviderSnapshot provider, ResourceDataNotification event, ICriterion criterion) {
+        Predicate<ServiceSnapshot> serviceFilter = criterion.getServiceFilter();
+        Predicate<ResourceSnapshot> resourceFilter = criterion.getResourceFilter();
+
+        PatchedProvider patched = new PatchedProvider(provider, Instant.now());
+        List<ServiceSnapshot> services = new ArrayList<>();
+        for (ServiceSnapshot service : provider.getServices()) {
+            PatchedService patchedService = patchService(patched, service, event, resourceFilter);
+            if (!patchedService.resources.isEmpty()
+                    && (serviceFilter == null || serviceFilter.test(patchedService))) {
+                services.add(patchedService);
+            }
+        }
+        patched.services = services;
+
+        Predicate<ProviderSnapshot> providerFilter = criterion.getProviderFilter();
+        if (services.isEmpty() || (providerFilter != null && !providerFilter.test(patched))) {
+            return null;
+        }
+        return patched;
+    }
+
+    /**
+     * Returns the snapshot a patched snapshot delegates to
+     *
+     * @param snapshot a provider, service or resource snapshot
+     * @return the original snapshot, or the given one if it isn't patched
+     */
+    static Snapshot original(Snapshot snapshot) {
+        if (snapshot instanceof PatchedProvider p) {
+            return p.delegate;
+        } else if (snapshot instanceof PatchedService s) {
+            return s.delegate;
+        } else if (snapshot instanceof PatchedResource r) {
+            return r.delegate;
+        }
+        return snapshot;
+    }
+
+    private static PatchedService patchService(ProviderSnapshot provider, ServiceSnapshot service,
+            ResourceDataNotification event, Predicate<ResourceSnapshot> resourceFilter) {
+        boolean updated = service.getName().equals(event.service());
+        PatchedService patched = new PatchedService(provider, service);
+        List<ResourceSnapshot> resources = new ArrayList<>();
+        for (ResourceSnapshot resource : service.getResources()) {
+            PatchedResource patchedResource;
+            if (updated && resource.getName().equals(event.resource())) {
+                patchedResource = new PatchedResource(patched, resource,
+                        new DefaultTimedValue<>(event.newValue(), event.timestamp()),
+                        event.metadata() == null ? resource.getMetadata() : event.metadata());
+            } else {
+                patchedResource = new PatchedResource(patched, resource, resource.getValue(),
+                        resource.getMetadata());
+            }
+            if (resourceFilter == null || resourceFilter.test(patchedResource)) {
+                resources.add(patchedResource);
+            }
+        }
+        patched.resources = resources;
+        return patched;
+    }
+
+    private static final class PatchedProvider implements ProviderSnapshot {
+
+        private final ProviderSnapshot delegate;
+        private final Instant snapshotTime;
+        private List<ServiceSnapshot> services;
+
+        PatchedProvider(ProviderSnapshot delegate, Instant snapshotTime) {
+            this.delegate = (ProviderSnapshot) original(delegate);
+            this.snapshotTime = snapshotTime;
+        }
+
+        @Override
+        public String getModelPackageUri() {
+            return delegate.getModelPackageUri();
+        }
+
+        @Override
+        public String getModelName() {
+            return delegate.getModelName();
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Instant getSnapshotTime() {
+            return snapshotTime;
+        }
+
+        @Override
+        public List<ServiceSnapshot> getServices() {
+            return services;
+        }
+
+        @Override
+        public ServiceSnapshot getService(String name) {
+            return services.stream().filter(s -> s.getName().equals(name)).findFirst().orElse(null);
+        }
+
+        @Override
+        public ResourceSnapshot getResource(String service, String resource) {
+            ServiceSnapshot s = getService(service);
+            return s == null ? null : s.getResource(resource);
+        }
+
+        @Override
+        public List<LinkedProviderSnapshot> getLinkedProviders() {
+            return delegate.getLinkedProviders();
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    private static final class PatchedService implements ServiceSnapshot {
+
+        private final ProviderSnapshot provider;
+        private final ServiceSnapshot delegate;
+        private List<ResourceSnapshot> resources;
+
+        PatchedService(ProviderSnapshot provider, ServiceSnapshot delegate) {
+            this.provider = provider;
+            this.delegate = (ServiceSnapshot) original(delegate);
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Instant getSnapshotTime() {
+            return provider.getSnapshotTime();
+        }
+
+        @Override
+        public ProviderSnapshot getProvider() {
+            return provider;
+        }
+
+        @Override
+        public List<ResourceSnapshot> getResources() {
+            return resources;
+        }
+
+        @Override
+        public ResourceSnapshot getResource(String name) {
+            return resources.stream().filter(r -> r.getName().equals(name)).findFirst().orElse(null);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    private record PatchedResource(ServiceSnapshot service, ResourceSnapshot delegate, TimedValue<?> value,
+            Map<String, Object> metadata) implements ResourceSnapshot {
+
+        PatchedResource {
+            delegate = (ResourceSnapshot) original(delegate);
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Instant getSnapshotTime() {
+            return service.getSnapshotTime();
+        }
+
+        @Override
+        public ServiceSnapshot getService() {
+            return service;
+        }
+
+        @Override
+        public boolean isSet() {
+            return value != null && value.getTimestamp() != null;
+        }
+
+        @Override
+        public boolean isMultiple() {
+            return delegate.isMultiple();
+        }
+
+        @Override
+        public Class<?> getType() {
+            return delegate.getType();
+        }
+
+        @Override
+        public TimedValue<?> getValue() {
+            return value;
+        }
+
+        @Override
+        public Map<String, Object> getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public ResourceType getResourceType() {
+            return delegate.getResourceType();
+        }
+
+        @Override
+        public List<Entry<String, Class<?>>> getArguments() {
+            return delegate.getArguments();
+        }
+
+        @Override
+        public ValueType getValueType() {
+            return delegate.getValueType();
+        }
+    }
+}
@@ -13,12 +13,17 @@ package org.eclipse.sensinact.southbound.rules.impl;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
+import static org.eclipse.sensinact.southbound.rules.api.RuleDefinition.RULE_INCREMENTAL_PROPERTY;
 import static org.eclipse.sensinact.southbound.rules.api.RuleDefinition.RULE_NAME_PROPERTY;
 
 import java.time.Instant;
 import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,6 +38,7 @@ import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
 import org.eclipse.sensinact.core.command.GatewayThread;
 import org.eclipse.sensinact.core.metrics.IMetricMeter;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricTimerHandle;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.model.SensinactModelManager;
 import org.eclipse.sensinact.core.notification.ResourceDataNotification;
@@ -42,6 +48,7 @@ import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
+import org.eclipse.sensinact.core.twin.SensinactDigitalTwin.SnapshotOption;
 import org.eclipse.sensinact.core.twin.TimedValue;
 import org.eclipse.sensinact.southbound.rules.api.ResourceUpdater;
 import org.eclipse.sensinact.southbound.rules.api.RuleDefinition;
@@ -59,10 +66,10 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
     private static Logger LOG = LoggerFactory.getLogger(RuleProcessor.class);
 
     private final GatewayThread gateway;
-    private final IMetricsManager metrics;
     private final PromiseFactory promiseFactory;
     private final ResourceUpdater updater;
     private final RuleDefinition rd;
+    private final boolean incremental;
 
     private final ICriterion criterion;
     private final Predicate<ResourceDataNotification> filter;
@@ -70,7 +77,7 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
 
     private final IMetricMeter eventDelivery;
     private final IMetricMeter eventRejection;
-    private final String timerName;
+    private final IMetricTimerHandle executionTimer;
 
     private final ServiceRegistration<?> reg;
 
@@ -80,16 +87,21 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
     private boolean working = true;
     private boolean closed;
     private Deque<ResourceDataNotification> unchecked = new ArrayDeque<>(128);
-    private Map<String, ProviderSnapshot> map = Map.of();
+    private Map<String, ProviderSnapshot> map = new LinkedHashMap<>();
+    /**
+     * Providers changed since the last evaluation
+     */
+    private Map<String, ProviderSnapshot> pendingChanges = new LinkedHashMap<>();
 
     public RuleProcessor(BundleContext context, GatewayThread gateway,
             IMetricsManager metrics, PromiseFactory promiseFactory, ResourceUpdater updater,
             RuleDefinition rd, Map<String, Object> properties) {
         this.gateway = gateway;
-        this.metrics = metrics;
         this.promiseFactory = promiseFactory;
         this.updater = updater;
         this.rd = rd;
+        this.incremental = Boolean.parseBoolean(
+                String.valueOf(properties.getOrDefault(RULE_INCREMENTAL_PROPERTY, "false")));
 
         this.criterion = rd.getInputFilter();
         this.filter = criterion.dataEventFilter();
@@ -98,7 +110,7 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
         String sanitizedMetricPrefix = "sensinact.rules." + ruleName.replaceAll("\\s", "_");
         this.eventDelivery = metrics.getMeter(sanitizedMetricPrefix + ".delivery");
         this.eventRejection = metrics.getMeter(sanitizedMetricPrefix + ".rejection");
-        this.timerName = sanitizedMetricPrefix + ".execution";
+        this.executionTimer = metrics.getTimer(sanitizedMetricPrefix + ".execution");
 
         List<String> dataTopics = Optional.ofNullable(criterion.dataTopics())
                 .map(l -> l.stream().filter(Objects::nonNull).map(TopicUtils::escapeTopicFilter).toList())
@@ -107,7 +119,7 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
         reg = context.registerService(TypedEventHandler.class, this,
                 new Hashtable<>(Map.of(TypedEventConstants.TYPED_EVENT_TOPICS, dataTopics)));
 
-        updateSnapshot(1);
+        updateSnapshot(null, 1);
     }
 
     @Override
@@ -118,27 +130,22 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
                 if(LOG.isDebugEnabled()) {
                     LOG.debug("Rule {} received data event on topic {}", ruleName, topic);
                 }
-                boolean triggerUpdate;
+                boolean schedule = false;
                 synchronized (lock) {
                     // If we're currently working then add the event to be checked later
                     if(closed) {
-                        triggerUpdate = false;
+                        // Ignore the event
                     } else if(working) {
                         unchecked.add(event);
-                        triggerUpdate = false;
-                    } else {
-                        working = checkEventAgainstSnapshot(event);
-                        triggerUpdate = working;
-                        if(triggerUpdate) {
-                            unchecked.clear();
-                        }
+                    } else if(checkEventAgainstSnapshot(event)) {
+                        unchecked.add(event);
+                        working = true;
+                        schedule = true;
                     }
                 }
-                if(triggerUpdate) {
-                    if(LOG.isDebugEnabled()) {
-                        LOG.debug("Updating snapshot data for rule", ruleName);
-                    }
-                    updateSnapshot(1);
+                if(schedule) {
+                    // Always use our workers, don't block the event delivery
+                    promiseFactory.executor().execute(this::processEvents);
                 }
             } else {
                 eventRejection.mark();
@@ -195,66 +202,165 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
                 .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
     }
 
-    private void updateSnapshot(int attempt) {
+    /**
+     * Applies the pending events to the snapshot and evaluates the rule against
+     * the changed providers. Events which can't be applied in place trigger a
+     * new snapshot of their providers. Must only be called while working.
+     */
+    private void processEvents() {
+        while(true) {
+            Set<String> refresh = new HashSet<>();
+            Map<String, ProviderSnapshot> changed;
+            Map<String, ProviderSnapshot> view;
+            synchronized (lock) {
+                if(closed) {
+                    return;
+                }
+                while(!unchecked.isEmpty()) {
+                    ResourceDataNotification event = unchecked.pollFirst();
+                    if(!refresh.contains(event.provider()) && checkEventAgainstSnapshot(event)
+                            && !applyEvent(event)) {
+                        refresh.add(event.provider());
+                    }
+                }
+                if(!refresh.isEmpty()) {
+                    changed = null;
+                    view = null;
+                } else if(pendingChanges.isEmpty()) {
+                    working = false;
+                    return;
+                } else {
+                    changed = pendingChanges;
+                    pendingChanges = new LinkedHashMap<>();
+                    // The map keeps changing while the rule is evaluated
+                    view = Collections.unmodifiableMap(new LinkedHashMap<>(map));
+                }
+            }
+
+            if(!refresh.isEmpty()) {
+                if(LOG.isDebugEnabled()) {
+                    LOG.debug("Updating snapshot data of providers {} for rule {}", refresh, ruleName);
+                }
+                // Processing resumes once the snapshot is done
+                updateSnapshot(refresh, 1);
+                return;
+            }
+
+            try(IMetricTimer timer = executionTimer.start()) {
+                if(incremental) {
+                    rd.evaluateDelta(List.copyOf(changed.values()), view, updater);
+                } else {
+                    rd.evaluate(List.copyOf(view.values()), updater);
+                }
+            } catch(Throwable t) {
+                LOG.error("An error occurred executing the rule {}", ruleName, t);
+            }
+        }
+    }
+
+    /**
+     * Must be called while synchronized on {@link #lock}
+     * @param event
+     * @return false if the event can't be applied to the snapshot
+     */
+    private boolean applyEvent(ResourceDataNotification event) {
+        ProviderSnapshot p = map.get(event.provider());
+        if(p == null || p.getResource(event.service(), event.resource()) == null) {
+            // New provider or resource
+            return false;
+        }
+        if(criterion.getLocationFilter() != null && "admin".equals(event.service())
+                && "location".equals(event.resource())) {
+            // The location filter is applied by the gateway
+            return false;
+        }
+
+        ProviderSnapshot patched = PatchedSnapshots.patch(p, event, criterion);
+        if(patched != null && matchesValueFilter(patched)) {
+            map.put(p.getName(), patched);
+        } else {
+            map.remove(p.getName());
+        }
+        pendingChanges.put(p.getName(), patched != null ? patched : p);
+        return true;
+    }
+
+    private boolean matchesValueFilter(ProviderSnapshot p) {
+        ResourceValueFilter rvf = criterion.getResourceValueFilter();
+        return rvf == null || rvf.test(p, p.getServices().stream()
+                .flatMap(s -> s.getResources().stream())
+                .collect(toList()));
+    }
+
+    /**
+     * Takes a snapshot of the providers matching the rule filter
+     *
+     * @param providers the names of the providers to update, null to update all
+     *                  of them
+     * @param attempt
+     */
+    private void updateSnapshot(Set<String> providers, int attempt) {
+        Predicate<ProviderSnapshot> providerFilter = criterion.getProviderFilter();
+        if(providers != null) {
+            Predicate<ProviderSnapshot> named = p -> providers.contains(p.getName());
+            providerFilter = providerFilter == null ? named : named.and(providerFilter);
+        }
+        Predicate<ProviderSnapshot> pf = providerFilter;
         // Always use our workers, don't steal the gateway thread
         promiseFactory.resolvedWith(gateway.execute(new AbstractSensinactCommand<List<ProviderSnapshot>>() {
             @Override
             protected Promise<List<ProviderSnapshot>> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
                     PromiseFactory promiseFactory) {
-                return promiseFactory.resolved(twin.filteredSnapshot(criterion.getLocationFilter(), criterion.getProviderFilter(),
-                        criterion.getServiceFilter(), criterion.getResourceFilter()));
+                return promiseFactory.resolved(twin.filteredSnapshot(criterion.getLocationEnvelope(),
+                        criterion.getLocationFilter(), pf, criterion.getServiceFilter(), criterion.getResourceFilter(),
+                        EnumSet.noneOf(SnapshotOption.class)));
             }
-        })).thenAccept(this::snapshotUpdate)
-        .onFailure(t -> snapshotUpdateFailed(t, attempt));
+        })).thenAccept(l -> snapshotUpdate(providers, l))
+        .onFailure(t -> snapshotUpdateFailed(providers, t, attempt));
     }
 
-    private void snapshotUpdate(List<ProviderSnapshot> fromGateway) {
-        ResourceValueFilter rvf = criterion.getResourceValueFilter();
+    private void snapshotUpdate(Set<String> providers, List<ProviderSnapshot> fromGateway) {
         List<ProviderSnapshot> list = fromGateway.stream()
-                .filter(p -> rvf == null || rvf.test(p, p.getServices().stream()
-                    .flatMap(s -> s.getResources().stream())
-                    .collect(toList())))
+                .filter(this::matchesValueFilter)
                 .collect(toList());
-        Map<String, ProviderSnapshot> map = list.stream()
-                .collect(toMap(ProviderSnapshot::getName, Function.identity()));
+        Map<String, ProviderSnapshot> updated = list.stream()
+                .collect(toMap(ProviderSnapshot::getName, Function.identity(), (a, b) -> a, LinkedHashMap::new));
 
         synchronized (lock) {
             if(closed) {
                 return;
             }
-            this.map = map;
-        }
-
-        try(IMetricTimer timer = metrics.withTimer(timerName)) {
-            rd.evaluate(list, updater);
-        } catch(Throwable t) {
-            LOG.error("An error occurred executing the rule {}", ruleName, t);
-        }
-
-        boolean triggerUpdate = false;
-        synchronized (lock) {
-            working = false;
-            while(!unchecked.isEmpty()) {
-                // Check the latest first as its the most likely to trigger an update
-                working = checkEventAgainstSnapshot(unchecked.pollLast());
-                if(working) {
-                    triggerUpdate = true;
-                    unchecked.clear();
+            if(providers == null) {
+                this.map = updated;
+                pendingChanges.clear();
+            } else {
+                for(String name : providers) {
+                    ProviderSnapshot current = updated.get(name);
+                    ProviderSnapshot previous = current == null ? map.remove(name) : map.put(name, current);
+                    if(current != null || previous != null) {
+                        pendingChanges.put(name, current != null ? current : previous);
+                    }
                 }
             }
-            if(closed) {
-                triggerUpdate = false;
-            }
         }
-        if(triggerUpdate) {
-            updateSnapshot(1);
+
+        if(providers == null) {
+            try(IMetricTimer timer = executionTimer.start()) {
+                rd.evaluate(list, updater);
+            } catch(Throwable t) {
+                LOG.error("An error occurred executing the rule {}", ruleName, t);
+            }
         }
+
+        // Apply the events received meanwhile and evaluate the changes
+        processEvents();
     }
 
-    private void snapshotUpdateFailed(Throwable t, int attempt) {
+    private void snapshotUpdateFailed(Set<String> providers, Throwable t, int attempt) {
         if(attempt >=6) {
-            LOG.error("Failed to update the provider snapshots for rule {}. Abandoning this rule");
+            LOG.error("Failed to update the provider snapshots for rule {}. Abandoning this rule", ruleName, t);
             close();
+            return;
         }
 
         LOG.error("Failed to update the provider snapshots for rule {}. Retrying", ruleName, t);
@@ -262,16 +368,19 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
             if(closed) {
                 return;
             }
-            // Clear any pending checks as we're updating again anyway
-            unchecked.clear();
+            if(providers == null) {
+                // Clear any pending checks as we're updating everything again anyway
+                unchecked.clear();
+            }
         }
-        updateSnapshot(attempt + 1);
+        updateSnapshot(providers, attempt + 1);
     }
 
     public void close() {
         synchronized (lock) {
             closed = true;
             unchecked.clear();
+            pendingChanges.clear();
             map = Map.of();
         }
         try {
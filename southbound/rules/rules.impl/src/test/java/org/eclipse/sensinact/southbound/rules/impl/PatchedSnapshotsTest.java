@@ -0,0 +1,76 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.southbound.rules.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the snapshots patched from data notifications
+ */
+class PatchedSnapshotsTest {
+
+    @Test
+    void testRepeatedPatchesDontStackDelegates() {
+        ResourceSnapshot value = mock(ResourceSnapshot.class);
+        when(value.getName()).thenReturn("value");
+        when(value.getMetadata()).thenReturn(Map.of());
+        ResourceSnapshot other = mock(ResourceSnapshot.class);
+        when(other.getName()).thenReturn("other");
+        when(other.getMetadata()).thenReturn(Map.of());
+
+        ServiceSnapshot service = mock(ServiceSnapshot.class);
+        when(service.getName()).thenReturn("data");
+        when(service.getResources()).thenReturn(List.of(value, other));
+
+        ProviderSnapshot provider = mock(ProviderSnapshot.class);
+        when(provider.getName()).thenReturn("provider");
+        when(provider.getServices()).thenReturn(List.of(service));
+
+        ICriterion criterion = mock(ICriterion.class);
+
+        ProviderSnapshot patched = provider;
+        for (int i = 0; i < 5000; i++) {
+            ResourceDataNotification event = new ResourceDataNotification(null, "model", "provider", "data",
+                    "value", i - 1, i, Instant.now(), Integer.class, null);
+            patched = PatchedSnapshots.patch(patched, event, criterion);
+            assertNotNull(patched);
+        }
+
+        assertSame(provider, PatchedSnapshots.original(patched));
+        assertEquals("provider", patched.getName());
+
+        ServiceSnapshot patchedService = patched.getService("data");
+        assertSame(service, PatchedSnapshots.original(patchedService));
+        assertSame(patched, patchedService.getProvider());
+
+        ResourceSnapshot patchedValue = patched.getResource("data", "value");
+        assertSame(value, PatchedSnapshots.original(patchedValue));
+        assertEquals(4999, patchedValue.getValue().getValue());
+        assertSame(other, PatchedSnapshots.original(patched.getResource("data", "other")));
+    }
+}
@@ -162,6 +162,44 @@ public class RulesWhiteboardIntegrationTest {
         Mockito.verify(rule, Mockito.after(500)).evaluate(Mockito.anyList(), Mockito.any());
     }
 
+    @Test
+    void testIncremental(@InjectBundleContext BundleContext bc) throws Exception {
+
+        RuleDefinition rule = Mockito.mock(RuleDefinition.class);
+
+        ICriterion criterion = Mockito.mock(ICriterion.class, Mockito.CALLS_REAL_METHODS);
+
+        Mockito.when(rule.getInputFilter()).thenReturn(criterion);
+
+        Mockito.when(criterion.getProviderFilter()).thenReturn(p -> p.getName().startsWith("Temp"));
+
+        bc.registerService(RuleDefinition.class, rule, new Hashtable<>(Map.of(Constants.SERVICE_ID, 5,
+                RuleDefinition.RULE_NAME_PROPERTY, "test", RuleDefinition.RULE_INCREMENTAL_PROPERTY, true)));
+
+        // Initial evaluation with everything
+        Mockito.verify(rule, Mockito.after(500)).evaluate(Mockito.argThat(hasProviders("Temp1", "Temp2", "Temp3")),
+                Mockito.notNull());
+
+        push.pushUpdate(makeRc("temperature", "Temp1", "sensor", "temperature", 12)).getValue();
+
+        // Only the changed provider is given, with the full view
+        Mockito.verify(rule, Mockito.timeout(500)).evaluateDelta(Mockito.argThat(hasProviders("Temp1")),
+                Mockito.argThat(m -> m.keySet().equals(Set.of("Temp1", "Temp2", "Temp3"))
+                        && Integer.valueOf(12).equals(m.get("Temp1").getResource("sensor", "temperature")
+                                .getValue().getValue())),
+                Mockito.notNull());
+
+        push.pushUpdate(makeRc("temperature", "Temp4", "sensor", "temperature", 30)).getValue();
+
+        // New providers are snapshot and given as changed
+        Mockito.verify(rule, Mockito.timeout(500)).evaluateDelta(Mockito.argThat(hasProviders("Temp4")),
+                Mockito.argThat(m -> m.keySet().equals(Set.of("Temp1", "Temp2", "Temp3", "Temp4"))),
+                Mockito.notNull());
+
+        // Never evaluated in full again
+        Mockito.verify(rule, Mockito.after(500)).evaluate(Mockito.anyList(), Mockito.any());
+    }
+
     @Test
     void testGettingStuck(@InjectBundleContext BundleContext bc) throws Exception {
 